@@ -41,6 +41,7 @@ import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.BlobContainerProperties;
 import com.microsoft.azure.storage.blob.BlobProperties;
 import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.BlobType;
 import com.microsoft.azure.storage.blob.CloudBlob;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
 
@@ -58,6 +59,14 @@ public class AzureAttributesFinderFeature implements AttributesFinder {
         this.context = context;
     }
 
+    /**
+     * @param attributes Attributes of blob
+     * @return True if blob is of type append blob. False if block blob or blob type is not known
+     */
+    public static boolean isAppendBlob(final PathAttributes attributes) {
+        return StringUtils.equals(BlobType.APPEND_BLOB.name(), attributes.getCustom().get(KEY_BLOB_TYPE));
+    }
+
     @Override
     public PathAttributes find(final Path file) throws BackgroundException {
         if(file.isRoot()) {
@@ -0,0 +1,451 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
+import ch.cyberduck.core.DirectoryDelimiterPathContainerService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.StreamCopier;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.io.ThrottledInputStream;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.shared.DefaultUploadFeature;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.PartScheduler;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.log4j.Logger;
+import org.bouncycastle.util.encoders.Base64;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+
+/**
+ * Upload block blob by staging blocks concurrently with Put Block and committing the list of blocks with Put Block
+ * List. Blocks staged but not yet committed are kept by the service for a week and are skipped when resuming the
+ * upload.
+ */
+public class AzureLargeUploadService implements Upload<Void> {
+    private static final Logger log = Logger.getLogger(AzureLargeUploadService.class);
+
+    /**
+     * Maximum number of blocks in a block blob
+     */
+    public static final int MAXIMUM_UPLOAD_PARTS = 50000;
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    /**
+     * Bytes available for block buffers shared by all uploads
+     */
+    private static final int total = (int) Math.min(Integer.MAX_VALUE,
+        PreferencesFactory.get().getLong("azure.upload.largeobject.buffer.total"));
+    private static final Semaphore memory = new Semaphore(total);
+
+    private final PathContainerService containerService
+        = new DirectoryDelimiterPathContainerService();
+
+    private final AzureSession session;
+    private final OperationContext context;
+
+    private Write<Void> writer;
+
+    private final Long partsize;
+    private final Integer concurrency;
+
+    public AzureLargeUploadService(final AzureSession session, final OperationContext context, final Write<Void> writer) {
+        this(session, context, writer, PreferencesFactory.get().getLong("azure.upload.largeobject.size"),
+            PreferencesFactory.get().getInteger("azure.upload.largeobject.concurrency"));
+    }
+
+    public AzureLargeUploadService(final AzureSession session, final OperationContext context, final Write<Void> writer,
+                                   final Long partsize, final Integer concurrency) {
+        this.session = session;
+        this.context = context;
+        this.writer = writer;
+        this.partsize = partsize;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        final String prefix = this.prefix(length);
+        final long blocksize = this.blocksize(length);
+        long staged = 0L;
+        for(BlockEntry block : this.list(file).values()) {
+            final String id = this.decode(block.getId());
+            if(id.startsWith(prefix)) {
+                final int number;
+                try {
+                    number = Integer.parseInt(id.substring(prefix.length()));
+                }
+                catch(NumberFormatException e) {
+                    log.warn(String.format("Ignore block %s with unknown identifier", id));
+                    continue;
+                }
+                // Only count blocks skipped when resuming upload
+                if(number > 0 && block.getSize() == this.length(length, blocksize, number)) {
+                    staged += block.getSize();
+                }
+                else {
+                    log.warn(String.format("Ignore block %s with size %d", id, block.getSize()));
+                }
+            }
+        }
+        if(staged > 0L) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Found %d bytes in uncommitted blocks for %s", staged, file));
+            }
+            return new Write.Append(staged);
+        }
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Void upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                       final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        if(!(writer instanceof AzureWriteFeature)) {
+            // Blocks are staged from the local file without passing through the writer such as for encryption
+            log.warn(String.format("Use single upload with writer %s for %s", writer, file));
+            return new DefaultUploadFeature<>(writer).upload(file, local, throttle, listener, status, callback);
+        }
+        final PartScheduler.Pool pool = PartScheduler.open(status, concurrency);
+        // Buffers for block contents reused by upload threads
+        final BlockBuffers buffers = new BlockBuffers();
+        try {
+            final CloudBlockBlob blob = session.getClient().getContainerReference(containerService.getContainer(file).getName())
+                .getBlockBlobReference(containerService.getKey(file));
+            // Full size of file
+            final long size = status.getLength() + status.getOffset();
+            final Map<String, BlockEntry> staged = status.isAppend() ? this.list(file) : new HashMap<>();
+            if(status.isExists() && !status.isAppend()) {
+                if(preferences.getBoolean("azure.upload.snapshot")) {
+                    session.getClient().getContainerReference(containerService.getContainer(file).getName())
+                        .getBlobReferenceFromServer(containerService.getKey(file)).createSnapshot();
+                }
+            }
+            final BlobRequestOptions options = new BlobRequestOptions();
+            options.setConcurrentRequestCount(1);
+            options.setStoreBlobContentMD5(preferences.getBoolean("azure.upload.md5"));
+            final List<BlockEntry> blocks = new ArrayList<>();
+            final List<Future<BlockEntry>> futures = new ArrayList<>();
+            final long blocksize = this.blocksize(size);
+            long offset = 0;
+            for(int number = 1; offset < size; number++) {
+                final long length = this.length(size, blocksize, number);
+                final String id = this.encode(String.format("%s%05d", this.prefix(size), number));
+                // Block list in order of block number
+                blocks.add(new BlockEntry(id));
+                final BlockEntry block = staged.get(id);
+                if(null != block && block.getSize() == length) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Skip staged block number %d", number));
+                    }
+                }
+                else {
+                    // Submit to queue
+                    futures.add(this.submit(pool, blob, file, local, throttle, listener, status, options, id, number, offset, length, buffers));
+                }
+                offset += length;
+            }
+            for(Future<BlockEntry> future : futures) {
+                try {
+                    future.get();
+                }
+                catch(InterruptedException e) {
+                    log.error("Block upload failed with interrupt failure");
+                    status.setCanceled();
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    log.warn(String.format("Block upload failed with execution failure %s", e.getMessage()));
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
+            }
+            new AzureWriteFeature(session, context).properties(blob, status);
+            blob.commitBlockList(blocks, AccessCondition.generateEmptyCondition(), options, context);
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Committed %d blocks for %s", blocks.size(), file));
+            }
+            // Mark parent status as complete
+            status.setComplete();
+            return null;
+        }
+        catch(StorageException e) {
+            throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+        catch(URISyntaxException e) {
+            throw new NotfoundException(e.getMessage(), e);
+        }
+        finally {
+            // Cancel future tasks
+            pool.shutdown(false);
+            buffers.close();
+        }
+    }
+
+    private Future<BlockEntry> submit(final PartScheduler.Pool pool, final CloudBlockBlob blob, final Path file, final Local local,
+                                      final BandwidthThrottle throttle, final StreamListener listener,
+                                      final TransferStatus overall, final BlobRequestOptions options,
+                                      final String id, final int number, final long offset, final long length,
+                                      final BlockBuffers buffers) {
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Submit block %d of %s to queue with offset %d and length %d", number, file, offset, length));
+        }
+        return pool.execute(length, new DefaultRetryCallable<>(session.getHost(), new BackgroundExceptionCallable<BlockEntry>() {
+            @Override
+            public BlockEntry call() throws BackgroundException {
+                overall.validate();
+                final byte[] contents = buffers.acquire((int) length);
+                try {
+                    read(local, contents, offset, (int) length);
+                }
+                catch(BackgroundException e) {
+                    buffers.release(contents);
+                    throw e;
+                }
+                // Bytes sent with this attempt
+                final AtomicLong sent = new AtomicLong();
+                try {
+                    final InputStream in = new ProxyInputStream(new ThrottledInputStream(
+                        new ByteArrayInputStream(contents, 0, (int) length), throttle)) {
+                        @Override
+                        protected void afterRead(final int n) {
+                            if(n > 0) {
+                                sent.addAndGet(n);
+                                listener.sent(n);
+                                overall.progress(n);
+                            }
+                        }
+                    };
+                    try {
+                        blob.uploadBlock(id, in, length, AccessCondition.generateEmptyCondition(), options, context);
+                    }
+                    catch(StorageException e) {
+                        throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+                    }
+                    catch(IOException e) {
+                        throw new DefaultIOExceptionMappingService().map(e);
+                    }
+                }
+                catch(BackgroundException e) {
+                    // Discard progress of failed attempt as block is sent again on retry
+                    listener.sent(-sent.get());
+                    overall.progress(-sent.get());
+                    throw e;
+                }
+                finally {
+                    buffers.release(contents);
+                }
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Staged block number %d for %s", number, file));
+                }
+                return new BlockEntry(id);
+            }
+        }, overall));
+    }
+
+    /**
+     * @return Uncommitted blocks by identifier
+     */
+    protected Map<String, BlockEntry> list(final Path file) throws BackgroundException {
+        final Map<String, BlockEntry> blocks = new HashMap<>();
+        try {
+            final CloudBlockBlob blob = session.getClient().getContainerReference(containerService.getContainer(file).getName())
+                .getBlockBlobReference(containerService.getKey(file));
+            for(BlockEntry block : blob.downloadBlockList(BlockListingFilter.UNCOMMITTED,
+                AccessCondition.generateEmptyCondition(), new BlobRequestOptions(), context)) {
+                blocks.put(block.getId(), block);
+            }
+            return blocks;
+        }
+        catch(StorageException e) {
+            if(404 == e.getHttpStatusCode()) {
+                // No blocks staged
+                return blocks;
+            }
+            throw new AzureExceptionMappingService().map("Upload {0} failed", e, file);
+        }
+        catch(URISyntaxException e) {
+            throw new NotfoundException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Block size must be the same for all blocks to resume with block identifiers
+     *
+     * @param size Length of file
+     */
+    private long blocksize(final long size) {
+        return Math.max(size / (MAXIMUM_UPLOAD_PARTS - 1) + 1, partsize);
+    }
+
+    /**
+     * @param size      Length of file
+     * @param blocksize Size of all but the last block
+     * @param number    Block number starting with 1
+     * @return Length of block with given number or 0 if beyond end of file
+     */
+    private long length(final long size, final long blocksize, final int number) {
+        return Math.max(0L, Math.min(blocksize, size - (number - 1) * blocksize));
+    }
+
+    /**
+     * Block identifiers include the size of the file to not mix with blocks staged for a different file
+     */
+    private String prefix(final long size) {
+        return String.format("%016x-", size);
+    }
+
+    /**
+     * Block identifiers must be of the same length for all blocks of a blob
+     */
+    private String encode(final String id) {
+        return Base64.toBase64String(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String decode(final String id) {
+        return new String(Base64.decode(id), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read block of file into buffer
+     *
+     * @param local    File
+     * @param contents Buffer for block contents starting at index 0
+     * @param offset   Offset in file
+     * @param length   Length of block
+     */
+    private static void read(final Local local, final byte[] contents, final long offset, final int length) throws BackgroundException {
+        final InputStream in = local.getInputStream();
+        try {
+            // Skip to offset of block
+            StreamCopier.skip(in, offset);
+            IOUtils.readFully(in, contents, 0, length);
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map(e);
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    @Override
+    public Upload<Void> withWriter(final Write<Void> writer) {
+        this.writer = writer;
+        return this;
+    }
+
+    /**
+     * Buffers for block contents of a single upload reused by upload threads. The total size of buffers allocated by
+     * all uploads is limited with blocks waiting for buffers of other blocks to be freed.
+     */
+    private static final class BlockBuffers {
+        private final Deque<byte[]> available = new ArrayDeque<>();
+        private boolean closed;
+
+        /**
+         * @param length Minimum size of buffer
+         * @return Buffer once memory is available
+         */
+        public byte[] acquire(final int length) throws ConnectionCanceledException {
+            synchronized(this) {
+                final byte[] buffer = available.poll();
+                if(null != buffer) {
+                    if(buffer.length >= length) {
+                        return buffer;
+                    }
+                    memory.release(permits(buffer));
+                }
+            }
+            try {
+                // Blocks larger than the limit are uploaded alone
+                memory.acquire(Math.min(length, total));
+            }
+            catch(InterruptedException e) {
+                throw new ConnectionCanceledException(e);
+            }
+            return new byte[length];
+        }
+
+        /**
+         * @param buffer No longer in use
+         */
+        public synchronized void release(final byte[] buffer) {
+            if(closed) {
+                memory.release(permits(buffer));
+            }
+            else {
+                available.push(buffer);
+            }
+        }
+
+        /**
+         * Free buffers of upload
+         */
+        public synchronized void close() {
+            closed = true;
+            for(byte[] buffer : available) {
+                memory.release(permits(buffer));
+            }
+            available.clear();
+        }
+
+        private static int permits(final byte[] buffer) {
+            return Math.min(buffer.length, total);
+        }
+    }
+}
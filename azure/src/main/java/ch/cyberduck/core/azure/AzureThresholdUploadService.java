@@ -0,0 +1,133 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.shared.DefaultUploadFeature;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.blob.BlobType;
+
+public class AzureThresholdUploadService implements Upload<Void> {
+    private static final Logger log = Logger.getLogger(AzureThresholdUploadService.class);
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final AzureSession session;
+    private final OperationContext context;
+    private final Long threshold;
+
+    private Write<Void> writer;
+
+    public AzureThresholdUploadService(final AzureSession session, final OperationContext context) {
+        this(session, context, PreferencesFactory.get().getLong("azure.upload.largeobject.threshold"));
+    }
+
+    public AzureThresholdUploadService(final AzureSession session, final OperationContext context, final Long threshold) {
+        this.session = session;
+        this.context = context;
+        this.threshold = threshold;
+        this.writer = new AzureWriteFeature(session, context);
+    }
+
+    @Override
+    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
+        if(this.threshold(length)) {
+            // Resume with blocks staged previously
+            return this.large().append(file, length, cache);
+        }
+        return writer.append(file, length, cache);
+    }
+
+    @Override
+    public Void upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                       final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        if(this.threshold(status.getLength() + status.getOffset())) {
+            if(status.isExists() && !status.isAppend()) {
+                final PathAttributes attr = new AzureAttributesFinderFeature(session, context).find(file);
+                if(AzureAttributesFinderFeature.isAppendBlob(attr)) {
+                    log.warn(String.format("Use single upload to overwrite existing append blob %s", file));
+                    return new DefaultUploadFeature<>(writer).upload(file, local, throttle, listener, status, callback);
+                }
+            }
+            // Full size of file
+            final long size = status.getLength() + status.getOffset();
+            final long offset = status.getOffset();
+            try {
+                return this.large().upload(file, local, throttle, listener, status, callback);
+            }
+            catch(NotfoundException | InteroperabilityException e) {
+                log.warn(String.format("Failure using large upload %s. Fallback to single upload.", e.getMessage()));
+                // Discard progress of blocks staged as the whole file is sent again
+                listener.sent(offset - status.getOffset());
+                status.append(false);
+                status.setLength(size);
+            }
+        }
+        // Use single upload service
+        return new DefaultUploadFeature<>(writer).upload(file, local, throttle, listener, status, callback);
+    }
+
+    @Override
+    public Upload<Void> withWriter(final Write<Void> writer) {
+        this.writer = writer;
+        return this;
+    }
+
+    protected Upload<Void> large() {
+        return new AzureLargeUploadService(session, context, writer);
+    }
+
+    protected boolean threshold(final Long length) {
+        if(length >= threshold) {
+            if(!preferences.getBoolean("azure.upload.largeobject")) {
+                log.warn("Large upload is disabled with property azure.upload.largeobject");
+                // Disabled by user
+                return false;
+            }
+            if(BlobType.BLOCK_BLOB != BlobType.valueOf(preferences.getProperty("azure.upload.blobtype"))) {
+                // Must not change blob type of uploads configured as append blob
+                log.warn(String.format("Large upload is disabled for blob type %s", preferences.getProperty("azure.upload.blobtype")));
+                return false;
+            }
+            if(!(writer instanceof AzureWriteFeature)) {
+                // Blocks are staged from the local file without passing through the writer such as for encryption
+                log.warn(String.format("Large upload is disabled for writer %s", writer));
+                return false;
+            }
+            return true;
+        }
+        // Below threshold
+        return false;
+    }
+}
@@ -120,7 +120,7 @@ public class AzureWriteFeature extends AppendWriteFeature<Void> implements Write
         final Append status = super.append(file, length, cache);
         if(status.append) {
             final PathAttributes attr = new AzureAttributesFinderFeature(session, context).withCache(cache).find(file);
-            if(BlobType.APPEND_BLOB == BlobType.valueOf(attr.getCustom().get(AzureAttributesFinderFeature.KEY_BLOB_TYPE))) {
+            if(AzureAttributesFinderFeature.isAppendBlob(attr)) {
                 return status;
             }
             return Write.override;
@@ -145,7 +145,7 @@ public class AzureWriteFeature extends AppendWriteFeature<Void> implements Write
                 else {
                     // Existing block blob type
                     final PathAttributes attr = new AzureAttributesFinderFeature(session, context).find(file);
-                    if(BlobType.APPEND_BLOB == BlobType.valueOf(attr.getCustom().get(AzureAttributesFinderFeature.KEY_BLOB_TYPE))) {
+                    if(AzureAttributesFinderFeature.isAppendBlob(attr)) {
                         blob = session.getClient().getContainerReference(containerService.getContainer(file).getName())
                             .getAppendBlobReference(containerService.getKey(file));
                     }
@@ -167,35 +167,7 @@ public class AzureWriteFeature extends AppendWriteFeature<Void> implements Write
                             .getBlockBlobReference(containerService.getKey(file));
                 }
             }
-            if(StringUtils.isNotBlank(status.getMime())) {
-                blob.getProperties().setContentType(status.getMime());
-            }
-            // Add previous metadata when overwriting file
-            final HashMap<String, String> headers = new HashMap<>(status.getMetadata());
-            blob.setMetadata(headers);
-            // Remove additional headers not allowed in metadata and move to properties
-            if(headers.containsKey(HttpHeaders.CACHE_CONTROL)) {
-                blob.getProperties().setCacheControl(headers.get(HttpHeaders.CACHE_CONTROL));
-                headers.remove(HttpHeaders.CACHE_CONTROL);
-            }
-            if(headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
-                blob.getProperties().setContentType(headers.get(HttpHeaders.CONTENT_TYPE));
-                headers.remove(HttpHeaders.CONTENT_TYPE);
-            }
-            final Checksum checksum = status.getChecksum();
-            if(Checksum.NONE != checksum) {
-                switch(checksum.algorithm) {
-                    case md5:
-                        try {
-                            blob.getProperties().setContentMD5(Base64.toBase64String(Hex.decodeHex(status.getChecksum().hash.toCharArray())));
-                            headers.remove(HttpHeaders.CONTENT_MD5);
-                        }
-                        catch(DecoderException e) {
-                            // Ignore
-                        }
-                        break;
-                }
-            }
+            this.properties(blob, status);
             final BlobRequestOptions options = new BlobRequestOptions();
             options.setConcurrentRequestCount(1);
             options.setStoreBlobContentMD5(preferences.getBoolean("azure.upload.md5"));
@@ -239,4 +211,39 @@ public class AzureWriteFeature extends AppendWriteFeature<Void> implements Write
             throw new NotfoundException(e.getMessage(), e);
         }
     }
+
+    /**
+     * Set content type, metadata and checksum from transfer status in blob properties
+     */
+    protected void properties(final CloudBlob blob, final TransferStatus status) {
+        if(StringUtils.isNotBlank(status.getMime())) {
+            blob.getProperties().setContentType(status.getMime());
+        }
+        // Add previous metadata when overwriting file
+        final HashMap<String, String> headers = new HashMap<>(status.getMetadata());
+        blob.setMetadata(headers);
+        // Remove additional headers not allowed in metadata and move to properties
+        if(headers.containsKey(HttpHeaders.CACHE_CONTROL)) {
+            blob.getProperties().setCacheControl(headers.get(HttpHeaders.CACHE_CONTROL));
+            headers.remove(HttpHeaders.CACHE_CONTROL);
+        }
+        if(headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+            blob.getProperties().setContentType(headers.get(HttpHeaders.CONTENT_TYPE));
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+        }
+        final Checksum checksum = status.getChecksum();
+        if(Checksum.NONE != checksum) {
+            switch(checksum.algorithm) {
+                case md5:
+                    try {
+                        blob.getProperties().setContentMD5(Base64.toBase64String(Hex.decodeHex(status.getChecksum().hash.toCharArray())));
+                        headers.remove(HttpHeaders.CONTENT_MD5);
+                    }
+                    catch(DecoderException e) {
+                        // Ignore
+                    }
+                    break;
+            }
+        }
+    }
 }
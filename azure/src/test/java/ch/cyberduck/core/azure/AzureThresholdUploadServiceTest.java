@@ -0,0 +1,130 @@
+package ch.cyberduck.core.azure;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DisabledConnectionCallback;
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.features.Upload;
+import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.io.BandwidthThrottle;
+import ch.cyberduck.core.io.DisabledStreamListener;
+import ch.cyberduck.core.io.StatusOutputStream;
+import ch.cyberduck.core.io.StreamListener;
+import ch.cyberduck.core.io.VoidStatusOutputStream;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.blob.BlobType;
+
+import static org.junit.Assert.*;
+
+public class AzureThresholdUploadServiceTest {
+
+    @Test
+    public void testThresholdBlobType() throws Exception {
+        final AzureSession session = new AzureSession(new Host(new AzureProtocol()));
+        final AzureThresholdUploadService service = new AzureThresholdUploadService(session, new OperationContext(), 1L);
+        PreferencesFactory.get().setProperty("azure.upload.blobtype", BlobType.APPEND_BLOB.name());
+        try {
+            assertFalse(service.threshold(2L));
+            PreferencesFactory.get().setProperty("azure.upload.blobtype", BlobType.BLOCK_BLOB.name());
+            assertTrue(service.threshold(2L));
+            assertFalse(service.threshold(0L));
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("azure.upload.blobtype");
+        }
+    }
+
+    @Test
+    public void testFallbackSingleUpload() throws Exception {
+        final OperationContext context = new OperationContext();
+        final AzureSession session = new AzureSession(new Host(new AzureProtocol()));
+        final Path test = new Path(new Path("/c", EnumSet.of(Path.Type.directory, Path.Type.volume)), UUID.randomUUID().toString(), EnumSet.of(Path.Type.file));
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final byte[] content = RandomUtils.nextBytes(2000);
+        final OutputStream out = local.getOutputStream(false);
+        IOUtils.write(content, out);
+        out.close();
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final AzureThresholdUploadService service = new AzureThresholdUploadService(session, context, 1L) {
+            @Override
+            protected Upload<Void> large() {
+                return new AzureLargeUploadService(session, context, new AzureWriteFeature(session, BlobType.BLOCK_BLOB, context)) {
+                    @Override
+                    public Void upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                                       final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+                        // Fail after some blocks have been staged
+                        listener.sent(500L);
+                        status.progress(500L);
+                        throw new InteroperabilityException();
+                    }
+
+                    @Override
+                    public Write.Append append(final Path file, final Long length, final Cache<Path> cache) {
+                        return Write.notfound;
+                    }
+                };
+            }
+        };
+        service.withWriter(new AzureWriteFeature(session, BlobType.BLOCK_BLOB, context) {
+            @Override
+            public StatusOutputStream<Void> write(final Path file, final TransferStatus status, final ConnectionCallback callback) {
+                return new VoidStatusOutputStream(written);
+            }
+        });
+        final AtomicLong sent = new AtomicLong();
+        // Resume with 1000 bytes previously uploaded
+        final TransferStatus status = new TransferStatus().exists(true).append(true);
+        status.setOffset(1000L);
+        status.setLength(content.length - 1000L);
+        PreferencesFactory.get().setProperty("azure.upload.blobtype", BlobType.BLOCK_BLOB.name());
+        try {
+            service.upload(test, local, new BandwidthThrottle(BandwidthThrottle.UNLIMITED), new DisabledStreamListener() {
+                @Override
+                public void sent(final long bytes) {
+                    sent.addAndGet(bytes);
+                }
+            }, status, new DisabledConnectionCallback());
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("azure.upload.blobtype");
+        }
+        assertFalse(status.isAppend());
+        assertEquals(content.length, status.getLength());
+        assertEquals(content.length, status.getOffset());
+        assertEquals(content.length, sent.get());
+        assertArrayEquals(content, written.toByteArray());
+        local.delete();
+    }
+}
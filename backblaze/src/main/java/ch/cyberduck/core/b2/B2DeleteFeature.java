@@ -69,6 +69,7 @@ public class B2DeleteFeature implements Delete {
                     }
                     try {
                         session.getClient().deleteFileVersion(containerService.getKey(file), fileid);
+                        this.fileid.cache(file, null);
                     }
                     catch(B2ApiException e) {
                         log.warn(String.format("Ignore failure %s deleting placeholder file for %s", e.getMessage(), file));
@@ -80,6 +81,7 @@ public class B2DeleteFeature implements Delete {
                 else if(file.isFile()) {
                     try {
                         session.getClient().deleteFileVersion(containerService.getKey(file), fileid.getFileid(file, new DisabledListProgressListener()));
+                        fileid.cache(file, null);
                     }
                     catch(B2ApiException e) {
                         throw new B2ExceptionMappingService().map("Cannot delete {0}", e, file);
@@ -96,6 +98,7 @@ public class B2DeleteFeature implements Delete {
                     callback.delete(file);
                     // Finally delete bucket itself
                     session.getClient().deleteBucket(fileid.getFileid(file, new DisabledListProgressListener()));
+                    fileid.cache(file, null);
                 }
             }
             catch(B2ApiException e) {
@@ -23,6 +23,7 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.PathContainerService;
 import ch.cyberduck.core.SimplePathPredicate;
+import ch.cyberduck.core.cache.FileidCache;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.IdProvider;
@@ -42,6 +43,7 @@ public class B2FileidProvider implements IdProvider {
         = new B2PathContainerService();
 
     private final B2Session session;
+    private final FileidCache index = new FileidCache();
 
     private Cache<Path> cache = PathCache.empty();
 
@@ -64,6 +66,10 @@ public class B2FileidProvider implements IdProvider {
                 }
             }
         }
+        final String cached = index.get(file, cache);
+        if(null != cached) {
+            return this.set(file, cached);
+        }
         try {
             if(containerService.isContainer(file)) {
                 final B2BucketResponse info = session.getClient().listBucket(file.getName());
@@ -104,9 +110,15 @@ public class B2FileidProvider implements IdProvider {
 
     protected String set(final Path file, final String id) {
         file.attributes().setVersionId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
     @Override
     public B2FileidProvider withCache(final Cache<Path> cache) {
         this.cache = cache;
@@ -29,8 +29,7 @@ import ch.cyberduck.core.io.Checksum;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.ThreadPool;
-import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.worker.DefaultExceptionMappingService;
 
@@ -78,7 +77,7 @@ public class B2LargeCopyFeature implements Copy {
 
     @Override
     public Path copy(final Path source, final Path target, final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("largeupload", concurrency);
+        final PartScheduler.Pool pool = PartScheduler.open(status, concurrency);
         try {
             final Map<String, String> fileinfo = new HashMap<>(status.getMetadata());
             if(null != status.getTimestamp()) {
@@ -141,6 +140,7 @@ public class B2LargeCopyFeature implements Copy {
             if(log.isInfoEnabled()) {
                 log.info(String.format("Finished large file upload %s with %d parts", target, completed.size()));
             }
+            fileid.cache(target, response.getFileId());
             return target.withAttributes(new PathAttributes(source.attributes()).withVersionId(response.getFileId()));
         }
         catch(B2ApiException e) {
@@ -154,7 +154,7 @@ public class B2LargeCopyFeature implements Copy {
         }
     }
 
-    private Future<B2UploadPartResponse> submit(final ThreadPool pool, final Path file, final String largeFileId,
+    private Future<B2UploadPartResponse> submit(final PartScheduler.Pool pool, final Path file, final String largeFileId,
                                                 final TransferStatus overall,
                                                 final int partNumber, final Long offset, final Long length,
                                                 final ConnectionCallback callback) {
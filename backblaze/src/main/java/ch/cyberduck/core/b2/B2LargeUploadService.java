@@ -24,6 +24,7 @@ import ch.cyberduck.core.PathContainerService;
 import ch.cyberduck.core.VersionId;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpUploadFeature;
@@ -34,8 +35,8 @@ import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.ThreadPool;
-import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.threading.PartScheduler;
+import ch.cyberduck.core.transfer.TransferJournal;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.worker.DefaultExceptionMappingService;
 
@@ -44,10 +45,10 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -99,12 +100,33 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                                  final StreamListener listener,
                                  final TransferStatus status,
                                  final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("largeupload", concurrency);
+        final TransferJournal journal = status.getJournal();
+        if(status.isAppend() && null != journal && null != journal.find(file.getAbsolute(), status.getLength() + status.getOffset())) {
+            try {
+                return this.large(file, local, throttle, listener, status, callback);
+            }
+            catch(NotfoundException e) {
+                log.warn(String.format("Large file upload for %s in journal %s no longer found. %s", file, journal, e));
+                // Discard cancelled or expired upload and start new upload with full length
+                journal.complete(file.getAbsolute());
+                status.setLength(status.getLength() + status.getOffset());
+                status.setOffset(0L);
+                status.setAppend(false);
+            }
+        }
+        return this.large(file, local, throttle, listener, status, callback);
+    }
+
+    private BaseB2Response large(final Path file, final Local local,
+                                 final BandwidthThrottle throttle,
+                                 final StreamListener listener,
+                                 final TransferStatus status,
+                                 final ConnectionCallback callback) throws BackgroundException {
+        final PartScheduler.Pool pool = PartScheduler.open(status, concurrency);
+        final TransferJournal journal = status.getJournal();
         try {
-            // Get the results of the uploads in the order they were submitted
-            // this is important for building the manifest, and is not a problem in terms of performance
-            // because we should only continue when all segments have uploaded successfully
-            final List<B2UploadPartResponse> completed = new ArrayList<B2UploadPartResponse>();
+            // Completed parts sorted by part number with SHA1 checksum for building the manifest
+            final Map<Integer, TransferJournal.Part> completed = new TreeMap<>();
             final Map<String, String> fileinfo = new HashMap<>(status.getMetadata());
             final Checksum checksum = status.getChecksum();
             if(Checksum.NONE != checksum) {
@@ -117,25 +139,46 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
             if(null != status.getTimestamp()) {
                 fileinfo.put(X_BZ_INFO_SRC_LAST_MODIFIED_MILLIS, String.valueOf(status.getTimestamp()));
             }
-            if(status.isAppend()) {
-                // Add already completed parts
-                final B2LargeUploadPartService partService = new B2LargeUploadPartService(session, fileid);
-                final List<B2FileInfoResponse> uploads = partService.find(file);
-                if(uploads.isEmpty()) {
-                    status.setVersion(new VersionId(session.getClient().startLargeFileUpload(fileid.getFileid(containerService.getContainer(file), new DisabledListProgressListener()),
-                        containerService.getKey(file), status.getMime(), fileinfo).getFileId()));
+            // Full size of file
+            final long size = status.getLength() + status.getOffset();
+            final String id = status.isAppend() && null != journal ? journal.find(file.getAbsolute(), size) : null;
+            if(null != id) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Resume large file upload %s from journal %s", id, journal));
                 }
-                else {
-                    status.setVersion(new VersionId(uploads.iterator().next().getFileId()));
-                    completed.addAll(partService.list(status.getVersion().id));
+                status.setVersion(new VersionId(id));
+                // Add parts completed previously without listing parts of upload
+                for(TransferJournal.Part part : journal.parts(file.getAbsolute())) {
+                    completed.put(part.getNumber(), part);
                 }
             }
             else {
-                status.setVersion(new VersionId(session.getClient().startLargeFileUpload(fileid.getFileid(containerService.getContainer(file), new DisabledListProgressListener()),
-                    containerService.getKey(file), status.getMime(), fileinfo).getFileId()));
+                if(status.isAppend()) {
+                    // Add already completed parts
+                    final B2LargeUploadPartService partService = new B2LargeUploadPartService(session, fileid);
+                    final List<B2FileInfoResponse> uploads = partService.find(file);
+                    if(uploads.isEmpty()) {
+                        status.setVersion(new VersionId(session.getClient().startLargeFileUpload(fileid.getFileid(containerService.getContainer(file), new DisabledListProgressListener()),
+                            containerService.getKey(file), status.getMime(), fileinfo).getFileId()));
+                    }
+                    else {
+                        status.setVersion(new VersionId(uploads.iterator().next().getFileId()));
+                        for(B2UploadPartResponse part : partService.list(status.getVersion().id)) {
+                            completed.put(part.getPartNumber(), new TransferJournal.Part(part.getPartNumber(), part.getContentLength(), part.getContentSha1()));
+                        }
+                    }
+                }
+                else {
+                    status.setVersion(new VersionId(session.getClient().startLargeFileUpload(fileid.getFileid(containerService.getContainer(file), new DisabledListProgressListener()),
+                        containerService.getKey(file), status.getMime(), fileinfo).getFileId()));
+                }
+                if(null != journal) {
+                    journal.start(file.getAbsolute(), status.getVersion().id, size);
+                    for(TransferJournal.Part part : completed.values()) {
+                        journal.part(file.getAbsolute(), part);
+                    }
+                }
             }
-            // Full size of file
-            final long size = status.getLength() + status.getOffset();
             // Submit file segments for concurrent upload
             final List<Future<B2UploadPartResponse>> parts = new ArrayList<Future<B2UploadPartResponse>>();
             long remaining = status.getLength();
@@ -146,15 +189,13 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                     if(log.isInfoEnabled()) {
                         log.info(String.format("Determine if part number %d can be skipped", partNumber));
                     }
-                    for(B2UploadPartResponse c : completed) {
-                        if(c.getPartNumber().equals(partNumber)) {
-                            if(log.isInfoEnabled()) {
-                                log.info(String.format("Skip completed part number %d", partNumber));
-                            }
-                            skip = true;
-                            offset += c.getContentLength();
-                            break;
+                    final TransferJournal.Part c = completed.get(partNumber);
+                    if(null != c) {
+                        if(log.isInfoEnabled()) {
+                            log.info(String.format("Skip completed part number %d", partNumber));
                         }
+                        skip = true;
+                        offset += c.getLength();
                     }
                 }
                 if(!skip) {
@@ -170,7 +211,8 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
             }
             try {
                 for(Future<B2UploadPartResponse> f : parts) {
-                    completed.add(f.get());
+                    final B2UploadPartResponse part = f.get();
+                    completed.put(part.getPartNumber(), new TransferJournal.Part(part.getPartNumber(), part.getContentLength(), part.getContentSha1()));
                 }
             }
             catch(InterruptedException e) {
@@ -185,20 +227,19 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                 }
                 throw new DefaultExceptionMappingService().map(e.getCause());
             }
-            completed.sort(new Comparator<B2UploadPartResponse>() {
-                @Override
-                public int compare(final B2UploadPartResponse o1, final B2UploadPartResponse o2) {
-                    return o1.getPartNumber().compareTo(o2.getPartNumber());
-                }
-            });
             final List<String> checksums = new ArrayList<String>();
-            for(B2UploadPartResponse part : completed) {
-                checksums.add(part.getContentSha1());
+            for(TransferJournal.Part part : completed.values()) {
+                checksums.add(part.getChecksum());
             }
             final B2FinishLargeFileResponse response = session.getClient().finishLargeFileUpload(status.getVersion().id, checksums.toArray(new String[checksums.size()]));
             if(log.isInfoEnabled()) {
                 log.info(String.format("Finished large file upload %s with %d parts", file, completed.size()));
             }
+            if(null != journal) {
+                journal.complete(file.getAbsolute());
+            }
+            // Replace identifier of previous version
+            fileid.cache(file, response.getFileId());
             // Mark parent status as complete
             status.setComplete();
             return response;
@@ -214,7 +255,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
         }
     }
 
-    private Future<B2UploadPartResponse> submit(final ThreadPool pool, final Path file, final Local local,
+    private Future<B2UploadPartResponse> submit(final PartScheduler.Pool pool, final Path file, final Local local,
                                                 final BandwidthThrottle throttle, final StreamListener listener,
                                                 final TransferStatus overall,
                                                 final int partNumber,
@@ -222,7 +263,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
         if(log.isInfoEnabled()) {
             log.info(String.format("Submit part %d of %s to queue with offset %d and length %d", partNumber, file, offset, length));
         }
-        return pool.execute(new DefaultRetryCallable<B2UploadPartResponse>(session.getHost(), new BackgroundExceptionCallable<B2UploadPartResponse>() {
+        return pool.execute(length, new DefaultRetryCallable<B2UploadPartResponse>(session.getHost(), new BackgroundExceptionCallable<B2UploadPartResponse>() {
             @Override
             public B2UploadPartResponse call() throws BackgroundException {
                 overall.validate();
@@ -235,7 +276,7 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                 status.setSegment(true);
                 status.setVersion(overall.getVersion());
                 status.setPart(partNumber);
-                return (B2UploadPartResponse) B2LargeUploadService.super.upload(file, local, throttle, listener, status, overall, new StreamProgress() {
+                final B2UploadPartResponse response = (B2UploadPartResponse) B2LargeUploadService.super.upload(file, local, throttle, listener, status, overall, new StreamProgress() {
                     @Override
                     public void progress(final long bytes) {
                         status.progress(bytes);
@@ -248,6 +289,10 @@ public class B2LargeUploadService extends HttpUploadFeature<BaseB2Response, Mess
                         status.setComplete();
                     }
                 }, callback);
+                if(null != overall.getJournal()) {
+                    overall.getJournal().part(file.getAbsolute(), new TransferJournal.Part(partNumber, length, response.getContentSha1()));
+                }
+                return response;
             }
         }, overall));
     }
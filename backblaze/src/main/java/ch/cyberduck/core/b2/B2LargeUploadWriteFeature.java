@@ -149,6 +149,8 @@ public class B2LargeUploadWriteFeature implements MultipartWrite<VersionId> {
                         log.debug(String.format("Upload finished for %s with response %s", file, response));
                     }
                     overall.setVersion(new VersionId(response.getFileId()));
+                    // Replace identifier of previous version
+                    fileid.cache(file, response.getFileId());
                     close.set(true);
                 }
                 else {
@@ -229,6 +231,8 @@ public class B2LargeUploadWriteFeature implements MultipartWrite<VersionId> {
                     if(log.isInfoEnabled()) {
                         log.info(String.format("Finished large file upload %s with %d parts", file, completed.size()));
                     }
+                    // Replace identifier of previous version
+                    fileid.cache(file, overall.getVersion().id);
                 }
             }
             catch(BackgroundException e) {
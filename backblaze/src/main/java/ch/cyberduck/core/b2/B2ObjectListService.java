@@ -140,8 +140,13 @@ public class B2ObjectListService implements ListService {
             }
             revisions.put(info.getFileName(), revision);
             attributes.setRevision(revision);
-            objects.add(new Path(directory, PathNormalizer.name(info.getFileName()),
-                info.getAction() == Action.start ? EnumSet.of(Path.Type.file, Path.Type.upload) : EnumSet.of(Path.Type.file), attributes));
+            final Path file = new Path(directory, PathNormalizer.name(info.getFileName()),
+                info.getAction() == Action.start ? EnumSet.of(Path.Type.file, Path.Type.upload) : EnumSet.of(Path.Type.file), attributes);
+            if(!attributes.isDuplicate()) {
+                // Latest version
+                fileid.cache(file, attributes.getVersionId());
+            }
+            objects.add(file);
         }
         if(null == response.getNextFileName()) {
             return new Marker(response.getNextFileName(), response.getNextFileId());
@@ -0,0 +1,133 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.ui.browser.DefaultBrowserFilter;
+import ch.cyberduck.ui.comparator.ExtensionComparator;
+import ch.cyberduck.ui.comparator.FileTypeComparator;
+import ch.cyberduck.ui.comparator.FilenameComparator;
+import ch.cyberduck.ui.comparator.GroupComparator;
+import ch.cyberduck.ui.comparator.OwnerComparator;
+import ch.cyberduck.ui.comparator.PermissionsComparator;
+import ch.cyberduck.ui.comparator.SizeComparator;
+import ch.cyberduck.ui.comparator.TimestampComparator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sort and filter listing with browser comparators and lookup of children in large listings
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AttributedListBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+
+    private AttributedList<Path> list;
+    private Path lookup;
+
+    @Setup
+    public void setup() {
+        list = ListingGenerator.listing(directory, size);
+        // Copy with equal reference from last position in listing
+        lookup = new Path(list.get(size - 1));
+    }
+
+    @State(Scope.Benchmark)
+    public static class Sort {
+        @Param({"filename", "size", "timestamp", "extension", "kind", "owner", "group", "permission"})
+        public String comparator;
+
+        private Comparator<Path> impl;
+
+        @Setup
+        public void setup() {
+            switch(comparator) {
+                case "size":
+                    impl = new SizeComparator(true);
+                    break;
+                case "timestamp":
+                    impl = new TimestampComparator(true);
+                    break;
+                case "extension":
+                    impl = new ExtensionComparator(true);
+                    break;
+                case "kind":
+                    impl = new FileTypeComparator(true);
+                    break;
+                case "owner":
+                    impl = new OwnerComparator(true);
+                    break;
+                case "group":
+                    impl = new GroupComparator(true);
+                    break;
+                case "permission":
+                    impl = new PermissionsComparator(true);
+                    break;
+                default:
+                    impl = new FilenameComparator(true);
+            }
+        }
+    }
+
+    @Benchmark
+    public AttributedList<Path> filter(final Sort sort) {
+        return list.filter(sort.impl, new DefaultBrowserFilter());
+    }
+
+    /**
+     * Build listing by appending children
+     */
+    @Benchmark
+    public AttributedList<Path> add() {
+        final AttributedList<Path> copy = new AttributedList<>();
+        for(Path file : list) {
+            copy.add(file);
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public Path get() {
+        return list.get(lookup);
+    }
+
+    @Benchmark
+    public Path find() {
+        return list.find(new DefaultPathPredicate(lookup));
+    }
+}
@@ -0,0 +1,50 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.util.EnumSet;
+import java.util.Random;
+
+/**
+ * Create directory listings with attributes populated for sorting
+ */
+final class ListingGenerator {
+
+    private static final String[] EXTENSIONS = {"txt", "jpg", "pdf", "zip", "java", ""};
+
+    private ListingGenerator() {
+        //
+    }
+
+    static AttributedList<Path> listing(final Path directory, final int size) {
+        final Random random = new Random(size);
+        final AttributedList<Path> list = new AttributedList<>();
+        for(int i = 0; i < size; i++) {
+            final String extension = EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            final boolean folder = random.nextInt(10) == 0;
+            final Path file = new Path(directory, String.format("f-%d%s%s", random.nextInt(size),
+                extension.isEmpty() ? "" : ".", extension) + i,
+                EnumSet.of(folder ? Path.Type.directory : Path.Type.file));
+            file.attributes().setSize(random.nextInt(Integer.MAX_VALUE));
+            file.attributes().setModificationDate(1600000000000L + random.nextInt(Integer.MAX_VALUE));
+            file.attributes().setOwner(String.format("u%d", random.nextInt(16)));
+            file.attributes().setGroup(String.format("g%d", random.nextInt(8)));
+            file.attributes().setPermission(new Permission(random.nextBoolean() ? 644 : 755));
+            list.add(file);
+        }
+        return list;
+    }
+}
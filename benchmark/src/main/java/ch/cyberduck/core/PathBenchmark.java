@@ -0,0 +1,104 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hash code and equality of paths with memoized reference and lookup of paths in table and listing
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    private final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+
+    private final List<Path> files = new ArrayList<>();
+    private final List<Path> copies = new ArrayList<>();
+    private final Map<Path, TransferStatus> table = new ConcurrentHashMap<>();
+    private final AttributedList<Path> list = new AttributedList<>();
+
+    @Setup
+    public void setup() {
+        for(Path file : ListingGenerator.listing(directory, size)) {
+            files.add(file);
+            // Equal path with distinct instance
+            copies.add(new Path(file));
+            table.put(file, new TransferStatus());
+            list.add(file);
+        }
+    }
+
+    private int next() {
+        return ThreadLocalRandom.current().nextInt(size);
+    }
+
+    @Benchmark
+    public int hash() {
+        return files.get(this.next()).hashCode();
+    }
+
+    /**
+     * Hash code of new instance without memoized reference
+     */
+    @Benchmark
+    public int hashCopy() {
+        return new Path(files.get(this.next())).hashCode();
+    }
+
+    @Benchmark
+    public boolean equals() {
+        final int i = this.next();
+        return files.get(i).equals(copies.get(i));
+    }
+
+    @Benchmark
+    public TransferStatus table() {
+        return table.get(copies.get(this.next()));
+    }
+
+    @Benchmark
+    public Path list() {
+        return list.get(copies.get(this.next()));
+    }
+}
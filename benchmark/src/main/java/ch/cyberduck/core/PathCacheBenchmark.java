@@ -0,0 +1,94 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Put, get and reverse lookup of cached directory listings
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathCacheBenchmark {
+
+    /**
+     * Number of cached directories
+     */
+    @Param({"100", "1000"})
+    public int directories;
+
+    /**
+     * Number of children in each directory
+     */
+    @Param({"100", "1000"})
+    public int children;
+
+    private PathCache cache;
+    private final List<Path> folders = new ArrayList<>();
+    private final List<AttributedList<Path>> listings = new ArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        // Unlimited to avoid eviction of listings before reaching the maximum size
+        cache = new PathCache(Integer.MAX_VALUE);
+        for(int i = 0; i < directories; i++) {
+            final Path folder = new Path(String.format("/d-%d", i), EnumSet.of(Path.Type.directory));
+            final AttributedList<Path> listing = ListingGenerator.listing(folder, children);
+            folders.add(folder);
+            listings.add(listing);
+            // Copy to exclude identity comparison
+            files.add(new Path(listing.get(ThreadLocalRandom.current().nextInt(children))));
+            cache.put(folder, listing);
+        }
+    }
+
+    @Benchmark
+    public AttributedList<Path> put() {
+        final int i = ThreadLocalRandom.current().nextInt(directories);
+        return cache.put(folders.get(i), listings.get(i));
+    }
+
+    @Benchmark
+    public AttributedList<Path> get() {
+        return cache.get(new Path(folders.get(ThreadLocalRandom.current().nextInt(directories))));
+    }
+
+    @Benchmark
+    public Path lookup() {
+        return cache.lookup(new DefaultPathPredicate(files.get(ThreadLocalRandom.current().nextInt(directories))));
+    }
+}
@@ -0,0 +1,108 @@
+package ch.cyberduck.core.cryptomator;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.cryptomator.random.FastSecureRandomProvider;
+import ch.cyberduck.core.cryptomator.random.RandomNonceGenerator;
+import ch.cyberduck.core.io.StatusOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
+import org.cryptomator.cryptolib.Cryptors;
+import org.cryptomator.cryptolib.api.Cryptor;
+import org.cryptomator.cryptolib.api.FileHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of encrypting and decrypting vault file content in memory with chunks processed inline or concurrently
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoStreamBenchmark {
+
+    /**
+     * Number of chunks encrypted or decrypted ahead. Process inline with 1
+     */
+    @Param({"1", "16"})
+    public int window;
+
+    @Param({"16777216"})
+    public int length;
+
+    private Cryptor cryptor;
+    private FileHeader header;
+    private byte[] cleartext;
+    private byte[] ciphertext;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cryptor = Cryptors.version1(FastSecureRandomProvider.get().provide()).createNew();
+        header = cryptor.fileHeaderCryptor().create();
+        cleartext = RandomUtils.nextBytes(length);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(length + length / 10);
+        try (OutputStream out = this.encrypt(buffer)) {
+            out.write(cleartext);
+        }
+        ciphertext = buffer.toByteArray();
+    }
+
+    private OutputStream encrypt(final OutputStream proxy) {
+        return new CryptoOutputStream<>(new StatusOutputStream<Void>(proxy) {
+            @Override
+            public Void getStatus() {
+                return null;
+            }
+        }, cryptor.fileContentCryptor(), header, new RandomNonceGenerator(), 0L, window);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        try (OutputStream out = this.encrypt(NullOutputStream.NULL_OUTPUT_STREAM)) {
+            out.write(cleartext);
+        }
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        try (InputStream in = new CryptoInputStream(new ByteArrayInputStream(ciphertext),
+            cryptor.fileContentCryptor(), header, 0L, window)) {
+            return IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+    }
+}
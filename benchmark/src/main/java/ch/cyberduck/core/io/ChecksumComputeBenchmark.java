@@ -0,0 +1,102 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.ChecksumException;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checksum computation for all implementations reading from memory or local file
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumComputeBenchmark {
+
+    @Param({"md5", "md5fast", "sha1", "sha256", "sha512", "crc32"})
+    public String algorithm;
+
+    @Param({"memory", "file"})
+    public String source;
+
+    @Param({"16777216"})
+    public int length;
+
+    private ChecksumCompute compute;
+    private byte[] content;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        switch(algorithm) {
+            case "md5":
+                compute = new MD5ChecksumCompute();
+                break;
+            case "md5fast":
+                compute = new MD5FastChecksumCompute();
+                break;
+            default:
+                compute = ChecksumComputeFactory.get(HashAlgorithm.valueOf(algorithm));
+        }
+        content = RandomUtils.nextBytes(length);
+        file = File.createTempFile("benchmark", null);
+        Files.write(file.toPath(), content);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Checksum compute() throws IOException, ChecksumException {
+        final InputStream in;
+        switch(source) {
+            case "file":
+                in = new FileInputStream(file);
+                break;
+            default:
+                in = new ByteArrayInputStream(content);
+        }
+        return compute.compute(in, new TransferStatus().length(length));
+    }
+}
@@ -0,0 +1,98 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copy from memory and local file with different values for connection.chunksize
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamCopierBenchmark {
+
+    @Param({"8192", "32768", "131072", "1048576"})
+    public int chunksize;
+
+    @Param({"memory", "file"})
+    public String source;
+
+    @Param({"16777216"})
+    public int length;
+
+    private byte[] content;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        content = RandomUtils.nextBytes(length);
+        file = File.createTempFile("benchmark", null);
+        Files.write(file.toPath(), content);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        file.delete();
+    }
+
+    private InputStream open() throws IOException {
+        switch(source) {
+            case "file":
+                return new FileInputStream(file);
+            default:
+                return new ByteArrayInputStream(content);
+        }
+    }
+
+    @Benchmark
+    public TransferStatus transfer() throws IOException, BackgroundException {
+        final TransferStatus status = new TransferStatus().length(length);
+        try (InputStream in = this.open()) {
+            new StreamCopier(status, status).withChunksize(chunksize).withLimit((long) length)
+                .transfer(in, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,80 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of bandwidth throttle with unlimited and limited rate when writing chunks to an in-memory sink
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThrottledOutputStreamBenchmark {
+
+    /**
+     * Bytes per second
+     */
+    @Param({"-1", "104857600", "1073741824"})
+    public float rate;
+
+    @Param({"32768"})
+    public int chunksize;
+
+    private byte[] chunk;
+    private BandwidthThrottle throttle;
+
+    @Setup
+    public void setup() {
+        chunk = RandomUtils.nextBytes(chunksize);
+        throttle = new BandwidthThrottle(rate);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        final OutputStream out = new ThrottledOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, throttle);
+        out.write(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Contention on throttle shared by concurrent transfers
+     */
+    @Benchmark
+    @Threads(4)
+    public int request() {
+        return throttle.request(chunksize);
+    }
+}
@@ -0,0 +1,141 @@
+package ch.cyberduck.core.sds.triplecrypt;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.io.VoidStatusOutputStream;
+import ch.cyberduck.core.sds.SDSApiClient;
+import ch.cyberduck.core.sds.SDSProtocol;
+import ch.cyberduck.core.sds.SDSSession;
+import ch.cyberduck.core.sds.io.swagger.client.model.FileKey;
+import ch.cyberduck.core.ssl.DefaultX509KeyManager;
+import ch.cyberduck.core.ssl.DisabledX509TrustManager;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.dracoon.sdk.crypto.Crypto;
+import com.dracoon.sdk.crypto.CryptoUtils;
+import com.dracoon.sdk.crypto.error.CryptoException;
+import com.dracoon.sdk.crypto.model.PlainFileKey;
+
+/**
+ * Throughput of encrypting and decrypting DRACOON file content in memory. Run with -prof gc to compare the allocation
+ * rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TripleCryptStreamBenchmark {
+
+    /**
+     * Size of buffer passed to write and read
+     */
+    @Param({"8192", "1048576"})
+    public int buffer;
+
+    @Param({"16777216"})
+    public int length;
+
+    private SDSApiClient client;
+    private SDSSession session;
+    private PlainFileKey key;
+    private byte[] cleartext;
+    private byte[] ciphertext;
+    private byte[] tag;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        client = new SDSApiClient(HttpClients.createDefault());
+        session = new SDSSession(new Host(new SDSProtocol()), new DisabledX509TrustManager(), new DefaultX509KeyManager()) {
+            @Override
+            public SDSApiClient getClient() {
+                return client;
+            }
+        };
+        key = Crypto.generateFileKey(PlainFileKey.Version.AES256GCM);
+        cleartext = RandomUtils.nextBytes(length);
+        final ByteArrayOutputStream proxy = new ByteArrayOutputStream(length);
+        final TransferStatus status = this.status();
+        try (OutputStream out = this.encrypt(proxy, status)) {
+            out.write(cleartext);
+        }
+        ciphertext = proxy.toByteArray();
+        tag = CryptoUtils.stringToByteArray(client.getJSON().getContext(null).readerFor(FileKey.class)
+            .<FileKey>readValue(status.getFilekey().array()).getTag());
+    }
+
+    private TransferStatus status() throws IOException {
+        final ByteArrayOutputStream filekey = new ByteArrayOutputStream();
+        client.getJSON().getContext(null).writerFor(FileKey.class).writeValue(filekey, TripleCryptConverter.toSwaggerFileKey(key));
+        return new TransferStatus().withFileKey(ByteBuffer.wrap(filekey.toByteArray()));
+    }
+
+    private OutputStream encrypt(final OutputStream proxy, final TransferStatus status) throws IOException {
+        try {
+            return new TripleCryptOutputStream<>(session, new VoidStatusOutputStream(proxy), Crypto.createFileEncryptionCipher(key), status);
+        }
+        catch(CryptoException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        try (OutputStream out = this.encrypt(NullOutputStream.NULL_OUTPUT_STREAM, this.status())) {
+            for(int offset = 0; offset < length; offset += buffer) {
+                out.write(cleartext, offset, Math.min(buffer, length - offset));
+            }
+        }
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        try (InputStream in = new TripleCryptInputStream(new ByteArrayInputStream(ciphertext),
+            Crypto.createFileDecryptionCipher(key), tag)) {
+            return IOUtils.copyLarge(in, NullOutputStream.NULL_OUTPUT_STREAM, new byte[buffer]);
+        }
+        catch(CryptoException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -461,12 +461,13 @@ public class Terminal {
         for(TransferItem i : new DeletePathFinder().find(input, TerminalAction.delete, remote)) {
             files.add(i.remote);
         }
+        final SessionPool pool = session.getHost().getProtocol().getStatefulness() == Protocol.Statefulness.stateless ? session : null;
         final DeleteWorker worker;
         if(StringUtils.containsAny(remote.getName(), '*')) {
-            worker = new DeleteWorker(new TerminalLoginCallback(reader), files, cache, new DownloadGlobFilter(remote.getName()), progress);
+            worker = new DeleteWorker(new TerminalLoginCallback(reader), files, cache, new DownloadGlobFilter(remote.getName()), progress, pool);
         }
         else {
-            worker = new DeleteWorker(new TerminalLoginCallback(reader), files, cache, progress);
+            worker = new DeleteWorker(new TerminalLoginCallback(reader), files, cache, new NullFilter<>(), progress, pool);
         }
         final SessionBackgroundAction<List<Path>> action = new TerminalBackgroundAction<>(controller, session, worker);
         try {
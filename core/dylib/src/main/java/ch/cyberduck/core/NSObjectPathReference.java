@@ -34,19 +34,35 @@ public class NSObjectPathReference implements CacheReference<Path> {
         PreferencesFactory.get().getInteger("browser.model.cache.size")
     );
 
+    /**
+     * Key of path for string representation returned
+     */
+    private static final LRUCache<String, Object> keys = LRUCache.build(
+        PreferencesFactory.get().getInteger("browser.model.cache.size")
+    );
+
     public static NSObject get(final Path file) {
         if(!cache.contains(file)) {
-            cache.put(file, NSString.stringWithString(new DefaultPathPredicate(file).toString()));
+            final DefaultPathPredicate reference = new DefaultPathPredicate(file);
+            keys.put(reference.toString(), reference.key());
+            cache.put(file, NSString.stringWithString(reference.toString()));
         }
         return cache.get(file);
     }
 
     private final String stringRepresentation;
     private final int hashCode;
+    private final Object key;
 
     public NSObjectPathReference(final NSObject reference) {
         this.stringRepresentation = reference.toString();
         this.hashCode = stringRepresentation.hashCode();
+        this.key = keys.get(stringRepresentation);
+    }
+
+    @Override
+    public Object key() {
+        return key;
     }
 
     @Override
@@ -19,40 +19,108 @@ package ch.cyberduck.core;
  */
 
 import ch.cyberduck.core.cache.LRUCache;
+import ch.cyberduck.core.collections.IndexedChunkedList;
 
 import org.apache.log4j.Logger;
 
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
 
 public abstract class AbstractCache<T extends Referenceable> implements Cache<T> {
     private static final Logger log = Logger.getLogger(AbstractCache.class);
 
     private final LRUCache<T, AttributedList<T>> impl;
 
+    /**
+     * Reverse index from key of cached child to parent directory keys with number of children with this key
+     */
+    private final Map<Object, Occurrence<T>> index = new ConcurrentHashMap<>();
+
     public AbstractCache(int size) {
+        final RemovalListener<T, AttributedList<T>> listener = notification -> {
+            if(notification.getCause() == RemovalCause.REPLACED) {
+                // Index already updated when putting new value
+                return;
+            }
+            this.unindex(notification.getKey(), notification.getValue());
+        };
         if(size == Integer.MAX_VALUE) {
             // Unlimited
-            impl = LRUCache.build();
+            impl = LRUCache.build(listener);
         }
         else {
             // Will inflate to the given size
-            impl = LRUCache.build(size);
+            impl = LRUCache.build(listener, size);
         }
     }
 
     @Override
     public T lookup(final CacheReference<T> reference) {
-        for(AttributedList<T> entry : impl.asMap().values()) {
-            final T f = entry.find(reference);
-            if(null == f) {
+        final Object key = reference.key();
+        for(Occurrence<T> occurrence = index.get(null == key ? reference : key); occurrence != null; occurrence = occurrence.next) {
+            final AttributedList<T> children = impl.get(occurrence.parent);
+            if(null == children) {
                 continue;
             }
-            return f;
+            final T f = null == key ? children.find(reference) : children.find(key, reference);
+            if(null != f) {
+                return f;
+            }
         }
         log.warn(String.format("Lookup failed for %s in cache", reference));
         return null;
     }
 
+    /**
+     * @param child Cached child
+     * @return Key of child not changing when attributes of child are modified if known or its reference
+     */
+    private Object key(final T child) {
+        final CacheReference<?> reference = this.reference(child);
+        final Object key = reference.key();
+        return null == key ? reference : key;
+    }
+
+    /**
+     * Add children of directory listing to reverse lookup index
+     */
+    private void index(final T parent, final AttributedList<T> children) {
+        if(null == parent || null == children || children == AttributedList.<T>emptyList()) {
+            return;
+        }
+        // Keep index up to date when children are added to or removed from cached list later
+        children.addListener(new ReverseIndexListener(parent));
+        for(T child : children) {
+            this.increment(this.key(child), parent);
+        }
+    }
+
+    /**
+     * Remove children of directory listing from reverse lookup index
+     */
+    private void unindex(final T parent, final AttributedList<T> children) {
+        if(null == parent || null == children || children == AttributedList.<T>emptyList()) {
+            return;
+        }
+        children.removeListener(new ReverseIndexListener(parent));
+        for(T child : children) {
+            this.decrement(this.key(child), parent);
+        }
+    }
+
+    private void increment(final Object key, final T parent) {
+        index.compute(key, (k, occurrence) -> Occurrence.increment(occurrence, parent));
+    }
+
+    private void decrement(final Object key, final T parent) {
+        // Entry removed when no child with key is left
+        index.computeIfPresent(key, (k, occurrence) -> Occurrence.decrement(occurrence, parent));
+    }
+
     @Override
     public long size() {
         return impl.size();
@@ -122,6 +190,8 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
             log.debug(String.format("Caching %s", reference));
         }
         final AttributedList<T> replaced = impl.get(reference);
+        this.unindex(reference, replaced);
+        this.index(reference, children);
         impl.put(reference, children);
         if(null == replaced) {
             // Not previously in cache
@@ -169,6 +239,91 @@ public abstract class AbstractCache<T extends Referenceable> implements Cache<T>
             log.info(String.format("Clear cache %s", this));
         }
         impl.clear();
+        index.clear();
+    }
+
+    /**
+     * Updates reverse index for modifications of cached directory listing
+     */
+    private final class ReverseIndexListener implements IndexedChunkedList.Listener<T> {
+        private final T parent;
+
+        public ReverseIndexListener(final T parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void added(final T e) {
+            AbstractCache.this.increment(AbstractCache.this.key(e), parent);
+        }
+
+        @Override
+        public void removed(final T e) {
+            AbstractCache.this.decrement(AbstractCache.this.key(e), parent);
+        }
+
+        private AbstractCache<T> cache() {
+            return AbstractCache.this;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ReverseIndexListener that = (ReverseIndexListener) o;
+            return cache() == that.cache() && Objects.equals(parent, that.parent);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(parent);
+        }
+    }
+
+    /**
+     * Parent directories with number of cached children for a key. Usually a single parent.
+     */
+    private static final class Occurrence<T> {
+        private final T parent;
+        private final int count;
+        private final Occurrence<T> next;
+
+        public Occurrence(final T parent, final int count, final Occurrence<T> next) {
+            this.parent = parent;
+            this.count = count;
+            this.next = next;
+        }
+
+        public static <T> Occurrence<T> increment(final Occurrence<T> occurrence, final T parent) {
+            if(null == occurrence) {
+                return new Occurrence<>(parent, 1, null);
+            }
+            if(occurrence.parent.equals(parent)) {
+                return new Occurrence<>(parent, occurrence.count + 1, occurrence.next);
+            }
+            return new Occurrence<>(occurrence.parent, occurrence.count, increment(occurrence.next, parent));
+        }
+
+        /**
+         * @return Null if no occurrence is left
+         */
+        public static <T> Occurrence<T> decrement(final Occurrence<T> occurrence, final T parent) {
+            if(null == occurrence) {
+                return null;
+            }
+            if(occurrence.parent.equals(parent)) {
+                if(1 == occurrence.count) {
+                    return occurrence.next;
+                }
+                return new Occurrence<>(parent, occurrence.count - 1, occurrence.next);
+            }
+            final Occurrence<T> next = decrement(occurrence.next, parent);
+            return next == occurrence.next ? occurrence : new Occurrence<>(occurrence.parent, occurrence.count, next);
+        }
     }
 
     @Override
@@ -18,14 +18,17 @@ package ch.cyberduck.core;
  *  dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.collections.IndexedChunkedList;
+import ch.cyberduck.core.transfer.TransferItem;
+
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 
 /**
@@ -51,8 +54,11 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         }
     };
 
-    private final List<E> impl
-        = new CopyOnWriteArrayList<>();
+    /**
+     * Chunked storage with lookup by path. Iterators are snapshots not affected by concurrent modifications.
+     */
+    private final IndexedChunkedList<E> impl
+        = new IndexedChunkedList<>(AttributedList::key);
 
     /**
      * Metadata of file listing
@@ -90,6 +96,17 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         return attributes;
     }
 
+    /**
+     * @param listener Notified of elements added to and removed from this list
+     */
+    public void addListener(final IndexedChunkedList.Listener<E> listener) {
+        impl.addListener(listener);
+    }
+
+    public void removeListener(final IndexedChunkedList.Listener<E> listener) {
+        impl.removeListener(listener);
+    }
+
     public boolean add(final E e) {
         return impl.add(e);
     }
@@ -110,11 +127,7 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     public E get(final E reference) {
-        final int index = impl.indexOf(reference);
-        if(-1 == index) {
-            return null;
-        }
-        return impl.get(index);
+        return impl.lookup(reference);
     }
 
     public void set(final int i, final E e) {
@@ -127,13 +140,11 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     /**
-     * The CopyOnWriteArrayList iterator does not support remove but the sort implementation
-     * makes use of it. Provide our own implementation here to circumvent.
+     * Sort a copy of the list as the snapshot iterator of the storage does not support remove.
      *
      * @param copy       The list copy to sort
      * @param comparator The comparator to use
      * @see java.util.Collections#sort(java.util.List, java.util.Comparator)
-     * @see java.util.concurrent.CopyOnWriteArrayList#iterator()
      */
     private void doSort(final List<E> copy, final Comparator<E> comparator) {
         if(null == comparator) {
@@ -163,17 +174,17 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
      * @return Filtered list sorted with comparator
      */
     public AttributedList<E> filter(final Comparator<E> comparator, final Filter<E> filter) {
-        final AttributedList<E> filtered = new AttributedList<>(impl);
+        final List<E> copy = new ArrayList<>(impl.snapshot());
         if(null != comparator) {
-            this.doSort(filtered.impl, comparator);
+            this.doSort(copy, comparator);
         }
         if(null != filter) {
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Filter list %s with filter %s", this, filter));
             }
-            filtered.impl.removeIf(e -> !filter.accept(e));
+            copy.removeIf(e -> !filter.accept(e));
         }
-        return filtered;
+        return new AttributedList<>(copy);
     }
 
     /**
@@ -196,13 +207,26 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
     }
 
     public E find(final Predicate<E> predicate) {
-        final Optional<E> optional = impl.stream().filter(predicate).findFirst();
+        if(null != predicate && predicate.getClass() == DefaultPathPredicate.class) {
+            // Lookup in index by path. Subclasses may match with a different condition
+            return impl.find(((DefaultPathPredicate) predicate).key(), predicate);
+        }
+        final Optional<E> optional = impl.snapshot().stream().filter(predicate).findFirst();
         return optional.orElse(null);
     }
 
+    /**
+     * @param key       Key of element as returned by {@link CacheReference#key()} for references to elements
+     * @param predicate Condition only matching elements with key
+     * @return First element with key matching predicate or null if not found
+     */
+    E find(final Object key, final Predicate<E> predicate) {
+        return impl.find(key, predicate);
+    }
+
     @SuppressWarnings("unchecked")
     public E[] toArray() {
-        return (E[]) impl.toArray(new Referenceable[impl.size()]);
+        return (E[]) impl.toArray(new Referenceable[0]);
     }
 
     public List<E> toList() {
@@ -225,6 +249,22 @@ public class AttributedList<E extends Referenceable> implements Iterable<E> {
         return impl.removeAll(e);
     }
 
+    /**
+     * @param e Element
+     * @return Key for index lookup not changing when attributes of file are modified
+     */
+    private static Object key(final Referenceable e) {
+        if(e instanceof Path) {
+            return ((Path) e).reference().key();
+        }
+        if(e instanceof TransferItem) {
+            if(null != ((TransferItem) e).remote) {
+                return ((TransferItem) e).remote.reference().key();
+            }
+        }
+        return e;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if(this == o) {
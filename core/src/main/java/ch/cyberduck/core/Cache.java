@@ -81,7 +81,7 @@ public interface Cache<T extends Referenceable> {
     void clear();
 
     /**
-     * @param reference Key for item in cached list
+     * @param reference Key for item in cached list equal to {@link #reference(Referenceable)} of item
      * @return Cached value for reference
      */
     T lookup(CacheReference<T> reference);
@@ -21,5 +21,12 @@ package ch.cyberduck.core;
 import java.util.function.Predicate;
 
 public interface CacheReference<T> extends Predicate<T> {
-    // Marker only
+
+    /**
+     * @return Key equal for all objects matched by this reference that does not change when attributes of the object
+     * are modified or null if not known
+     */
+    default Object key() {
+        return null;
+    }
 }
\ No newline at end of file
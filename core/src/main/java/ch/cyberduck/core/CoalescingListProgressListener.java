@@ -0,0 +1,107 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+/**
+ * Coalesce chunk notifications of list services calling back for every file. The delegate is notified only when a
+ * number of files have been added since the last notification or the interval has elapsed. Notifications still pass
+ * the same list with all files retrieved so far so that delegates extending {@link IndexedListProgressListener} only
+ * visit the files added since the last notification.
+ */
+public class CoalescingListProgressListener implements ListProgressListener {
+
+    private final ListProgressListener delegate;
+    /**
+     * Minimum number of files added before notifying delegate
+     */
+    private final int size;
+    /**
+     * Maximum duration in milliseconds between notifications
+     */
+    private final long interval;
+
+    /**
+     * List passed to delegate with last notification
+     */
+    private AttributedList<Path> last;
+    /**
+     * Number of files in list when delegate was last notified
+     */
+    private int notified;
+    private long timestamp;
+
+    public CoalescingListProgressListener(final ListProgressListener delegate) {
+        this(delegate, PreferencesFactory.get().getInteger("browser.list.chunk.size"),
+            PreferencesFactory.get().getLong("browser.list.chunk.interval"));
+    }
+
+    /**
+     * @param delegate Listener to notify
+     * @param size     Minimum number of files added before notifying delegate
+     * @param interval Maximum duration in milliseconds between notifications
+     */
+    public CoalescingListProgressListener(final ListProgressListener delegate, final int size, final long interval) {
+        this.delegate = delegate;
+        this.size = size;
+        this.interval = interval;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    @Override
+    public void chunk(final Path folder, final AttributedList<Path> list) throws ConnectionCanceledException {
+        final int added = list == last ? list.size() - notified : list.size();
+        if(added >= size || System.currentTimeMillis() - timestamp >= interval) {
+            this.fire(folder, list);
+        }
+    }
+
+    /**
+     * Notify delegate about files added since last notification. Always notifies when passed a different list than
+     * with the last notification even if its size is unchanged.
+     *
+     * @param folder Directory
+     * @param list   Files retrieved
+     */
+    public void flush(final Path folder, final AttributedList<Path> list) throws ConnectionCanceledException {
+        if(list != last || list.size() != notified) {
+            this.fire(folder, list);
+        }
+    }
+
+    private void fire(final Path folder, final AttributedList<Path> list) throws ConnectionCanceledException {
+        last = list;
+        notified = list.size();
+        timestamp = System.currentTimeMillis();
+        delegate.chunk(folder, list);
+    }
+
+    @Override
+    public ListProgressListener reset() {
+        last = null;
+        notified = 0;
+        timestamp = System.currentTimeMillis();
+        delegate.reset();
+        return this;
+    }
+
+    @Override
+    public void message(final String message) {
+        delegate.message(message);
+    }
+}
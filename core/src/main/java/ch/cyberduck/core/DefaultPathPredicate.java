@@ -31,24 +31,65 @@ public class DefaultPathPredicate implements CacheReference<Path> {
     private static final UnicodeNormalizer normalizer = new NFCNormalizer();
 
     private final String reference;
+    /**
+     * Normalized absolute path
+     */
+    private final String path;
+
+    /**
+     * Attributes the reference is computed from
+     */
+    private final Path.Type type;
+    private final String region;
+    private final String fileId;
+    private final String versionId;
 
     public DefaultPathPredicate(final Path file) {
-        final Path.Type type = file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory;
+        type = toType(file);
+        region = file.attributes().getRegion();
+        fileId = file.attributes().getFileId();
+        versionId = file.attributes().getVersionId();
         String qualifier = StringUtils.EMPTY;
-        if(StringUtils.isNotBlank(file.attributes().getRegion())) {
+        if(StringUtils.isNotBlank(region)) {
             if(new DefaultPathContainerService().isContainer(file)) {
-                qualifier += file.attributes().getRegion();
+                qualifier += region;
             }
         }
         if(file.isFile()) {
-            if(StringUtils.isNotBlank(file.attributes().getFileId())) {
-                qualifier += file.attributes().getFileId();
+            if(StringUtils.isNotBlank(fileId)) {
+                qualifier += fileId;
             }
-            if(StringUtils.isNotBlank(file.attributes().getVersionId())) {
-                qualifier += file.attributes().getVersionId();
+            if(StringUtils.isNotBlank(versionId)) {
+                qualifier += versionId;
             }
         }
-        reference = "[" + type + "]" + "-" + qualifier + normalizer.normalize(file.getAbsolute());
+        path = normalizer.normalize(file.getAbsolute()).toString();
+        reference = "[" + type + "]" + "-" + qualifier + path;
+    }
+
+    private static Path.Type toType(final Path file) {
+        return file.isSymbolicLink() ? Path.Type.symboliclink : file.isFile() ? Path.Type.file : Path.Type.directory;
+    }
+
+    /**
+     * @param file File this reference was computed for
+     * @return False if type or any attribute the reference is computed from has changed
+     */
+    boolean isValid(final Path file) {
+        final PathAttributes attributes = file.attributes();
+        // Compare identity as setting any attribute replaces the value
+        return type == toType(file)
+            && region == attributes.getRegion()
+            && fileId == attributes.getFileId()
+            && versionId == attributes.getVersionId();
+    }
+
+    /**
+     * @return Normalized absolute path not changing with type and attributes of file
+     */
+    @Override
+    public Object key() {
+        return path;
     }
 
     /**
@@ -84,6 +125,6 @@ public class DefaultPathPredicate implements CacheReference<Path> {
 
     @Override
     public boolean test(final Path test) {
-        return this.equals(new DefaultPathPredicate(test));
+        return this.equals(test.reference());
     }
 }
@@ -53,6 +53,11 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
      */
     private PathAttributes attributes;
 
+    /**
+     * Reference used for equality computed lazily and recomputed when type or attributes change
+     */
+    private transient DefaultPathPredicate reference;
+
     public Path(final Path copy) {
         this.parent = copy.parent;
         this.path = copy.path;
@@ -156,6 +161,8 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
 
     public void setType(final EnumSet<Type> type) {
         this.type = type;
+        // Recompute with container and volume flags of new type
+        this.reference = null;
     }
 
     public Path withType(final EnumSet<Type> type) {
@@ -201,6 +208,7 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
 
     public void setAttributes(final PathAttributes attributes) {
         this.attributes = attributes;
+        this.reference = null;
     }
 
     public Path withAttributes(final PathAttributes attributes) {
@@ -248,7 +256,19 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
      */
     @Override
     public int hashCode() {
-        return new DefaultPathPredicate(this).hashCode();
+        return this.reference().hashCode();
+    }
+
+    /**
+     * @return Memoized reference of this path
+     */
+    DefaultPathPredicate reference() {
+        DefaultPathPredicate reference = this.reference;
+        if(null == reference || !reference.isValid(this)) {
+            reference = new DefaultPathPredicate(this);
+            this.reference = reference;
+        }
+        return reference;
     }
 
     /**
@@ -261,7 +281,7 @@ public class Path extends AbstractPath implements Referenceable, Serializable {
             return false;
         }
         if(other instanceof Path) {
-            return new DefaultPathPredicate(this).equals(new DefaultPathPredicate((Path) other));
+            return this.reference().equals(((Path) other).reference());
         }
         return false;
     }
@@ -36,6 +36,6 @@ public class PathCache extends AbstractCache<Path> {
 
     @Override
     public CacheReference<?> reference(final Path file) {
-        return new DefaultPathPredicate(file);
+        return file.reference();
     }
 }
@@ -28,6 +28,7 @@ import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
 import ch.cyberduck.core.serializer.Reader;
 import ch.cyberduck.core.serializer.Writer;
 import ch.cyberduck.core.transfer.Transfer;
+import ch.cyberduck.core.transfer.TransferJournal;
 import ch.cyberduck.core.transfer.TransferProgress;
 
 import org.apache.log4j.Logger;
@@ -86,6 +87,14 @@ public class TransferCollection extends Collection<Transfer> {
         return LocalFactory.get(folder, String.format("%s.cyberducktransfer", transfer.getUuid()));
     }
 
+    /**
+     * @param transfer Transfer
+     * @return Journal of completed parts for transfer
+     */
+    public TransferJournal getJournal(final Transfer transfer) {
+        return new TransferJournal(LocalFactory.get(folder, String.format("%s.cyberduckjournal", transfer.getUuid())));
+    }
+
     public Local getFolder() {
         return folder;
     }
@@ -93,6 +102,7 @@ public class TransferCollection extends Collection<Transfer> {
     @Override
     public void collectionItemRemoved(final Transfer transfer) {
         try {
+            this.getJournal(transfer).delete();
             this.getFile(transfer).delete();
             preferences.deleteProperty(String.format("%s%s", prefix, transfer.getUuid()));
         }
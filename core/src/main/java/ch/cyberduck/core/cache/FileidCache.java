@@ -0,0 +1,163 @@
+package ch.cyberduck.core.cache;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.SimplePathPredicate;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.RemovalCause;
+
+/**
+ * Bounded index of file identifiers by path for protocols addressing files by identifier. Filled when listing
+ * directories, reading attributes and writing files. Invalidated when files are moved or deleted and when the
+ * cached listing of the parent directory is invalidated. Identifiers of descendants of a removed directory are
+ * dropped lazily on lookup.
+ */
+public class FileidCache {
+    private static final Logger log = Logger.getLogger(FileidCache.class);
+
+    private final LRUCache<SimplePathPredicate, Entry> impl;
+    /**
+     * Removed directories with sequence number of removal
+     */
+    private final LRUCache<SimplePathPredicate, Long> removed;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public FileidCache() {
+        this(PreferencesFactory.get().getInteger("fileid.cache.size"));
+    }
+
+    /**
+     * @param size Maximum number of identifiers to retain
+     */
+    public FileidCache(final int size) {
+        this.impl = LRUCache.build(size);
+        this.removed = LRUCache.build(notification -> {
+            if(notification.getCause() == RemovalCause.SIZE) {
+                // Descendants of evicted directory can no longer be detected as removed
+                impl.clear();
+            }
+        }, size);
+    }
+
+    /**
+     * @param file Path
+     * @return Identifier or null if not cached
+     */
+    public String get(final Path file) {
+        final SimplePathPredicate key = new SimplePathPredicate(file);
+        final Entry entry = impl.get(key);
+        if(null == entry) {
+            return null;
+        }
+        for(Path parent = file; !parent.isRoot(); ) {
+            parent = parent.getParent();
+            final Long sequence = removed.get(new SimplePathPredicate(parent));
+            if(null != sequence && sequence > entry.sequence) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Remove %s with removed parent %s from index", file, parent));
+                }
+                impl.remove(key);
+                return null;
+            }
+        }
+        return entry.id;
+    }
+
+    /**
+     * @param file  Path
+     * @param cache Directory listings
+     * @return Identifier or null if not cached or the cached listing of the parent directory is invalidated
+     */
+    public String get(final Path file, final Cache<Path> cache) {
+        if(!file.isRoot()) {
+            if(cache.isCached(file.getParent()) && !cache.isValid(file.getParent())) {
+                this.invalidate(file.getParent());
+                return null;
+            }
+        }
+        return this.get(file);
+    }
+
+    /**
+     * @param file Path
+     * @param id   Identifier or null to remove file from index
+     */
+    public void put(final Path file, final String id) {
+        if(StringUtils.isBlank(id)) {
+            this.remove(file);
+            return;
+        }
+        impl.put(new SimplePathPredicate(file), new Entry(sequence.incrementAndGet(), id));
+    }
+
+    /**
+     * Remove identifier of file and of all descendants when file is a directory
+     *
+     * @param file Path
+     */
+    public void remove(final Path file) {
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Remove %s from index", file));
+        }
+        impl.remove(new SimplePathPredicate(file));
+        if(file.isDirectory()) {
+            this.invalidate(file);
+        }
+    }
+
+    /**
+     * Remove identifiers of all descendants of directory
+     *
+     * @param directory Directory
+     */
+    public void invalidate(final Path directory) {
+        if(directory.isRoot()) {
+            this.clear();
+            return;
+        }
+        removed.put(new SimplePathPredicate(directory), sequence.incrementAndGet());
+    }
+
+    public long size() {
+        return impl.size();
+    }
+
+    public void clear() {
+        impl.clear();
+        removed.clear();
+    }
+
+    private static final class Entry {
+        /**
+         * Sequence number when added
+         */
+        private final long sequence;
+        private final String id;
+
+        public Entry(final long sequence, final String id) {
+            this.sequence = sequence;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,619 @@
+package ch.cyberduck.core.collections;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * List with append optimized storage in fixed size chunks and a hash index to lookup elements by key. Appending
+ * never copies previously added elements. Writers are serialized; readers never block and iterate over an
+ * immutable snapshot of the list taken when the iterator is created. Inserting, replacing and removing elements only
+ * copies the chunks from the position modified and updates the index for elements moved. Lookups concurrent with
+ * inserting or removing an element before the end of the list scan the snapshot instead of waiting for the index
+ * to be updated.
+ * <p>
+ * Keys are computed when an element is added and must not change while the element is in the list. Elements only
+ * match a lookup if their key is equal to the key of the lookup.
+ *
+ * @param <E> Element type
+ */
+public class IndexedChunkedList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int DEFAULT_CHUNK_SHIFT = 10;
+
+    private final Object lock = new Object();
+
+    /**
+     * Maps key of element to index of its first occurrence in the list and number of occurrences
+     */
+    private final Map<Object, Occurrence> index = new ConcurrentHashMap<>();
+
+    private final Set<Listener<E>> listeners = new CopyOnWriteArraySet<>();
+
+    private final Function<E, Object> key;
+    private final int shift;
+
+    private volatile Snapshot<E> snapshot;
+
+    /**
+     * Incremented before and after moving elements. Odd while the index does not match the published snapshot.
+     */
+    private volatile int modifications;
+
+    public IndexedChunkedList() {
+        this(e -> e);
+    }
+
+    /**
+     * @param key Function to compute lookup key of element
+     */
+    public IndexedChunkedList(final Function<E, Object> key) {
+        this(key, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * @param key   Function to compute lookup key of element
+     * @param shift Chunk size as power of two
+     */
+    public IndexedChunkedList(final Function<E, Object> key, final int shift) {
+        this.key = key;
+        this.shift = shift;
+        this.snapshot = new Snapshot<>(new Object[0][], new Object[0][], 0, shift);
+    }
+
+    /**
+     * @param listener Notified of elements added and removed after the modification is published
+     */
+    public void addListener(final Listener<E> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final Listener<E> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Immutable view of the current elements
+     */
+    public List<E> snapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean add(final E e) {
+        synchronized(lock) {
+            final Snapshot<E> current = snapshot;
+            final Storage storage = new Storage(current, current.size, current.size + 1, false);
+            final Object k = key.apply(e);
+            // Slot is beyond the size of any snapshot published before
+            storage.set(current.size, e, k);
+            this.increment(k, current.size);
+            snapshot = storage.publish(current.size + 1);
+            this.added(e);
+        }
+        return true;
+    }
+
+    @Override
+    public void add(final int i, final E e) {
+        synchronized(lock) {
+            final Snapshot<E> current = snapshot;
+            if(i < 0 || i > current.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d", i, current.size));
+            }
+            if(i == current.size) {
+                this.add(e);
+                return;
+            }
+            modifications++;
+            try {
+                final Storage storage = new Storage(current, i, current.size + 1, true);
+                // Move elements from the end to not overwrite first occurrence of duplicate keys
+                for(int j = current.size - 1; j >= i; j--) {
+                    final Object kj = current.key(j);
+                    storage.set(j + 1, current.get(j), kj);
+                    this.move(kj, j, j + 1);
+                }
+                final Object k = key.apply(e);
+                storage.set(i, e, k);
+                this.increment(k, i);
+                snapshot = storage.publish(current.size + 1);
+            }
+            finally {
+                modifications++;
+            }
+            this.added(e);
+        }
+    }
+
+    @Override
+    public E set(final int i, final E e) {
+        synchronized(lock) {
+            final Snapshot<E> current = snapshot;
+            final E previous = current.get(i);
+            modifications++;
+            try {
+                final Storage storage = new Storage(current, i, current.size, true);
+                final Object k = key.apply(e);
+                storage.set(i, e, k);
+                final Object previousKey = current.key(i);
+                final Snapshot<E> update = storage.publish(current.size);
+                if(!Objects.equals(previousKey, k)) {
+                    this.decrement(update, previousKey, i, i + 1);
+                    this.increment(k, i);
+                }
+                snapshot = update;
+            }
+            finally {
+                modifications++;
+            }
+            this.removed(previous);
+            this.added(e);
+            return previous;
+        }
+    }
+
+    @Override
+    public E remove(final int i) {
+        synchronized(lock) {
+            final Snapshot<E> current = snapshot;
+            final E previous = current.get(i);
+            modifications++;
+            try {
+                final Storage storage = new Storage(current, i, current.size, true);
+                for(int j = i + 1; j < current.size; j++) {
+                    final Object kj = current.key(j);
+                    storage.set(j - 1, current.get(j), kj);
+                    this.move(kj, j, j - 1);
+                }
+                // Release reference
+                storage.set(current.size - 1, null, null);
+                final Snapshot<E> update = storage.publish(current.size - 1);
+                this.decrement(update, current.key(i), i, i);
+                snapshot = update;
+            }
+            finally {
+                modifications++;
+            }
+            this.removed(previous);
+            return previous;
+        }
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        synchronized(lock) {
+            final int i = this.indexOf(o);
+            if(-1 == i) {
+                return false;
+            }
+            this.remove(i);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        return this.removeIf(c::contains);
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super E> filter) {
+        synchronized(lock) {
+            final Snapshot<E> current = snapshot;
+            int first = -1;
+            for(int j = 0; j < current.size; j++) {
+                if(filter.test(current.get(j))) {
+                    first = j;
+                    break;
+                }
+            }
+            if(-1 == first) {
+                return false;
+            }
+            final List<E> removed = new ArrayList<>();
+            modifications++;
+            try {
+                final Storage storage = new Storage(current, first, current.size, true);
+                // Compact remaining elements in a single pass
+                int position = first;
+                for(int j = first; j < current.size; j++) {
+                    final E e = current.get(j);
+                    final Object kj = current.key(j);
+                    if(j == first || filter.test(e)) {
+                        removed.add(e);
+                        if(null != kj) {
+                            final Occurrence occurrence = index.get(kj);
+                            if(1 == occurrence.count) {
+                                index.remove(kj);
+                            }
+                            else {
+                                // First occurrence set by following element with same key
+                                index.put(kj, new Occurrence(occurrence.first == j ? -1 : occurrence.first, occurrence.count - 1));
+                            }
+                        }
+                    }
+                    else {
+                        storage.set(position, e, kj);
+                        if(null != kj) {
+                            final Occurrence occurrence = index.get(kj);
+                            if(occurrence.first == j || -1 == occurrence.first) {
+                                index.put(kj, new Occurrence(position, occurrence.count));
+                            }
+                        }
+                        position++;
+                    }
+                }
+                for(int j = position; j < current.size; j++) {
+                    // Release references
+                    storage.set(j, null, null);
+                }
+                snapshot = storage.publish(position);
+            }
+            finally {
+                modifications++;
+            }
+            for(E e : removed) {
+                this.removed(e);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized(lock) {
+            final Snapshot<E> current = snapshot;
+            modifications++;
+            try {
+                index.clear();
+                snapshot = new Snapshot<>(new Object[0][], new Object[0][], 0, shift);
+            }
+            finally {
+                modifications++;
+            }
+            if(!listeners.isEmpty()) {
+                for(E e : current) {
+                    this.removed(e);
+                }
+            }
+        }
+    }
+
+    private void added(final E e) {
+        for(Listener<E> listener : listeners) {
+            listener.added(e);
+        }
+    }
+
+    private void removed(final E e) {
+        for(Listener<E> listener : listeners) {
+            listener.removed(e);
+        }
+    }
+
+    /**
+     * Add occurrence of key at position
+     */
+    private void increment(final Object k, final int position) {
+        if(null == k) {
+            return;
+        }
+        final Occurrence occurrence = index.get(k);
+        if(null == occurrence) {
+            index.put(k, new Occurrence(position, 1));
+        }
+        else {
+            index.put(k, new Occurrence(Math.min(occurrence.first, position), occurrence.count + 1));
+        }
+    }
+
+    /**
+     * Update first occurrence of key when element is moved
+     */
+    private void move(final Object k, final int from, final int to) {
+        if(null == k) {
+            return;
+        }
+        final Occurrence occurrence = index.get(k);
+        if(occurrence.first == from) {
+            index.put(k, new Occurrence(to, occurrence.count));
+        }
+    }
+
+    /**
+     * Remove occurrence of key previously at position
+     *
+     * @param update Storage after modification
+     * @param from   Position to search for next occurrence in storage after modification
+     */
+    private void decrement(final Snapshot<E> update, final Object k, final int position, final int from) {
+        if(null == k) {
+            return;
+        }
+        final Occurrence occurrence = index.get(k);
+        if(1 == occurrence.count) {
+            index.remove(k);
+            return;
+        }
+        if(occurrence.first != position) {
+            index.put(k, new Occurrence(occurrence.first, occurrence.count - 1));
+            return;
+        }
+        // Only scan for duplicate keys
+        for(int j = from; j < update.size; j++) {
+            if(k.equals(update.key(j))) {
+                index.put(k, new Occurrence(j, occurrence.count - 1));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public E get(final int i) {
+        return snapshot.get(i);
+    }
+
+    @Override
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return 0 == snapshot.size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return snapshot.iterator();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return snapshot.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(final T[] a) {
+        return snapshot.toArray(a);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return -1 != this.indexOf(o);
+    }
+
+    /**
+     * @param o Element to search for
+     * @return Element in list equal to parameter or null if not found
+     */
+    public E lookup(final E o) {
+        return this.find(key.apply(o), e -> Objects.equals(o, e));
+    }
+
+    /**
+     * @param k         Key to lookup
+     * @param predicate Condition element must satisfy
+     * @return First element with key matching predicate or null if not found
+     */
+    public E find(final Object k, final Predicate<E> predicate) {
+        final int sequence = modifications;
+        final Snapshot<E> current = snapshot;
+        if(0 == (sequence & 1)) {
+            final int i = this.indexOf(current, k, predicate);
+            if(sequence == modifications) {
+                return -1 == i ? null : current.get(i);
+            }
+        }
+        // Concurrent modification of index
+        final int i = this.scan(current, predicate);
+        return -1 == i ? null : current.get(i);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int indexOf(final Object o) {
+        if(null == o) {
+            return snapshot.indexOf(null);
+        }
+        final Object k = key.apply((E) o);
+        final int sequence = modifications;
+        final Snapshot<E> current = snapshot;
+        if(0 == (sequence & 1)) {
+            final int i = this.indexOf(current, k, o::equals);
+            if(sequence == modifications) {
+                return i;
+            }
+        }
+        // Concurrent modification of index
+        return this.scan(current, o::equals);
+    }
+
+    private int indexOf(final Snapshot<E> current, final Object k, final Predicate<? super E> predicate) {
+        if(null == k) {
+            return -1;
+        }
+        final Occurrence occurrence = index.get(k);
+        // Skip if not found or added after snapshot
+        if(null == occurrence || occurrence.first < 0 || occurrence.first >= current.size) {
+            return -1;
+        }
+        if(predicate.test(current.get(occurrence.first))) {
+            return occurrence.first;
+        }
+        // Only scan until all duplicate keys are found
+        int remaining = occurrence.count - 1;
+        for(int i = occurrence.first + 1; remaining > 0 && i < current.size; i++) {
+            if(k.equals(current.key(i))) {
+                if(predicate.test(current.get(i))) {
+                    return i;
+                }
+                remaining--;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Linear search not depending on index
+     */
+    private int scan(final Snapshot<E> current, final Predicate<? super E> predicate) {
+        for(int i = 0; i < current.size; i++) {
+            if(predicate.test(current.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Notified with the lock of the list held after the modification is visible to readers
+     */
+    public interface Listener<E> {
+        void added(E e);
+
+        void removed(E e);
+    }
+
+    private static final class Occurrence {
+        private final int first;
+        private final int count;
+
+        public Occurrence(final int first, final int count) {
+            this.first = first;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Chunk directories for modification with chunks from a position copied to not affect published snapshots
+     */
+    private final class Storage {
+        private final Object[][] chunks;
+        private final Object[][] keys;
+
+        /**
+         * @param current  Published snapshot
+         * @param from     First position modified
+         * @param capacity Number of elements to store
+         * @param copy     Copy chunks from position or only chunk directory if appending
+         */
+        public Storage(final Snapshot<E> current, final int from, final int capacity, final boolean copy) {
+            final int length = Math.max(current.chunks.length, (capacity + (1 << shift) - 1) >>> shift);
+            if(length == current.chunks.length && !copy) {
+                chunks = current.chunks;
+                keys = current.keys;
+            }
+            else {
+                // Only copy the chunk directory
+                chunks = Arrays.copyOf(current.chunks, Math.max(length, current.chunks.length << 1));
+                keys = Arrays.copyOf(current.keys, chunks.length);
+                if(copy) {
+                    for(int c = from >>> shift; c < current.chunks.length; c++) {
+                        if(null != current.chunks[c]) {
+                            chunks[c] = current.chunks[c].clone();
+                            keys[c] = current.keys[c].clone();
+                        }
+                    }
+                }
+            }
+        }
+
+        public void set(final int i, final Object e, final Object k) {
+            final int c = i >>> shift;
+            if(null == chunks[c]) {
+                chunks[c] = new Object[1 << shift];
+                keys[c] = new Object[1 << shift];
+            }
+            chunks[c][i & ((1 << shift) - 1)] = e;
+            keys[c][i & ((1 << shift) - 1)] = k;
+        }
+
+        public Snapshot<E> publish(final int size) {
+            return new Snapshot<>(chunks, keys, size, shift);
+        }
+    }
+
+    private static final class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+        private final Object[][] chunks;
+        private final Object[][] keys;
+        private final int size;
+        private final int shift;
+
+        public Snapshot(final Object[][] chunks, final Object[][] keys, final int size, final int shift) {
+            this.chunks = chunks;
+            this.keys = keys;
+            this.size = size;
+            this.shift = shift;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(final int i) {
+            if(i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d", i, size));
+            }
+            return (E) chunks[i >>> shift][i & ((1 << shift) - 1)];
+        }
+
+        /**
+         * @return Key of element computed when added
+         */
+        public Object key(final int i) {
+            return keys[i >>> shift][i & ((1 << shift) - 1)];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<E>() {
+                private int cursor = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return cursor < size;
+                }
+
+                @Override
+                public E next() {
+                    if(cursor >= size) {
+                        throw new NoSuchElementException();
+                    }
+                    return get(cursor++);
+                }
+            };
+        }
+    }
+}
@@ -43,8 +43,27 @@ public interface Delete {
         return false;
     }
 
+    /**
+     * @param file File or directory to delete recursively
+     * @return True if files can be deleted in independent batches of any size while the listing is still running
+     */
+    default boolean isStreaming(final Path file) {
+        return false;
+    }
+
     interface Callback {
         void delete(Path file);
+
+        /**
+         * Failure deleting a single file of a batch
+         *
+         * @param file    File not deleted
+         * @param failure Failure reply for file
+         * @throws BackgroundException To stop deleting the remaining files
+         */
+        default void failure(Path file, BackgroundException failure) throws BackgroundException {
+            throw failure;
+        }
     }
 
     class DisabledCallback implements Callback {
@@ -0,0 +1,36 @@
+package ch.cyberduck.core.features;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.io.ChecksumCache;
+import ch.cyberduck.core.synchronization.Comparison;
+
+/**
+ * Compare local file with ETag of remote file computed from its contents but not parsed as a checksum
+ */
+public interface ETagComparison {
+
+    /**
+     * @param remote    Attributes of remote file
+     * @param local     Local file
+     * @param checksums Cache for hashes computed from local file
+     * @return Equal or not equal if ETag is computed from local file or unknown if not supported for ETag
+     */
+    Comparison compare(PathAttributes remote, Local local, ChecksumCache checksums) throws BackgroundException;
+}
@@ -23,5 +23,15 @@ import ch.cyberduck.core.exception.BackgroundException;
 public interface IdProvider {
     String getFileid(Path file, ListProgressListener listener) throws BackgroundException;
 
+    /**
+     * Remember identifier of file found when listing directory or reading attributes
+     *
+     * @param file Path
+     * @param id   Identifier or null to remove file and its descendants from index after move or delete
+     */
+    default void cache(Path file, String id) {
+        //
+    }
+
     IdProvider withCache(Cache<Path> cache);
 }
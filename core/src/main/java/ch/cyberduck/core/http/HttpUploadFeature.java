@@ -69,10 +69,19 @@ public class HttpUploadFeature<Reply, Digest> implements Upload<Reply> {
     public Reply upload(final Path file, final Local local, final BandwidthThrottle throttle,
                         final StreamListener listener, final TransferStatus status,
                         final StreamCancelation cancel, final StreamProgress progress, final ConnectionCallback callback) throws BackgroundException {
+        return this.upload(file, local.getInputStream(), throttle, listener, status, cancel, progress, callback);
+    }
+
+    /**
+     * @param content Contents of file to upload. Bytes up to the offset of the transfer status are skipped.
+     */
+    public Reply upload(final Path file, final InputStream content, final BandwidthThrottle throttle,
+                        final StreamListener listener, final TransferStatus status,
+                        final StreamCancelation cancel, final StreamProgress progress, final ConnectionCallback callback) throws BackgroundException {
         try {
             final Digest digest = this.digest();
             // Wrap with digest stream if available
-            final InputStream in = this.decorate(local.getInputStream(), digest);
+            final InputStream in = this.decorate(content, digest);
             final StatusOutputStream<Reply> out = writer.write(file, status, callback);
             new StreamCopier(cancel, progress)
                 .withOffset(status.getOffset())
@@ -0,0 +1,243 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * File of records appended with length prefix and CRC32 suffix after a version header. Reading stops at the first
+ * truncated or corrupt record written before a crash and the file is truncated after the last valid record. The file
+ * is rewritten atomically with the records given on compaction.
+ */
+public class AppendOnlyLog {
+    private static final Logger log = Logger.getLogger(AppendOnlyLog.class);
+
+    private final Local file;
+    private final int version;
+    /**
+     * Force records to storage device when appended
+     */
+    private final boolean sync;
+
+    private FileChannel channel;
+    /**
+     * Number of records in file
+     */
+    private int records;
+
+    /**
+     * @param file    Log file
+     * @param version Format version in header. Files with different version are ignored
+     * @param sync    Force each record to the storage device when appended
+     */
+    public AppendOnlyLog(final Local file, final int version, final boolean sync) {
+        this.file = file;
+        this.version = version;
+        this.sync = sync;
+    }
+
+    /**
+     * Read all valid records from file
+     *
+     * @param reader Callback for each record
+     */
+    public void read(final RecordReader reader) throws IOException {
+        records = 0;
+        if(!file.exists()) {
+            return;
+        }
+        final Path path = Paths.get(file.getAbsolute());
+        final byte[] bytes = Files.readAllBytes(path);
+        // Position after last valid record
+        long valid = 0L;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if(in.readInt() != version) {
+                log.warn(String.format("Ignore %s with unknown version", file));
+            }
+            else {
+                valid = Integer.BYTES;
+                while(true) {
+                    final int length = in.readInt();
+                    if(length <= 0 || length > in.available()) {
+                        break;
+                    }
+                    final byte[] record = new byte[length];
+                    in.readFully(record);
+                    final CRC32 crc = new CRC32();
+                    crc.update(record);
+                    if(in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                    reader.read(new DataInputStream(new ByteArrayInputStream(record)));
+                    records++;
+                    valid += Integer.BYTES + length + Integer.BYTES;
+                }
+            }
+        }
+        catch(EOFException e) {
+            // Truncated record
+        }
+        if(valid < bytes.length) {
+            log.warn(String.format("Discard %d bytes of incomplete records in %s", bytes.length - valid, file));
+            try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                out.truncate(valid);
+            }
+        }
+    }
+
+    /**
+     * Append record to end of file
+     */
+    public void append(final RecordWriter writer) throws IOException {
+        final ByteBuffer buffer = this.record(writer);
+        if(null == channel) {
+            channel = this.open(Paths.get(file.getAbsolute()));
+        }
+        this.write(channel, buffer);
+        if(sync) {
+            channel.force(false);
+        }
+        records++;
+    }
+
+    /**
+     * Replace contents of file with records given
+     *
+     * @param writers Live records
+     */
+    public void compact(final Iterable<RecordWriter> writers) throws IOException {
+        final Path path = Paths.get(file.getAbsolute());
+        final Path temporary = path.resolveSibling(String.format("%s.tmp", path.getFileName()));
+        int count = 0;
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, version));
+            for(RecordWriter writer : writers) {
+                this.write(out, this.record(writer));
+                count++;
+            }
+            if(sync) {
+                out.force(false);
+            }
+        }
+        this.close();
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Compacted %s from %d to %d records", file, records, count));
+        }
+        records = count;
+    }
+
+    /**
+     * @return Number of records in file
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    public void close() throws IOException {
+        if(null == channel) {
+            return;
+        }
+        try {
+            channel.close();
+        }
+        finally {
+            channel = null;
+        }
+    }
+
+    /**
+     * Close and delete file
+     */
+    public void delete() throws IOException {
+        this.close();
+        records = 0;
+        Files.deleteIfExists(Paths.get(file.getAbsolute()));
+    }
+
+    private FileChannel open(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if(0L == channel.size()) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, version));
+        }
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private void write(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * @return Record with length prefix and checksum suffix
+     */
+    private ByteBuffer record(final RecordWriter writer) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        }
+        final byte[] record = bytes.toByteArray();
+        final CRC32 crc = new CRC32();
+        crc.update(record);
+        final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length + Integer.BYTES);
+        buffer.putInt(record.length).put(record).putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AppendOnlyLog{");
+        sb.append("file=").append(file);
+        sb.append(", records=").append(records);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public interface RecordReader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    public interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
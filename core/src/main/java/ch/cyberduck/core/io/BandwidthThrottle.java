@@ -175,6 +175,20 @@ public final class BandwidthThrottle {
         return result;
     }
 
+    /**
+     * Return bytes granted by request(..) but not sent to the current window
+     *
+     * @param unused the number of bytes granted but not sent
+     */
+    public synchronized void release(int unused) {
+        if(UNLIMITED == rate) {
+            return;
+        }
+        if(unused > 0) {
+            availableBytes = Math.min(bytesPerTick, availableBytes + unused);
+        }
+    }
+
     /**
      * Waits until data is _availableBytes.
      */
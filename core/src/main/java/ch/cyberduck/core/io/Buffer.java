@@ -18,6 +18,7 @@ package ch.cyberduck.core.io;
 import ch.cyberduck.core.Path;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 public interface Buffer {
 
@@ -28,6 +29,20 @@ public interface Buffer {
      */
     int write(byte[] chunk, Long offset) throws IOException;
 
+    /**
+     * @param chunk  Bytes to write to offset position
+     * @param off    Start offset in chunk
+     * @param len    Number of bytes from chunk to write
+     * @param offset Target offset in buffer
+     * @return Number of bytes written
+     */
+    default int write(byte[] chunk, int off, int len, Long offset) throws IOException {
+        if(0 == off && chunk.length == len) {
+            return this.write(chunk, offset);
+        }
+        return this.write(Arrays.copyOfRange(chunk, off, off + len), offset);
+    }
+
     /**
      * @param buffer Fill this buffer length
      * @param offset Position in buffer to read from
@@ -35,6 +50,25 @@ public interface Buffer {
      */
     int read(byte[] buffer, Long offset) throws IOException;
 
+    /**
+     * @param buffer Fill with bytes read
+     * @param off    Start offset in buffer
+     * @param len    Maximum number of bytes to read
+     * @param offset Position in buffer to read from
+     * @return Length read. -1 when there is no more data
+     */
+    default int read(byte[] buffer, int off, int len, Long offset) throws IOException {
+        if(0 == off && buffer.length == len) {
+            return this.read(buffer, offset);
+        }
+        final byte[] chunk = new byte[len];
+        final int read = this.read(chunk, offset);
+        if(read > 0) {
+            System.arraycopy(chunk, 0, buffer, off, read);
+        }
+        return read;
+    }
+
     /**
      * @return Current length of buffer
      */
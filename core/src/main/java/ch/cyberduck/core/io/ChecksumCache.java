@@ -0,0 +1,333 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.preferences.SupportDirectoryFinderFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persistent cache of checksums computed for local files. Entries are keyed by path and kind of hash and only valid
+ * as long as size, modification date and file key of the file are unchanged. Entries are appended to the cache file
+ * when computed and the least recently used entries are discarded when the number of entries exceeds the limit. The
+ * file is rewritten with live entries only when most of its records are stale.
+ */
+public class ChecksumCache {
+    private static final Logger log = Logger.getLogger(ChecksumCache.class);
+
+    private static final int VERSION = 1;
+
+    private static ChecksumCache instance;
+
+    /**
+     * @return Singleton instance
+     */
+    public static synchronized ChecksumCache defaultCache() {
+        if(null == instance) {
+            instance = new ChecksumCache(
+                LocalFactory.get(SupportDirectoryFinderFactory.get().find(), "Checksums"),
+                PreferencesFactory.get().getInteger("local.checksum.cache.size"));
+        }
+        return instance;
+    }
+
+    private final Local file;
+    private final AppendOnlyLog store;
+    /**
+     * Maximum number of entries
+     */
+    private final int size;
+
+    private final Map<Key, Entry> entries;
+
+    private boolean loaded;
+
+    /**
+     * @param file Cache file
+     * @param size Maximum number of entries or 0 to disable cache
+     */
+    public ChecksumCache(final Local file, final int size) {
+        this.file = file;
+        this.store = new AppendOnlyLog(file, VERSION, false);
+        this.size = size;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                return this.size() > ChecksumCache.this.size;
+            }
+        };
+    }
+
+    /**
+     * Lookup checksum in cache or compute from file contents if missing or file has changed
+     *
+     * @param local     File
+     * @param algorithm Hash algorithm
+     * @return Checksum of file contents
+     */
+    public Checksum compute(final Local local, final HashAlgorithm algorithm) throws BackgroundException {
+        final String hash = this.compute(local, algorithm.name(),
+            () -> ChecksumComputeFactory.get(algorithm).compute(local.getInputStream(), new TransferStatus()).hash);
+        if(null == hash) {
+            return Checksum.NONE;
+        }
+        return new Checksum(algorithm, hash);
+    }
+
+    /**
+     * Lookup hash in cache or compute from file contents if missing or file has changed
+     *
+     * @param local       File
+     * @param type        Identifier for kind of hash computed
+     * @param computation Compute hash from file contents
+     * @return Hash of file contents
+     */
+    public String compute(final Local local, final String type, final Computation computation) throws BackgroundException {
+        final Key key = new Key(local.getAbsolute(), type);
+        final Entry before = size > 0 ? this.stat(local) : null;
+        if(null != before) {
+            final String hash = this.find(key, before);
+            if(null != hash) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Return cached %s hash %s for %s", type, hash, local));
+                }
+                return hash;
+            }
+        }
+        final String hash = computation.compute();
+        if(null != before && null != hash) {
+            // Skip if modified while computing checksum
+            if(before.equals(this.stat(local))) {
+                this.put(key, new Entry(before.size, before.modified, before.identifier, hash));
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @return Size, modification date and file key or null if not available
+     */
+    private Entry stat(final Local local) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(Paths.get(local.getAbsolute()), BasicFileAttributes.class);
+            if(!attributes.isRegularFile()) {
+                return null;
+            }
+            return new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                null == attributes.fileKey() ? StringUtils.EMPTY : attributes.fileKey().toString(), null);
+        }
+        catch(IOException | InvalidPathException | UnsupportedOperationException e) {
+            log.warn(String.format("Failure reading attributes of %s. %s", local, e.getMessage()));
+            return null;
+        }
+    }
+
+    private synchronized String find(final Key key, final Entry attributes) {
+        this.load();
+        final Entry entry = entries.get(key);
+        if(null == entry) {
+            return null;
+        }
+        if(entry.equals(attributes)) {
+            return entry.hash;
+        }
+        // File changed since checksum was computed
+        entries.remove(key);
+        return null;
+    }
+
+    private synchronized void put(final Key key, final Entry entry) {
+        this.load();
+        entries.put(key, entry);
+        try {
+            store.append(this.record(key, entry));
+            if(store.getRecords() > Math.max(size, 2 * entries.size())) {
+                this.compact();
+            }
+        }
+        catch(IOException | InvalidPathException e) {
+            log.warn(String.format("Failure writing checksum cache %s. %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * Discard all entries
+     */
+    public synchronized void clear() {
+        entries.clear();
+        loaded = true;
+        try {
+            store.delete();
+        }
+        catch(IOException | InvalidPathException e) {
+            log.warn(String.format("Failure deleting checksum cache %s. %s", file, e.getMessage()));
+        }
+    }
+
+    public synchronized void close() {
+        try {
+            store.close();
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure closing checksum cache %s. %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * Read entries from cache file
+     */
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            store.read(in -> entries.put(new Key(in.readUTF(), in.readUTF()),
+                new Entry(in.readLong(), in.readLong(), in.readUTF(), in.readUTF())));
+        }
+        catch(IOException | InvalidPathException e) {
+            log.warn(String.format("Failure reading checksum cache %s. %s", file, e.getMessage()));
+            entries.clear();
+        }
+    }
+
+    /**
+     * Rewrite cache file with live entries only
+     */
+    private void compact() {
+        final List<AppendOnlyLog.RecordWriter> records = new ArrayList<>();
+        for(Map.Entry<Key, Entry> entry : entries.entrySet()) {
+            records.add(this.record(entry.getKey(), entry.getValue()));
+        }
+        try {
+            store.compact(records);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure compacting checksum cache %s. %s", file, e.getMessage()));
+        }
+    }
+
+    private AppendOnlyLog.RecordWriter record(final Key key, final Entry entry) {
+        return out -> {
+            out.writeUTF(key.path);
+            out.writeUTF(key.type);
+            out.writeLong(entry.size);
+            out.writeLong(entry.modified);
+            out.writeUTF(entry.identifier);
+            out.writeUTF(entry.hash);
+        };
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ChecksumCache{");
+        sb.append("file=").append(file);
+        sb.append(", size=").append(size);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public interface Computation {
+        String compute() throws BackgroundException;
+    }
+
+    private static final class Key {
+        private final String path;
+        /**
+         * Hash algorithm or other kind of hash
+         */
+        private final String type;
+
+        public Key(final String path, final String type) {
+            this.path = path;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return Objects.equals(path, key.path) && Objects.equals(type, key.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, type);
+        }
+    }
+
+    /**
+     * File attributes the checksum was computed for
+     */
+    private static final class Entry {
+        private final long size;
+        private final long modified;
+        /**
+         * File key identifying inode or empty if not available
+         */
+        private final String identifier;
+        private final String hash;
+
+        public Entry(final long size, final long modified, final String identifier, final String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.identifier = identifier;
+            this.hash = hash;
+        }
+
+        /**
+         * Compare file attributes only
+         */
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(!(o instanceof Entry)) {
+                return false;
+            }
+            final Entry entry = (Entry) o;
+            return size == entry.size && modified == entry.modified && Objects.equals(identifier, entry.identifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, modified, identifier);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+
+/**
+ * Read from buffer while it is written to. Blocks until data is available or the buffer is finished. Canceled when no
+ * data is written within the timeout.
+ */
+public class DeferredBufferInputStream extends InputStream {
+
+    private final DeferredFileBuffer buffer;
+    private final StreamCancelation cancel;
+    /**
+     * Maximum time in milliseconds to wait for data
+     */
+    private final long timeout;
+
+    private Long offset = 0L;
+
+    public DeferredBufferInputStream(final DeferredFileBuffer buffer, final StreamCancelation cancel) {
+        this(buffer, cancel, PreferencesFactory.get().getInteger("connection.timeout.seconds") * 1000L);
+    }
+
+    public DeferredBufferInputStream(final DeferredFileBuffer buffer, final StreamCancelation cancel, final long timeout) {
+        this.buffer = buffer;
+        this.cancel = cancel;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        final int read = this.read(b, 0, 1);
+        if(read > 0) {
+            return b[0] & 0xFF;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+        try {
+            final long deadline = System.currentTimeMillis() + timeout;
+            // Check for cancel while waiting for writer
+            while(!buffer.await(offset, Math.min(timeout, 1000L))) {
+                cancel.validate();
+                if(System.currentTimeMillis() > deadline) {
+                    // Writer failed without closing buffer. Cancel instead of failing with a timeout to not retry
+                    throw new ConnectionCanceledException(new SocketTimeoutException(
+                        String.format("No data written to buffer within %dms", timeout)));
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch(ConnectionCanceledException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        final int read = buffer.read(bytes, off, len, offset);
+        if(read > 0) {
+            offset += read;
+        }
+        return read;
+    }
+}
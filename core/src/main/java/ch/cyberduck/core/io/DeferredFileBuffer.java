@@ -0,0 +1,462 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.local.LocalTouchFactory;
+import ch.cyberduck.core.local.TemporaryFileServiceFactory;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer kept in pages of off-heap memory up to a threshold with all bytes beyond written to a temporary file. Writes
+ * at disjoint offsets do not lock and may happen concurrently to reads of data already written. Readers can wait for
+ * data not yet written to consume the buffer while it is filled. Memory is only released when closed after all reads
+ * and writes in progress have completed.
+ */
+public class DeferredFileBuffer implements Buffer {
+    private static final Logger log = Logger.getLogger(DeferredFileBuffer.class);
+
+    /**
+     * Size of memory page
+     */
+    private static final int PAGE = 64 * 1024;
+
+    /**
+     * Released pages shared by all buffers
+     */
+    private static final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+
+    private static final byte[] ZERO = new byte[PAGE];
+
+    private final Local temporary;
+    private final AtomicReferenceArray<ByteBuffer> pages;
+    /**
+     * Number of bytes in memory
+     */
+    private final long threshold;
+    /**
+     * Maximum number of released pages to retain in pool
+     */
+    private final int retain;
+
+    private final AtomicLong length = new AtomicLong();
+    /**
+     * Number of readers waiting for data
+     */
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Object monitor = new Object();
+    /**
+     * Reads and writes in progress plus one reference held until closed
+     */
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    private volatile FileChannel channel;
+    /**
+     * No more data to write
+     */
+    private volatile boolean finished;
+    private volatile boolean closed;
+
+    public DeferredFileBuffer() {
+        this(PreferencesFactory.get());
+    }
+
+    private DeferredFileBuffer(final Preferences preferences) {
+        this(TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random()),
+            preferences.getLong("buffer.memory.threshold"), preferences.getLong("buffer.memory.pool"));
+    }
+
+    /**
+     * @param temporary Temporary file for data exceeding threshold
+     * @param threshold Number of bytes to keep in memory
+     * @param pool      Number of bytes of released memory to retain for reuse
+     */
+    public DeferredFileBuffer(final Local temporary, final long threshold, final long pool) {
+        this.temporary = temporary;
+        this.pages = new AtomicReferenceArray<>((int) ((threshold + PAGE - 1) / PAGE));
+        this.threshold = (long) pages.length() * PAGE;
+        this.retain = (int) (pool / PAGE);
+    }
+
+    @Override
+    public int write(final byte[] chunk, final Long offset) throws IOException {
+        return this.write(chunk, 0, chunk.length, offset);
+    }
+
+    @Override
+    public int write(final byte[] chunk, final int off, final int len, final Long offset) throws IOException {
+        if(!this.retain()) {
+            throw new IOException(String.format("Buffer %s already closed", this));
+        }
+        try {
+            return this.write(chunk, off, len, (long) offset);
+        }
+        finally {
+            this.dispose();
+        }
+    }
+
+    private int write(final byte[] chunk, final int off, final int len, final long offset) throws IOException {
+        int written = 0;
+        long position = offset;
+        while(written < len && position < threshold) {
+            if(closed) {
+                throw new IOException(String.format("Buffer %s already closed", this));
+            }
+            final int index = (int) (position / PAGE);
+            final int start = (int) (position % PAGE);
+            final int count = Math.min(len - written, PAGE - start);
+            // Absolute position in duplicate does not interfere with concurrent writes to other ranges of page
+            final ByteBuffer page = this.page(index).duplicate();
+            page.position(start);
+            page.put(chunk, off + written, count);
+            written += count;
+            position += count;
+        }
+        if(written < len) {
+            final ByteBuffer remaining = ByteBuffer.wrap(chunk, off + written, len - written);
+            final FileChannel channel = this.channel();
+            while(remaining.hasRemaining()) {
+                position += channel.write(remaining, position - threshold);
+            }
+        }
+        length.accumulateAndGet(offset + len, Math::max);
+        this.signal();
+        return len;
+    }
+
+    @Override
+    public int read(final byte[] chunk, final Long offset) throws IOException {
+        return this.read(chunk, 0, chunk.length, offset);
+    }
+
+    @Override
+    public int read(final byte[] chunk, final int off, final int len, final Long offset) throws IOException {
+        if(!this.retain()) {
+            return IOUtils.EOF;
+        }
+        try {
+            return this.read(chunk, off, len, (long) offset);
+        }
+        finally {
+            this.dispose();
+        }
+    }
+
+    private int read(final byte[] chunk, final int off, final int len, final long offset) throws IOException {
+        final long available = length.get() - offset;
+        if(available <= 0) {
+            return IOUtils.EOF;
+        }
+        final int total = (int) Math.min(len, available);
+        int read = 0;
+        long position = offset;
+        while(read < total && position < threshold) {
+            final int index = (int) (position / PAGE);
+            final int start = (int) (position % PAGE);
+            final int count = Math.min(total - read, PAGE - start);
+            final ByteBuffer page = pages.get(index);
+            if(null == page) {
+                // Not written
+                Arrays.fill(chunk, off + read, off + read + count, (byte) 0);
+            }
+            else {
+                final ByteBuffer duplicate = page.duplicate();
+                duplicate.position(start);
+                duplicate.get(chunk, off + read, count);
+            }
+            read += count;
+            position += count;
+        }
+        if(read < total) {
+            final FileChannel channel = this.channel;
+            final ByteBuffer remaining = ByteBuffer.wrap(chunk, off + read, total - read);
+            if(null != channel) {
+                long index = position - threshold;
+                while(remaining.hasRemaining()) {
+                    final int count = channel.read(remaining, index);
+                    if(IOUtils.EOF == count) {
+                        break;
+                    }
+                    index += count;
+                }
+            }
+            // Beyond end of file when truncated to larger size
+            Arrays.fill(chunk, remaining.position(), remaining.limit(), (byte) 0);
+        }
+        return total;
+    }
+
+    /**
+     * Wait for data to read
+     *
+     * @param offset  Position in buffer to read from
+     * @param timeout Maximum time to wait in milliseconds
+     * @return True if data is available at offset or no more data will be written
+     */
+    public boolean await(final Long offset, final long timeout) throws InterruptedException {
+        if(this.isAvailable(offset)) {
+            return true;
+        }
+        waiting.incrementAndGet();
+        try {
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            synchronized(monitor) {
+                while(!this.isAvailable(offset)) {
+                    final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if(remaining <= 0) {
+                        return false;
+                    }
+                    monitor.wait(remaining);
+                }
+            }
+            return true;
+        }
+        finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private boolean isAvailable(final Long offset) {
+        return finished || closed || length.get() > offset;
+    }
+
+    /**
+     * Mark that no more data is written to the buffer
+     */
+    public void finish() {
+        finished = true;
+        this.signal();
+    }
+
+    private void signal() {
+        if(waiting.get() > 0) {
+            synchronized(monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public Long length() {
+        return length.get();
+    }
+
+    @Override
+    public synchronized void truncate(final Long length) {
+        if(!this.retain()) {
+            return;
+        }
+        try {
+            this.truncate((long) length);
+        }
+        finally {
+            this.dispose();
+        }
+    }
+
+    private void truncate(final long length) {
+        this.length.set(length);
+        for(int index = 0; index < pages.length(); index++) {
+            final long start = (long) index * PAGE;
+            if(start + PAGE <= length) {
+                continue;
+            }
+            if(start >= length) {
+                // Not returned to pool as a concurrent read may still copy from page
+                pages.set(index, null);
+            }
+            else {
+                final ByteBuffer page = pages.get(index);
+                if(null != page) {
+                    // Clear truncated bytes in page
+                    final ByteBuffer duplicate = page.duplicate();
+                    duplicate.position((int) (length - start));
+                    duplicate.put(ZERO, 0, duplicate.remaining());
+                }
+            }
+        }
+        if(null != channel) {
+            try {
+                if(length - threshold < channel.size()) {
+                    // Truncate current
+                    channel.truncate(Math.max(0L, length - threshold));
+                }
+            }
+            catch(IOException e) {
+                log.warn(String.format("Failure truncating file %s to %d", temporary, length));
+            }
+        }
+    }
+
+    /**
+     * Readers and writers in progress keep memory allocated until they have completed
+     */
+    @Override
+    public void close() {
+        synchronized(this) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+        }
+        length.set(0L);
+        this.signal();
+        this.dispose();
+    }
+
+    /**
+     * @return False if buffer is already released
+     */
+    private boolean retain() {
+        for(; ; ) {
+            final int count = references.get();
+            if(0 == count) {
+                return false;
+            }
+            if(references.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release memory and temporary file when last reference is returned
+     */
+    private void dispose() {
+        if(references.decrementAndGet() > 0) {
+            return;
+        }
+        for(int index = 0; index < pages.length(); index++) {
+            this.release(pages.getAndSet(index, null));
+        }
+        synchronized(this) {
+            if(null != channel) {
+                try {
+                    channel.close();
+                }
+                catch(IOException e) {
+                    log.error(String.format("Failure closing buffer %s", this));
+                }
+                finally {
+                    channel = null;
+                    try {
+                        temporary.delete();
+                    }
+                    catch(AccessDeniedException | NotfoundException e) {
+                        log.warn(String.format("Failure removing temporary file %s for buffer %s. Schedule for delete on exit.", temporary, this));
+                        Paths.get(temporary.getAbsolute()).toFile().deleteOnExit();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param index Page number
+     * @return Page allocated for index
+     */
+    private ByteBuffer page(final int index) {
+        final ByteBuffer page = pages.get(index);
+        if(null != page) {
+            return page;
+        }
+        final ByteBuffer allocated = this.acquire();
+        if(pages.compareAndSet(index, null, allocated)) {
+            return allocated;
+        }
+        // Allocated concurrently
+        this.release(allocated);
+        return pages.get(index);
+    }
+
+    private ByteBuffer acquire() {
+        final ByteBuffer page = pool.poll();
+        if(null == page) {
+            return ByteBuffer.allocateDirect(PAGE);
+        }
+        pooled.decrementAndGet();
+        // Clear previous content
+        page.clear();
+        page.put(ZERO);
+        page.clear();
+        return page;
+    }
+
+    private void release(final ByteBuffer page) {
+        if(null == page) {
+            return;
+        }
+        if(pooled.incrementAndGet() > retain) {
+            pooled.decrementAndGet();
+            return;
+        }
+        pool.offer(page);
+    }
+
+    private FileChannel channel() throws IOException {
+        if(null == channel) {
+            synchronized(this) {
+                if(closed) {
+                    throw new IOException(String.format("Buffer %s already closed", this));
+                }
+                if(null == channel) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Spill buffer exceeding %d bytes to %s", threshold, temporary));
+                    }
+                    try {
+                        LocalTouchFactory.get().touch(temporary);
+                    }
+                    catch(AccessDeniedException e) {
+                        throw new IOException(e);
+                    }
+                    channel = FileChannel.open(Paths.get(temporary.getAbsolute()), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+            }
+        }
+        return channel;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DeferredFileBuffer{");
+        sb.append("temporary=").append(temporary);
+        sb.append(", threshold=").append(threshold);
+        sb.append('}');
+        return sb.toString();
+    }
+}
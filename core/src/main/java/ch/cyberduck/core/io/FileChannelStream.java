@@ -0,0 +1,40 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Stream reading from or writing to a file channel. Allows to transfer between channels without copying to a buffer
+ * on the heap.
+ */
+public interface FileChannelStream {
+
+    FileChannel getChannel();
+
+    /**
+     * @return Offset in file to continue reading from or writing to
+     */
+    long getPosition() throws IOException;
+
+    /**
+     * Advance position after bytes have been transferred using the channel directly
+     *
+     * @param position Offset in file
+     */
+    void setPosition(long position) throws IOException;
+}
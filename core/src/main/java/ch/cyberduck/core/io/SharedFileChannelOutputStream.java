@@ -0,0 +1,143 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Write at a position in a file without truncating. All streams open for the same file share a single file channel
+ * which is closed when the last stream is closed. Concurrent streams must write to distinct ranges of the file. Data
+ * written is forced to storage when the stream is closed.
+ */
+public class SharedFileChannelOutputStream extends OutputStream implements FileChannelStream {
+    private static final Logger log = Logger.getLogger(SharedFileChannelOutputStream.class);
+
+    /**
+     * Open channels with number of streams referencing each
+     */
+    private static final Map<Path, SharedChannel> channels = new HashMap<>();
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private long position;
+    private boolean closed;
+
+    /**
+     * @param file     File to write to. Created if missing
+     * @param position Offset in file to start writing at
+     */
+    public SharedFileChannelOutputStream(final Path file, final long position) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        this.channel = open(this.file);
+        this.position = position;
+    }
+
+    private static FileChannel open(final Path file) throws IOException {
+        synchronized(channels) {
+            SharedChannel shared = channels.get(file);
+            if(null == shared) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Open channel for %s", file));
+                }
+                shared = new SharedChannel(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+                channels.put(file, shared);
+            }
+            shared.references++;
+            return shared.channel;
+        }
+    }
+
+    private static void release(final Path file) throws IOException {
+        synchronized(channels) {
+            final SharedChannel shared = channels.get(file);
+            if(null == shared) {
+                return;
+            }
+            if(--shared.references == 0) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Close channel for %s", file));
+                }
+                channels.remove(file);
+                shared.channel.close();
+            }
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if(closed) {
+            throw new IOException("Stream closed");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while(buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // Written range must be on disk before the segment is recorded as complete
+            channel.force(false);
+        }
+        finally {
+            release(file);
+        }
+    }
+
+    @Override
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void setPosition(final long position) {
+        this.position = position;
+    }
+
+    private static final class SharedChannel {
+        private final FileChannel channel;
+        private int references;
+
+        SharedChannel(final FileChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
@@ -23,11 +23,13 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public final class StreamCopier {
     private static final Logger log = Logger.getLogger(StreamCopier.class);
@@ -90,39 +92,46 @@ public final class StreamCopier {
                 if(offset > 0) {
                     skip(in, offset);
                 }
-                final byte[] buffer = new byte[chunksize];
-                long total = 0;
-                int len = chunksize;
-                if(limit > 0 && limit < chunksize) {
-                    // Cast will work because chunk size is int
-                    len = limit.intValue();
+                final FileChannelStream source = channel(in);
+                final FileChannelStream target = channel(out);
+                if(null != source && null != target) {
+                    this.transfer(source, throttle(in), target, throttle(out));
                 }
-                while(len > 0) {
-                    cancel.validate();
-                    final int read = in.read(buffer, 0, len);
-                    if(-1 == read) {
-                        if(log.isDebugEnabled()) {
-                            log.debug(String.format("End of file reached with %d bytes read from stream", total));
-                        }
-                        progress.setComplete();
-                        break;
-                    }
-                    else {
-                        listener.recv(read);
-                        out.write(buffer, 0, read);
-                        progress.progress(read);
-                        listener.sent(read);
-                        total += read;
-                    }
-                    if(limit > 0) {
-                        // Only adjust if not reading to the end of the stream. Cast will work because chunk size is int
-                        len = (int) Math.min(limit - total, chunksize);
+                else {
+                    final byte[] buffer = new byte[chunksize];
+                    long total = 0;
+                    int len = chunksize;
+                    if(limit > 0 && limit < chunksize) {
+                        // Cast will work because chunk size is int
+                        len = limit.intValue();
                     }
-                    if(limit == total) {
-                        if(log.isDebugEnabled()) {
-                            log.debug(String.format("Limit %d reached reading from stream", limit));
+                    while(len > 0) {
+                        cancel.validate();
+                        final int read = in.read(buffer, 0, len);
+                        if(-1 == read) {
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("End of file reached with %d bytes read from stream", total));
+                            }
+                            progress.setComplete();
+                            break;
+                        }
+                        else {
+                            listener.recv(read);
+                            out.write(buffer, 0, read);
+                            progress.progress(read);
+                            listener.sent(read);
+                            total += read;
+                        }
+                        if(limit > 0) {
+                            // Only adjust if not reading to the end of the stream. Cast will work because chunk size is int
+                            len = (int) Math.min(limit - total, chunksize);
+                        }
+                        if(limit == total) {
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("Limit %d reached reading from stream", limit));
+                            }
+                            progress.setComplete();
                         }
-                        progress.setComplete();
                     }
                 }
                 final StreamCloser c = new DefaultStreamCloser();
@@ -151,6 +160,114 @@ public final class StreamCopier {
         cancel.validate();
     }
 
+    /**
+     * Transfer between file channels without copying to heap in steps of chunk size
+     */
+    private void transfer(final FileChannelStream in, final BandwidthThrottle inThrottle,
+                          final FileChannelStream out, final BandwidthThrottle outThrottle) throws IOException, ConnectionCanceledException {
+        if(log.isDebugEnabled()) {
+            log.debug(String.format("Transfer from channel %s to channel %s", in.getChannel(), out.getChannel()));
+        }
+        // Only used when writing beyond end of target file
+        ByteBuffer buffer = null;
+        long total = 0;
+        long position = out.getPosition();
+        while(true) {
+            cancel.validate();
+            int len = chunksize;
+            if(limit > 0) {
+                if(limit == total) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Limit %d reached reading from channel", limit));
+                    }
+                    progress.setComplete();
+                    break;
+                }
+                len = (int) Math.min(limit - total, chunksize);
+            }
+            if(null != outThrottle) {
+                len = outThrottle.request(len);
+            }
+            if(null != inThrottle) {
+                final int granted = len;
+                len = inThrottle.request(len);
+                if(null != outThrottle) {
+                    outThrottle.release(granted - len);
+                }
+            }
+            long transferred;
+            if(position <= out.getChannel().size()) {
+                // Reads from current position of source channel
+                transferred = out.getChannel().transferFrom(in.getChannel(), position, len);
+                if(0 == transferred) {
+                    transferred = IOUtils.EOF;
+                }
+            }
+            else {
+                // No bytes transferred to position beyond end of file
+                if(null == buffer) {
+                    buffer = ByteBuffer.allocateDirect(chunksize);
+                }
+                buffer.clear();
+                buffer.limit(len);
+                transferred = in.getChannel().read(buffer);
+                buffer.flip();
+                while(buffer.hasRemaining()) {
+                    out.getChannel().write(buffer, position + buffer.position());
+                }
+            }
+            // Only charge bytes actually transferred
+            final int unused = IOUtils.EOF == transferred ? len : (int) (len - transferred);
+            if(null != inThrottle) {
+                inThrottle.release(unused);
+            }
+            if(null != outThrottle) {
+                outThrottle.release(unused);
+            }
+            if(IOUtils.EOF == transferred) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("End of file reached with %d bytes read from channel", total));
+                }
+                progress.setComplete();
+                break;
+            }
+            position += transferred;
+            out.setPosition(position);
+            listener.recv(transferred);
+            progress.progress(transferred);
+            listener.sent(transferred);
+            total += transferred;
+        }
+    }
+
+    private static FileChannelStream channel(final InputStream in) {
+        final InputStream proxy = in instanceof ThrottledInputStream ? ((ThrottledInputStream) in).getDelegate() : in;
+        if(proxy instanceof FileChannelStream) {
+            return (FileChannelStream) proxy;
+        }
+        return null;
+    }
+
+    private static FileChannelStream channel(final OutputStream out) {
+        OutputStream proxy = out instanceof ThrottledOutputStream ? ((ThrottledOutputStream) out).getDelegate() : out;
+        // Subclasses may intercept writes
+        if(proxy.getClass() == VoidStatusOutputStream.class) {
+            proxy = ((VoidStatusOutputStream) proxy).getProxy();
+        }
+        if(proxy instanceof FileChannelStream) {
+            return (FileChannelStream) proxy;
+        }
+        return null;
+    }
+
+    private static BandwidthThrottle throttle(final InputStream in) {
+        return in instanceof ThrottledInputStream ? ((ThrottledInputStream) in).getThrottle() : null;
+    }
+
+    private static BandwidthThrottle throttle(final OutputStream out) {
+        return out instanceof ThrottledOutputStream ? ((ThrottledOutputStream) out).getThrottle() : null;
+    }
+
     public static InputStream skip(final InputStream in, final long offset) throws BackgroundException {
         try {
             long skipped = in.skip(offset);
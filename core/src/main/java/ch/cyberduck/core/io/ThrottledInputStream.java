@@ -53,4 +53,12 @@ public class ThrottledInputStream extends ProxyInputStream {
     public int read(byte[] data, int offset, int len) throws IOException {
         return delegate.read(data, offset, throttle.request(len));
     }
-}
\ No newline at end of file
+
+    protected InputStream getDelegate() {
+        return delegate;
+    }
+
+    protected BandwidthThrottle getThrottle() {
+        return throttle;
+    }
+}
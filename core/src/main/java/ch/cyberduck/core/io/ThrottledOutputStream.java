@@ -79,4 +79,12 @@ public class ThrottledOutputStream extends ProxyOutputStream {
             offset += length;
         }
     }
+
+    protected OutputStream getDelegate() {
+        return delegate;
+    }
+
+    protected BandwidthThrottle getThrottle() {
+        return throttle;
+    }
 }
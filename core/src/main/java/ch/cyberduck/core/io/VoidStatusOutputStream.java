@@ -26,4 +26,11 @@ public class VoidStatusOutputStream extends StatusOutputStream<Void> {
     public Void getStatus() {
         return null;
     }
+
+    /**
+     * @return Stream written to
+     */
+    protected OutputStream getProxy() {
+        return out;
+    }
 }
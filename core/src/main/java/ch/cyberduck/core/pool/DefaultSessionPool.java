@@ -124,6 +124,13 @@ public class DefaultSessionPool implements SessionPool {
         return this;
     }
 
+    /**
+     * @return Maximum number of connections or a negative value if unlimited
+     */
+    public int getMaxTotal() {
+        return pool.getMaxTotal();
+    }
+
     @Override
     public Session<?> borrow(final BackgroundActionState callback) throws BackgroundException {
         final Integer numActive = pool.getNumActive();
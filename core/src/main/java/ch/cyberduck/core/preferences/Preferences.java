@@ -287,6 +287,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("local.normalize.tilde", String.valueOf(true));
         this.setDefault("local.delimiter", File.separator);
         this.setDefault("local.temporaryfiles.shortening.threshold", String.valueOf(240));
+        /*
+          Maximum number of checksums of local files cached for comparison or 0 to disable
+         */
+        this.setDefault("local.checksum.cache.size", String.valueOf(100000));
 
         this.setDefault("application.identifier", "io.cyberduck");
         this.setDefault("application.name", "Cyberduck");
@@ -315,6 +319,11 @@ public abstract class Preferences implements Locales {
         this.setDefault("icon.cache.size", String.valueOf(200));
         this.setDefault("preferences.cache.size", String.valueOf(1000));
 
+        /*
+          Maximum number of file identifiers to remember by path for protocols addressing files by identifier
+         */
+        this.setDefault("fileid.cache.size", String.valueOf(100000));
+
         /*
           Caching NS* proxy instances.
          */
@@ -325,6 +334,11 @@ public abstract class Preferences implements Locales {
          */
         this.setDefault("browser.list.limit.directory", String.valueOf(5000));
         this.setDefault("browser.list.limit.container", String.valueOf(100));
+        /*
+          Notify about listing progress after number of new files or interval in milliseconds
+         */
+        this.setDefault("browser.list.chunk.size", String.valueOf(500));
+        this.setDefault("browser.list.chunk.interval", String.valueOf(500L));
 
         this.setDefault("info.toolbar.selected", String.valueOf(0));
         this.setDefault("preferences.toolbar.selected", String.valueOf(0));
@@ -389,6 +403,11 @@ public abstract class Preferences implements Locales {
          */
         this.setDefault("browser.move.confirm", String.valueOf(true));
         this.setDefault("browser.copy.confirm", String.valueOf(false));
+        /*
+          Number of files to delete in a single request and number of concurrent requests when deleting while listing
+         */
+        this.setDefault("browser.delete.batch.size", String.valueOf(1000));
+        this.setDefault("browser.delete.concurrency", String.valueOf(5));
 
 
         this.setDefault("browser.transcript.open", String.valueOf(false));
@@ -433,6 +452,19 @@ public abstract class Preferences implements Locales {
         ));
         this.setDefault("queue.transfer.type", Host.TransferType.concurrent.name());
         this.setDefault("queue.transfer.operationbatcher.size", String.valueOf(100));
+        /*
+          Transfer files while preparing with the number of files pending preparation and transfer bounded by the window.
+          Disabled by default as bulk features are invoked per batch of prepared files instead of once per transfer
+          and the total size of the transfer is only known when preparation is complete
+         */
+        this.setDefault("queue.transfer.pipeline.enable", String.valueOf(false));
+        this.setDefault("queue.transfer.pipeline.window", String.valueOf(1000));
+        /*
+          Journal completed parts of transfers in queue to resume without listing parts on server. Rewrite journal
+          with live records only when the number of records appended exceeds the threshold
+         */
+        this.setDefault("queue.transfer.journal.enable", String.valueOf(true));
+        this.setDefault("queue.transfer.journal.compaction", String.valueOf(1000));
 
         /*
           Warning when number of transfers in queue exceeds limit
@@ -569,6 +601,22 @@ public abstract class Preferences implements Locales {
         this.setDefault("queue.connections.limit", String.valueOf(TransferConnectionLimiter.AUTO));
         this.setDefault("queue.connections.limit.default", String.valueOf(20));
         this.setDefault("queue.connections.limit.ftp", String.valueOf(1));
+        /*
+         * Adjust number of connections for transfer to measured throughput and throttling by server
+         */
+        this.setDefault("queue.connections.limit.adaptive", String.valueOf(false));
+        this.setDefault("queue.connections.limit.adaptive.minimum", String.valueOf(1));
+        this.setDefault("queue.connections.limit.adaptive.maximum", String.valueOf(32));
+        // Duration in milliseconds between adjustments
+        this.setDefault("queue.connections.limit.adaptive.interval", String.valueOf(2000L));
+        // Minimum relative throughput gain to add another connection
+        this.setDefault("queue.connections.limit.adaptive.threshold", String.valueOf(0.1d));
+        // Factor to reduce number of connections on throttling or network failure
+        this.setDefault("queue.connections.limit.adaptive.decrease", String.valueOf(0.5d));
+        // Maximum number of parts of multipart uploads and copies in flight for all files in transfer. Number of connections if 0
+        this.setDefault("queue.parts.limit", String.valueOf(0));
+        // Maximum number of bytes of parts in flight for all files in transfer. Unlimited if 0
+        this.setDefault("queue.parts.bytes.limit", String.valueOf(256L * 1024L * 1024L)); // 256MB
 
         {
             final StringBuilder options = new StringBuilder();
@@ -632,6 +680,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("ftp.parser.multiline.strict", String.valueOf(false));
         this.setDefault("ftp.parser.reply.strict", String.valueOf(false));
         this.setDefault("ftp.parser.mlsd.perm.enable", String.valueOf(false));
+        /*
+          Number of entries parsed from the data connection after which listing progress is notified
+         */
+        this.setDefault("ftp.listing.chunksize", String.valueOf(1000));
 
         /*
           Send LIST -a
@@ -706,6 +758,10 @@ public abstract class Preferences implements Locales {
         // Maximum number of parts is 10'000. With 10MB segements this gives a maximum object size of 100GB
         // Must be a multiple of org.cryptomator.cryptolib.v1.Constants.PAYLOAD_SIZE when using Cryptomator Vaults
         this.setDefault("s3.upload.multipart.size", String.valueOf(10L * 1024L * 1024L)); // 10MB
+        // Maximum part size to read into memory once for both checksum calculation and upload
+        this.setDefault("s3.upload.multipart.buffer.size", String.valueOf(64L * 1024L * 1024L)); // 64MB
+        // Maximum memory for part buffers of all concurrent multipart uploads
+        this.setDefault("s3.upload.multipart.buffer.total", String.valueOf(256L * 1024L * 1024L)); // 256MB
         this.setDefault("s3.copy.multipart.size", String.valueOf(100L * 1024L * 1024L)); // 100MB
 
         this.setDefault("s3.upload.expect-continue", String.valueOf(true));
@@ -772,6 +828,15 @@ public abstract class Preferences implements Locales {
         this.setDefault("azure.upload.md5", String.valueOf(false));
         this.setDefault("azure.upload.snapshot", String.valueOf(false));
         this.setDefault("azure.upload.blobtype", "APPEND_BLOB");
+        /*
+          Upload files larger than threshold with blocks staged concurrently when blob type is BLOCK_BLOB
+         */
+        this.setDefault("azure.upload.largeobject", String.valueOf(true));
+        this.setDefault("azure.upload.largeobject.threshold", String.valueOf(100 * 1024L * 1024L)); // 100MB
+        this.setDefault("azure.upload.largeobject.size", String.valueOf(10 * 1024L * 1024L)); // 10MB
+        this.setDefault("azure.upload.largeobject.concurrency", String.valueOf(10));
+        // Maximum memory for block buffers of all concurrent uploads
+        this.setDefault("azure.upload.largeobject.buffer.total", String.valueOf(256L * 1024L * 1024L)); // 256MB
 
         // Legacy authentication
 //        this.setDefault("openstack.authentication.context", "/v1.0");
@@ -827,6 +892,8 @@ public abstract class Preferences implements Locales {
         this.setDefault("sds.encryption.missingkeys.upload", String.valueOf(true));
         this.setDefault("sds.encryption.missingkeys.scheduler.period", String.valueOf(120000)); // 2 minutes
         this.setDefault("sds.encryption.missingkeys.delete.deprecated", String.valueOf(false));
+        this.setDefault("sds.encryption.missingkeys.concurrency", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        this.setDefault("sds.encryption.missingkeys.batch.size", String.valueOf(50));
         this.setDefault("sds.encryption.keys.ttl", String.valueOf(600000)); // 10 minutes
         this.setDefault("sds.useracount.ttl", String.valueOf(3600000)); // 1 hour
         this.setDefault("sds.delete.dataroom.enable", String.valueOf(true));
@@ -1006,6 +1073,14 @@ public abstract class Preferences implements Locales {
           Buffer size for wrapped buffered streams
          */
         this.setDefault("connection.buffer", String.valueOf(8192));
+        /*
+          Bytes kept in memory by buffers for uploads before spilling to temporary file
+         */
+        this.setDefault("buffer.memory.threshold", String.valueOf(8L * 1024L * 1024L));
+        /*
+          Bytes of released memory pages retained for reuse by buffers
+         */
+        this.setDefault("buffer.memory.pool", String.valueOf(32L * 1024L * 1024L));
         /*
           SO_SNDBUF
          */
@@ -1057,6 +1132,10 @@ public abstract class Preferences implements Locales {
         this.setDefault("sftp.read.maxunconfirmed", String.valueOf(64));
         this.setDefault("sftp.write.maxunconfirmed", String.valueOf(64));
         this.setDefault("sftp.write.chunksize", String.valueOf(32768));
+        /*
+          Maximum number of outstanding requests to resolve symbolic links in directory listing
+         */
+        this.setDefault("sftp.listing.symlink.maxunconfirmed", String.valueOf(64));
 
         this.setDefault("archive.default", "tar.gz");
 
@@ -1103,6 +1182,12 @@ public abstract class Preferences implements Locales {
         this.setDefault("cryptomator.vault.autodetect", String.valueOf(true));
         this.setDefault("cryptomator.vault.masterkey.filename", "masterkey.cryptomator");
         this.setDefault("cryptomator.vault.pepper", "");
+        /*
+          Number of threads to encrypt and decrypt file content and number of chunks to process in parallel per stream
+         */
+        this.setDefault("cryptomator.content.concurrency", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        this.setDefault("cryptomator.content.readahead", String.valueOf(16));
+        this.setDefault("cryptomator.content.writebehind", String.valueOf(16));
     }
 
     /**
@@ -29,6 +29,8 @@ import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.ThrottledInputStream;
 import ch.cyberduck.core.transfer.TransferStatus;
 
+import org.apache.commons.io.IOUtils;
+
 import java.io.InputStream;
 import java.io.OutputStream;
 
@@ -44,12 +46,20 @@ public class DefaultDownloadFeature implements Download {
     public void download(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
                          final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
         final InputStream in = reader.read(file, status, callback);
-        final OutputStream out = local.getOutputStream(!status.isSegment() && status.isAppend());
-        new StreamCopier(status, status)
-                .withOffset(0L)
-                .withLimit(status.getLength())
-                .withListener(listener)
-                .transfer(new ThrottledInputStream(in, throttle), out);
+        // Segments write at their offset in the same file
+        final OutputStream out = status.isSegment() ? local.getOutputStream(status.getOffset()) : local.getOutputStream(status.isAppend());
+        try {
+            new StreamCopier(status, status)
+                    .withOffset(0L)
+                    .withLimit(status.getLength())
+                    .withListener(listener)
+                    .transfer(new ThrottledInputStream(in, throttle), out);
+        }
+        catch(BackgroundException e) {
+            // Release reference to file channel shared with other segments
+            IOUtils.closeQuietly(out);
+            throw e;
+        }
     }
 
     @Override
@@ -28,12 +28,12 @@ import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.AttributesFinder;
+import ch.cyberduck.core.features.ETagComparison;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.io.Checksum;
-import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.io.ChecksumCache;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
-import ch.cyberduck.core.transfer.TransferStatus;
 
 import java.text.MessageFormat;
 import java.util.TimeZone;
@@ -50,9 +50,20 @@ public class ComparisonServiceFilter implements ComparePathFilter {
 
     private Cache<Path> cache = PathCache.empty();
 
+    /**
+     * Checksums of local files computed previously. Default cache if not set
+     */
+    private ChecksumCache checksums;
+
+    /**
+     * Compare ETag computed from file contents not parsed as checksum or null if not supported
+     */
+    private final ETagComparison etag;
+
     public ComparisonServiceFilter(final Session<?> session, final TimeZone tz, final ProgressListener listener) {
         this.finder = session.getFeature(Find.class, new DefaultFindFeature(session));
         this.attribute = session.getFeature(AttributesFinder.class, new DefaultAttributesFinderFeature(session));
+        this.etag = session.getFeature(ETagComparison.class);
         this.timestamp = new TimestampComparisonService(tz);
         this.size = new SizeComparisonService();
         this.checksum = new ChecksumComparisonService();
@@ -74,6 +85,18 @@ public class ComparisonServiceFilter implements ComparePathFilter {
         return this;
     }
 
+    public ComparisonServiceFilter withChecksums(final ChecksumCache checksums) {
+        this.checksums = checksums;
+        return this;
+    }
+
+    private ChecksumCache checksums() {
+        if(null == checksums) {
+            checksums = ChecksumCache.defaultCache();
+        }
+        return checksums;
+    }
+
     @Override
     public Comparison compare(final Path file, final Local local) throws BackgroundException {
         if(local.exists()) {
@@ -93,14 +116,21 @@ public class ComparisonServiceFilter implements ComparePathFilter {
                 if(Checksum.NONE != attributes.getChecksum()) {
                     // MD5/ETag Checksum is supported
                     progress.message(MessageFormat.format(LocaleFactory.localizedString("Compute MD5 hash of {0}", "Status"), file.getName()));
-                    local.attributes().setChecksum(ChecksumComputeFactory.get(attributes.getChecksum().algorithm)
-                        .compute(local.getInputStream(), new TransferStatus()));
+                    local.attributes().setChecksum(this.checksums().compute(local, attributes.getChecksum().algorithm));
                     switch(checksum.compare(attributes, local.attributes())) {
                         case equal:
                             // Decision is available
                             return Comparison.equal;
                     }
                 }
+                else if(null != etag && null != attributes.getETag()) {
+                    progress.message(MessageFormat.format(LocaleFactory.localizedString("Compute MD5 hash of {0}", "Status"), file.getName()));
+                    switch(etag.compare(attributes, local, this.checksums())) {
+                        case equal:
+                            // Decision is available
+                            return Comparison.equal;
+                    }
+                }
                 // Continue to decide with timestamp when both files exist and are not zero bytes
                 // Default comparison is using timestamp of file.
                 final Comparison compare = timestamp.compare(attributes, local.attributes());
@@ -20,6 +20,7 @@ import org.apache.log4j.Logger;
 import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 public abstract class ExecutorServiceThreadPool implements ThreadPool {
@@ -55,6 +56,28 @@ public abstract class ExecutorServiceThreadPool implements ThreadPool {
         }
     }
 
+    @Override
+    public void resize(final int size) {
+        if(pool instanceof ThreadPoolExecutor) {
+            final ThreadPoolExecutor executor = (ThreadPoolExecutor) pool;
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Resize pool %s to %d threads", pool, size));
+            }
+            // Maximum size must not be less than core size
+            if(size > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(size);
+                executor.setCorePoolSize(size);
+            }
+            else {
+                executor.setCorePoolSize(size);
+                executor.setMaximumPoolSize(size);
+            }
+        }
+        else {
+            log.warn(String.format("Resize not supported for pool %s", pool));
+        }
+    }
+
     /**
      * @param command Action to run in its own executor thread
      * @return Future result
@@ -0,0 +1,381 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.TransferConnectionLimiter;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Schedule parts of multipart uploads and copies for all files of a transfer on a shared set of threads. Enforces a
+ * global limit of parts and bytes in flight. Files already started are preferred over files not yet started to
+ * complete them first; among started files the file with the least number of parts pending is chosen next.
+ */
+public class PartScheduler {
+    private static final Logger log = Logger.getLogger(PartScheduler.class);
+
+    private final ThreadPool pool;
+
+    /**
+     * Maximum number of parts in flight
+     */
+    private final int parts;
+    /**
+     * Maximum number of bytes in flight
+     */
+    private final long bytes;
+
+    /**
+     * Files with parts pending or in flight in order of registration
+     */
+    private final Set<Pool> queue = new LinkedHashSet<>();
+
+    private int running;
+    private long inflight;
+
+    /**
+     * Number of threads in pool grown to the maximum number of parts in flight
+     */
+    private int threads;
+
+    public PartScheduler() {
+        this(limit(PreferencesFactory.get()), PreferencesFactory.get().getLong("queue.parts.bytes.limit"));
+    }
+
+    /**
+     * @return Maximum number of parts in flight or the number of connections for transfers if not set
+     */
+    private static int limit(final Preferences preferences) {
+        final int parts = preferences.getInteger("queue.parts.limit");
+        if(parts > 0) {
+            return parts;
+        }
+        final int connections = preferences.getInteger("queue.connections.limit");
+        if(TransferConnectionLimiter.AUTO == connections) {
+            return preferences.getInteger("queue.connections.limit.default");
+        }
+        return connections;
+    }
+
+    /**
+     * @param parts Maximum number of parts in flight or unlimited if 0
+     * @param bytes Maximum number of bytes of parts in flight or unlimited if 0
+     */
+    public PartScheduler(final int parts, final long bytes) {
+        this("multipart", parts, bytes);
+    }
+
+    public PartScheduler(final String prefix, final int parts, final long bytes) {
+        // Only limited by concurrency of each file if unlimited
+        this.parts = parts > 0 ? parts : Integer.MAX_VALUE;
+        this.bytes = bytes > 0 ? bytes : Long.MAX_VALUE;
+        this.threads = 1;
+        this.pool = ThreadPoolFactory.get(prefix, threads);
+    }
+
+    /**
+     * Open queue for parts of a file using the scheduler shared with other files of the transfer if available.
+     *
+     * @param status      Transfer status of file
+     * @param concurrency Maximum number of parts of the file in flight
+     * @return Pool to submit parts to. Must be shutdown after all parts are complete.
+     */
+    public static Pool open(final TransferStatus status, final int concurrency) {
+        final PartScheduler scheduler = status.getScheduler();
+        if(null == scheduler) {
+            // Not part of a transfer
+            return new PartScheduler(concurrency, Long.MAX_VALUE).open(concurrency, true);
+        }
+        return scheduler.open(concurrency, false);
+    }
+
+    /**
+     * @param concurrency Maximum number of parts of the file in flight
+     * @return Pool to submit parts of a single file to
+     */
+    public Pool open(final int concurrency) {
+        return this.open(concurrency, false);
+    }
+
+    private Pool open(final int concurrency, final boolean exclusive) {
+        return new Pool(concurrency, exclusive);
+    }
+
+    /**
+     * Cancel all pending parts
+     */
+    public void shutdown() {
+        final List<Pool> files;
+        synchronized(this) {
+            files = new ArrayList<>(queue);
+        }
+        for(Pool file : files) {
+            file.shutdown(false);
+        }
+        pool.shutdown(false);
+    }
+
+    /**
+     * @return Number of parts in flight
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return Number of bytes of parts in flight
+     */
+    public synchronized long getInflight() {
+        return inflight;
+    }
+
+    /**
+     * Submit pending parts as long as the budget allows
+     */
+    private void dispatch() {
+        final List<Part<?>> ready = new ArrayList<>();
+        synchronized(this) {
+            while(running < parts) {
+                final Pool next = this.next();
+                if(null == next) {
+                    break;
+                }
+                final Part<?> part = next.pending.peekFirst();
+                if(inflight > 0 && inflight + part.length > bytes) {
+                    // Wait for parts in flight to complete without skipping to smaller parts
+                    break;
+                }
+                next.pending.removeFirst();
+                next.running.add(part);
+                next.started = true;
+                running++;
+                inflight += part.length;
+                ready.add(part);
+            }
+            if(running > threads) {
+                // Only start threads for parts in flight
+                threads = running;
+                pool.resize(threads);
+            }
+        }
+        for(Part<?> part : ready) {
+            try {
+                pool.executor().execute(part);
+            }
+            catch(RejectedExecutionException e) {
+                log.warn(String.format("Reject part %s after shutdown", part));
+                part.cancel(false);
+                this.complete(part);
+            }
+        }
+    }
+
+    /**
+     * @return File to schedule next part for or null if no file has a pending part within its own limit
+     */
+    private Pool next() {
+        Pool candidate = null;
+        for(Pool file : queue) {
+            if(file.pending.isEmpty() || file.running.size() >= file.concurrency) {
+                continue;
+            }
+            if(null == candidate) {
+                candidate = file;
+                continue;
+            }
+            if(file.started && !candidate.started) {
+                candidate = file;
+                continue;
+            }
+            if(file.started == candidate.started && file.started) {
+                // Complete file closest to completion first
+                if(file.pending.size() < candidate.pending.size()) {
+                    candidate = file;
+                }
+            }
+        }
+        return candidate;
+    }
+
+    private void complete(final Part<?> part) {
+        synchronized(this) {
+            if(part.file.running.remove(part)) {
+                running--;
+                inflight -= part.length;
+            }
+            if(part.file.pending.isEmpty() && part.file.running.isEmpty()) {
+                queue.remove(part.file);
+            }
+        }
+        this.dispatch();
+    }
+
+    private final class Part<T> extends FutureTask<T> {
+        private final Pool file;
+        private final long length;
+
+        public Part(final Pool file, final long length, final Callable<T> callable) {
+            super(callable);
+            this.file = file;
+            this.length = length;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            }
+            finally {
+                // Not run when canceled before execution
+                complete(this);
+            }
+        }
+
+        @Override
+        protected void set(final T result) {
+            // Release budget before result is available to caller
+            complete(this);
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(final Throwable failure) {
+            complete(this);
+            super.setException(failure);
+        }
+    }
+
+    /**
+     * Parts of a single file
+     */
+    public final class Pool implements ThreadPool {
+        private final Deque<Part<?>> pending = new ArrayDeque<>();
+        private final Set<Part<?>> running = new HashSet<>();
+        private final List<Future<?>> submitted = new ArrayList<>();
+
+        private int concurrency;
+        /**
+         * Close scheduler when file is complete
+         */
+        private final boolean exclusive;
+        private boolean started;
+        private boolean shutdown;
+
+        private Pool(final int concurrency, final boolean exclusive) {
+            this.concurrency = Math.max(1, concurrency);
+            this.exclusive = exclusive;
+        }
+
+        @Override
+        public <T> Future<T> execute(final Callable<T> command) {
+            return this.execute(0L, command);
+        }
+
+        /**
+         * @param length  Number of bytes of part accounted for in budget
+         * @param command Part upload
+         * @return Future result
+         */
+        public <T> Future<T> execute(final long length, final Callable<T> command) {
+            final Part<T> part = new Part<>(this, length, command);
+            synchronized(PartScheduler.this) {
+                if(shutdown) {
+                    throw new RejectedExecutionException(String.format("Pool %s already shutdown", this));
+                }
+                pending.addLast(part);
+                submitted.add(part);
+                queue.add(this);
+            }
+            dispatch();
+            return part;
+        }
+
+        /**
+         * @param gracefully Wait for parts of this file to complete or cancel pending and interrupt running parts
+         */
+        @Override
+        public void shutdown(final boolean gracefully) {
+            final List<Future<?>> futures;
+            synchronized(PartScheduler.this) {
+                shutdown = true;
+                futures = new ArrayList<>(submitted);
+                if(!gracefully) {
+                    for(Part<?> part : pending) {
+                        part.cancel(false);
+                    }
+                    pending.clear();
+                    for(Part<?> part : running) {
+                        part.cancel(true);
+                    }
+                    if(running.isEmpty()) {
+                        queue.remove(this);
+                    }
+                }
+            }
+            if(gracefully) {
+                for(Future<?> future : futures) {
+                    try {
+                        future.get();
+                    }
+                    catch(InterruptedException | ExecutionException | CancellationException e) {
+                        log.warn(String.format("Failure awaiting part completion. %s", e.getMessage()));
+                    }
+                }
+            }
+            if(exclusive) {
+                pool.shutdown(gracefully);
+            }
+            else {
+                // Parts of other files may have been waiting for budget
+                dispatch();
+            }
+        }
+
+        /**
+         * @param size Maximum number of parts of this file in flight
+         */
+        @Override
+        public void resize(final int size) {
+            synchronized(PartScheduler.this) {
+                concurrency = Math.max(1, size);
+            }
+            dispatch();
+        }
+
+        @Override
+        public AbstractExecutorService executor() {
+            return pool.executor();
+        }
+    }
+}
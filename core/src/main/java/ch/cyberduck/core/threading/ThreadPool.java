@@ -35,6 +35,13 @@ public interface ThreadPool {
      */
     void shutdown(boolean gracefully);
 
+    /**
+     * Change number of threads executing tasks. Threads exceeding the new size terminate when idle.
+     *
+     * @param size Number of concurrent threads
+     */
+    void resize(int size);
+
     AbstractExecutorService executor();
 
     enum Priority {
@@ -47,7 +47,9 @@ public class TransferCollectionBackgroundAction extends TransferBackgroundAction
                                               final ProgressListener listener,
                                               final Transfer transfer,
                                               final TransferOptions options) {
-        super(controller, source, destination, transferListener, listener, transfer, options);
+        super(controller, source, destination, transferListener, listener, transfer,
+            PreferencesFactory.get().getBoolean("queue.transfer.journal.enable") ?
+                options.journal(TransferCollection.defaultCollection().getJournal(transfer)) : options);
         this.source = source;
         this.destination = destination;
         this.transfer = transfer;
@@ -0,0 +1,199 @@
+package ch.cyberduck.core.transfer;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConflictException;
+import ch.cyberduck.core.exception.RetriableAccessDeniedException;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.DefaultFailureDiagnostics;
+import ch.cyberduck.core.threading.FailureDiagnostics;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpResponseException;
+import org.apache.log4j.Logger;
+
+/**
+ * Adjust number of connections while transferring. Add a connection as long as the throughput measured in the last
+ * interval improves and cut the number of connections on network failures or when throttled by the server with
+ * responses like 429 Too Many Requests or 503 Slow Down.
+ */
+public class AdaptiveTransferConnectionLimiter implements TransferConnectionLimiter {
+    private static final Logger log = Logger.getLogger(AdaptiveTransferConnectionLimiter.class);
+
+    private final FailureDiagnostics<BackgroundException> diagnostics = new DefaultFailureDiagnostics();
+
+    private final int minimum;
+    private final int maximum;
+    /**
+     * Minimum duration in milliseconds between adjustments
+     */
+    private final long interval;
+    /**
+     * Minimum relative throughput gain to add another connection
+     */
+    private final double threshold;
+    /**
+     * Factor to multiply number of connections with on failure
+     */
+    private final double decrease;
+
+    private final Speedometer meter;
+
+    private int limit;
+    /**
+     * Timestamp of last throughput sample
+     */
+    private long sampled;
+    /**
+     * Timestamp of last decrease
+     */
+    private long decreased;
+    /**
+     * Throughput in previous interval or negative if unknown
+     */
+    private double throughput = -1d;
+
+    public AdaptiveTransferConnectionLimiter(final int initial) {
+        this(initial, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param initial Number of connections to start with
+     * @param pool    Maximum number of connections in session pool
+     */
+    public AdaptiveTransferConnectionLimiter(final int initial, final int pool) {
+        this(initial, pool, PreferencesFactory.get(), System.currentTimeMillis());
+    }
+
+    private AdaptiveTransferConnectionLimiter(final int initial, final int pool, final Preferences preferences, final long timestamp) {
+        this(initial, preferences.getInteger("queue.connections.limit.adaptive.minimum"),
+            // Never exceed number of connections available in session pool
+            Math.min(pool, Math.max(initial, preferences.getInteger("queue.connections.limit.adaptive.maximum"))),
+            preferences.getLong("queue.connections.limit.adaptive.interval"),
+            preferences.getDouble("queue.connections.limit.adaptive.threshold"),
+            preferences.getDouble("queue.connections.limit.adaptive.decrease"), timestamp);
+    }
+
+    /**
+     * @param initial   Number of connections to start with
+     * @param minimum   Lower bound for number of connections
+     * @param maximum   Upper bound for number of connections
+     * @param interval  Minimum duration in milliseconds between adjustments
+     * @param threshold Minimum relative throughput gain to add another connection
+     * @param decrease  Factor to multiply number of connections with on failure
+     * @param timestamp Start of transfer
+     */
+    public AdaptiveTransferConnectionLimiter(final int initial, final int minimum, final int maximum,
+                                             final long interval, final double threshold, final double decrease,
+                                             final long timestamp) {
+        this.minimum = Math.max(1, minimum);
+        this.maximum = Math.max(this.minimum, maximum);
+        this.interval = interval;
+        this.threshold = threshold;
+        this.decrease = decrease;
+        this.limit = Math.min(this.maximum, Math.max(this.minimum, initial));
+        this.meter = new Speedometer(timestamp, false);
+        this.sampled = timestamp;
+        this.decreased = timestamp;
+    }
+
+    @Override
+    public int getLimit(final Host host) {
+        return this.getLimit();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Additive increase while throughput improves
+     *
+     * @param time        Current timestamp
+     * @param transferred Total number of bytes transferred
+     * @return Number of connections to use
+     */
+    public synchronized int sample(final long time, final long transferred) {
+        if(time - sampled < interval) {
+            return limit;
+        }
+        sampled = time;
+        final double current = meter.getSpeed(time, transferred, true);
+        if(throughput < 0 || current > throughput * (1 + threshold)) {
+            if(limit < maximum) {
+                limit++;
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Increase limit to %d connections with throughput %.0f bytes/ms", limit, current));
+                }
+            }
+        }
+        throughput = current;
+        return limit;
+    }
+
+    /**
+     * Multiplicative decrease when throttled by server or on network failure
+     *
+     * @param time    Current timestamp
+     * @param failure Failure of transfer with single connection
+     * @return Number of connections to use
+     */
+    public synchronized int failure(final long time, final BackgroundException failure) {
+        if(!this.isThrottled(failure) && diagnostics.determine(failure) != FailureDiagnostics.Type.network) {
+            return limit;
+        }
+        if(time - decreased < interval) {
+            // Already decreased for concurrent failures
+            return limit;
+        }
+        decreased = time;
+        limit = Math.max(minimum, (int) (limit * decrease));
+        // Probe again from current throughput
+        throughput = -1d;
+        if(log.isInfoEnabled()) {
+            log.info(String.format("Decrease limit to %d connections after failure %s", limit, failure));
+        }
+        return limit;
+    }
+
+    /**
+     * @return True for 429 Too Many Requests or 503 Service Unavailable responses including S3 Slow Down
+     */
+    private boolean isThrottled(final BackgroundException failure) {
+        if(ExceptionUtils.indexOfType(failure, RetriableAccessDeniedException.class) == -1) {
+            return false;
+        }
+        if(ExceptionUtils.indexOfType(failure, ConflictException.class) != -1) {
+            // 409 Conflict
+            return false;
+        }
+        for(Throwable cause : ExceptionUtils.getThrowableList(failure)) {
+            if(cause instanceof HttpResponseException) {
+                switch(((HttpResponseException) cause).getStatusCode()) {
+                    case 429:
+                    case HttpStatus.SC_SERVICE_UNAVAILABLE:
+                        return true;
+                }
+                return false;
+            }
+        }
+        return false;
+    }
+}
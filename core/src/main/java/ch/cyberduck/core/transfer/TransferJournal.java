@@ -0,0 +1,355 @@
+package ch.cyberduck.core.transfer;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.io.AppendOnlyLog;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append only journal of multipart uploads started and parts completed for the files of a transfer. Records are
+ * appended when a part completes and replayed when the transfer is resumed to skip completed parts without listing
+ * parts on the server. The journal is rewritten with live records only when the number of records exceeds the threshold.
+ */
+public class TransferJournal {
+    private static final Logger log = Logger.getLogger(TransferJournal.class);
+
+    private static final int VERSION = 1;
+
+    /**
+     * Multipart upload started for file
+     */
+    private static final byte START = 1;
+    /**
+     * Part of multipart upload complete
+     */
+    private static final byte PART = 2;
+    /**
+     * Transfer of file complete
+     */
+    private static final byte COMPLETE = 3;
+
+    private final Local file;
+    private final AppendOnlyLog journal;
+    /**
+     * Minimum number of records in journal before compaction
+     */
+    private final int threshold;
+
+    /**
+     * Live state by file
+     */
+    private final Map<String, Item> items = new HashMap<>();
+
+    private boolean loaded;
+
+    public TransferJournal(final Local file) {
+        this(file, PreferencesFactory.get().getInteger("queue.transfer.journal.compaction"));
+    }
+
+    /**
+     * @param file      Journal file
+     * @param threshold Minimum number of records in journal before compaction
+     */
+    public TransferJournal(final Local file, final int threshold) {
+        this.file = file;
+        this.journal = new AppendOnlyLog(file, VERSION, true);
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param key    File in transfer
+     * @param length Total length of file
+     * @return Identifier of multipart upload started for file with same length or null if not found
+     */
+    public synchronized String find(final String key, final long length) {
+        this.load();
+        final Item item = items.get(key);
+        if(null == item) {
+            return null;
+        }
+        if(item.length != length) {
+            log.warn(String.format("Ignore multipart upload %s for %s with mismatching length", item.upload, key));
+            return null;
+        }
+        return item.upload;
+    }
+
+    /**
+     * @param key File in transfer
+     * @return Completed parts of multipart upload sorted by part number
+     */
+    public synchronized List<Part> parts(final String key) {
+        this.load();
+        final Item item = items.get(key);
+        if(null == item) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(item.parts.values());
+    }
+
+    /**
+     * Record new multipart upload replacing any previous upload for file
+     *
+     * @param key    File in transfer
+     * @param upload Identifier of multipart upload
+     * @param length Total length of file
+     */
+    public synchronized void start(final String key, final String upload, final long length) {
+        this.load();
+        final Item item = new Item(upload, length);
+        items.put(key, item);
+        this.append(this.toStart(key, item));
+    }
+
+    /**
+     * Record completed part of multipart upload. Parts without checksum are not recorded and uploaded again on resume.
+     *
+     * @param key  File in transfer
+     * @param part Completed part
+     */
+    public synchronized void part(final String key, final Part part) {
+        if(StringUtils.isBlank(part.checksum)) {
+            log.warn(String.format("Skip part %d of %s with missing checksum in journal %s", part.number, key, file));
+            return;
+        }
+        this.load();
+        final Item item = items.get(key);
+        if(null == item) {
+            log.warn(String.format("Missing multipart upload for %s in journal %s", key, file));
+            return;
+        }
+        item.parts.put(part.number, part);
+        this.append(this.toPart(key, part));
+    }
+
+    /**
+     * Discard parts of file with transfer complete
+     *
+     * @param key File in transfer
+     */
+    public synchronized void complete(final String key) {
+        this.load();
+        if(null == items.remove(key)) {
+            return;
+        }
+        this.append(out -> {
+            out.writeByte(COMPLETE);
+            out.writeUTF(key);
+        });
+    }
+
+    /**
+     * Compact and close journal file
+     */
+    public synchronized void close() {
+        if(loaded && journal.getRecords() > this.live()) {
+            this.compact();
+        }
+        try {
+            journal.close();
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure closing journal %s. %s", file, e.getMessage()));
+        }
+        finally {
+            loaded = false;
+            items.clear();
+        }
+    }
+
+    public synchronized void delete() {
+        try {
+            journal.delete();
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure deleting journal %s. %s", file, e.getMessage()));
+        }
+        finally {
+            loaded = false;
+            items.clear();
+        }
+    }
+
+    /**
+     * Replay records from journal file
+     */
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        loaded = true;
+        items.clear();
+        try {
+            journal.read(this::replay);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure reading journal %s. %s", file, e.getMessage()));
+            items.clear();
+        }
+    }
+
+    private void replay(final DataInputStream in) throws IOException {
+        switch(in.readByte()) {
+            case START:
+                final String key = in.readUTF();
+                items.put(key, new Item(in.readUTF(), in.readLong()));
+                break;
+            case PART:
+                final Item item = items.get(in.readUTF());
+                final Part part = new Part(in.readInt(), in.readLong(), in.readUTF());
+                if(null != item && StringUtils.isNotBlank(part.checksum)) {
+                    item.parts.put(part.number, part);
+                }
+                break;
+            case COMPLETE:
+                items.remove(in.readUTF());
+                break;
+            default:
+                log.warn(String.format("Skip unknown record in journal %s", file));
+        }
+    }
+
+    private void append(final AppendOnlyLog.RecordWriter writer) {
+        try {
+            journal.append(writer);
+            if(journal.getRecords() >= threshold && journal.getRecords() > 2 * this.live()) {
+                this.compact();
+            }
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure writing journal %s. %s", file, e.getMessage()));
+        }
+    }
+
+    /**
+     * Rewrite journal with live records only
+     */
+    private void compact() {
+        final List<AppendOnlyLog.RecordWriter> records = new ArrayList<>();
+        for(Map.Entry<String, Item> entry : items.entrySet()) {
+            records.add(this.toStart(entry.getKey(), entry.getValue()));
+            for(Part part : entry.getValue().parts.values()) {
+                records.add(this.toPart(entry.getKey(), part));
+            }
+        }
+        try {
+            journal.compact(records);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure compacting journal %s. %s", file, e.getMessage()));
+        }
+    }
+
+    private AppendOnlyLog.RecordWriter toStart(final String key, final Item item) {
+        return out -> {
+            out.writeByte(START);
+            out.writeUTF(key);
+            out.writeUTF(item.upload);
+            out.writeLong(item.length);
+        };
+    }
+
+    private AppendOnlyLog.RecordWriter toPart(final String key, final Part part) {
+        return out -> {
+            out.writeByte(PART);
+            out.writeUTF(key);
+            out.writeInt(part.number);
+            out.writeLong(part.length);
+            out.writeUTF(part.checksum);
+        };
+    }
+
+    /**
+     * @return Number of records required to restore live state
+     */
+    private int live() {
+        int count = 0;
+        for(Item item : items.values()) {
+            count += 1 + item.parts.size();
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("TransferJournal{");
+        sb.append("file=").append(file);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static final class Item {
+        private final String upload;
+        private final long length;
+        private final Map<Integer, Part> parts = new TreeMap<>();
+
+        public Item(final String upload, final long length) {
+            this.upload = upload;
+            this.length = length;
+        }
+    }
+
+    public static final class Part {
+        private final int number;
+        private final long length;
+        private final String checksum;
+
+        /**
+         * @param number   Part number
+         * @param length   Length of part
+         * @param checksum Checksum or ETag returned by server for part
+         */
+        public Part(final int number, final long length, final String checksum) {
+            this.number = number;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public String getChecksum() {
+            return checksum;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder("Part{");
+            sb.append("number=").append(number);
+            sb.append(", length=").append(length);
+            sb.append(", checksum='").append(checksum).append('\'');
+            sb.append('}');
+            return sb.toString();
+        }
+    }
+}
@@ -30,6 +30,11 @@ public final class TransferOptions {
      */
     public boolean reloadRequested = false;
 
+    /**
+     * Journal of completed parts to resume from or null
+     */
+    public TransferJournal journal;
+
     public TransferOptions reload(boolean e) {
         reloadRequested = e;
         return this;
@@ -40,11 +45,17 @@ public final class TransferOptions {
         return this;
     }
 
+    public TransferOptions journal(TransferJournal e) {
+        journal = e;
+        return this;
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("TransferOptions{");
         sb.append("resumeRequested=").append(resumeRequested);
         sb.append(", reloadRequested=").append(reloadRequested);
+        sb.append(", journal=").append(journal);
         sb.append('}');
         return sb.toString();
     }
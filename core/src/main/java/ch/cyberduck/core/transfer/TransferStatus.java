@@ -31,6 +31,7 @@ import ch.cyberduck.core.io.Checksum;
 import ch.cyberduck.core.io.StreamCancelation;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.random.NonceGenerator;
+import ch.cyberduck.core.threading.PartScheduler;
 
 import org.apache.log4j.Logger;
 
@@ -180,6 +181,16 @@ public class TransferStatus implements StreamCancelation, StreamProgress {
      */
     private NonceGenerator nonces;
 
+    /**
+     * Scheduler for parts shared with other files in transfer
+     */
+    private PartScheduler scheduler;
+
+    /**
+     * Journal of completed parts shared with other files in transfer
+     */
+    private TransferJournal journal;
+
     private Object lockId;
 
     /**
@@ -227,6 +238,8 @@ public class TransferStatus implements StreamCancelation, StreamProgress {
         this.header = copy.header;
         this.filekey = copy.filekey;
         this.nonces = copy.nonces;
+        this.scheduler = copy.scheduler;
+        this.journal = copy.journal;
         this.lockId = copy.lockId;
         this.version = copy.version;
         this.fileid = copy.fileid;
@@ -629,6 +642,32 @@ public class TransferStatus implements StreamCancelation, StreamProgress {
         return this;
     }
 
+    public PartScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(final PartScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public TransferStatus withScheduler(final PartScheduler scheduler) {
+        this.setScheduler(scheduler);
+        return this;
+    }
+
+    public TransferJournal getJournal() {
+        return journal;
+    }
+
+    public void setJournal(final TransferJournal journal) {
+        this.journal = journal;
+    }
+
+    public TransferStatus withJournal(final TransferJournal journal) {
+        this.setJournal(journal);
+        return this;
+    }
+
     public Object getLockId() {
         return lockId;
     }
@@ -18,6 +18,7 @@ package ch.cyberduck.core.transfer.download;
  */
 
 import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.DescriptiveUrl;
 import ch.cyberduck.core.DescriptiveUrlBag;
 import ch.cyberduck.core.HostUrlProvider;
@@ -58,11 +59,11 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 public abstract class AbstractDownloadFilter implements TransferPathFilter {
@@ -197,7 +198,7 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
                     log.warn(String.format("Failure to determine disk space for %s", file.getParent()));
                 }
                 long threshold = preferences.getLong("queue.download.segments.threshold");
-                if(status.getLength() * 2 > space) {
+                if(status.getLength() > space) {
                     log.warn(String.format("Insufficient free disk space %d for segmented download of %s", space, file));
                 }
                 else if(status.getLength() > threshold) {
@@ -212,20 +213,17 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
                     long remaining = status.getLength(), offset = 0;
                     // Sorted list
                     final List<TransferStatus> segments = new ArrayList<>();
-                    final Local segmentsFolder = LocalFactory.get(local.getParent(), String.format("%s.cyberducksegment", local.getName()));
-                    for(int segmentNumber = 1; remaining > 0; segmentNumber++) {
-                        final Local segmentFile = LocalFactory.get(
-                            segmentsFolder, String.format("%d.cyberducksegment", segmentNumber));
+                    while(remaining > 0) {
                         // Last part can be less than 5 MB. Adjust part size.
                         long length = Math.min(segmentSize, remaining);
+                        // Written in place at offset to target file
                         final TransferStatus segmentStatus = new TransferStatus()
                             .segment(true) // Skip completion filter for single segment
                             .append(true) // Read with offset
                             .skip(offset)
-                            .length(length)
-                            .rename(segmentFile);
+                            .length(length);
                         if(log.isDebugEnabled()) {
-                            log.debug(String.format("Adding status %s for segment %s", segmentStatus, segmentFile));
+                            log.debug(String.format("Adding status %s for segment", segmentStatus));
                         }
                         segments.add(segmentStatus);
                         remaining -= length;
@@ -241,10 +239,45 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
         return status;
     }
 
+    /**
+     * Preallocate target file for segments written in place. Subclasses overriding this method must call this
+     * implementation to create the bitmap of completed segments before any segment is transferred.
+     */
     @Override
     public void apply(final Path file, final Local local, final TransferStatus status,
                       final ProgressListener listener) throws BackgroundException {
-        //
+        if(status.isSegmented()) {
+            final List<TransferStatus> segments = status.getSegments();
+            long length = 0L;
+            boolean resume = false;
+            for(int i = 0; i < segments.size(); i++) {
+                final TransferStatus segment = segments.get(i);
+                // Identify segment in bitmap of completed segments independent of progress
+                segment.setPart(i + 1);
+                // Write to final target
+                segment.rename(local);
+                length += segment.getLength();
+                resume |= segment.isComplete();
+            }
+            if(!resume) {
+                if(local.exists() && local.attributes().getSize() > length) {
+                    // Drop trailing content of previous file
+                    local.delete();
+                }
+                new SegmentBitmap(local).create(length, segments.get(0).getLength());
+            }
+            if(local.attributes().getSize() < length) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Preallocate %d bytes for %s", length, local));
+                }
+                try (OutputStream out = local.getOutputStream(length - 1)) {
+                    out.write(0);
+                }
+                catch(IOException e) {
+                    throw new DefaultIOExceptionMappingService().map(e);
+                }
+            }
+        }
     }
 
     /**
@@ -258,6 +291,10 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
             log.debug(String.format("Complete %s with status %s", file.getAbsolute(), status));
         }
         if(status.isSegment()) {
+            if(status.isComplete()) {
+                // Segment is forced to disk when closing the output stream before completion is recorded
+                new SegmentBitmap(local).complete(status.getPart() - 1);
+            }
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Skip completion for single segment %s", status));
             }
@@ -265,34 +302,10 @@ public abstract class AbstractDownloadFilter implements TransferPathFilter {
         }
         if(status.isComplete()) {
             if(status.isSegmented()) {
-                // Obtain ordered list of segments to reassemble
-                final List<TransferStatus> segments = status.getSegments();
                 if(log.isInfoEnabled()) {
-                    log.info(String.format("Compile %d segments to file %s", segments.size(), local));
-                }
-                if(local.exists()) {
-                    local.delete();
-                }
-                for(Iterator<TransferStatus> iterator = segments.iterator(); iterator.hasNext(); ) {
-                    final TransferStatus segmentStatus = iterator.next();
-                    // Segment
-                    final Local segmentFile = segmentStatus.getRename().local;
-                    if(log.isInfoEnabled()) {
-                        log.info(String.format("Append segment %s to %s", segmentFile, local));
-                    }
-                    segmentFile.copy(local, new Local.CopyOptions().append(true));
-                    if(log.isInfoEnabled()) {
-                        log.info(String.format("Delete segment %s", segmentFile));
-                    }
-                    segmentFile.delete();
-                    if(!iterator.hasNext()) {
-                        final Local folder = segmentFile.getParent();
-                        if(log.isInfoEnabled()) {
-                            log.info(String.format("Remove segment folder %s", folder));
-                        }
-                        folder.delete();
-                    }
+                    log.info(String.format("Completed %d segments written to file %s", status.getSegments().size(), local));
                 }
+                new SegmentBitmap(local).delete();
             }
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Run completion for file %s with status %s", local, status));
@@ -32,6 +32,9 @@ import ch.cyberduck.core.transfer.symlink.SymlinkResolver;
 
 import org.apache.log4j.Logger;
 
+import java.util.BitSet;
+import java.util.List;
+
 public class ResumeFilter extends AbstractDownloadFilter {
     private static final Logger log = Logger.getLogger(ResumeFilter.class);
 
@@ -56,6 +59,10 @@ public class ResumeFilter extends AbstractDownloadFilter {
     public boolean accept(final Path file, final Local local, final TransferStatus parent) throws BackgroundException {
         if(local.isFile()) {
             if(local.exists()) {
+                if(new SegmentBitmap(local).exists()) {
+                    // Preallocated file of incomplete segmented download
+                    return super.accept(file, local, parent);
+                }
                 // Read remote attributes
                 final PathAttributes attributes = attribute.find(file);
                 if(local.attributes().getSize() == attributes.getSize()) {
@@ -88,13 +95,16 @@ public class ResumeFilter extends AbstractDownloadFilter {
     public TransferStatus prepare(final Path file, final Local local, final TransferStatus parent, final ProgressListener progress) throws BackgroundException {
         final TransferStatus status = super.prepare(file, local, parent, progress);
         if(status.isSegmented()) {
-            for(TransferStatus segmentStatus : status.getSegments()) {
-                final Local segmentFile = segmentStatus.getRename().local;
-                if(segmentFile.exists()) {
-                    if(log.isInfoEnabled()) {
-                        log.info(String.format("Determine if part %s can be skipped", segmentStatus));
-                    }
-                    if(segmentFile.attributes().getSize() == segmentStatus.getLength()) {
+            if(local.isFile()) {
+                final List<TransferStatus> segments = status.getSegments();
+                // Segments written in place to target file
+                final BitSet completed = new SegmentBitmap(local).read(status.getLength(), segments.get(0).getLength());
+                for(int i = 0; i < segments.size(); i++) {
+                    final TransferStatus segmentStatus = segments.get(i);
+                    if(completed.get(i)) {
+                        if(log.isInfoEnabled()) {
+                            log.info(String.format("Skip completed part %s", segmentStatus));
+                        }
                         segmentStatus.setComplete();
                         status.setLength(status.getLength() - segmentStatus.getLength());
                         status.setOffset(status.getOffset() + segmentStatus.getLength());
@@ -102,6 +112,9 @@ public class ResumeFilter extends AbstractDownloadFilter {
                 }
             }
         }
+        else if(new SegmentBitmap(local).exists()) {
+            log.warn(String.format("Skip resume for incomplete segmented download %s", local));
+        }
         else {
             if(download.offset(file)) {
                 if(local.isFile()) {
@@ -0,0 +1,195 @@
+package ch.cyberduck.core.transfer.download;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.LocalFactory;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.NotfoundException;
+
+import org.apache.log4j.Logger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Persisted record of completed segments of a download written in place to the target file. Stored next to the
+ * target file and removed when all segments are complete.
+ */
+public final class SegmentBitmap {
+    private static final Logger log = Logger.getLogger(SegmentBitmap.class);
+
+    private static final int VERSION = 1;
+
+    /**
+     * Maximum number of bytes for bitmap
+     */
+    private static final int MAXIMUM = 1024 * 1024;
+
+    /**
+     * Serialize updates from concurrently completing segments
+     */
+    private static final Object lock = new Object();
+
+    private final Local file;
+
+    /**
+     * @param local Target file of segmented download
+     */
+    public SegmentBitmap(final Local local) {
+        this.file = LocalFactory.get(local.getParent(), String.format("%s.cyberducksegments", local.getName()));
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    /**
+     * Write empty bitmap
+     *
+     * @param length Total length of file
+     * @param size   Length of single segment
+     */
+    public void create(final long length, final long size) throws AccessDeniedException {
+        synchronized(lock) {
+            this.write(new Header(length, size), new BitSet());
+        }
+    }
+
+    /**
+     * @param length Total length of file
+     * @param size   Length of single segment
+     * @return Completed segments or empty if no bitmap was saved for this file length and segment size
+     */
+    public BitSet read(final long length, final long size) {
+        synchronized(lock) {
+            if(!file.exists()) {
+                return new BitSet();
+            }
+            try (DataInputStream in = new DataInputStream(file.getInputStream())) {
+                final Header header = Header.read(in);
+                if(header.length != length || header.size != size) {
+                    log.warn(String.format("Ignore bitmap %s with mismatching length or segment size", file));
+                    return new BitSet();
+                }
+                return readBits(in);
+            }
+            catch(IOException | AccessDeniedException e) {
+                log.warn(String.format("Failure reading bitmap %s. %s", file, e.getMessage()));
+                return new BitSet();
+            }
+        }
+    }
+
+    /**
+     * Mark segment as complete
+     *
+     * @param segment Index of segment in file starting at 0
+     */
+    public void complete(final int segment) throws AccessDeniedException {
+        synchronized(lock) {
+            if(!file.exists()) {
+                log.warn(String.format("Missing bitmap %s", file));
+                return;
+            }
+            final Header header;
+            final BitSet bits;
+            try (DataInputStream in = new DataInputStream(file.getInputStream())) {
+                header = Header.read(in);
+                bits = readBits(in);
+            }
+            catch(IOException e) {
+                log.warn(String.format("Failure reading bitmap %s. %s", file, e.getMessage()));
+                return;
+            }
+            bits.set(segment);
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Mark segment %d complete in %s", segment, file));
+            }
+            this.write(header, bits);
+        }
+    }
+
+    public void delete() {
+        synchronized(lock) {
+            if(file.exists()) {
+                try {
+                    file.delete();
+                }
+                catch(AccessDeniedException | NotfoundException e) {
+                    log.warn(String.format("Failure deleting bitmap %s. %s", file, e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Write to temporary file replacing bitmap when complete to never leave a partially written bitmap
+     */
+    private void write(final Header header, final BitSet bits) throws AccessDeniedException {
+        final Local temporary = LocalFactory.get(file.getParent(), String.format("%s.tmp", file.getName()));
+        try (DataOutputStream out = new DataOutputStream(temporary.getOutputStream(false))) {
+            out.writeInt(VERSION);
+            out.writeLong(header.length);
+            out.writeLong(header.size);
+            final byte[] bytes = bits.toByteArray();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        catch(IOException e) {
+            log.warn(String.format("Failure writing bitmap %s. %s", temporary, e.getMessage()));
+            return;
+        }
+        temporary.rename(file);
+    }
+
+    private static BitSet readBits(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if(count < 0 || count > MAXIMUM) {
+            throw new IOException(String.format("Invalid length %d", count));
+        }
+        final byte[] bytes = new byte[count];
+        in.readFully(bytes);
+        return BitSet.valueOf(bytes);
+    }
+
+    private static final class Header {
+        private final long length;
+        private final long size;
+
+        Header(final long length, final long size) {
+            this.length = length;
+            this.size = size;
+        }
+
+        static Header read(final DataInputStream in) throws IOException {
+            if(in.readInt() != VERSION) {
+                throw new IOException("Unsupported version");
+            }
+            return new Header(in.readLong(), in.readLong());
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("SegmentBitmap{");
+        sb.append("file=").append(file);
+        sb.append('}');
+        return sb.toString();
+    }
+}
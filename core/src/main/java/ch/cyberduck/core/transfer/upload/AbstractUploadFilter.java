@@ -109,7 +109,8 @@ public abstract class AbstractUploadFilter implements TransferPathFilter {
     public TransferStatus prepare(final Path file, final Local local, final TransferStatus parent, final ProgressListener progress) throws BackgroundException {
         final TransferStatus status = new TransferStatus()
             .hidden(!hidden.accept(file))
-            .withLockId(parent.getLockId());
+            .withLockId(parent.getLockId())
+            .withJournal(parent.getJournal());
         // Read remote attributes first
         if(parent.isExists()) {
             if(find.withCache(cache).find(file)) {
@@ -29,6 +29,7 @@ import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.io.Checksum;
 import ch.cyberduck.core.io.ChecksumCompute;
 import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.transfer.TransferJournal;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.symlink.SymlinkResolver;
 
@@ -67,7 +68,7 @@ public class ResumeFilter extends AbstractUploadFilter {
         if(super.accept(file, local, parent)) {
             if(local.isFile()) {
                 if(parent.isExists()) {
-                    final Write.Append append = upload.append(file, local.attributes().getSize(), cache);
+                    final Write.Append append = this.append(file, local.attributes().getSize(), parent);
                     if(append.override || append.append) {
                         if(append.size == local.attributes().getSize()) {
                             if(Checksum.NONE != append.checksum) {
@@ -101,7 +102,7 @@ public class ResumeFilter extends AbstractUploadFilter {
         final TransferStatus status = super.prepare(file, local, parent, progress);
         if(file.isFile()) {
             if(parent.isExists()) {
-                final Write.Append append = upload.append(file, status.getLength(), cache);
+                final Write.Append append = this.append(file, status.getLength(), status);
                 if(append.append && append.size < local.attributes().getSize()) {
                     // Append to existing file
                     status.setAppend(true);
@@ -114,4 +115,26 @@ public class ResumeFilter extends AbstractUploadFilter {
         }
         return status;
     }
+
+    /**
+     * @param length Size of local file
+     * @param status Transfer status with journal of transfer
+     * @return Size of parts completed in journal of transfer without querying server or size found on server
+     */
+    private Write.Append append(final Path file, final Long length, final TransferStatus status) throws BackgroundException {
+        final TransferJournal journal = status.getJournal();
+        if(null != journal) {
+            if(null != journal.find(file.getAbsolute(), length)) {
+                long size = 0L;
+                for(TransferJournal.Part part : journal.parts(file.getAbsolute())) {
+                    size += part.getLength();
+                }
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Found %d bytes uploaded for %s in journal %s", size, file, journal));
+                }
+                return new Write.Append(size);
+            }
+        }
+        return upload.append(file, length, cache);
+    }
 }
@@ -23,6 +23,7 @@ import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.features.Vault;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.vault.VaultRegistry;
+import ch.cyberduck.core.vault.VaultUnlockCancelException;
 
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -72,6 +73,20 @@ public class VaultRegistryDeleteFeature implements Delete {
         return proxy.isRecursive();
     }
 
+    @Override
+    public boolean isStreaming(final Path file) {
+        try {
+            if(registry.find(session, file) != Vault.DISABLED) {
+                // Batches must not be deleted in vault
+                return false;
+            }
+        }
+        catch(VaultUnlockCancelException e) {
+            return false;
+        }
+        return proxy.isStreaming(file);
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("VaultRegistryDeleteFeature{");
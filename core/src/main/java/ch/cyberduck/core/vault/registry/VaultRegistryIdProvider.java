@@ -40,6 +40,11 @@ public class VaultRegistryIdProvider implements IdProvider {
         return registry.find(session, file).getFeature(session, IdProvider.class, proxy).getFileid(file, listener);
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        proxy.cache(file, id);
+    }
+
     @Override
     public IdProvider withCache(final Cache<Path> cache) {
         proxy.withCache(cache);
@@ -38,6 +38,7 @@ import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.NotificationService;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.threading.TransferBackgroundActionState;
 import ch.cyberduck.core.transfer.SynchronizingTransferErrorCallback;
 import ch.cyberduck.core.transfer.Transfer;
@@ -55,10 +56,18 @@ import org.apache.commons.lang3.concurrent.ConcurrentUtils;
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
     private static final Logger log = Logger.getLogger(AbstractTransferWorker.class);
@@ -89,6 +98,21 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
     private final StreamListener stream;
     private final Preferences preferences = PreferencesFactory.get();
 
+    /**
+     * Marker for file skipped or failed in preparation in pipeline
+     */
+    private static final TransferItem SKIPPED = new TransferItem(null);
+
+    /**
+     * Prepared items pending transfer when transferring while preparing
+     */
+    private volatile BlockingQueue<TransferItem> pipeline;
+
+    /**
+     * Parts of multipart transfers scheduled with budget shared by all files
+     */
+    private volatile PartScheduler scheduler;
+
     public AbstractTransferWorker(final Transfer transfer, final TransferOptions options,
                                   final TransferPrompt prompt, final TransferSpeedometer meter,
                                   final TransferErrorCallback error,
@@ -180,10 +204,34 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
         // No need to implement for single threaded transfer
     }
 
+    /**
+     * Handle tasks completed so far without waiting for pending tasks
+     */
+    protected void poll() throws BackgroundException {
+        // No need to implement for single threaded transfer
+    }
+
+    /**
+     * @return True if files can be transferred on separate connections while preparation continues
+     */
+    protected boolean isPipelineSupported() {
+        return false;
+    }
+
+    /**
+     * @return True if parts of multipart transfers of all files are scheduled with a shared budget
+     */
+    protected boolean isPartSchedulerSupported() {
+        return false;
+    }
+
     @Override
     public Boolean run(final Session<?> source) throws BackgroundException {
         final String lock = sleep.lock();
         final Session<?> destination = this.borrow(Connection.destination);
+        if(this.isPartSchedulerSupported()) {
+            scheduler = new PartScheduler();
+        }
         try {
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Start transfer with prompt %s and options %s", prompt, options));
@@ -212,19 +260,26 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
             progress.message(MessageFormat.format(LocaleFactory.localizedString("Prepare {0} ({1})", "Status"), transfer.getName(), action.getTitle()));
             transfer.normalize();
 
-            // Calculate information about the files in advance to give progress information
-            for(TransferItem next : transfer.getRoots()) {
-                this.prepare(next.remote, next.local, new TransferStatus().exists(true).withLockId(next.lockId).withChecksum(next.checksum), action);
+            if(this.isPipelineSupported() && preferences.getBoolean("queue.transfer.pipeline.enable")) {
+                meter.reset();
+                // Transfer files while preparing
+                this.pipeline(source, destination, action);
             }
-            this.await();
-            meter.reset();
-            transfer.pre(source, destination, table, connect);
-            // Transfer all files sequentially
-            for(TransferItem next : transfer.getRoots()) {
-                this.transfer(next, action);
+            else {
+                // Calculate information about the files in advance to give progress information
+                for(TransferItem next : transfer.getRoots()) {
+                    this.prepare(next.remote, next.local, new TransferStatus().exists(true).withLockId(next.lockId).withChecksum(next.checksum).withJournal(options.journal), action);
+                }
+                this.await();
+                meter.reset();
+                transfer.pre(source, destination, table, connect);
+                // Transfer all files sequentially
+                for(TransferItem next : transfer.getRoots()) {
+                    this.transfer(next, action);
+                }
+                this.await();
+                transfer.post(source, destination, table, connect);
             }
-            this.await();
-            transfer.post(source, destination, table, connect);
         }
         finally {
             this.release(source, Connection.source, null);
@@ -235,12 +290,212 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     "Transfer incomplete", transfer.getName());
             }
             sleep.release(lock);
+            if(null != scheduler) {
+                scheduler.shutdown();
+            }
+            if(null != options.journal) {
+                options.journal.close();
+            }
             table.clear();
             cache.clear();
         }
         return true;
     }
 
+    /**
+     * Prepare files on the worker pool and transfer prepared files as soon as they are available. The number of
+     * files submitted for preparation and pending transfer is bounded by the window size to limit memory usage for
+     * large trees. Children of a directory are only scheduled for preparation once the directory is created. Files
+     * are post processed in batches once transferred.
+     *
+     * @param source      Connection to source server
+     * @param destination Connection to target server
+     * @param action      Transfer action for existing files
+     */
+    private void pipeline(final Session<?> source, final Session<?> destination, final TransferAction action) throws BackgroundException {
+        final int window = preferences.getInteger("queue.transfer.pipeline.window");
+        final BlockingQueue<TransferItem> queue = new LinkedBlockingQueue<>();
+        pipeline = queue;
+        // Files pending preparation with deepest directory first
+        final Deque<Children> scheduled = new ArrayDeque<>();
+        scheduled.push(new Children(null, transfer.getRoots().iterator()));
+        // Batches of files transferred pending post processing in order of submission
+        final Deque<Batch> pending = new ArrayDeque<>();
+        // Directories pending creation before preparing contained files
+        final List<Directory> directories = new ArrayList<>();
+        // Number of files submitted for preparation not yet taken from the pipeline
+        int prepare = 0;
+        try {
+            while(true) {
+                if(this.isCanceled()) {
+                    throw new TransferCanceledException();
+                }
+                for(Iterator<Directory> iter = directories.iterator(); iter.hasNext(); ) {
+                    final Directory directory = iter.next();
+                    if(null == directory.future || directory.future.isDone()) {
+                        // Remove from cache as children are scheduled when directory is created
+                        scheduled.push(new Children(directory.status, cache.remove(directory.item).iterator()));
+                        iter.remove();
+                    }
+                }
+                while(prepare < window && !scheduled.isEmpty()) {
+                    final Children children = scheduled.peek();
+                    if(!children.iterator.hasNext()) {
+                        scheduled.pop();
+                        continue;
+                    }
+                    final TransferItem next = children.iterator.next();
+                    final TransferStatus parent = null == children.parent ?
+                        new TransferStatus().exists(true).withLockId(next.lockId).withChecksum(next.checksum).withJournal(options.journal) : children.parent;
+                    if(null != this.prepare(next.remote, next.local, parent, action)) {
+                        prepare++;
+                    }
+                }
+                if(0 == prepare) {
+                    if(directories.isEmpty()) {
+                        // Nothing left to prepare
+                        break;
+                    }
+                    // Wait for creation of directory to continue with contained files
+                    this.get(directories.get(0).future);
+                    continue;
+                }
+                final List<TransferItem> items = new ArrayList<>();
+                try {
+                    items.add(queue.take());
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                queue.drainTo(items);
+                prepare -= items.size();
+                final Map<TransferItem, TransferStatus> files = new LinkedHashMap<>();
+                for(TransferItem item : items) {
+                    if(SKIPPED == item) {
+                        continue;
+                    }
+                    files.put(item, table.get(item));
+                }
+                if(!files.isEmpty()) {
+                    if(log.isDebugEnabled()) {
+                        log.debug(String.format("Transfer batch of %d prepared files", files.size()));
+                    }
+                    transfer.pre(source, destination, files, connect);
+                    final List<Future<TransferStatus>> futures = new ArrayList<>();
+                    for(Map.Entry<TransferItem, TransferStatus> entry : files.entrySet()) {
+                        final TransferItem item = entry.getKey();
+                        final TransferStatus status = entry.getValue();
+                        final Future<TransferStatus> future = this.transfer(item, action);
+                        if(null != future) {
+                            futures.add(future);
+                        }
+                        if(item.remote.isDirectory()) {
+                            directories.add(new Directory(new TransferItem(
+                                status.getRename().remote != null ? status.getRename().remote : item.remote,
+                                status.getRename().local != null ? status.getRename().local : item.local
+                            ), status, future));
+                        }
+                    }
+                    pending.add(new Batch(files, futures));
+                }
+                // Fail early for previously submitted files without waiting
+                this.poll();
+                this.post(source, destination, pending);
+            }
+            this.await();
+            this.post(source, destination, pending);
+        }
+        finally {
+            pipeline = null;
+        }
+    }
+
+    /**
+     * Post process batches of files in order of submission once all files of the batch are transferred
+     *
+     * @param pending Batches of files submitted for transfer
+     */
+    private void post(final Session<?> source, final Session<?> destination, final Deque<Batch> pending) throws BackgroundException {
+        while(!pending.isEmpty() && pending.peek().isDone()) {
+            final Batch batch = pending.remove();
+            transfer.post(source, destination, batch.files, connect);
+            for(TransferItem item : batch.files.keySet()) {
+                table.remove(item);
+            }
+        }
+    }
+
+    /**
+     * Wait for task to complete
+     */
+    private void get(final Future<?> future) throws BackgroundException {
+        try {
+            future.get();
+        }
+        catch(InterruptedException e) {
+            throw new ConnectionCanceledException(e);
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof BackgroundException) {
+                throw (BackgroundException) e.getCause();
+            }
+            throw new DefaultExceptionMappingService().map(e.getCause());
+        }
+    }
+
+    /**
+     * Files submitted for transfer together with the same pre and post processing
+     */
+    private static final class Batch {
+        private final Map<TransferItem, TransferStatus> files;
+        private final List<Future<TransferStatus>> futures;
+
+        public Batch(final Map<TransferItem, TransferStatus> files, final List<Future<TransferStatus>> futures) {
+            this.files = files;
+            this.futures = futures;
+        }
+
+        public boolean isDone() {
+            for(Future<TransferStatus> future : futures) {
+                if(!future.isDone()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Files pending preparation contained in a directory
+     */
+    private static final class Children {
+        /**
+         * Transfer status of parent directory or null for transfer roots
+         */
+        private final TransferStatus parent;
+        private final Iterator<TransferItem> iterator;
+
+        public Children(final TransferStatus parent, final Iterator<TransferItem> iterator) {
+            this.parent = parent;
+            this.iterator = iterator;
+        }
+    }
+
+    /**
+     * Directory submitted for transfer with contained files pending preparation
+     */
+    private static final class Directory {
+        private final TransferItem item;
+        private final TransferStatus status;
+        private final Future<TransferStatus> future;
+
+        public Directory(final TransferItem item, final TransferStatus status, final Future<TransferStatus> future) {
+            this.item = item;
+            this.status = status;
+            this.future = future;
+        }
+    }
+
     /**
      * To be called before any file is actually transferred
      *
@@ -255,7 +510,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
             throw new TransferCanceledException();
         }
         if(prompt.isSelected(new TransferItem(file, local))) {
-            return this.submit(new RetryTransferCallable(transfer.getSource(),
+            final TransferCallable callable = new RetryTransferCallable(transfer.getSource(),
                 preferences.getInteger("transfer.connection.retry"), preferences.getInteger("transfer.connection.retry.delay")) {
 
                 @Override
@@ -300,10 +555,12 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                                 children = transfer.list(source, file, local, new WorkerListProgressListener(AbstractTransferWorker.this, progress));
                                 // Put into cache for later reference when transferring
                                 cache.put(item, new AttributedList<TransferItem>(children));
-                                // Call recursively
-                                for(TransferItem f : children) {
-                                    // Change download path relative to parent local folder
-                                    prepare(f.remote, f.local, status, action);
+                                if(null == pipeline) {
+                                    // Call recursively
+                                    for(TransferItem f : children) {
+                                        // Change download path relative to parent local folder
+                                        prepare(f.remote, f.local, status, action);
+                                    }
                                 }
                             }
                             if(log.isInfoEnabled()) {
@@ -341,7 +598,30 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     sb.append('}');
                     return sb.toString();
                 }
-            });
+            };
+            final BlockingQueue<TransferItem> queue = pipeline;
+            if(null != queue) {
+                // Hand over to pipeline when prepared
+                return this.submit(new TransferCallable() {
+                    @Override
+                    public TransferStatus call() throws BackgroundException {
+                        TransferStatus status = null;
+                        try {
+                            status = callable.call();
+                            return status;
+                        }
+                        finally {
+                            queue.add(null == status ? SKIPPED : new TransferItem(file, local));
+                        }
+                    }
+
+                    @Override
+                    public String toString() {
+                        return callable.toString();
+                    }
+                });
+            }
+            return this.submit(callable);
         }
         else {
             log.info(String.format("Skip unchecked file %s for transfer %s", file, this));
@@ -352,6 +632,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
     /**
      * @param item   File to transfer
      * @param action Transfer action for existing files
+     * @return Completes when the file is transferred
      */
     public Future<TransferStatus> transfer(final TransferItem item, final TransferAction action) throws BackgroundException {
         if(this.isCanceled()) {
@@ -363,11 +644,14 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
             final TransferStatus status = table.get(item);
             // Handle submit of one or more segments
             final List<TransferStatus> segments = status.getSegments();
+            Future<TransferStatus> transferred = null;
             for(final TransferStatus segment : segments) {
                 if(segment.isComplete()) {
                     continue;
                 }
-                this.submit(new RetryTransferCallable(transfer.getSource(),
+                segment.setScheduler(scheduler);
+                segment.setJournal(options.journal);
+                transferred = this.submit(new RetryTransferCallable(transfer.getSource(),
                     preferences.getInteger("transfer.connection.retry"), preferences.getInteger("transfer.connection.retry.delay")) {
 
                     @Override
@@ -376,8 +660,8 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                         // Transfer
                         // Do transfer with retry
                         this.retry(segment);
-                        // Recursive
-                        if(item.remote.isDirectory()) {
+                        // Recursive unless children are scheduled when prepared
+                        if(item.remote.isDirectory() && null == pipeline) {
                             if(!cache.isCached(item)) {
                                 log.warn(String.format("Missing entry for %s in cache", item));
                             }
@@ -422,15 +706,21 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                             release(d, Connection.destination, e);
                             log.warn(String.format("Failure transferring %s. %s", item, e));
                             if(this.retry(e, progress, new TransferBackgroundActionState(status))) {
+                                if(segment.isSegment()) {
+                                    // Offset of segment is restored after failure
+                                    log.info(String.format("Retry segment %s of %s", segment, item));
+                                    this.retry(segment);
+                                    return;
+                                }
                                 final Session<?> source = borrow(Connection.source);
                                 final Session<?> destination = borrow(Connection.destination);
                                 try {
                                     final TransferPathFilter filter = transfer.filter(source, destination, TransferAction.resume, progress);
-                                    if(filter.accept(item.remote, item.local, new TransferStatus().exists(true))) {
+                                    if(filter.accept(item.remote, item.local, new TransferStatus().exists(true).withJournal(options.journal))) {
                                         if(log.isDebugEnabled()) {
                                             log.debug(String.format("Retry transfer of %s", item));
                                         }
-                                        final TransferStatus retry = filter.prepare(item.remote, item.local, new TransferStatus().exists(true), progress);
+                                        final TransferStatus retry = filter.prepare(item.remote, item.local, new TransferStatus().exists(true).withJournal(options.journal), progress);
                                         // Retry immediately
                                         log.info(String.format("Retry %s with transfer status %s", item, segment));
                                         this.retry(segment
@@ -474,7 +764,7 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     }
                 });
             }
-            return this.submit(new TransferCallable() {
+            final Future<TransferStatus> concatenated = this.submit(new TransferCallable() {
                 @Override
                 public TransferStatus call() throws BackgroundException {
                     status.validate();
@@ -521,6 +811,10 @@ public abstract class AbstractTransferWorker extends TransferWorker<Boolean> {
                     return sb.toString();
                 }
             });
+            if(status.isSegmented() || null == transferred) {
+                return concatenated;
+            }
+            return transferred;
         }
         else {
             log.warn(String.format("Skip file %s with unknown transfer status", item));
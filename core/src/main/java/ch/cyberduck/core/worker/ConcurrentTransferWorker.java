@@ -26,12 +26,17 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.NotificationService;
+import ch.cyberduck.core.pool.DefaultSessionPool;
 import ch.cyberduck.core.pool.SessionPool;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.threading.BackgroundActionState;
 import ch.cyberduck.core.threading.ThreadPool;
 import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.transfer.AdaptiveTransferConnectionLimiter;
 import ch.cyberduck.core.transfer.AutoTransferConnectionLimiter;
 import ch.cyberduck.core.transfer.Transfer;
+import ch.cyberduck.core.transfer.TransferConnectionLimiter;
 import ch.cyberduck.core.transfer.TransferErrorCallback;
 import ch.cyberduck.core.transfer.TransferOptions;
 import ch.cyberduck.core.transfer.TransferPrompt;
@@ -56,6 +61,12 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
     // Keep number of submitted tasks
     private final AtomicInteger size = new AtomicInteger();
     private final ThreadPool pool;
+    private final Transfer transfer;
+    /**
+     * Adjust number of threads to throughput or null if disabled
+     */
+    private final AdaptiveTransferConnectionLimiter limiter;
+    private int threads;
 
     public ConcurrentTransferWorker(final SessionPool source,
                                     final SessionPool destination,
@@ -87,11 +98,36 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
         super(transfer, options, prompt, meter, error, progressListener, streamListener, connect, notification);
         this.source = source;
         this.destination = destination;
+        this.transfer = transfer;
+        final int limit = new AutoTransferConnectionLimiter().getLimit(transfer.getSource());
+        final Preferences preferences = PreferencesFactory.get();
+        if(preferences.getBoolean("queue.connections.limit.adaptive")
+            && TransferConnectionLimiter.AUTO == preferences.getInteger("queue.connections.limit")
+            && limit > 1) {
+            this.limiter = new AdaptiveTransferConnectionLimiter(limit, Math.min(this.getMaxTotal(source), this.getMaxTotal(destination)));
+        }
+        else {
+            this.limiter = null;
+        }
+        this.threads = null == limiter ? limit : limiter.getLimit();
         this.pool = ThreadPoolFactory.get(String.format("%s-transfer", new AlphanumericRandomStringService().random()),
-            new AutoTransferConnectionLimiter().getLimit(transfer.getSource()), priority);
+            threads, priority);
         this.completion = new ExecutorCompletionService<>(pool.executor());
     }
 
+    /**
+     * @return Maximum number of connections available in session pool
+     */
+    private int getMaxTotal(final SessionPool pool) {
+        if(pool instanceof DefaultSessionPool) {
+            final int max = ((DefaultSessionPool) pool).getMaxTotal();
+            if(max > 0) {
+                return max;
+            }
+        }
+        return Integer.MAX_VALUE;
+    }
+
     @Override
     protected Session<?> borrow(final Connection type) throws BackgroundException {
         switch(type) {
@@ -125,6 +161,10 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
 
     @Override
     protected void release(final Session session, final Connection type, final BackgroundException failure) {
+        if(null != limiter && null != failure) {
+            limiter.failure(System.currentTimeMillis(), failure);
+            this.resize();
+        }
         switch(type) {
             case source:
                 source.release(session, failure);
@@ -135,6 +175,16 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
         }
     }
 
+    @Override
+    protected boolean isPipelineSupported() {
+        return true;
+    }
+
+    @Override
+    protected boolean isPartSchedulerSupported() {
+        return true;
+    }
+
     @Override
     public Future<TransferStatus> submit(final TransferCallable callable) {
         if(log.isInfoEnabled()) {
@@ -153,27 +203,63 @@ public class ConcurrentTransferWorker extends AbstractTransferWorker {
                 if(log.isInfoEnabled()) {
                     log.info(String.format("Await completion for %d submitted tasks in queue", size.get()));
                 }
-                final TransferStatus status = completion.take().get();
-                if(log.isInfoEnabled()) {
-                    log.info(String.format("Finished task with return value %s", status));
-                }
+                this.complete(completion.take());
             }
             catch(InterruptedException e) {
                 // Errors are handled in transfer worker error callback already
                 log.warn(String.format("Unhandled failure %s", e));
                 throw new ConnectionCanceledException(e);
             }
+        }
+    }
 
-            catch(ExecutionException e) {
-                if(e.getCause() instanceof BackgroundException) {
-                    throw (BackgroundException) e.getCause();
-                }
-                throw new DefaultExceptionMappingService().map(e.getCause());
+    @Override
+    protected void poll() throws BackgroundException {
+        Future<TransferStatus> future;
+        while(null != (future = completion.poll())) {
+            this.complete(future);
+        }
+    }
+
+    /**
+     * @param future Completed task
+     */
+    private void complete(final Future<TransferStatus> future) throws BackgroundException {
+        try {
+            final TransferStatus status = future.get();
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Finished task with return value %s", status));
             }
-            finally {
-                size.decrementAndGet();
+            if(null != limiter) {
+                limiter.sample(System.currentTimeMillis(), transfer.getTransferred());
+                this.resize();
             }
         }
+        catch(InterruptedException e) {
+            // Errors are handled in transfer worker error callback already
+            log.warn(String.format("Unhandled failure %s", e));
+            throw new ConnectionCanceledException(e);
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof BackgroundException) {
+                throw (BackgroundException) e.getCause();
+            }
+            throw new DefaultExceptionMappingService().map(e.getCause());
+        }
+        finally {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Apply current limit to number of threads
+     */
+    private synchronized void resize() {
+        final int limit = limiter.getLimit();
+        if(threads != limit) {
+            pool.resize(limit);
+            threads = limit;
+        }
     }
 
     @Override
@@ -18,32 +18,54 @@ package ch.cyberduck.core.worker;
  * dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.Credentials;
 import ch.cyberduck.core.Filter;
 import ch.cyberduck.core.Host;
+import ch.cyberduck.core.IndexedListProgressListener;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.ListService;
+import ch.cyberduck.core.Local;
 import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.LoginCallback;
+import ch.cyberduck.core.LoginOptions;
 import ch.cyberduck.core.NullFilter;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.exception.ListCanceledException;
+import ch.cyberduck.core.exception.LoginCanceledException;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.pool.SessionPool;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundActionState;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.ui.browser.PathReloadFinder;
 
 import org.apache.log4j.Logger;
 
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DeleteWorker extends Worker<List<Path>> {
 
@@ -57,23 +79,40 @@ public class DeleteWorker extends Worker<List<Path>> {
     private final Cache<Path> cache;
     private final ProgressListener listener;
     private final Filter<Path> filter;
+    /**
+     * Pool to borrow additional connections from to delete batches concurrently or null
+     */
+    private final SessionPool pool;
+    private final Preferences preferences = PreferencesFactory.get();
 
     public DeleteWorker(final LoginCallback prompt, final List<Path> files, final Cache<Path> cache, final ProgressListener listener) {
         this(prompt, files, cache, new NullFilter<Path>(), listener);
     }
 
     public DeleteWorker(final LoginCallback prompt, final List<Path> files, final Cache<Path> cache, final Filter<Path> filter, final ProgressListener listener) {
+        this(prompt, files, cache, filter, listener, null);
+    }
+
+    /**
+     * @param pool Connections to delete batches concurrently with while listing when supported by protocol
+     */
+    public DeleteWorker(final LoginCallback prompt, final List<Path> files, final Cache<Path> cache, final Filter<Path> filter, final ProgressListener listener,
+                        final SessionPool pool) {
         this.files = files;
         this.prompt = prompt;
         this.cache = cache;
         this.listener = listener;
         this.filter = filter;
+        this.pool = pool;
     }
 
     @Override
     public List<Path> run(final Session<?> session) throws BackgroundException {
         final Delete delete = session.getFeature(Delete.class);
         final ListService list = session.getFeature(ListService.class);
+        if(files.stream().allMatch(delete::isStreaming)) {
+            return this.stream(session, delete, list);
+        }
         final Map<Path, TransferStatus> recursive = new LinkedHashMap<>();
         for(Path file : files) {
             if(this.isCanceled()) {
@@ -95,17 +134,7 @@ public class DeleteWorker extends Worker<List<Path>> {
         // Compile recursive list
         final Map<Path, TransferStatus> recursive = new LinkedHashMap<>();
         if(file.isFile() || file.isSymbolicLink()) {
-            final Path copy = new Path(file);
-            switch(host.getProtocol().getType()) {
-                case s3:
-                    if(!file.attributes().isDuplicate()) {
-                        if(!file.getType().contains(Path.Type.upload)) {
-                            // Add delete marker
-                            log.debug(String.format("Nullify version to add delete marker for %s", file));
-                            copy.attributes().setVersionId(null);
-                        }
-                    }
-            }
+            final Path copy = this.prepare(host, file);
             recursive.put(copy, new TransferStatus().withLockId(this.getLockId(copy)));
         }
         else if(file.isDirectory()) {
@@ -123,6 +152,426 @@ public class DeleteWorker extends Worker<List<Path>> {
         return recursive;
     }
 
+    /**
+     * Delete files in batches submitted while listing directories. Listings are not retained once passed to the
+     * pipeline to keep memory bounded by the size of a single directory listing. Directories are deleted as soon as
+     * all contained files are deleted.
+     *
+     * @return Selected files only
+     */
+    protected List<Path> stream(final Session<?> session, final Delete delete, final ListService list) throws BackgroundException {
+        final BatchDeleteCallback callback = new BatchDeleteCallback();
+        final BatchDeletePipeline pipeline = new BatchDeletePipeline(delete, callback);
+        try {
+            for(Path file : files) {
+                if(this.isCanceled()) {
+                    throw new ConnectionCanceledException();
+                }
+                this.stream(session.getHost(), delete, list, file, pipeline);
+            }
+            pipeline.await();
+        }
+        finally {
+            pipeline.shutdown();
+        }
+        callback.validate();
+        return files;
+    }
+
+    private void stream(final Host host, final Delete delete, final ListService list, final Path file,
+                        final BatchDeletePipeline pipeline) throws BackgroundException {
+        if(file.isFile() || file.isSymbolicLink()) {
+            final Path copy = this.prepare(host, file);
+            pipeline.add(copy, new TransferStatus().withLockId(this.getLockId(copy)));
+        }
+        else if(file.isDirectory()) {
+            if(!delete.isRecursive()) {
+                // Subdirectories to recurse into when listing is complete
+                final List<Path> children = new ArrayList<>();
+                final IndexedListProgressListener progress = new IndexedListProgressListener() {
+                    @Override
+                    public void visit(final AttributedList<Path> l, final int index, final Path child) throws ConnectionCanceledException {
+                        if(isCanceled()) {
+                            throw new ListCanceledException(l);
+                        }
+                        if(!filter.accept(child)) {
+                            return;
+                        }
+                        if(child.isFile() || child.isSymbolicLink()) {
+                            final Path copy = prepare(host, child);
+                            try {
+                                // Submit while listing continues
+                                pipeline.add(copy, new TransferStatus().withLockId(getLockId(copy)));
+                            }
+                            catch(BackgroundException e) {
+                                throw new ListCanceledException(l, e);
+                            }
+                        }
+                        else if(child.isDirectory()) {
+                            children.add(child);
+                        }
+                    }
+
+                    @Override
+                    public void message(final String message) {
+                        listener.message(message);
+                    }
+                };
+                try {
+                    // Continue with files not passed in chunks while listing. Already visited files are skipped by index
+                    progress.chunk(file, list.list(file, progress));
+                }
+                catch(ListCanceledException e) {
+                    if(e.getCause() instanceof BackgroundException) {
+                        // Failure deleting previous batch
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw e;
+                }
+                for(Path child : children) {
+                    if(this.isCanceled()) {
+                        throw new ConnectionCanceledException();
+                    }
+                    this.stream(host, delete, list, child, pipeline);
+                }
+            }
+            // Delete parent after children
+            pipeline.directory(file, new TransferStatus().withLockId(this.getLockId(file)));
+        }
+    }
+
+    /**
+     * Only display a single prompt at a time for batches deleted concurrently such as for MFA delete
+     */
+    private static final class SynchronizedLoginCallback implements LoginCallback {
+        private final LoginCallback proxy;
+
+        public SynchronizedLoginCallback(final LoginCallback proxy) {
+            this.proxy = proxy;
+        }
+
+        @Override
+        public synchronized Credentials prompt(final Host bookmark, final String username, final String title, final String reason, final LoginOptions options) throws LoginCanceledException {
+            return proxy.prompt(bookmark, username, title, reason, options);
+        }
+
+        @Override
+        public synchronized Credentials prompt(final Host bookmark, final String title, final String reason, final LoginOptions options) throws LoginCanceledException {
+            return proxy.prompt(bookmark, title, reason, options);
+        }
+
+        @Override
+        public synchronized Local select(final Local identity) throws LoginCanceledException {
+            return proxy.select(identity);
+        }
+
+        @Override
+        public synchronized void warn(final Host bookmark, final String title, final String message, final String defaultButton, final String cancelButton, final String preference) throws ConnectionCanceledException {
+            proxy.warn(bookmark, title, message, defaultButton, cancelButton, preference);
+        }
+
+        @Override
+        public void close(final String input) {
+            proxy.close(input);
+        }
+    }
+
+    /**
+     * Collect failures for single files and continue with remaining files
+     */
+    private final class BatchDeleteCallback implements Delete.Callback {
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile BackgroundException first;
+
+        @Override
+        public void delete(final Path file) {
+            listener.message(MessageFormat.format(LocaleFactory.localizedString("Deleting {0}", "Status"),
+                file.getName()));
+        }
+
+        @Override
+        public void failure(final Path file, final BackgroundException failure) {
+            log.warn(String.format("Failure deleting %s. %s", file, failure));
+            if(failures.getAndIncrement() == 0) {
+                first = failure;
+            }
+        }
+
+        /**
+         * @throws BackgroundException First failure deleting single file
+         */
+        public void validate() throws BackgroundException {
+            if(null != first) {
+                log.error(String.format("Failure deleting %d files", failures.get()));
+                throw first;
+            }
+        }
+    }
+
+    /**
+     * Submit batches of files to delete on connections borrowed from pool with a bounded number of batches in flight.
+     * Directories are only added to a batch once all batches with contained files and directories are complete.
+     */
+    private final class BatchDeletePipeline {
+        private final Delete delete;
+        private final Delete.Callback callback;
+        /**
+         * Prompt shared by concurrent batches
+         */
+        private final LoginCallback prompt;
+        private final int size = preferences.getInteger("browser.delete.batch.size");
+        /**
+         * Null when deleting on the connection of the worker
+         */
+        private final ThreadPool executor;
+        private final Semaphore permits;
+        /**
+         * Batches in flight in order of submission
+         */
+        private final Deque<Submission> inflight = new ArrayDeque<>();
+        /**
+         * Directories pending deletion by absolute path in order of completion of their listing with children first
+         */
+        private final Map<String, PendingDirectory> directories = new LinkedHashMap<>();
+
+        private Map<Path, TransferStatus> batch = new LinkedHashMap<>();
+        /**
+         * Number of batches submitted
+         */
+        private long submitted;
+        private BackgroundException failure;
+
+        public BatchDeletePipeline(final Delete delete, final Delete.Callback callback) {
+            this.delete = delete;
+            this.callback = callback;
+            final int concurrency = preferences.getInteger("browser.delete.concurrency");
+            if(null == pool || concurrency < 2) {
+                this.executor = null;
+                this.permits = null;
+                this.prompt = DeleteWorker.this.prompt;
+            }
+            else {
+                this.executor = ThreadPoolFactory.get("delete", concurrency);
+                this.permits = new Semaphore(concurrency);
+                this.prompt = new SynchronizedLoginCallback(DeleteWorker.this.prompt);
+            }
+        }
+
+        public void add(final Path file, final TransferStatus status) throws BackgroundException {
+            if(null != failure) {
+                throw failure;
+            }
+            batch.put(file, status);
+            if(batch.size() >= size) {
+                this.flush();
+                this.release();
+            }
+        }
+
+        /**
+         * Schedule directory for deletion once all previously added files are deleted
+         *
+         * @param directory Directory with all contained files added before
+         */
+        public void directory(final Path directory, final TransferStatus status) throws BackgroundException {
+            if(null != failure) {
+                throw failure;
+            }
+            directories.put(directory.getAbsolute(), new PendingDirectory(directory, status, this.current()));
+            this.release();
+        }
+
+        /**
+         * @return Sequence number of batch files are currently added to
+         */
+        private long current() {
+            return batch.isEmpty() ? submitted : submitted + 1;
+        }
+
+        /**
+         * @return Sequence number up to which all submitted batches are complete
+         */
+        private long completed() throws BackgroundException {
+            // Fail early on previous batch failure
+            for(Iterator<Submission> iter = inflight.iterator(); iter.hasNext(); ) {
+                final Submission submission = iter.next();
+                if(submission.future.isDone()) {
+                    iter.remove();
+                    this.get(submission.future);
+                }
+            }
+            return inflight.isEmpty() ? submitted : inflight.peekFirst().sequence - 1;
+        }
+
+        /**
+         * Add directories to batch with all contained files deleted
+         */
+        private void release() throws BackgroundException {
+            if(directories.isEmpty()) {
+                return;
+            }
+            final long completed = this.completed();
+            for(Iterator<PendingDirectory> iter = directories.values().iterator(); iter.hasNext(); ) {
+                final PendingDirectory directory = iter.next();
+                if(directory.sequence > completed) {
+                    continue;
+                }
+                iter.remove();
+                batch.put(directory.file, directory.status);
+                final PendingDirectory parent = directories.get(directory.file.getParent().getAbsolute());
+                if(null != parent) {
+                    // Parent already pending must wait for batch with this directory
+                    parent.sequence = Math.max(parent.sequence, this.current());
+                }
+            }
+            if(batch.size() >= size) {
+                this.flush();
+            }
+        }
+
+        private void flush() throws BackgroundException {
+            if(batch.isEmpty()) {
+                return;
+            }
+            final Map<Path, TransferStatus> next = batch;
+            batch = new LinkedHashMap<>();
+            submitted++;
+            if(null == executor) {
+                delete.delete(next, prompt, callback);
+                return;
+            }
+            this.completed();
+            try {
+                // Wait for slot to keep number of pending batches bounded
+                permits.acquire();
+            }
+            catch(InterruptedException e) {
+                throw new ConnectionCanceledException(e);
+            }
+            try {
+                inflight.add(new Submission(submitted, executor.execute(new BackgroundExceptionCallable<Void>() {
+                    @Override
+                    public Void call() throws BackgroundException {
+                        try {
+                            final Session<?> connection = pool.borrow(new BackgroundActionState() {
+                                @Override
+                                public boolean isCanceled() {
+                                    return DeleteWorker.this.isCanceled();
+                                }
+
+                                @Override
+                                public boolean isRunning() {
+                                    return true;
+                                }
+                            });
+                            BackgroundException error = null;
+                            try {
+                                connection.getFeature(Delete.class).delete(next, prompt, callback);
+                            }
+                            catch(BackgroundException e) {
+                                error = e;
+                                throw e;
+                            }
+                            finally {
+                                pool.release(connection, error);
+                            }
+                            return null;
+                        }
+                        finally {
+                            permits.release();
+                        }
+                    }
+                })));
+            }
+            catch(RejectedExecutionException e) {
+                permits.release();
+                throw new ConnectionCanceledException(e);
+            }
+        }
+
+        private void get(final Future<Void> future) throws BackgroundException {
+            try {
+                future.get();
+            }
+            catch(InterruptedException e) {
+                throw failure = new ConnectionCanceledException(e);
+            }
+            catch(ExecutionException e) {
+                if(e.getCause() instanceof BackgroundException) {
+                    throw failure = (BackgroundException) e.getCause();
+                }
+                throw failure = new BackgroundException(e.getCause());
+            }
+        }
+
+        /**
+         * Submit pending files and directories and wait for all batches to complete
+         */
+        public void await() throws BackgroundException {
+            do {
+                this.flush();
+                for(Submission submission : inflight) {
+                    this.get(submission.future);
+                }
+                inflight.clear();
+                this.release();
+            }
+            while(!batch.isEmpty());
+        }
+
+        public void shutdown() {
+            if(null != executor) {
+                executor.shutdown(false);
+            }
+        }
+    }
+
+    /**
+     * Batch submitted for deletion
+     */
+    private static final class Submission {
+        private final long sequence;
+        private final Future<Void> future;
+
+        public Submission(final long sequence, final Future<Void> future) {
+            this.sequence = sequence;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Directory waiting for batches with contained files to complete
+     */
+    private static final class PendingDirectory {
+        private final Path file;
+        private final TransferStatus status;
+        /**
+         * Sequence number of last batch with contained files or directories
+         */
+        private long sequence;
+
+        public PendingDirectory(final Path file, final TransferStatus status, final long sequence) {
+            this.file = file;
+            this.status = status;
+            this.sequence = sequence;
+        }
+    }
+
+    private Path prepare(final Host host, final Path file) {
+        final Path copy = new Path(file);
+        switch(host.getProtocol().getType()) {
+            case s3:
+                if(!file.attributes().isDuplicate()) {
+                    if(!file.getType().contains(Path.Type.upload)) {
+                        // Add delete marker
+                        log.debug(String.format("Nullify version to add delete marker for %s", file));
+                        copy.attributes().setVersionId(null);
+                    }
+                }
+        }
+        return copy;
+    }
+
     protected String getLockId(final Path file) {
         return null;
     }
@@ -132,6 +581,14 @@ public class DeleteWorker extends Worker<List<Path>> {
         for(Path folder : new PathReloadFinder().find(new ArrayList<>(deleted))) {
             cache.invalidate(folder);
         }
+        // Contained files are not returned when deleted while listing
+        for(Path folder : new ArrayList<>(cache.asMap().keySet())) {
+            for(Path file : files) {
+                if(file.isDirectory() && (file.equals(folder) || folder.isChild(file))) {
+                    cache.invalidate(folder);
+                }
+            }
+        }
     }
 
     @Override
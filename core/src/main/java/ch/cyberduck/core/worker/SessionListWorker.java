@@ -19,6 +19,7 @@ package ch.cyberduck.core.worker;
 
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.CoalescingListProgressListener;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.LocaleFactory;
@@ -43,22 +44,28 @@ public class SessionListWorker extends Worker<AttributedList<Path>> {
     public SessionListWorker(final Cache<Path> cache, final Path directory, final ListProgressListener listener) {
         this.cache = cache;
         this.directory = directory;
-        this.listener = new ConnectionCancelListProgressListener(this, directory, listener);
+        this.listener = listener;
     }
 
     @Override
     public AttributedList<Path> run(final Session<?> session) throws BackgroundException {
+        // Batch notifications from list services calling back for every file
+        final CoalescingListProgressListener coalescing = new CoalescingListProgressListener(listener);
+        final ListProgressListener proxy = new ConnectionCancelListProgressListener(this, directory, coalescing);
         try {
             if(this.isCached()) {
                 final AttributedList<Path> list = cache.get(directory);
-                listener.chunk(directory, list);
+                proxy.chunk(directory, list);
+                coalescing.flush(directory, list);
                 return list;
             }
             final ListService service = session.getFeature(ListService.class).withCache(cache);
             if(log.isDebugEnabled()) {
                 log.debug(String.format("Run with feature %s", service));
             }
-            return service.list(directory, listener);
+            final AttributedList<Path> list = service.list(directory, proxy);
+            coalescing.flush(directory, list);
+            return list;
         }
         catch(ListCanceledException e) {
             return e.getChunk();
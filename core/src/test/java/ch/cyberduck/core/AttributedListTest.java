@@ -3,6 +3,7 @@ package ch.cyberduck.core;
 import org.junit.Test;
 
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.regex.Pattern;
 
 import static org.junit.Assert.*;
@@ -80,4 +81,151 @@ public class AttributedListTest {
         assertNotSame(list, list.filter(new NullFilter<>()));
         assertEquals(list, list.filter(new NullFilter<>()));
     }
+
+    @Test
+    public void testLookup() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.file));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        assertTrue(list.add(a));
+        assertTrue(list.add(b));
+        assertSame(b, list.get(new Path("/b", EnumSet.of(Path.Type.file))));
+        assertSame(b, list.find(new DefaultPathPredicate(new Path("/b", EnumSet.of(Path.Type.file)))));
+        assertSame(b, list.find(new SimplePathPredicate(new Path("/b", EnumSet.of(Path.Type.file)))));
+        assertTrue(list.contains(new Path("/a", EnumSet.of(Path.Type.file))));
+        assertFalse(list.contains(new Path("/a", EnumSet.of(Path.Type.directory))));
+        assertEquals(1, list.indexOf(b));
+        assertTrue(list.remove(a));
+        assertEquals(0, list.indexOf(b));
+        assertNull(list.get(new Path("/a", EnumSet.of(Path.Type.file))));
+    }
+
+    @Test
+    public void testLookupModifiedAfterAdd() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.file));
+        assertTrue(list.add(a));
+        a.attributes().setVersionId("1");
+        // Indexed by path not changing with attributes
+        assertSame(a, list.get(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"))));
+        assertTrue(list.contains(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"))));
+        assertEquals(0, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"))));
+        assertNull(list.get(new Path("/a", EnumSet.of(Path.Type.file))));
+        list.set(0, a);
+        assertSame(a, list.get(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"))));
+        assertSame(a, list.find(new DefaultPathPredicate(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1")))));
+        assertNull(list.get(new Path("/a", EnumSet.of(Path.Type.file))));
+    }
+
+    @Test
+    public void testLookupFileIdModifiedAfterAdd() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.file));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        assertTrue(list.add(a));
+        assertTrue(list.add(b));
+        // Set by file id provider on cached path
+        b.attributes().setFileId("f1");
+        final Path lookup = new Path("/b", EnumSet.of(Path.Type.file), new PathAttributes().withFileId("f1"));
+        assertTrue(list.contains(lookup));
+        assertSame(b, list.get(lookup));
+        assertEquals(1, list.indexOf(lookup));
+        assertSame(b, list.find(new DefaultPathPredicate(lookup)));
+        assertFalse(list.contains(new Path("/b", EnumSet.of(Path.Type.file))));
+        assertTrue(list.remove(lookup));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void testLookupTypeModifiedAfterAdd() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.file));
+        assertTrue(list.add(a));
+        a.setType(EnumSet.of(Path.Type.directory));
+        assertTrue(list.contains(new Path("/a", EnumSet.of(Path.Type.directory))));
+        assertFalse(list.contains(new Path("/a", EnumSet.of(Path.Type.file))));
+        assertTrue(list.remove(new Path("/a", EnumSet.of(Path.Type.directory))));
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void testLookupVersions() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        for(int i = 0; i < 3; i++) {
+            list.add(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId(String.valueOf(i))));
+            list.add(new Path(String.format("/b%d", i), EnumSet.of(Path.Type.file)));
+        }
+        assertEquals(4, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("2"))));
+        assertEquals(-1, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("3"))));
+        assertEquals(-1, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file))));
+        list.get(2).attributes().setVersionId("3");
+        assertEquals(2, list.indexOf(new Path("/a", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("3"))));
+    }
+
+    @Test
+    public void testModifyIndex() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path a = new Path("/a", EnumSet.of(Path.Type.file));
+        final Path b = new Path("/b", EnumSet.of(Path.Type.file));
+        final Path c = new Path("/c", EnumSet.of(Path.Type.file));
+        list.add(a);
+        list.add(b);
+        list.add(new Path("/a", EnumSet.of(Path.Type.file)));
+        list.add(0, c);
+        assertEquals(0, list.indexOf(c));
+        assertEquals(1, list.indexOf(a));
+        assertEquals(2, list.indexOf(b));
+        list.remove(1);
+        // Duplicate
+        assertEquals(2, list.indexOf(a));
+        assertEquals(1, list.indexOf(b));
+        list.set(1, a);
+        assertEquals(1, list.indexOf(a));
+        assertEquals(-1, list.indexOf(b));
+        assertTrue(list.removeAll(java.util.Collections.singletonList(c)));
+        assertEquals(0, list.indexOf(a));
+        assertEquals(2, list.size());
+        list.remove(0);
+        assertEquals(0, list.indexOf(a));
+        list.remove(0);
+        assertEquals(-1, list.indexOf(a));
+        assertTrue(list.isEmpty());
+    }
+
+    @Test
+    public void testIteratorSnapshot() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        assertTrue(list.add(new Path("/a", EnumSet.of(Path.Type.file))));
+        final Iterator<Path> iterator = list.iterator();
+        assertTrue(list.add(new Path("/b", EnumSet.of(Path.Type.file))));
+        list.remove(0);
+        assertTrue(iterator.hasNext());
+        assertEquals(new Path("/a", EnumSet.of(Path.Type.file)), iterator.next());
+        assertFalse(iterator.hasNext());
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void testLargeListing() {
+        final AttributedList<Path> list = new AttributedList<Path>();
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final int size = 1000000;
+        for(int i = 0; i < size; i++) {
+            assertTrue(list.add(new Path(directory, String.format("f-%d", i), EnumSet.of(Path.Type.file))));
+        }
+        assertEquals(size, list.size());
+        assertEquals(new Path(directory, "f-0", EnumSet.of(Path.Type.file)), list.get(0));
+        assertEquals(new Path(directory, String.format("f-%d", size - 1), EnumSet.of(Path.Type.file)), list.get(size - 1));
+        for(int i = 0; i < size; i += 1000) {
+            final Path file = new Path(directory, String.format("f-%d", i), EnumSet.of(Path.Type.file));
+            assertTrue(list.contains(file));
+            assertNotNull(list.find(new DefaultPathPredicate(file)));
+            assertEquals(i, list.indexOf(file));
+        }
+        int count = 0;
+        for(Path ignored : list) {
+            count++;
+        }
+        assertEquals(size, count);
+    }
 }
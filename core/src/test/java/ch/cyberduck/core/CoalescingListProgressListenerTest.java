@@ -0,0 +1,123 @@
+package ch.cyberduck.core;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CoalescingListProgressListenerTest {
+
+    @Test
+    public void testChunk() throws Exception {
+        final List<Integer> notifications = new ArrayList<>();
+        final CoalescingListProgressListener listener = new CoalescingListProgressListener(new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path folder, final AttributedList<Path> list) {
+                notifications.add(list.size());
+            }
+        }, 10, Long.MAX_VALUE);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> list = new AttributedList<>();
+        for(int i = 0; i < 25; i++) {
+            list.add(new Path(directory, String.valueOf(i), EnumSet.of(Path.Type.file)));
+            listener.chunk(directory, list);
+        }
+        assertEquals(2, notifications.size());
+        assertEquals(10, notifications.get(0).intValue());
+        assertEquals(20, notifications.get(1).intValue());
+        listener.flush(directory, list);
+        assertEquals(3, notifications.size());
+        assertEquals(25, notifications.get(2).intValue());
+        // No files added since last notification
+        listener.flush(directory, list);
+        assertEquals(3, notifications.size());
+    }
+
+    @Test
+    public void testFlushDifferentListSameSize() throws Exception {
+        final List<AttributedList<Path>> notifications = new ArrayList<>();
+        final CoalescingListProgressListener listener = new CoalescingListProgressListener(new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path folder, final AttributedList<Path> list) {
+                notifications.add(list);
+            }
+        }, 2, Long.MAX_VALUE);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> list = new AttributedList<>();
+        list.add(new Path(directory, "a", EnumSet.of(Path.Type.file)));
+        list.add(new Path(directory, "b", EnumSet.of(Path.Type.file)));
+        listener.chunk(directory, list);
+        assertEquals(1, notifications.size());
+        // Final listing with different files but same size
+        final AttributedList<Path> result = new AttributedList<>();
+        result.add(new Path(directory, "c", EnumSet.of(Path.Type.file)));
+        result.add(new Path(directory, "d", EnumSet.of(Path.Type.file)));
+        listener.flush(directory, result);
+        assertEquals(2, notifications.size());
+        assertSame(result, notifications.get(1));
+        listener.flush(directory, result);
+        assertEquals(2, notifications.size());
+    }
+
+    @Test
+    public void testChunkInterval() throws Exception {
+        final List<Integer> notifications = new ArrayList<>();
+        final CoalescingListProgressListener listener = new CoalescingListProgressListener(new DisabledListProgressListener() {
+            @Override
+            public void chunk(final Path folder, final AttributedList<Path> list) {
+                notifications.add(list.size());
+            }
+        }, Integer.MAX_VALUE, 0L);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> list = new AttributedList<>();
+        list.add(new Path(directory, "f", EnumSet.of(Path.Type.file)));
+        listener.chunk(directory, list);
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    public void testIndexedVisitsNewFilesOnly() throws Exception {
+        final List<Path> visited = new ArrayList<>();
+        final CoalescingListProgressListener listener = new CoalescingListProgressListener(new IndexedListProgressListener() {
+            @Override
+            public void visit(final AttributedList<Path> list, final int index, final Path file) {
+                visited.add(file);
+            }
+
+            @Override
+            public void message(final String message) {
+                //
+            }
+        }, 3, Long.MAX_VALUE);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final AttributedList<Path> list = new AttributedList<>();
+        for(int i = 0; i < 10; i++) {
+            list.add(new Path(directory, String.valueOf(i), EnumSet.of(Path.Type.file)));
+            listener.chunk(directory, list);
+        }
+        listener.flush(directory, list);
+        assertEquals(10, visited.size());
+        for(int i = 0; i < 10; i++) {
+            assertEquals(String.valueOf(i), visited.get(i).getName());
+        }
+    }
+}
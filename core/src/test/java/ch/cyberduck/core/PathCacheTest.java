@@ -2,6 +2,7 @@ package ch.cyberduck.core;
 
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.EnumSet;
 
 import static org.junit.Assert.*;
@@ -23,6 +24,86 @@ public class PathCacheTest {
         assertNotNull(cache.lookup(new DefaultPathPredicate(file2)));
     }
 
+    @Test
+    public void testLookupIndex() {
+        final PathCache cache = new PathCache(2);
+        final Path directory = new Path("/p", EnumSet.of(Path.Type.directory));
+        final Path file1 = new Path(directory, "name1", EnumSet.of(Path.Type.file));
+        final AttributedList<Path> list = new AttributedList<Path>();
+        list.add(file1);
+        cache.put(directory, list);
+        assertSame(file1, cache.lookup(new DefaultPathPredicate(new Path("/p/name1", EnumSet.of(Path.Type.file)))));
+        // Lookup by reference equal to key of cached file only
+        assertNull(cache.lookup(new SimplePathPredicate(new Path("/p/name1", EnumSet.of(Path.Type.file)))));
+        // Added after put
+        final Path file2 = new Path(directory, "name2", EnumSet.of(Path.Type.file));
+        list.add(file2);
+        assertSame(file2, cache.lookup(new DefaultPathPredicate(file2)));
+        // Removed after put
+        list.remove(file1);
+        assertNull(cache.lookup(new DefaultPathPredicate(file1)));
+        list.add(file1);
+        assertSame(file1, cache.lookup(new DefaultPathPredicate(file1)));
+        // Replace listing
+        final AttributedList<Path> replaced = new AttributedList<Path>();
+        replaced.add(file2);
+        cache.put(directory, replaced);
+        assertNull(cache.lookup(new DefaultPathPredicate(file1)));
+        assertSame(file2, cache.lookup(new DefaultPathPredicate(file2)));
+        cache.remove(directory);
+        assertNull(cache.lookup(new DefaultPathPredicate(file2)));
+    }
+
+    @Test
+    public void testLookupModifiedAfterPut() {
+        final PathCache cache = new PathCache(2);
+        final Path directory = new Path("/p", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "name", EnumSet.of(Path.Type.file));
+        cache.put(directory, new AttributedList<Path>(Collections.singletonList(file)));
+        // Set by write feature on cached file
+        file.attributes().setVersionId("v1");
+        assertSame(file, cache.lookup(new DefaultPathPredicate(
+            new Path("/p/name", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("v1")))));
+        assertNull(cache.lookup(new DefaultPathPredicate(new Path("/p/name", EnumSet.of(Path.Type.file)))));
+    }
+
+    @Test
+    public void testLookupDuplicates() {
+        final PathCache cache = new PathCache(2);
+        final Path directory = new Path("/p", EnumSet.of(Path.Type.directory));
+        final Path version1 = new Path(directory, "name", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("1"));
+        final Path version2 = new Path(directory, "name", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("2"));
+        final AttributedList<Path> list = new AttributedList<Path>();
+        list.add(version1);
+        list.add(version2);
+        cache.put(directory, list);
+        assertSame(version2, cache.lookup(new DefaultPathPredicate(version2)));
+        list.remove(version1);
+        assertNull(cache.lookup(new DefaultPathPredicate(version1)));
+        assertSame(version2, cache.lookup(new DefaultPathPredicate(version2)));
+        // Type set after put
+        version2.setType(EnumSet.of(Path.Type.directory));
+        assertSame(version2, cache.lookup(new DefaultPathPredicate(new Path("/p/name", EnumSet.of(Path.Type.directory)))));
+        list.remove(version2);
+        assertNull(cache.lookup(new DefaultPathPredicate(new Path("/p/name", EnumSet.of(Path.Type.directory)))));
+    }
+
+    @Test
+    public void testLookupEvicted() {
+        final PathCache cache = new PathCache(1);
+        final Path directory1 = new Path("/p1", EnumSet.of(Path.Type.directory));
+        final Path file1 = new Path(directory1, "name", EnumSet.of(Path.Type.file));
+        cache.put(directory1, new AttributedList<Path>(Collections.singletonList(file1)));
+        final Path directory2 = new Path("/p2", EnumSet.of(Path.Type.directory));
+        final Path file2 = new Path(directory2, "name", EnumSet.of(Path.Type.file));
+        cache.put(directory2, new AttributedList<Path>(Collections.singletonList(file2)));
+        assertFalse(cache.isCached(directory1));
+        assertNull(cache.lookup(new DefaultPathPredicate(file1)));
+        assertSame(file2, cache.lookup(new DefaultPathPredicate(file2)));
+        cache.clear();
+        assertNull(cache.lookup(new DefaultPathPredicate(file2)));
+    }
+
     @Test
     public void testIsEmpty() {
         final PathCache cache = new PathCache(1);
@@ -155,4 +155,37 @@ public class PathTest {
         assertNotEquals(new Path("19.vcf.gz", EnumSet.of(Path.Type.file)), new Path("0X.vcf.gz", EnumSet.of(Path.Type.file)));
         assertNotEquals(new Path("/d/2R", EnumSet.of(Path.Type.directory)), new Path("/d/33", EnumSet.of(Path.Type.directory)));
     }
+
+    @Test
+    public void testHashcodeAttributesChanged() {
+        final Path file = new Path("/c/f", EnumSet.of(Path.Type.file));
+        final int hashcode = file.hashCode();
+        assertEquals(hashcode, file.hashCode());
+        assertSame(file.reference(), file.reference());
+        file.attributes().setVersionId("v");
+        assertNotEquals(hashcode, file.hashCode());
+        assertEquals(new Path("/c/f", EnumSet.of(Path.Type.file), new PathAttributes().withVersionId("v")), file);
+        file.attributes().setVersionId(null);
+        file.attributes().setFileId("i");
+        assertNotEquals(new Path("/c/f", EnumSet.of(Path.Type.file)), file);
+        file.setAttributes(new PathAttributes());
+        assertEquals(hashcode, file.hashCode());
+        assertEquals(new Path("/c/f", EnumSet.of(Path.Type.file)), file);
+        file.setType(EnumSet.of(Path.Type.directory));
+        assertNotEquals(new Path("/c/f", EnumSet.of(Path.Type.file)), file);
+        assertEquals(new Path("/c/f", EnumSet.of(Path.Type.directory)), file);
+        final Path container = new Path("/c", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final int containerHashcode = container.hashCode();
+        container.attributes().setRegion("r");
+        assertNotEquals(containerHashcode, container.hashCode());
+        // Recomputed when type or attributes are replaced
+        final DefaultPathPredicate reference = container.reference();
+        container.setType(EnumSet.of(Path.Type.directory));
+        assertNotSame(reference, container.reference());
+        assertEquals(reference, container.reference());
+        final DefaultPathPredicate replaced = container.reference();
+        container.setAttributes(new PathAttributes(container.attributes()));
+        assertNotSame(replaced, container.reference());
+        assertEquals(replaced, container.reference());
+    }
 }
@@ -0,0 +1,85 @@
+package ch.cyberduck.core.cache;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathCache;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class FileidCacheTest {
+
+    @Test
+    public void testPut() {
+        final FileidCache cache = new FileidCache(10);
+        final Path file = new Path("/d/f", EnumSet.of(Path.Type.file));
+        assertNull(cache.get(file));
+        cache.put(file, "1");
+        assertEquals("1", cache.get(new Path("/d/f", EnumSet.of(Path.Type.file))));
+        assertNull(cache.get(new Path("/d/f", EnumSet.of(Path.Type.directory))));
+        cache.put(file, null);
+        assertNull(cache.get(file));
+    }
+
+    @Test
+    public void testRemoveDescendants() {
+        final FileidCache cache = new FileidCache(10);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "f", EnumSet.of(Path.Type.file));
+        final Path nested = new Path(new Path(directory, "n", EnumSet.of(Path.Type.directory)), "f", EnumSet.of(Path.Type.file));
+        final Path sibling = new Path("/d2", EnumSet.of(Path.Type.file));
+        cache.put(directory, "1");
+        cache.put(file, "2");
+        cache.put(nested, "3");
+        cache.put(sibling, "4");
+        cache.remove(directory);
+        assertNull(cache.get(directory));
+        assertNull(cache.get(file));
+        assertNull(cache.get(nested));
+        assertEquals("4", cache.get(sibling));
+        cache.put(file, "5");
+        assertEquals("5", cache.get(file));
+    }
+
+    @Test
+    public void testInvalidateParentListing() {
+        final FileidCache cache = new FileidCache(10);
+        final PathCache listings = new PathCache(1);
+        final Path directory = new Path("/d", EnumSet.of(Path.Type.directory));
+        final Path file = new Path(directory, "f", EnumSet.of(Path.Type.file));
+        cache.put(file, "1");
+        assertEquals("1", cache.get(file, listings));
+        listings.put(directory, new AttributedList<>());
+        assertEquals("1", cache.get(file, listings));
+        listings.invalidate(directory);
+        assertNull(cache.get(file, listings));
+        assertNull(cache.get(file));
+    }
+
+    @Test
+    public void testBounded() {
+        final FileidCache cache = new FileidCache(1);
+        cache.put(new Path("/a", EnumSet.of(Path.Type.file)), "1");
+        cache.put(new Path("/b", EnumSet.of(Path.Type.file)), "2");
+        assertEquals(1L, cache.size());
+        assertEquals("2", cache.get(new Path("/b", EnumSet.of(Path.Type.file))));
+    }
+}
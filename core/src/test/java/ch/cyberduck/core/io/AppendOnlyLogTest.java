@@ -0,0 +1,80 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.junit.Test;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class AppendOnlyLogTest {
+
+    @Test
+    public void testCorruptRecord() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final AppendOnlyLog log = new AppendOnlyLog(local, 1, false);
+        log.append(out -> out.writeUTF("a"));
+        log.append(out -> out.writeUTF("b"));
+        log.close();
+        final long length = local.attributes().getSize();
+        try (RandomAccessFile file = new RandomAccessFile(local.getAbsolute(), "rw")) {
+            // Flip last byte of checksum of second record
+            file.seek(length - 1);
+            final int b = file.read();
+            file.seek(length - 1);
+            file.write(~b);
+        }
+        final List<String> records = new ArrayList<>();
+        final AppendOnlyLog replay = new AppendOnlyLog(local, 1, false);
+        replay.read(in -> records.add(in.readUTF()));
+        assertEquals(Collections.singletonList("a"), records);
+        assertEquals(1, replay.getRecords());
+        assertTrue(local.attributes().getSize() < length);
+        replay.delete();
+        assertFalse(local.exists());
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final AppendOnlyLog log = new AppendOnlyLog(local, 1, true);
+        for(int i = 0; i < 10; i++) {
+            log.append(out -> out.writeUTF("a"));
+        }
+        assertEquals(10, log.getRecords());
+        log.compact(Arrays.asList(out -> out.writeUTF("b"), out -> out.writeUTF("c")));
+        assertEquals(2, log.getRecords());
+        log.append(out -> out.writeUTF("d"));
+        log.close();
+        final List<String> records = new ArrayList<>();
+        new AppendOnlyLog(local, 1, false).read(in -> records.add(in.readUTF()));
+        assertEquals(Arrays.asList("b", "c", "d"), records);
+        // Ignore file with other version
+        records.clear();
+        new AppendOnlyLog(local, 2, false).read(in -> records.add(in.readUTF()));
+        assertTrue(records.isEmpty());
+        log.delete();
+    }
+}
@@ -0,0 +1,110 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class ChecksumCacheTest {
+
+    @Test
+    public void testCompute() throws Exception {
+        final Local cache = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final java.nio.file.Path path = Paths.get(local.getAbsolute());
+        Files.write(path, "a".getBytes(StandardCharsets.UTF_8));
+        final FileTime modified = FileTime.fromMillis(1600000000000L);
+        Files.setLastModifiedTime(path, modified);
+        final Checksum expected = this.hash(HashAlgorithm.md5, "a");
+        final ChecksumCache checksums = new ChecksumCache(cache, 10);
+        assertEquals(expected, checksums.compute(local, HashAlgorithm.md5));
+        checksums.close();
+        // Change contents without changing size and modification date
+        Files.write(path, "b".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(path, modified);
+        assertEquals(expected, new ChecksumCache(cache, 10).compute(local, HashAlgorithm.md5));
+        // Different algorithm
+        assertEquals(this.hash(HashAlgorithm.sha1, "b"),
+            new ChecksumCache(cache, 10).compute(local, HashAlgorithm.sha1));
+        // Invalidate with modification date
+        Files.setLastModifiedTime(path, FileTime.fromMillis(1600000001000L));
+        final ChecksumCache reload = new ChecksumCache(cache, 10);
+        assertEquals(this.hash(HashAlgorithm.md5, "b"),
+            reload.compute(local, HashAlgorithm.md5));
+        reload.clear();
+        assertFalse(cache.exists());
+        local.delete();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        final Local cache = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        Files.write(Paths.get(local.getAbsolute()), "a".getBytes(StandardCharsets.UTF_8));
+        assertEquals(this.hash(HashAlgorithm.md5, "a"),
+            new ChecksumCache(cache, 0).compute(local, HashAlgorithm.md5));
+        assertFalse(cache.exists());
+        local.delete();
+    }
+
+    @Test
+    public void testLimit() throws Exception {
+        final Local cache = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final ChecksumCache checksums = new ChecksumCache(cache, 2);
+        final FileTime modified = FileTime.fromMillis(1600000000000L);
+        final Local[] files = new Local[50];
+        for(int i = 0; i < files.length; i++) {
+            files[i] = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+            Files.write(Paths.get(files[i].getAbsolute()), "a".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(Paths.get(files[i].getAbsolute()), modified);
+            checksums.compute(files[i], HashAlgorithm.md5);
+        }
+        checksums.close();
+        // Compacted to live entries
+        assertTrue(cache.attributes().getSize() < 50 * 100);
+        for(Local file : files) {
+            Files.write(Paths.get(file.getAbsolute()), "b".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(Paths.get(file.getAbsolute()), modified);
+        }
+        final ChecksumCache reload = new ChecksumCache(cache, 2);
+        // Evicted
+        assertEquals(this.hash(HashAlgorithm.md5, "b"),
+            reload.compute(files[0], HashAlgorithm.md5));
+        // Most recently used
+        assertEquals(this.hash(HashAlgorithm.md5, "a"),
+            reload.compute(files[files.length - 1], HashAlgorithm.md5));
+        reload.clear();
+        for(Local file : files) {
+            file.delete();
+        }
+    }
+
+    private Checksum hash(final HashAlgorithm algorithm, final String contents) throws Exception {
+        return ChecksumComputeFactory.get(algorithm).compute(new ByteArrayInputStream(contents.getBytes(StandardCharsets.UTF_8)), new TransferStatus());
+    }
+}
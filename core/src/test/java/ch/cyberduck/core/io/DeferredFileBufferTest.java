@@ -0,0 +1,175 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.local.TemporaryFileServiceFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DeferredFileBufferTest {
+
+    @Test
+    public void testMemory() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final DeferredFileBuffer buffer = new DeferredFileBuffer(temporary, 1024L * 1024L, 0L);
+        final byte[] chunk = RandomUtils.nextBytes(100);
+        assertEquals(100, buffer.write(chunk, 0L));
+        assertEquals(100L, buffer.length(), 0L);
+        final byte[] read = new byte[150];
+        assertEquals(100, buffer.read(read, 0L));
+        for(int i = 0; i < chunk.length; i++) {
+            assertEquals(chunk[i], read[i]);
+        }
+        assertEquals(IOUtils.EOF, buffer.read(new byte[1], 100L));
+        assertFalse(temporary.exists());
+        buffer.close();
+        assertEquals(0L, buffer.length(), 0L);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final DeferredFileBuffer buffer = new DeferredFileBuffer(temporary, 1L, 1024L * 1024L);
+        assertEquals(200 * 1024, buffer.write(RandomUtils.nextBytes(200 * 1024), 0L));
+        assertTrue(temporary.exists());
+        buffer.close();
+        assertFalse(temporary.exists());
+        assertEquals(IOUtils.EOF, buffer.read(new byte[1], 0L));
+        try {
+            buffer.write(new byte[1], 0L);
+            fail();
+        }
+        catch(IOException e) {
+            //
+        }
+        // Close twice
+        buffer.close();
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final DeferredFileBuffer buffer = new DeferredFileBuffer(temporary, 1L, 0L);
+        final byte[] content = RandomUtils.nextBytes(200 * 1024);
+        final BufferOutputStream out = new BufferOutputStream(buffer);
+        // Write across page and file boundaries
+        for(int off = 0; off < content.length; off += 1000) {
+            out.write(content, off, Math.min(1000, content.length - off));
+        }
+        assertEquals(content.length, buffer.length(), 0L);
+        assertTrue(temporary.exists());
+        final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        IOUtils.copy(new BufferInputStream(buffer), copy);
+        assertArrayEquals(content, copy.toByteArray());
+        buffer.close();
+        assertFalse(temporary.exists());
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final DeferredFileBuffer buffer = new DeferredFileBuffer(temporary, 1L, 0L);
+        final byte[] chunk = RandomUtils.nextBytes(100 * 1024);
+        buffer.write(chunk, 0L);
+        buffer.truncate(1L);
+        assertEquals(1L, buffer.length(), 0L);
+        buffer.truncate(200L * 1024);
+        final byte[] read = new byte[200 * 1024];
+        assertEquals(read.length, buffer.read(read, 0L));
+        assertEquals(chunk[0], read[0]);
+        for(int i = 1; i < read.length; i++) {
+            assertEquals(0, read[i]);
+        }
+        buffer.close();
+    }
+
+    @Test
+    public void testConcurrentWrite() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final DeferredFileBuffer buffer = new DeferredFileBuffer(temporary, 128L * 1024, 0L);
+        final byte[] content = RandomUtils.nextBytes(256 * 1024);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Integer>> writes = new ArrayList<>();
+        for(int off = 0; off < content.length; off += 10000) {
+            final int offset = off;
+            writes.add(executor.submit(() -> buffer.write(content, offset, Math.min(10000, content.length - offset), (long) offset)));
+        }
+        for(Future<Integer> write : writes) {
+            write.get();
+        }
+        executor.shutdown();
+        final byte[] read = new byte[content.length];
+        assertEquals(content.length, buffer.read(read, 0L));
+        assertArrayEquals(content, read);
+        buffer.close();
+    }
+
+    @Test
+    public void testReadWhileWrite() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final DeferredFileBuffer buffer = new DeferredFileBuffer(temporary, 64L * 1024, 0L);
+        final byte[] content = RandomUtils.nextBytes(100 * 1024);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<byte[]> reader = executor.submit(() -> {
+            final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            IOUtils.copy(new DeferredBufferInputStream(buffer, new TransferStatus()), copy);
+            return copy.toByteArray();
+        });
+        for(int off = 0; off < content.length; off += 1000) {
+            buffer.write(content, off, Math.min(1000, content.length - off), (long) off);
+        }
+        assertFalse(reader.isDone());
+        buffer.finish();
+        assertArrayEquals(content, reader.get());
+        executor.shutdown();
+        buffer.close();
+    }
+
+    @Test
+    public void testWriterFailure() throws Exception {
+        final Local temporary = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+        final DeferredFileBuffer buffer = new DeferredFileBuffer(temporary, 64L * 1024, 0L);
+        final byte[] content = RandomUtils.nextBytes(1000);
+        // Writer fails without finishing buffer
+        buffer.write(content, 0L);
+        final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        try {
+            IOUtils.copy(new DeferredBufferInputStream(buffer, new TransferStatus(), 100L), copy);
+            fail();
+        }
+        catch(IOException e) {
+            assertTrue(e.getCause() instanceof ConnectionCanceledException);
+        }
+        assertArrayEquals(content, copy.toByteArray());
+        buffer.close();
+    }
+}
@@ -0,0 +1,80 @@
+package ch.cyberduck.core.io;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SharedFileChannelOutputStreamTest {
+
+    @Test
+    public void testWriteSegments() throws Exception {
+        final File file = File.createTempFile("segment", null);
+        file.deleteOnExit();
+        final byte[] content = RandomUtils.nextBytes(1024 * 1024 + 1);
+        final int size = 64 * 1024;
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<Void>> futures = new ArrayList<>();
+        // Write segments in reverse order
+        for(int offset = content.length - content.length % size; offset >= 0; offset -= size) {
+            final int position = offset;
+            futures.add(executor.submit(() -> {
+                try (OutputStream out = new SharedFileChannelOutputStream(file.toPath(), position)) {
+                    final int length = Math.min(size, content.length - position);
+                    // Write in small chunks
+                    for(int i = 0; i < length; i += 1000) {
+                        out.write(content, position + i, Math.min(1000, length - i));
+                    }
+                }
+                return null;
+            }));
+        }
+        for(Future<Void> f : futures) {
+            f.get();
+        }
+        executor.shutdown();
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void testNoTruncate() throws Exception {
+        final File file = File.createTempFile("segment", null);
+        file.deleteOnExit();
+        final byte[] content = RandomUtils.nextBytes(100);
+        Files.write(file.toPath(), content);
+        try (OutputStream out = new SharedFileChannelOutputStream(file.toPath(), 10L)) {
+            out.write(new byte[]{1, 2});
+        }
+        final byte[] read = Files.readAllBytes(file.toPath());
+        assertEquals(100, read.length);
+        assertEquals(1, read[10]);
+        assertEquals(2, read[11]);
+        assertArrayEquals(Arrays.copyOfRange(content, 12, 100), Arrays.copyOfRange(read, 12, 100));
+    }
+}
@@ -1,5 +1,7 @@
 package ch.cyberduck.core.io;
 
+import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.Local;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.transfer.TransferStatus;
@@ -7,11 +9,14 @@ import ch.cyberduck.core.transfer.TransferStatus;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.NullInputStream;
 import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.text.RandomStringGenerator;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.concurrent.BrokenBarrierException;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -32,6 +37,57 @@ public class StreamCopierTest {
         assertTrue(status.isComplete());
     }
 
+    @Test
+    public void testTransferChannel() throws Exception {
+        final byte[] content = RandomUtils.nextBytes(100000);
+        final Local source = new Local(System.getProperty("java.io.tmpdir"), new AlphanumericRandomStringService().random());
+        final Local target = new Local(System.getProperty("java.io.tmpdir"), new AlphanumericRandomStringService().random());
+        try {
+            try (OutputStream out = source.getOutputStream(false)) {
+                IOUtils.write(content, out);
+            }
+            final TransferStatus status = new TransferStatus();
+            new StreamCopier(status, status).withOffset(1L).withLimit(99998L).withListener(new DisabledStreamListener() {
+                @Override
+                public void sent(final long bytes) {
+                    assertTrue(bytes <= 32768L);
+                }
+            }).transfer(new ThrottledInputStream(source.getInputStream(), new BandwidthThrottle(BandwidthThrottle.UNLIMITED)),
+                target.getOutputStream(false));
+            assertTrue(status.isComplete());
+            assertEquals(99998L, status.getOffset(), 0L);
+            assertArrayEquals(Arrays.copyOfRange(content, 1, 99999), IOUtils.toByteArray(target.getInputStream()));
+        }
+        finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void testTransferChannelPosition() throws Exception {
+        final byte[] content = RandomUtils.nextBytes(100000);
+        final Local source = new Local(System.getProperty("java.io.tmpdir"), new AlphanumericRandomStringService().random());
+        final Local target = new Local(System.getProperty("java.io.tmpdir"), new AlphanumericRandomStringService().random());
+        try {
+            try (OutputStream out = source.getOutputStream(false)) {
+                IOUtils.write(content, out);
+            }
+            final TransferStatus status = new TransferStatus();
+            // Write beyond end of target file
+            new StreamCopier(status, status).transfer(source.getInputStream(), target.getOutputStream(10L));
+            assertTrue(status.isComplete());
+            assertEquals(100000L, status.getOffset(), 0L);
+            final byte[] copy = IOUtils.toByteArray(target.getInputStream());
+            assertEquals(100010, copy.length);
+            assertArrayEquals(content, Arrays.copyOfRange(copy, 10, copy.length));
+        }
+        finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
     @Test
     public void testTransferUnknownLength() throws Exception {
         final TransferStatus status = new TransferStatus();
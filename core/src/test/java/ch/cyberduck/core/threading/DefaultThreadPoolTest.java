@@ -23,11 +23,15 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class DefaultThreadPoolTest {
@@ -62,6 +66,31 @@ public class DefaultThreadPoolTest {
         assertEquals(0, counter.get());
     }
 
+    @Test
+    public void testResize() throws Exception {
+        final DefaultThreadPool p = new DefaultThreadPool(1);
+        p.resize(4);
+        final CountDownLatch latch = new CountDownLatch(4);
+        final List<Future<Boolean>> wait = new ArrayList<>();
+        for(int i = 0; i < 4; i++) {
+            wait.add(p.execute(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    latch.countDown();
+                    // Only completes with all tasks running concurrently
+                    return latch.await(10L, TimeUnit.SECONDS);
+                }
+            }));
+        }
+        for(Future<Boolean> f : wait) {
+            assertTrue(f.get());
+        }
+        p.resize(2);
+        assertEquals(2, ((ThreadPoolExecutor) p.executor()).getCorePoolSize());
+        assertEquals(2, ((ThreadPoolExecutor) p.executor()).getMaximumPoolSize());
+        p.shutdown(true);
+    }
+
     @Test
     public void testExecute() throws Exception {
         final DefaultThreadPool p = new DefaultThreadPool(Integer.MAX_VALUE);
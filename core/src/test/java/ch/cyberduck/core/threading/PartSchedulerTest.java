@@ -0,0 +1,209 @@
+package ch.cyberduck.core.threading;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PartSchedulerTest {
+
+    @Test
+    public void testLimitParts() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(2, Long.MAX_VALUE);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        final List<Future<Integer>> futures = new ArrayList<>();
+        final PartScheduler.Pool first = scheduler.open(10);
+        final PartScheduler.Pool second = scheduler.open(10);
+        for(int i = 0; i < 10; i++) {
+            for(PartScheduler.Pool pool : Arrays.asList(first, second)) {
+                futures.add(pool.execute(1L, () -> {
+                    maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(5L);
+                    return running.decrementAndGet();
+                }));
+            }
+        }
+        for(Future<Integer> future : futures) {
+            future.get();
+        }
+        assertEquals(2, maximum.get());
+        assertEquals(0, scheduler.getRunning());
+        assertEquals(0L, scheduler.getInflight());
+        first.shutdown(true);
+        second.shutdown(true);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testLimitPartsPerFile() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(10, Long.MAX_VALUE);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        final List<Future<Integer>> futures = new ArrayList<>();
+        final PartScheduler.Pool pool = scheduler.open(3);
+        for(int i = 0; i < 10; i++) {
+            futures.add(pool.execute(1L, () -> {
+                maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5L);
+                return running.decrementAndGet();
+            }));
+        }
+        for(Future<Integer> future : futures) {
+            future.get();
+        }
+        assertEquals(3, maximum.get());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testLimitBytes() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(10, 100L);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maximum = new AtomicInteger();
+        final List<Future<Integer>> futures = new ArrayList<>();
+        final PartScheduler.Pool pool = scheduler.open(10);
+        for(int i = 0; i < 5; i++) {
+            futures.add(pool.execute(60L, () -> {
+                maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5L);
+                return running.decrementAndGet();
+            }));
+        }
+        // Part larger than budget runs alone
+        futures.add(pool.execute(200L, () -> running.get()));
+        for(Future<Integer> future : futures) {
+            future.get();
+        }
+        assertEquals(1, maximum.get());
+        assertEquals(0L, scheduler.getInflight());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testPreferStartedFile() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(1, Long.MAX_VALUE);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final PartScheduler.Pool first = scheduler.open(10);
+        final PartScheduler.Pool second = scheduler.open(10);
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        futures.add(first.execute(1L, () -> {
+            latch.await();
+            return order.add("a");
+        }));
+        futures.add(second.execute(1L, () -> order.add("b")));
+        futures.add(first.execute(1L, () -> order.add("a")));
+        futures.add(second.execute(1L, () -> order.add("b")));
+        futures.add(first.execute(1L, () -> order.add("a")));
+        latch.countDown();
+        for(Future<Boolean> future : futures) {
+            future.get();
+        }
+        assertEquals(Arrays.asList("a", "a", "a", "b", "b"), order);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testPreferFewestPendingParts() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(2, Long.MAX_VALUE);
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch first = new CountDownLatch(1);
+        final CountDownLatch second = new CountDownLatch(1);
+        final PartScheduler.Pool a = scheduler.open(10);
+        final PartScheduler.Pool b = scheduler.open(10);
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        final Future<Boolean> running = b.execute(1L, () -> second.await(10L, TimeUnit.SECONDS));
+        futures.add(a.execute(1L, () -> first.await(10L, TimeUnit.SECONDS)));
+        futures.add(a.execute(1L, () -> order.add("a")));
+        futures.add(a.execute(1L, () -> order.add("a")));
+        futures.add(a.execute(1L, () -> order.add("a")));
+        futures.add(b.execute(1L, () -> order.add("b")));
+        first.countDown();
+        for(Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        second.countDown();
+        assertTrue(running.get());
+        // Second file has less parts pending
+        assertEquals(Arrays.asList("b", "a", "a", "a"), order);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testShutdownFile() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(1, Long.MAX_VALUE);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final PartScheduler.Pool first = scheduler.open(10);
+        final PartScheduler.Pool second = scheduler.open(10);
+        final Future<Boolean> running = first.execute(1L, () -> {
+            latch.await();
+            return true;
+        });
+        final Future<Boolean> pending = first.execute(1L, () -> true);
+        final Future<Boolean> other = second.execute(1L, () -> true);
+        first.shutdown(false);
+        assertTrue(running.isCancelled());
+        assertTrue(pending.isCancelled());
+        assertTrue(other.get());
+        assertFalse(other.isCancelled());
+        assertEquals(0, scheduler.getRunning());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testUnlimited() throws Exception {
+        final PartScheduler scheduler = new PartScheduler(0, 0L);
+        final CountDownLatch latch = new CountDownLatch(6);
+        final List<Future<Boolean>> futures = new ArrayList<>();
+        final PartScheduler.Pool first = scheduler.open(3);
+        final PartScheduler.Pool second = scheduler.open(3);
+        for(int i = 0; i < 3; i++) {
+            for(PartScheduler.Pool pool : Arrays.asList(first, second)) {
+                futures.add(pool.execute(1L, () -> {
+                    latch.countDown();
+                    // Only limited by concurrency of each file
+                    return latch.await(10L, TimeUnit.SECONDS);
+                }));
+            }
+        }
+        for(Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        assertEquals(0, scheduler.getRunning());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testExclusive() throws Exception {
+        final PartScheduler.Pool pool = PartScheduler.open(new TransferStatus(), 2);
+        assertEquals(1, pool.execute(10L, () -> 1).get().intValue());
+        pool.shutdown(false);
+        assertTrue(pool.executor().isShutdown());
+    }
+}
@@ -0,0 +1,126 @@
+package ch.cyberduck.core.transfer;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.ConflictException;
+import ch.cyberduck.core.exception.ConnectionTimeoutException;
+import ch.cyberduck.core.exception.RetriableAccessDeniedException;
+
+import org.apache.http.client.HttpResponseException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveTransferConnectionLimiterTest {
+
+    private static final long INTERVAL = 1000L;
+
+    /**
+     * Simulated server with total bandwidth capacity, bandwidth per connection and optional throttling of
+     * clients exceeding a maximum number of connections
+     */
+    private static final class Server {
+        private final long capacity;
+        private final long rate;
+        private final int throttle;
+
+        private long transferred;
+
+        Server(final long capacity, final long rate, final int throttle) {
+            this.capacity = capacity;
+            this.rate = rate;
+            this.throttle = throttle;
+        }
+
+        /**
+         * Run transfer with given number of connections for one interval
+         */
+        void step(final AdaptiveTransferConnectionLimiter limiter, final long time) {
+            final int connections = limiter.getLimit();
+            transferred += Math.min(capacity, connections * rate) * INTERVAL;
+            if(connections > throttle) {
+                limiter.failure(time, new RetriableAccessDeniedException("Slow Down", new HttpResponseException(503, "Slow Down")));
+            }
+            limiter.sample(time, transferred);
+        }
+    }
+
+    @Test
+    public void testConvergeBandwidthLimit() {
+        final AdaptiveTransferConnectionLimiter limiter = new AdaptiveTransferConnectionLimiter(2, 1, 64, INTERVAL, 0.1d, 0.5d, 0L);
+        // Saturated with 8 connections
+        final Server server = new Server(80L, 10L, Integer.MAX_VALUE);
+        for(int i = 1; i <= 100; i++) {
+            server.step(limiter, i * INTERVAL);
+        }
+        // Stop adding connections once additional connection yields no gain
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    public void testConvergeThrottled() {
+        final AdaptiveTransferConnectionLimiter limiter = new AdaptiveTransferConnectionLimiter(2, 1, 64, INTERVAL, 0.1d, 0.5d, 0L);
+        // Server rejects more than 12 connections
+        final Server server = new Server(Long.MAX_VALUE, 10L, 12);
+        for(int i = 1; i <= 100; i++) {
+            server.step(limiter, i * INTERVAL);
+            if(i > 20) {
+                // Oscillate below throttling threshold
+                assertTrue(limiter.getLimit() >= 6);
+                assertTrue(limiter.getLimit() <= 13);
+            }
+        }
+    }
+
+    @Test
+    public void testMaximum() {
+        final AdaptiveTransferConnectionLimiter limiter = new AdaptiveTransferConnectionLimiter(2, 1, 4, INTERVAL, 0.1d, 0.5d, 0L);
+        final Server server = new Server(Long.MAX_VALUE, 10L, Integer.MAX_VALUE);
+        for(int i = 1; i <= 10; i++) {
+            server.step(limiter, i * INTERVAL);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecreaseNetworkFailure() {
+        final AdaptiveTransferConnectionLimiter limiter = new AdaptiveTransferConnectionLimiter(20, 1, 64, INTERVAL, 0.1d, 0.5d, 0L);
+        assertEquals(10, limiter.failure(INTERVAL, new ConnectionTimeoutException("t", null)));
+        // Concurrent failures within same interval
+        assertEquals(10, limiter.failure(INTERVAL + 1, new ConnectionTimeoutException("t", null)));
+        assertEquals(5, limiter.failure(2 * INTERVAL, new ConnectionTimeoutException("t", null)));
+        assertEquals(2, limiter.failure(3 * INTERVAL, new ConnectionTimeoutException("t", null)));
+        assertEquals(1, limiter.failure(4 * INTERVAL, new ConnectionTimeoutException("t", null)));
+        assertEquals(1, limiter.failure(5 * INTERVAL, new ConnectionTimeoutException("t", null)));
+    }
+
+    @Test
+    public void testIgnoreOtherFailure() {
+        final AdaptiveTransferConnectionLimiter limiter = new AdaptiveTransferConnectionLimiter(20, 1, 64, INTERVAL, 0.1d, 0.5d, 0L);
+        assertEquals(20, limiter.failure(INTERVAL, new AccessDeniedException("d")));
+        assertEquals(20, limiter.failure(INTERVAL, new ConflictException("c", new HttpResponseException(409, "Conflict"))));
+        assertEquals(20, limiter.failure(INTERVAL, new RetriableAccessDeniedException("e", new HttpResponseException(500, "Internal Server Error"))));
+        assertEquals(10, limiter.failure(INTERVAL, new RetriableAccessDeniedException("t", new HttpResponseException(429, "Too Many Requests"))));
+    }
+
+    @Test
+    public void testSessionPoolMaximum() {
+        final AdaptiveTransferConnectionLimiter limiter = new AdaptiveTransferConnectionLimiter(20, 5);
+        assertEquals(5, limiter.getLimit());
+    }
+}
@@ -0,0 +1,134 @@
+package ch.cyberduck.core.transfer;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.junit.Test;
+
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class TransferJournalTest {
+
+    @Test
+    public void testReplay() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final TransferJournal journal = new TransferJournal(local, 1000);
+        assertNull(journal.find("/b/f", 100L));
+        journal.start("/b/f", "u1", 100L);
+        journal.part("/b/f", new TransferJournal.Part(2, 50L, "e2"));
+        journal.part("/b/f", new TransferJournal.Part(1, 50L, "e1"));
+        journal.start("/b/g", "u2", 10L);
+        journal.close();
+        final TransferJournal replay = new TransferJournal(local, 1000);
+        assertEquals("u1", replay.find("/b/f", 100L));
+        // Mismatch in length
+        assertNull(replay.find("/b/f", 200L));
+        final List<TransferJournal.Part> parts = replay.parts("/b/f");
+        assertEquals(2, parts.size());
+        assertEquals(1, parts.get(0).getNumber());
+        assertEquals("e1", parts.get(0).getChecksum());
+        assertEquals(2, parts.get(1).getNumber());
+        assertEquals(50L, parts.get(1).getLength());
+        replay.complete("/b/f");
+        assertNull(replay.find("/b/f", 100L));
+        assertTrue(replay.parts("/b/f").isEmpty());
+        replay.close();
+        assertNull(new TransferJournal(local, 1000).find("/b/f", 100L));
+        assertEquals("u2", new TransferJournal(local, 1000).find("/b/g", 10L));
+        journal.delete();
+        assertFalse(local.exists());
+    }
+
+    @Test
+    public void testRestartDiscardsPreviousParts() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final TransferJournal journal = new TransferJournal(local, 1000);
+        journal.start("/b/f", "u1", 100L);
+        journal.part("/b/f", new TransferJournal.Part(1, 50L, "e1"));
+        journal.start("/b/f", "u2", 100L);
+        journal.close();
+        final TransferJournal replay = new TransferJournal(local, 1000);
+        assertEquals("u2", replay.find("/b/f", 100L));
+        assertTrue(replay.parts("/b/f").isEmpty());
+        replay.delete();
+    }
+
+    @Test
+    public void testSkipPartWithoutChecksum() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final TransferJournal journal = new TransferJournal(local, 1000);
+        journal.start("/b/f", "u1", 100L);
+        journal.part("/b/f", new TransferJournal.Part(1, 50L, ""));
+        journal.part("/b/f", new TransferJournal.Part(2, 50L, null));
+        journal.part("/b/f", new TransferJournal.Part(3, 50L, "e3"));
+        assertEquals(1, journal.parts("/b/f").size());
+        journal.close();
+        final TransferJournal replay = new TransferJournal(local, 1000);
+        final List<TransferJournal.Part> parts = replay.parts("/b/f");
+        assertEquals(1, parts.size());
+        assertEquals(3, parts.get(0).getNumber());
+        replay.delete();
+    }
+
+    @Test
+    public void testTruncatedRecord() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final TransferJournal journal = new TransferJournal(local, 1000);
+        journal.start("/b/f", "u1", 100L);
+        journal.part("/b/f", new TransferJournal.Part(1, 50L, "e1"));
+        journal.part("/b/f", new TransferJournal.Part(2, 50L, "e2"));
+        // Crash while writing last record
+        try (RandomAccessFile file = new RandomAccessFile(local.getAbsolute(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        final TransferJournal replay = new TransferJournal(local, 1000);
+        assertEquals(1, replay.parts("/b/f").size());
+        // Append after last valid record
+        replay.part("/b/f", new TransferJournal.Part(3, 50L, "e3"));
+        replay.close();
+        final List<TransferJournal.Part> parts = new TransferJournal(local, 1000).parts("/b/f");
+        assertEquals(2, parts.size());
+        assertEquals(3, parts.get(1).getNumber());
+        journal.delete();
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final TransferJournal journal = new TransferJournal(local, 10);
+        for(int i = 0; i < 100; i++) {
+            journal.start(String.format("/b/%d", i), "u", 100L);
+            journal.part(String.format("/b/%d", i), new TransferJournal.Part(1, 100L, "e"));
+            journal.complete(String.format("/b/%d", i));
+        }
+        journal.start("/b/f", "u1", 100L);
+        journal.part("/b/f", new TransferJournal.Part(1, 50L, "e1"));
+        // Compacted to less than threshold of records
+        assertTrue(local.attributes().getSize() < 1000L);
+        journal.close();
+        final TransferJournal replay = new TransferJournal(local, 10);
+        assertEquals("u1", replay.find("/b/f", 100L));
+        assertEquals(1, replay.parts("/b/f").size());
+        assertNull(replay.find("/b/0", 100L));
+        replay.delete();
+    }
+}
@@ -2,6 +2,7 @@ package ch.cyberduck.core.transfer.download;
 
 import ch.cyberduck.core.DisabledProgressListener;
 import ch.cyberduck.core.Host;
+import ch.cyberduck.core.Local;
 import ch.cyberduck.core.LocalAttributes;
 import ch.cyberduck.core.NullLocal;
 import ch.cyberduck.core.NullSession;
@@ -11,11 +12,15 @@ import ch.cyberduck.core.Permission;
 import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.local.DefaultLocalTouchFeature;
+import ch.cyberduck.core.transfer.TransferOptions;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.symlink.DisabledDownloadSymlinkResolver;
 
 import org.junit.Test;
 
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.EnumSet;
 import java.util.UUID;
 
@@ -57,6 +62,37 @@ public class OverwriteFilterTest {
         assertEquals(8L, status.getLength(), 0L);
     }
 
+    @Test
+    public void testApplySegments() throws Exception {
+        final OverwriteFilter f = new OverwriteFilter(new DisabledDownloadSymlinkResolver(), new NullTransferSession(new Host(new TestProtocol())));
+        final Path p = new Path("a", EnumSet.of(Path.Type.file));
+        final Local local = new Local(System.getProperty("java.io.tmpdir"), UUID.randomUUID().toString());
+        final TransferStatus status = new TransferStatus().length(25L).withSegments(Arrays.asList(
+            new TransferStatus().segment(true).append(true).skip(0L).length(10L),
+            new TransferStatus().segment(true).append(true).skip(10L).length(10L),
+            new TransferStatus().segment(true).append(true).skip(20L).length(5L)
+        ));
+        f.apply(p, local, status, new DisabledProgressListener());
+        // Preallocated
+        assertEquals(25L, local.attributes().getSize());
+        final SegmentBitmap bitmap = new SegmentBitmap(local);
+        assertTrue(bitmap.exists());
+        final TransferStatus segment = status.getSegments().get(1);
+        assertEquals(local, segment.getRename().local);
+        try (OutputStream out = local.getOutputStream(segment.getOffset())) {
+            out.write(new byte[10]);
+        }
+        segment.progress(10L);
+        segment.setComplete();
+        f.complete(p, local, new TransferOptions(), segment, new DisabledProgressListener());
+        final BitSet completed = bitmap.read(25L, 10L);
+        assertFalse(completed.get(0));
+        assertTrue(completed.get(1));
+        assertFalse(completed.get(2));
+        local.delete();
+        bitmap.delete();
+    }
+
     @Test
     public void testPrepareAttributes() throws Exception {
         OverwriteFilter f = new OverwriteFilter(new DisabledDownloadSymlinkResolver(), new NullTransferSession(new Host(new TestProtocol())));
@@ -0,0 +1,54 @@
+package ch.cyberduck.core.transfer.download;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class SegmentBitmapTest {
+
+    @Test
+    public void testComplete() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final SegmentBitmap bitmap = new SegmentBitmap(local);
+        assertFalse(bitmap.exists());
+        assertTrue(bitmap.read(250L, 100L).isEmpty());
+        bitmap.create(250L, 100L);
+        assertTrue(bitmap.exists());
+        assertTrue(bitmap.read(250L, 100L).isEmpty());
+        bitmap.complete(2);
+        bitmap.complete(0);
+        // Replaced with temporary file
+        assertFalse(new Local(PreferencesFactory.get().getProperty("tmp.dir"), String.format("%s.cyberducksegments.tmp", local.getName())).exists());
+        final BitSet completed = bitmap.read(250L, 100L);
+        assertTrue(completed.get(0));
+        assertFalse(completed.get(1));
+        assertTrue(completed.get(2));
+        // Mismatch in segment size
+        assertTrue(bitmap.read(250L, 50L).isEmpty());
+        // Mismatch in length
+        assertTrue(bitmap.read(300L, 100L).isEmpty());
+        bitmap.delete();
+        assertFalse(bitmap.exists());
+    }
+}
@@ -5,6 +5,7 @@ import ch.cyberduck.core.Cache;
 import ch.cyberduck.core.DisabledProgressListener;
 import ch.cyberduck.core.Host;
 import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Local;
 import ch.cyberduck.core.LocalAttributes;
 import ch.cyberduck.core.NullLocal;
 import ch.cyberduck.core.NullSession;
@@ -14,8 +15,10 @@ import ch.cyberduck.core.TestProtocol;
 import ch.cyberduck.core.features.AttributesFinder;
 import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.features.Write;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultUploadFeature;
+import ch.cyberduck.core.transfer.TransferJournal;
 import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.core.transfer.symlink.DisabledUploadSymlinkResolver;
 
@@ -23,6 +26,7 @@ import org.junit.Test;
 
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.UUID;
 
 import static org.junit.Assert.*;
 
@@ -268,4 +272,48 @@ public class ResumeFilterTest {
         assertTrue(f.accept(t, l, new TransferStatus().exists(true)));
         assertFalse(f.prepare(t, l, new TransferStatus().exists(true), new DisabledProgressListener()).isAppend());
     }
+
+    @Test
+    public void testAppendFromJournal() throws Exception {
+        final NullSession session = new NullSession(new Host(new TestProtocol()));
+        final ResumeFilter f = new ResumeFilter(new DisabledUploadSymlinkResolver(), session,
+                new UploadFilterOptions().withTemporary(true), new DefaultUploadFeature<Void>(new NullWriteFeature(session)) {
+            @Override
+            public Write.Append append(final Path file, final Long length, final Cache<Path> cache) {
+                fail();
+                return null;
+            }
+        });
+        final Path t = new Path("/t", EnumSet.of(Path.Type.file));
+        final NullLocal l = new NullLocal("t") {
+            @Override
+            public LocalAttributes attributes() {
+                return new LocalAttributes("t") {
+                    @Override
+                    public long getSize() {
+                        return 10L;
+                    }
+                };
+            }
+
+            @Override
+            public boolean isFile() {
+                return true;
+            }
+
+            @Override
+            public boolean exists() {
+                return true;
+            }
+        };
+        final TransferJournal journal = new TransferJournal(new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString()), 1000);
+        journal.start(t.getAbsolute(), "u1", 10L);
+        journal.part(t.getAbsolute(), new TransferJournal.Part(1, 4L, "e1"));
+        assertTrue(f.accept(t, l, new TransferStatus().exists(true).withJournal(journal)));
+        final TransferStatus status = f.prepare(t, l, new TransferStatus().exists(true).withJournal(journal), new DisabledProgressListener());
+        assertTrue(status.isAppend());
+        assertEquals(4L, status.getOffset());
+        assertEquals(6L, status.getLength());
+        journal.delete();
+    }
 }
@@ -22,6 +22,7 @@ import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.notification.DisabledNotificationService;
 import ch.cyberduck.core.pool.DefaultSessionPool;
 import ch.cyberduck.core.pool.SessionPool;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.ssl.DefaultX509KeyManager;
 import ch.cyberduck.core.ssl.DisabledX509TrustManager;
 import ch.cyberduck.core.transfer.DisabledTransferErrorCallback;
@@ -41,6 +42,7 @@ import ch.cyberduck.core.vault.DefaultVaultRegistry;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
@@ -210,6 +212,93 @@ public class ConcurrentTransferWorkerTest {
         worker.cleanup(true);
     }
 
+    @Test
+    public void testPipeline() throws Exception {
+        final int files = 50;
+        final Path directory = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Set<Path> transferred = Collections.synchronizedSet(new HashSet<Path>());
+        final Host host = new Host(new TestProtocol(), "test.cyberduck.ch");
+        final Transfer t = new DownloadTransfer(host, directory, new NullLocal("t")) {
+            @Override
+            public List<TransferItem> list(final Session<?> session, final Path directory, final Local local, final ListProgressListener listener) {
+                final List<TransferItem> list = new ArrayList<TransferItem>();
+                for(int i = 1; i <= files; i++) {
+                    list.add(new TransferItem(new Path(directory, "f" + i, EnumSet.of(Path.Type.file)), new NullLocal(local, "f" + i)));
+                }
+                return list;
+            }
+
+            @Override
+            public void transfer(final Session<?> source, final Session<?> destination, final Path file, final Local local,
+                                 final TransferOptions options, final TransferStatus overall, final TransferStatus segment,
+                                 final ConnectionCallback connectionCallback,
+                                 final ProgressListener listener, final StreamListener streamListener) {
+                if(file.isFile()) {
+                    assertTrue(transferred.contains(directory));
+                }
+                transferred.add(file);
+            }
+
+            @Override
+            public AbstractDownloadFilter filter(final Session<?> source, final Session<?> destination, final TransferAction action, final ProgressListener listener) {
+                return new AbstractDownloadFilter(new DisabledDownloadSymlinkResolver(), source, null) {
+                    @Override
+                    public boolean accept(final Path file, final Local local, final TransferStatus parent) {
+                        return true;
+                    }
+
+                    @Override
+                    public TransferStatus prepare(final Path file, final Local local, final TransferStatus parent, final ProgressListener progress) {
+                        return new TransferStatus().length(1L);
+                    }
+
+                    @Override
+                    public void apply(final Path file, final Local local, final TransferStatus status, final ProgressListener listener) {
+                        //
+                    }
+
+                    @Override
+                    public void complete(final Path file, final Local local, final TransferOptions options, final TransferStatus status, final ProgressListener listener) {
+                        assertTrue(transferred.contains(file));
+                    }
+                };
+            }
+        };
+        final LoginConnectionService connection = new TestLoginConnectionService();
+        final DefaultSessionPool pool = new DefaultSessionPool(connection, new DisabledX509TrustManager(), new DefaultX509KeyManager(),
+            new DefaultVaultRegistry(new DisabledPasswordCallback()),
+            new DisabledTranscriptListener(), host);
+        final ConcurrentTransferWorker worker = new ConcurrentTransferWorker(
+            pool, SessionPool.DISCONNECTED, t, new TransferOptions(), new TransferSpeedometer(t), new DisabledTransferPrompt() {
+            @Override
+            public TransferAction prompt(final TransferItem file) {
+                return TransferAction.overwrite;
+            }
+        }, new DisabledTransferErrorCallback(),
+            new DisabledLoginCallback(), new DisabledProgressListener(), new DisabledStreamListener(), new DisabledNotificationService()
+        );
+        pool.withMaxTotal(3);
+        PreferencesFactory.get().setProperty("queue.transfer.pipeline.enable", true);
+        PreferencesFactory.get().setProperty("queue.transfer.pipeline.window", 10);
+        try {
+            final Session<?> session = worker.borrow(ConcurrentTransferWorker.Connection.source);
+            assertTrue(worker.run(session));
+            worker.release(session, ConcurrentTransferWorker.Connection.source, null);
+        }
+        finally {
+            PreferencesFactory.get().deleteProperty("queue.transfer.pipeline.enable");
+            PreferencesFactory.get().deleteProperty("queue.transfer.pipeline.window");
+        }
+        assertTrue(transferred.contains(directory));
+        for(int i = 1; i <= files; i++) {
+            assertTrue(transferred.contains(new Path(directory, "f" + i, EnumSet.of(Path.Type.file))));
+        }
+        assertEquals(files + 1, transferred.size());
+        assertEquals(files + 1, t.getSize().longValue());
+        assertTrue(worker.getCache().isEmpty());
+        worker.cleanup(true);
+    }
+
     @Test
     public void testBorrowTimeoutNoSessionAvailable() throws Exception {
         final Host host = new Host(new TestProtocol(), "localhost", new Credentials("u", "p"));
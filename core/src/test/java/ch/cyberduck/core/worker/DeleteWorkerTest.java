@@ -3,17 +3,25 @@ package ch.cyberduck.core.worker;
 import ch.cyberduck.core.AbstractPath;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.DisabledPasswordCallback;
 import ch.cyberduck.core.DisabledProgressListener;
+import ch.cyberduck.core.DisabledTranscriptListener;
 import ch.cyberduck.core.Host;
 import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.NullFilter;
 import ch.cyberduck.core.NullSession;
 import ch.cyberduck.core.PasswordCallback;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.Session;
+import ch.cyberduck.core.TestLoginConnectionService;
 import ch.cyberduck.core.TestProtocol;
+import ch.cyberduck.core.exception.AccessDeniedException;
+import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.pool.StatelessSessionPool;
 import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.core.vault.DefaultVaultRegistry;
 
 import org.junit.Test;
 
@@ -21,10 +29,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 public class DeleteWorkerTest {
 
@@ -109,4 +119,174 @@ public class DeleteWorkerTest {
             PathCache.empty(), new DisabledProgressListener());
         worker.run(session);
     }
+
+    @Test
+    public void testStreamWhileListing() throws Exception {
+        final List<Path> deleted = new CopyOnWriteArrayList<>();
+        final Path directory = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Session session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Delete.class) {
+                    return (T) new StreamingDelete(deleted);
+                }
+                return super._getFeature(type);
+            }
+
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) throws BackgroundException {
+                if(file.equals(directory)) {
+                    final AttributedList<Path> list = new AttributedList<>();
+                    for(int i = 0; i < 2500; i++) {
+                        list.add(new Path(directory, String.format("f-%d", i), EnumSet.of(Path.Type.file)));
+                        if(list.size() % 1000 == 0) {
+                            listener.chunk(file, list);
+                            // Batches are deleted before listing completes
+                            assertEquals(list.size(), deleted.size());
+                        }
+                    }
+                    list.add(new Path(directory, "d", EnumSet.of(Path.Type.directory)));
+                    return list;
+                }
+                if(file.equals(new Path(directory, "d", EnumSet.of(Path.Type.directory)))) {
+                    return new AttributedList<>(Collections.singletonList(new Path(file, "b", EnumSet.of(Path.Type.file))));
+                }
+                fail();
+                return null;
+            }
+        };
+        final DeleteWorker worker = new DeleteWorker(new DisabledLoginCallback(),
+            Collections.singletonList(directory), PathCache.empty(), new DisabledProgressListener());
+        final List<Path> result = worker.run(session);
+        assertEquals(2503, deleted.size());
+        assertEquals(new Path("/t/d/b", EnumSet.of(Path.Type.file)), deleted.get(2500));
+        // Directories deleted last with children first
+        assertEquals(new Path("/t/d", EnumSet.of(Path.Type.directory)), deleted.get(2501));
+        assertEquals(directory, deleted.get(2502));
+        // Only selected files are returned
+        assertEquals(Collections.singletonList(directory), result);
+    }
+
+    @Test
+    public void testStreamDeleteDirectoryWhenSubtreeComplete() throws Exception {
+        final List<Path> deleted = new CopyOnWriteArrayList<>();
+        final Path directory = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path a = new Path(directory, "a", EnumSet.of(Path.Type.directory));
+        final Path b = new Path(directory, "b", EnumSet.of(Path.Type.directory));
+        final Session session = new NullSession(new Host(new TestProtocol())) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Delete.class) {
+                    return (T) new StreamingDelete(deleted);
+                }
+                return super._getFeature(type);
+            }
+
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) throws BackgroundException {
+                if(file.equals(directory)) {
+                    return new AttributedList<>(Arrays.asList(a, b));
+                }
+                if(file.equals(a)) {
+                    return new AttributedList<>(Collections.singletonList(new Path(a, "f", EnumSet.of(Path.Type.file))));
+                }
+                if(file.equals(b)) {
+                    final AttributedList<Path> list = new AttributedList<>();
+                    for(int i = 0; i < 2000; i++) {
+                        list.add(new Path(b, String.format("f-%d", i), EnumSet.of(Path.Type.file)));
+                        if(list.size() % 1000 == 0) {
+                            listener.chunk(file, list);
+                        }
+                    }
+                    // Sibling directory deleted while listing
+                    assertTrue(deleted.contains(a));
+                    assertFalse(deleted.contains(directory));
+                    return list;
+                }
+                fail();
+                return null;
+            }
+        };
+        final DeleteWorker worker = new DeleteWorker(new DisabledLoginCallback(),
+            Collections.singletonList(directory), PathCache.empty(), new DisabledProgressListener());
+        worker.run(session);
+        assertEquals(2004, deleted.size());
+        assertTrue(deleted.indexOf(new Path(a, "f", EnumSet.of(Path.Type.file))) < deleted.indexOf(a));
+        assertEquals(b, deleted.get(2002));
+        assertEquals(directory, deleted.get(2003));
+    }
+
+    @Test
+    public void testStreamConcurrentFailure() throws Exception {
+        final List<Path> deleted = new CopyOnWriteArrayList<>();
+        final Path directory = new Path("/t", EnumSet.of(Path.Type.directory));
+        final Path denied = new Path(directory, "f-10", EnumSet.of(Path.Type.file));
+        final Session session = new NullSession(new Host(new TestProtocol(), "localhost")) {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T _getFeature(final Class<T> type) {
+                if(type == Delete.class) {
+                    return (T) new StreamingDelete(deleted) {
+                        @Override
+                        public void delete(final Map<Path, TransferStatus> files, final PasswordCallback prompt, final Callback callback) throws BackgroundException {
+                            if(files.containsKey(denied)) {
+                                final Map<Path, TransferStatus> accepted = new LinkedHashMap<>(files);
+                                accepted.remove(denied);
+                                super.delete(accepted, prompt, callback);
+                                callback.failure(denied, new AccessDeniedException());
+                                return;
+                            }
+                            super.delete(files, prompt, callback);
+                        }
+                    };
+                }
+                return super._getFeature(type);
+            }
+
+            @Override
+            public AttributedList<Path> list(final Path file, final ListProgressListener listener) {
+                final AttributedList<Path> list = new AttributedList<>();
+                for(int i = 0; i < 5500; i++) {
+                    list.add(new Path(directory, String.format("f-%d", i), EnumSet.of(Path.Type.file)));
+                }
+                return list;
+            }
+        };
+        final DeleteWorker worker = new DeleteWorker(new DisabledLoginCallback(),
+            Collections.singletonList(directory), PathCache.empty(), new NullFilter<>(), new DisabledProgressListener(),
+            new StatelessSessionPool(new TestLoginConnectionService(), session, new DisabledTranscriptListener(),
+                new DefaultVaultRegistry(new DisabledPasswordCallback())));
+        try {
+            worker.run(session);
+            fail();
+        }
+        catch(AccessDeniedException e) {
+            // Expected failure for single file
+        }
+        // All other files deleted
+        assertEquals(5500, deleted.size());
+        assertFalse(deleted.contains(denied));
+        assertTrue(deleted.contains(directory));
+    }
+
+    private static class StreamingDelete implements Delete {
+        private final List<Path> deleted;
+
+        public StreamingDelete(final List<Path> deleted) {
+            this.deleted = deleted;
+        }
+
+        @Override
+        public void delete(final Map<Path, TransferStatus> files, final PasswordCallback prompt, final Callback callback) throws BackgroundException {
+            assertTrue(files.size() <= 1000);
+            deleted.addAll(files.keySet());
+        }
+
+        @Override
+        public boolean isStreaming(final Path file) {
+            return true;
+        }
+    }
 }
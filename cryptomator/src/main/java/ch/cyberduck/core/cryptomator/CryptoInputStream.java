@@ -15,6 +15,10 @@ package ch.cyberduck.core.cryptomator;
  * GNU General Public License for more details.
  */
 
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ProxyInputStream;
 import org.cryptomator.cryptolib.api.CryptoException;
@@ -23,10 +27,27 @@ import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CryptoInputStream extends ProxyInputStream {
 
+    /**
+     * Shared pool to decrypt chunks read ahead
+     */
+    private static final ThreadPool pool = ThreadPoolFactory.get("decrypt",
+        PreferencesFactory.get().getInteger("cryptomator.content.concurrency"));
+
     private final InputStream proxy;
     private final FileContentCryptor cryptor;
     private final FileHeader header;
@@ -39,21 +60,50 @@ public class CryptoInputStream extends ProxyInputStream {
     private long chunkIndexOffset;
     private final int chunkSize;
 
+    /**
+     * Maximum number of chunks read ahead and decrypted in parallel
+     */
+    private final int readahead;
+
+    /**
+     * Chunks read ahead in order of chunk index
+     */
+    private final Deque<Chunk> pending = new ArrayDeque<>();
+
+    /**
+     * Ciphertext buffers no longer in use
+     */
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private boolean eof;
+
     public CryptoInputStream(final InputStream proxy, final FileContentCryptor cryptor, final FileHeader header, final long chunkIndexOffset) {
+        this(proxy, cryptor, header, chunkIndexOffset, PreferencesFactory.get().getInteger("cryptomator.content.readahead"));
+    }
+
+    /**
+     * @param readahead Number of chunks to read ahead and decrypt in parallel. Decrypt on the reading thread if 1.
+     */
+    public CryptoInputStream(final InputStream proxy, final FileContentCryptor cryptor, final FileHeader header, final long chunkIndexOffset,
+                             final int readahead) {
         super(proxy);
         this.proxy = proxy;
         this.cryptor = cryptor;
         this.header = header;
         this.chunkSize = cryptor.ciphertextChunkSize();
         this.chunkIndexOffset = chunkIndexOffset;
+        this.readahead = Math.max(1, readahead);
     }
 
     @Override
     public int read() throws IOException {
-        if(!buffer.hasRemaining()) {
-            this.readNextChunk();
+        while(!buffer.hasRemaining()) {
+            final int read = this.readNextChunk();
+            if(read == IOUtils.EOF) {
+                return IOUtils.EOF;
+            }
         }
-        return buffer.get();
+        return buffer.get() & 0xff;
     }
 
     @Override
@@ -63,7 +113,7 @@ public class CryptoInputStream extends ProxyInputStream {
 
     @Override
     public int read(final byte[] dst, final int off, final int len) throws IOException {
-        if(!buffer.hasRemaining()) {
+        while(!buffer.hasRemaining()) {
             final int read = this.readNextChunk();
             if(read == IOUtils.EOF) {
                 return IOUtils.EOF;
@@ -76,23 +126,151 @@ public class CryptoInputStream extends ProxyInputStream {
 
     @Override
     public long skip(final long len) throws IOException {
-        return IOUtils.skip(this, len);
+        long skipped = 0L;
+        // Skip in current chunk
+        final int remaining = (int) Math.min(len, buffer.remaining());
+        buffer.position(buffer.position() + remaining);
+        skipped += remaining;
+        final int cleartextChunkSize = cryptor.cleartextChunkSize();
+        if(!eof) {
+            // Discard full chunks read ahead
+            while(!pending.isEmpty() && len - skipped >= cleartextChunkSize) {
+                pending.poll().cancel();
+                skipped += cleartextChunkSize;
+            }
+            if(pending.isEmpty() && len - skipped >= cleartextChunkSize) {
+                // Skip full chunks in ciphertext without decrypting
+                final long chunks = (len - skipped) / cleartextChunkSize;
+                final long ciphertext = IOUtils.skip(proxy, chunks * chunkSize);
+                chunkIndexOffset += ciphertext / chunkSize;
+                skipped += ciphertext / chunkSize * cleartextChunkSize;
+                if(ciphertext < chunks * chunkSize) {
+                    eof = true;
+                    final long partial = ciphertext % chunkSize;
+                    if(partial > 0) {
+                        // Last chunk
+                        chunkIndexOffset++;
+                        skipped += Math.max(0L, partial - (chunkSize - cleartextChunkSize));
+                    }
+                    return skipped;
+                }
+            }
+        }
+        // Skip remainder in chunk by reading
+        return skipped + IOUtils.skip(this, len - skipped);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for(Chunk chunk : pending) {
+            chunk.cancel();
+        }
+        pending.clear();
+        super.close();
     }
 
     private int readNextChunk() throws IOException {
-        final ByteBuffer ciphertextBuf = ByteBuffer.allocate(chunkSize);
-        final int read = IOUtils.read(proxy, ciphertextBuf.array());
-        if(read == 0) {
+        if(pending.isEmpty()) {
+            this.readAhead();
+        }
+        // Read ahead further chunks while waiting for decryption of next chunk
+        while(!eof && pending.size() < readahead && !pending.peek().future.isDone()) {
+            this.readAhead();
+        }
+        final Chunk next = pending.poll();
+        if(null == next) {
             return IOUtils.EOF;
         }
-        ciphertextBuf.position(read);
-        ciphertextBuf.flip();
         try {
-            buffer = cryptor.decryptChunk(ciphertextBuf, chunkIndexOffset++, header, true);
+            buffer = next.future.get();
         }
-        catch(CryptoException e) {
-            throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
+        catch(InterruptedException e) {
+            throw new InterruptedIOException(e.getMessage());
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof CryptoException) {
+                throw new IOException(e.getCause().getMessage(), new CryptoAuthenticationException(e.getCause().getMessage(), e.getCause()));
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        }
+        return buffer.remaining();
+    }
+
+    /**
+     * Read next chunk and submit for decryption
+     */
+    private void readAhead() throws IOException {
+        if(eof) {
+            return;
+        }
+        ByteBuffer ciphertextBuf = buffers.poll();
+        if(null == ciphertextBuf) {
+            ciphertextBuf = ByteBuffer.allocate(chunkSize);
+        }
+        final int read = IOUtils.read(proxy, ciphertextBuf.array());
+        if(read == 0) {
+            eof = true;
+            buffers.offer(ciphertextBuf);
+            return;
+        }
+        if(read < chunkSize) {
+            // Last chunk
+            eof = true;
+        }
+        ciphertextBuf.clear();
+        ciphertextBuf.limit(read);
+        final Chunk chunk = new Chunk(ciphertextBuf, chunkIndexOffset++);
+        if(readahead > 1) {
+            chunk.future = pool.execute(chunk);
+        }
+        else {
+            final FutureTask<ByteBuffer> task = new FutureTask<>(chunk);
+            task.run();
+            chunk.future = task;
+        }
+        pending.add(chunk);
+    }
+
+    /**
+     * Ciphertext chunk submitted for decryption
+     */
+    private final class Chunk implements Callable<ByteBuffer> {
+        private final ByteBuffer ciphertext;
+        private final long index;
+        /**
+         * Set when decryption starts or when canceled before
+         */
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        private Future<ByteBuffer> future;
+
+        public Chunk(final ByteBuffer ciphertext, final long index) {
+            this.ciphertext = ciphertext;
+            this.index = index;
+        }
+
+        @Override
+        public ByteBuffer call() {
+            if(!started.compareAndSet(false, true)) {
+                throw new CancellationException();
+            }
+            try {
+                return cryptor.decryptChunk(ciphertext, index, header, true);
+            }
+            finally {
+                // Reuse for next chunk read
+                buffers.offer(ciphertext);
+            }
+        }
+
+        /**
+         * Cancel decryption and release ciphertext buffer unless decryption already started
+         */
+        public void cancel() {
+            future.cancel(false);
+            if(started.compareAndSet(false, true)) {
+                buffers.offer(ciphertext);
+            }
         }
-        return read;
     }
 }
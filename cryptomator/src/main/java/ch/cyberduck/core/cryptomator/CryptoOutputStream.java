@@ -18,7 +18,10 @@ package ch.cyberduck.core.cryptomator;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.io.MemorySegementingOutputStream;
 import ch.cyberduck.core.io.StatusOutputStream;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.random.NonceGenerator;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.cryptomator.cryptolib.api.CryptoException;
@@ -26,17 +29,39 @@ import org.cryptomator.cryptolib.api.FileContentCryptor;
 import org.cryptomator.cryptolib.api.FileHeader;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
+    /**
+     * Shared pool to encrypt chunks in parallel
+     */
+    private static final ThreadPool pool = ThreadPoolFactory.get("encrypt",
+        PreferencesFactory.get().getInteger("cryptomator.content.concurrency"));
+
     private final StatusOutputStream<Reply> proxy;
 
     public CryptoOutputStream(final StatusOutputStream<Reply> proxy, final FileContentCryptor cryptor, final FileHeader header,
                               final NonceGenerator nonces, final long chunkIndexOffset) {
-        super(new MemorySegementingOutputStream(new EncryptingOutputStream(proxy, cryptor, header, nonces, chunkIndexOffset),
+        this(proxy, cryptor, header, nonces, chunkIndexOffset, PreferencesFactory.get().getInteger("cryptomator.content.writebehind"));
+    }
+
+    /**
+     * @param window Number of chunks to encrypt in parallel before writing. Encrypt on the writing thread if 1.
+     */
+    public CryptoOutputStream(final StatusOutputStream<Reply> proxy, final FileContentCryptor cryptor, final FileHeader header,
+                              final NonceGenerator nonces, final long chunkIndexOffset, final int window) {
+        super(new MemorySegementingOutputStream(new EncryptingOutputStream(proxy, cryptor, header, nonces, chunkIndexOffset, window),
             cryptor.cleartextChunkSize()));
         this.proxy = proxy;
     }
@@ -63,14 +88,30 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
         private final NonceGenerator nonces;
         private long chunkIndexOffset;
 
+        /**
+         * Maximum number of chunks encrypted in parallel before written
+         */
+        private final int window;
+
+        /**
+         * Chunks pending write in order of chunk index
+         */
+        private final Deque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+
+        /**
+         * Cleartext buffers no longer in use
+         */
+        private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
         public EncryptingOutputStream(final OutputStream proxy, final FileContentCryptor cryptor, final FileHeader header,
-                                      final NonceGenerator nonces, final long chunkIndexOffset) {
+                                      final NonceGenerator nonces, final long chunkIndexOffset, final int window) {
             super(proxy);
             this.cryptor = cryptor;
             this.header = header;
             this.chunksize = cryptor.cleartextChunkSize();
             this.nonces = nonces;
             this.chunkIndexOffset = chunkIndexOffset;
+            this.window = Math.max(1, window);
         }
 
         @Override
@@ -80,18 +121,84 @@ public class CryptoOutputStream<Reply> extends StatusOutputStream<Reply> {
 
         @Override
         public void write(final byte[] b, final int off, final int len) throws IOException {
+            for(int chunkOffset = off; chunkOffset < off + len; chunkOffset += chunksize) {
+                int chunkLen = Math.min(chunksize, off + len - chunkOffset);
+                ByteBuffer buffer = buffers.poll();
+                if(null == buffer) {
+                    buffer = ByteBuffer.allocate(chunksize);
+                }
+                buffer.clear();
+                buffer.put(b, chunkOffset, chunkLen);
+                buffer.flip();
+                final ByteBuffer cleartext = buffer;
+                final long chunk = chunkIndexOffset++;
+                // Obtain nonce in order of chunks
+                final byte[] nonce = nonces.next();
+                final Callable<ByteBuffer> encrypt = () -> {
+                    try {
+                        return cryptor.encryptChunk(cleartext, chunk, header, nonce);
+                    }
+                    finally {
+                        // Reuse for next chunk written
+                        buffers.offer(cleartext);
+                    }
+                };
+                if(window > 1) {
+                    pending.add(pool.execute(encrypt));
+                }
+                else {
+                    final FutureTask<ByteBuffer> task = new FutureTask<>(encrypt);
+                    task.run();
+                    pending.add(task);
+                }
+                while(pending.size() >= window) {
+                    this.writeNextChunk();
+                }
+            }
+        }
+
+        /**
+         * Write encrypted chunks in order
+         */
+        private void writeNextChunk() throws IOException {
+            final Future<ByteBuffer> next = pending.poll();
             try {
-                for(int chunkOffset = off; chunkOffset < len; chunkOffset += chunksize) {
-                    int chunkLen = Math.min(chunksize, len - chunkOffset);
-                    final ByteBuffer encryptedChunk = cryptor.encryptChunk(
-                        ByteBuffer.wrap(Arrays.copyOfRange(b, chunkOffset, chunkOffset + chunkLen)),
-                        chunkIndexOffset++, header, nonces.next());
-                    super.write(encryptedChunk.array());
+                super.write(next.get().array());
+            }
+            catch(InterruptedException e) {
+                throw new InterruptedIOException(e.getMessage());
+            }
+            catch(ExecutionException e) {
+                if(e.getCause() instanceof CryptoException) {
+                    throw new IOException(e.getCause().getMessage(), new CryptoAuthenticationException(e.getCause().getMessage(), e.getCause()));
                 }
+                throw new IOException(e.getCause().getMessage(), e.getCause());
             }
-            catch(CryptoException e) {
-                throw new IOException(e.getMessage(), new CryptoAuthenticationException(e.getMessage(), e));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            while(!pending.isEmpty()) {
+                this.writeNextChunk();
+            }
+            super.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                while(!pending.isEmpty()) {
+                    this.writeNextChunk();
+                }
+            }
+            catch(IOException e) {
+                for(Future<ByteBuffer> f : pending) {
+                    f.cancel(false);
+                }
+                pending.clear();
+                throw e;
             }
+            super.close();
         }
     }
 }
@@ -63,7 +63,15 @@ public class CryptoReadFeature implements Read {
             if(status.isAppend()) {
                 IOUtils.closeQuietly(in);
                 final TransferStatus s = new TransferStatus(status).length(-1L);
+                // Only request ciphertext of chunks containing requested range
                 s.setOffset(this.align(status.getOffset()));
+                if(status.getLength() > 0) {
+                    final long end = this.align(status.getOffset() + status.getLength() - 1)
+                        + vault.getFileContentCryptor().ciphertextChunkSize();
+                    if(encrypted.attributes().getSize() > 0) {
+                        s.setLength(Math.min(end, encrypted.attributes().getSize()) - s.getOffset());
+                    }
+                }
                 final CryptoInputStream crypto = new CryptoInputStream(proxy.read(encrypted, s, callback), vault.getFileContentCryptor(), header, this.chunk(status.getOffset()));
                 crypto.skip(this.position(status.getOffset()));
                 return crypto;
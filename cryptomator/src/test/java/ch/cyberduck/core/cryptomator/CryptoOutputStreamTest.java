@@ -34,7 +34,9 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.EnumSet;
 
 import static org.junit.Assert.*;
@@ -144,4 +146,71 @@ public class CryptoOutputStreamTest {
 
         assertArrayEquals(cleartext, read);
     }
+
+    @Test
+    public void testWriteReadParallel() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        final FileHeader header = vault.getFileHeaderCryptor().create();
+        final CryptoOutputStream<?> stream = new CryptoOutputStream<>(new StatusOutputStream<Void>(cipherText) {
+            @Override
+            public Void getStatus() {
+                return null;
+            }
+        }, vault.getFileContentCryptor(), header, new RandomNonceGenerator(), 0, 16);
+
+        final byte[] cleartext = RandomUtils.nextBytes(vault.getFileContentCryptor().cleartextChunkSize() * 40 + 1);
+        stream.write(cleartext, 0, cleartext.length);
+        stream.close();
+
+        final byte[] read = new byte[cleartext.length];
+        final CryptoInputStream cryptoInputStream = new CryptoInputStream(new ByteArrayInputStream(cipherText.toByteArray()), vault.getFileContentCryptor(), header, 0, 16);
+        IOUtils.readFully(cryptoInputStream, read);
+        assertEquals(IOUtils.EOF, cryptoInputStream.read());
+        cryptoInputStream.close();
+
+        assertArrayEquals(cleartext, read);
+
+        // Modify ciphertext of chunk
+        final byte[] modified = cipherText.toByteArray();
+        modified[vault.getFileContentCryptor().ciphertextChunkSize() * 20 + 100] ^= 1;
+        final CryptoInputStream tampered = new CryptoInputStream(new ByteArrayInputStream(modified), vault.getFileContentCryptor(), header, 0, 16);
+        try {
+            IOUtils.readFully(tampered, read);
+            fail();
+        }
+        catch(IOException e) {
+            assertTrue(e.getCause() instanceof CryptoAuthenticationException);
+        }
+        tampered.close();
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        final CryptoVault vault = this.getVault();
+        final ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        final FileHeader header = vault.getFileHeaderCryptor().create();
+        final CryptoOutputStream<?> stream = new CryptoOutputStream<>(new StatusOutputStream<Void>(cipherText) {
+            @Override
+            public Void getStatus() {
+                return null;
+            }
+        }, vault.getFileContentCryptor(), header, new RandomNonceGenerator(), 0);
+        final int chunksize = vault.getFileContentCryptor().cleartextChunkSize();
+        final byte[] cleartext = RandomUtils.nextBytes(chunksize * 40 + 100);
+        stream.write(cleartext, 0, cleartext.length);
+        stream.close();
+
+        final CryptoInputStream cryptoInputStream = new CryptoInputStream(new ByteArrayInputStream(cipherText.toByteArray()), vault.getFileContentCryptor(), header, 0, 4);
+        assertEquals(10, cryptoInputStream.read(new byte[10]));
+        // Skip chunks read ahead and further chunks in ciphertext
+        assertEquals(chunksize * 10, cryptoInputStream.skip(chunksize * 10));
+        final byte[] read = new byte[chunksize];
+        IOUtils.readFully(cryptoInputStream, read);
+        assertArrayEquals(Arrays.copyOfRange(cleartext, chunksize * 10 + 10, chunksize * 11 + 10), read);
+        // Skip beyond end of file
+        assertEquals(cleartext.length - chunksize * 11 - 10, cryptoInputStream.skip(cleartext.length));
+        assertEquals(IOUtils.EOF, cryptoInputStream.read());
+        cryptoInputStream.close();
+    }
 }
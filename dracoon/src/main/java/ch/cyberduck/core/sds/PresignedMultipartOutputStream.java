@@ -225,6 +225,8 @@ public class PresignedMultipartOutputStream extends OutputStream {
                                         done.countDown();
                                     case "done":
                                         overall.setVersion(new VersionId(String.valueOf(uploadStatus.getNode().getId())));
+                                        // Replace node id of overwritten file
+                                        nodeid.cache(file, String.valueOf(uploadStatus.getNode().getId()));
                                         done.countDown();
                                         break;
                                 }
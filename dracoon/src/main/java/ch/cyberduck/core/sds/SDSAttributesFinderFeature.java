@@ -96,6 +96,7 @@ public class SDSAttributesFinderFeature implements AttributesFinder {
                 final Node node = new NodesApi(session.getClient()).requestNode(
                     Long.parseLong(nodeid.getFileid(file, new DisabledListProgressListener())), StringUtils.EMPTY, null);
                 final PathAttributes attr = this.toAttributes(node);
+                nodeid.cache(file, attr.getVersionId());
                 if(references) {
                     try {
                         attr.setVersions(this.versions(file, chunksize));
@@ -59,6 +59,8 @@ public class SDSCopyFeature implements Copy {
                 // Target Parent Node ID
                 Long.parseLong(nodeid.getFileid(target.getParent(), new DisabledListProgressListener())),
                 StringUtils.EMPTY, null);
+            // Node id of overwritten target is replaced
+            nodeid.cache(target, null);
             return target.withAttributes(new SDSAttributesFinderFeature(session, nodeid).toAttributes(node));
         }
         catch(ApiException e) {
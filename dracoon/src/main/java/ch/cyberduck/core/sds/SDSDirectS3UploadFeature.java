@@ -53,9 +53,8 @@ import ch.cyberduck.core.sds.triplecrypt.TripleCryptExceptionMappingService;
 import ch.cyberduck.core.sds.triplecrypt.TripleCryptOutputStream;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.PartScheduler;
 import ch.cyberduck.core.threading.ScheduledThreadPool;
-import ch.cyberduck.core.threading.ThreadPool;
-import ch.cyberduck.core.threading.ThreadPoolFactory;
 import ch.cyberduck.core.transfer.TransferStatus;
 
 import org.apache.commons.lang3.StringUtils;
@@ -116,7 +115,7 @@ public class SDSDirectS3UploadFeature extends HttpUploadFeature<VersionId, Messa
     @Override
     public VersionId upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
                             final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("multipart", concurrency);
+        final PartScheduler.Pool pool = PartScheduler.open(status, concurrency);
         try {
             final CreateFileUploadRequest createFileUploadRequest = new CreateFileUploadRequest()
                 .directS3Upload(true)
@@ -136,6 +135,8 @@ public class SDSDirectS3UploadFeature extends HttpUploadFeature<VersionId, Messa
             final Buffer buffer;
             if(nodeid.isEncrypted(file)) {
                 source = TemporaryFileServiceFactory.get().create(new AlphanumericRandomStringService().random());
+                // Parts are uploaded concurrently from ranges of a local file and require the encrypted content on disk
+                // instead of a deferred buffer keeping content in memory
                 buffer = new FileBuffer(source);
                 final BufferOutputStream temporary = new BufferOutputStream(buffer);
                 if(log.isDebugEnabled()) {
@@ -240,6 +241,8 @@ public class SDSDirectS3UploadFeature extends HttpUploadFeature<VersionId, Messa
                             case "done":
                                 // Set node id in transfer status
                                 status.setVersion(new VersionId(String.valueOf(uploadStatus.getNode().getId())));
+                                // Replace node id of overwritten file
+                                nodeid.cache(file, String.valueOf(uploadStatus.getNode().getId()));
                                 done.countDown();
                                 break;
                         }
@@ -302,14 +305,14 @@ public class SDSDirectS3UploadFeature extends HttpUploadFeature<VersionId, Messa
         return presignedUrls;
     }
 
-    private Future<TransferStatus> submit(final ThreadPool pool, final Path file, final Local local,
+    private Future<TransferStatus> submit(final PartScheduler.Pool pool, final Path file, final Local local,
                                           final BandwidthThrottle throttle, final StreamListener listener,
                                           final TransferStatus overall, final String url, final Integer partNumber,
                                           final long offset, final long length, final ConnectionCallback callback) {
         if(log.isInfoEnabled()) {
             log.info(String.format("Submit part %d of %s to queue with offset %d and length %d", partNumber, file, offset, length));
         }
-        return pool.execute(new DefaultRetryCallable<>(session.getHost(), new BackgroundExceptionCallable<TransferStatus>() {
+        return pool.execute(length, new DefaultRetryCallable<>(session.getHost(), new BackgroundExceptionCallable<TransferStatus>() {
             @Override
             public TransferStatus call() throws BackgroundException {
                 overall.validate();
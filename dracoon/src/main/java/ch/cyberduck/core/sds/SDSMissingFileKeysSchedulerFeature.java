@@ -21,6 +21,7 @@ import ch.cyberduck.core.PasswordCallback;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.Session;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.sds.io.swagger.client.ApiException;
@@ -37,22 +38,23 @@ import ch.cyberduck.core.sds.triplecrypt.TripleCryptConverter;
 import ch.cyberduck.core.sds.triplecrypt.TripleCryptExceptionMappingService;
 import ch.cyberduck.core.sds.triplecrypt.TripleCryptKeyPair;
 import ch.cyberduck.core.shared.AbstractSchedulerFeature;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import com.dracoon.sdk.crypto.Crypto;
 import com.dracoon.sdk.crypto.error.CryptoException;
-import com.dracoon.sdk.crypto.error.CryptoSystemException;
-import com.dracoon.sdk.crypto.error.InvalidFileKeyException;
-import com.dracoon.sdk.crypto.error.InvalidKeyPairException;
-import com.dracoon.sdk.crypto.error.InvalidPasswordException;
-import com.dracoon.sdk.crypto.error.UnknownVersionException;
 import com.dracoon.sdk.crypto.model.EncryptedFileKey;
 import com.dracoon.sdk.crypto.model.PlainFileKey;
 import com.dracoon.sdk.crypto.model.UserKeyPair;
@@ -60,19 +62,42 @@ import com.dracoon.sdk.crypto.model.UserPrivateKey;
 
 import static java.util.stream.Collectors.groupingBy;
 
+/**
+ * Distribute file keys missing for users. Each file key returned for a file is decrypted once with the private key
+ * converted once per key pair version and then encrypted for all recipients concurrently. Batches of file keys are set while file keys for
+ * the following batches are still computed.
+ */
 public class SDSMissingFileKeysSchedulerFeature extends AbstractSchedulerFeature<List<UserFileKeySetRequest>, SDSApiClient> {
     private static final Logger log = Logger.getLogger(SDSMissingFileKeysSchedulerFeature.class);
 
+    private final Integer concurrency;
+    private final Integer batchsize;
+
     public SDSMissingFileKeysSchedulerFeature() {
         this(PreferencesFactory.get().getLong("sds.encryption.missingkeys.scheduler.period"));
     }
 
     public SDSMissingFileKeysSchedulerFeature(final long period) {
+        this(period, PreferencesFactory.get().getInteger("sds.encryption.missingkeys.concurrency"),
+            PreferencesFactory.get().getInteger("sds.encryption.missingkeys.batch.size"));
+    }
+
+    /**
+     * @param period      Interval in milliseconds
+     * @param concurrency Number of threads to decrypt and encrypt file keys
+     * @param batchsize   Number of file keys to set with a single request
+     */
+    public SDSMissingFileKeysSchedulerFeature(final long period, final Integer concurrency, final Integer batchsize) {
         super(period);
+        this.concurrency = concurrency;
+        this.batchsize = batchsize;
     }
 
     @Override
     public List<UserFileKeySetRequest> operate(final Session<SDSApiClient> client, final PasswordCallback callback, final Path file) throws BackgroundException {
+        final ThreadPool pool = ThreadPoolFactory.get("missingkeys", concurrency);
+        // Single thread to set file keys in order of computation
+        final ThreadPool submitter = ThreadPoolFactory.get("filekeys", 1);
         try {
             final SDSSession session = (SDSSession) client;
             final UserAccountWrapper account = session.userAccount();
@@ -93,45 +118,56 @@ public class SDSMissingFileKeysSchedulerFeature extends AbstractSchedulerFeature
             final IdProvider node = session.getFeature(IdProvider.class);
             // Null when operating from scheduler. File reference is set for post upload.
             final Long fileId = file != null ? Long.parseLong(node.getFileid(file, new DisabledListProgressListener())) : null;
-            UserFileKeySetBatchRequest request;
+            // Private key converted once for each version of file key
+            final Map<EncryptedFileKey.Version, UserPrivateKey> privateKeys = new HashMap<>();
+            // Plain file key decrypted once for each file key
+            final Map<FileFileKeys, Future<PlainFileKey>> plainFileKeys = new HashMap<>();
+            boolean pending;
             do {
                 if(log.isDebugEnabled()) {
                     log.debug(String.format("Request a list of missing file keys for file %s", file));
                 }
-                request = new UserFileKeySetBatchRequest();
                 final MissingKeysResponse missingKeys = new NodesApi(session.getClient()).requestMissingFileKeys(
                     null, null, null, fileId, null, null, null);
-                final Map<Long, List<UserUserPublicKey>> userPublicKeys = missingKeys.getUsers().stream().collect(groupingBy(UserUserPublicKey::getId));
-                final Map<Long, List<FileFileKeys>> files = missingKeys.getFiles().stream().collect(groupingBy(FileFileKeys::getId));
-                for(UserIdFileIdItem item : missingKeys.getItems()) {
-                    for(FileFileKeys fileKey : files.get(item.getFileId())) {
-                        final EncryptedFileKey encryptedFileKey = TripleCryptConverter.toCryptoEncryptedFileKey(fileKey.getFileKeyContainer());
+                // Submit decryption of file keys before encryption tasks waiting for the result
+                for(FileFileKeys fileKey : missingKeys.getFiles()) {
+                    if(plainFileKeys.containsKey(fileKey)) {
+                        continue;
+                    }
+                    final EncryptedFileKey encryptedFileKey = TripleCryptConverter.toCryptoEncryptedFileKey(fileKey.getFileKeyContainer());
+                    if(!privateKeys.containsKey(encryptedFileKey.getVersion())) {
                         final UserKeyPairContainer keyPairForDecryption = session.getKeyPairForFileKey(encryptedFileKey.getVersion());
-                        for(UserUserPublicKey userPublicKey : userPublicKeys.get(item.getUserId())) {
-                            final EncryptedFileKey fk = this.encryptFileKey(
-                                TripleCryptConverter.toCryptoUserPrivateKey(keyPairForDecryption.getPrivateKeyContainer()),
-                                encryptedFileKey.getVersion() == EncryptedFileKey.Version.RSA2048_AES256GCM ? passphraseDeprecated : passphrase,
-                                userPublicKey, fileKey);
-                            final UserFileKeySetRequest keySetRequest = new UserFileKeySetRequest()
-                                .fileId(item.getFileId())
-                                .userId(item.getUserId())
-                                .fileKey(TripleCryptConverter.toSwaggerFileKey(fk));
-                            if(log.isDebugEnabled()) {
-                                log.debug(String.format("Missing file key processed for file %d and user %d", item.getFileId(), item.getUserId()));
-                            }
-                            request.addItemsItem(keySetRequest);
+                        privateKeys.put(encryptedFileKey.getVersion(), TripleCryptConverter.toCryptoUserPrivateKey(keyPairForDecryption.getPrivateKeyContainer()));
+                    }
+                    final UserPrivateKey privateKey = privateKeys.get(encryptedFileKey.getVersion());
+                    final Credentials credentials = encryptedFileKey.getVersion() == EncryptedFileKey.Version.RSA2048_AES256GCM ? passphraseDeprecated : passphrase;
+                    plainFileKeys.put(fileKey, pool.execute(new Callable<PlainFileKey>() {
+                        @Override
+                        public PlainFileKey call() throws Exception {
+                            return Crypto.decryptFileKey(encryptedFileKey, privateKey, credentials.getPassword());
                         }
+                    }));
+                }
+                final List<Future<UserFileKeySetRequest>> computed = this.encrypt(pool, missingKeys, plainFileKeys);
+                pending = !computed.isEmpty();
+                // Set batches of file keys while remaining file keys are computed
+                final List<Future<UserFileKeySetBatchRequest>> submitted = new ArrayList<>();
+                UserFileKeySetBatchRequest request = new UserFileKeySetBatchRequest();
+                for(Future<UserFileKeySetRequest> future : computed) {
+                    request.addItemsItem(this.get(future));
+                    if(request.getItems().size() >= batchsize) {
+                        submitted.add(this.submit(submitter, session, request));
+                        request = new UserFileKeySetBatchRequest();
                     }
                 }
                 if(!request.getItems().isEmpty()) {
-                    if(log.isDebugEnabled()) {
-                        log.debug(String.format("Set file keys with %s", request));
-                    }
-                    new NodesApi(session.getClient()).setUserFileKeys(request, StringUtils.EMPTY);
-                    processed.addAll(request.getItems());
+                    submitted.add(this.submit(submitter, session, request));
+                }
+                for(Future<UserFileKeySetBatchRequest> future : submitted) {
+                    processed.addAll(this.get(future).getItems());
                 }
             }
-            while(!request.getItems().isEmpty());
+            while(pending);
             this.deleteDeprecatedKeyPair(session);
             return processed;
         }
@@ -141,6 +177,91 @@ public class SDSMissingFileKeysSchedulerFeature extends AbstractSchedulerFeature
         catch(CryptoException e) {
             throw new TripleCryptExceptionMappingService().map(e);
         }
+        finally {
+            // Cancel pending tasks
+            pool.shutdown(false);
+            submitter.shutdown(false);
+        }
+    }
+
+    /**
+     * Encrypt file key for users missing the key of a file with every file key returned for the file
+     *
+     * @param plainFileKeys Decrypted file key for each file key
+     * @return Requests to set file key for user
+     */
+    protected List<Future<UserFileKeySetRequest>> encrypt(final ThreadPool pool, final MissingKeysResponse missingKeys,
+                                                          final Map<FileFileKeys, Future<PlainFileKey>> plainFileKeys) {
+        final Map<Long, List<UserUserPublicKey>> userPublicKeys = missingKeys.getUsers().stream().collect(groupingBy(UserUserPublicKey::getId));
+        final Map<Long, List<FileFileKeys>> files = missingKeys.getFiles().stream().collect(groupingBy(FileFileKeys::getId));
+        final List<Future<UserFileKeySetRequest>> computed = new ArrayList<>();
+        for(UserIdFileIdItem item : missingKeys.getItems()) {
+            for(FileFileKeys fileKey : files.get(item.getFileId())) {
+                final Future<PlainFileKey> plainFileKey = plainFileKeys.get(fileKey);
+                for(UserUserPublicKey userPublicKey : userPublicKeys.get(item.getUserId())) {
+                    computed.add(pool.execute(new Callable<UserFileKeySetRequest>() {
+                        @Override
+                        public UserFileKeySetRequest call() throws Exception {
+                            final EncryptedFileKey fk = Crypto.encryptFileKey(plainFileKey.get(),
+                                TripleCryptConverter.toCryptoUserPublicKey(userPublicKey.getPublicKeyContainer()));
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("Missing file key processed for file %d and user %d", item.getFileId(), item.getUserId()));
+                            }
+                            return new UserFileKeySetRequest()
+                                .fileId(item.getFileId())
+                                .userId(item.getUserId())
+                                .fileKey(TripleCryptConverter.toSwaggerFileKey(fk));
+                        }
+                    }));
+                }
+            }
+        }
+        return computed;
+    }
+
+    private Future<UserFileKeySetBatchRequest> submit(final ThreadPool submitter, final SDSSession session,
+                                                      final UserFileKeySetBatchRequest request) {
+        return submitter.execute(new Callable<UserFileKeySetBatchRequest>() {
+            @Override
+            public UserFileKeySetBatchRequest call() throws ApiException {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Set file keys with %s", request));
+                }
+                new NodesApi(session.getClient()).setUserFileKeys(request, StringUtils.EMPTY);
+                return request;
+            }
+        });
+    }
+
+    /**
+     * Unwrap failure of task
+     */
+    private <T> T get(final Future<T> future) throws ApiException, CryptoException, BackgroundException {
+        try {
+            return future.get();
+        }
+        catch(InterruptedException e) {
+            log.error("Processing missing file keys failed with interrupt failure");
+            throw new ConnectionCanceledException(e);
+        }
+        catch(ExecutionException e) {
+            log.warn(String.format("Processing missing file keys failed with execution failure %s", e.getMessage()));
+            Throwable cause = e.getCause();
+            if(cause instanceof ExecutionException) {
+                // Failure decrypting file key awaited by encryption task
+                cause = cause.getCause();
+            }
+            if(cause instanceof ApiException) {
+                throw (ApiException) cause;
+            }
+            if(cause instanceof CryptoException) {
+                throw (CryptoException) cause;
+            }
+            if(cause instanceof BackgroundException) {
+                throw (BackgroundException) cause;
+            }
+            throw new BackgroundException(cause);
+        }
     }
 
     private void deleteDeprecatedKeyPair(final SDSSession session) throws ApiException, BackgroundException {
@@ -156,13 +277,4 @@ public class SDSMissingFileKeysSchedulerFeature extends AbstractSchedulerFeature
             }
         }
     }
-
-    private EncryptedFileKey encryptFileKey(final UserPrivateKey privateKey, final Credentials passphrase,
-                                            final UserUserPublicKey pubkey, final FileFileKeys fileKeys)
-        throws InvalidFileKeyException, InvalidKeyPairException, InvalidPasswordException, CryptoSystemException, UnknownVersionException {
-        final PlainFileKey plainFileKey = Crypto.decryptFileKey(
-            TripleCryptConverter.toCryptoEncryptedFileKey(fileKeys.getFileKeyContainer()), privateKey, passphrase.getPassword());
-        return Crypto.encryptFileKey(
-            plainFileKey, TripleCryptConverter.toCryptoUserPublicKey(pubkey.getPublicKeyContainer()));
-    }
 }
@@ -64,6 +64,8 @@ public class SDSMoveFeature implements Move {
             if(containerService.isContainer(file)) {
                 final Node node = new NodesApi(session.getClient()).updateRoom(
                     new UpdateRoomRequest().name(renamed.getName()), nodeId, StringUtils.EMPTY, null);
+                nodeid.cache(file, null);
+                nodeid.cache(renamed, String.valueOf(nodeId));
                 return renamed.withAttributes(new SDSAttributesFinderFeature(session, nodeid).toAttributes(node));
             }
             else {
@@ -81,6 +83,8 @@ public class SDSMoveFeature implements Move {
                         .keepShareLinks(PreferencesFactory.get().getBoolean("sds.upload.sharelinks.keep")),
                     Long.parseLong(nodeid.getFileid(renamed.getParent(), new DisabledListProgressListener())),
                     StringUtils.EMPTY, null);
+                nodeid.cache(file, null);
+                nodeid.cache(renamed, String.valueOf(nodeId));
                 // Copy original file attributes
                 return renamed.withAttributes(new PathAttributes(renamed.attributes()).withVersionId(file.attributes().getVersionId()));
             }
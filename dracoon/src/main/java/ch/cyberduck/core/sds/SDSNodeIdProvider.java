@@ -23,6 +23,7 @@ import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.SimplePathPredicate;
+import ch.cyberduck.core.cache.FileidCache;
 import ch.cyberduck.core.URIEncoder;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
@@ -55,6 +56,7 @@ public class SDSNodeIdProvider implements IdProvider {
     private static final String ROOT_NODE_ID = "0";
 
     private final SDSSession session;
+    private final FileidCache index = new FileidCache();
 
     private Cache<Path> cache = PathCache.empty();
 
@@ -86,6 +88,13 @@ public class SDSNodeIdProvider implements IdProvider {
                 }
             }
         }
+        final String cached = index.get(file, cache);
+        if(null != cached) {
+            if(log.isInfoEnabled()) {
+                log.info(String.format("Return indexed node %s for file %s", cached, file));
+            }
+            return this.set(file, cached);
+        }
         try {
             final String type;
             if(file.isDirectory()) {
@@ -124,9 +133,15 @@ public class SDSNodeIdProvider implements IdProvider {
 
     protected String set(final Path file, final String id) {
         file.attributes().setVersionId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
     public boolean isEncrypted(final Path file) {
         if(file.isRoot()) {
             return false;
@@ -96,7 +96,10 @@ public class SDSSession extends HttpSession<SDSApiClient> {
     private static final Logger log = Logger.getLogger(SDSSession.class);
 
     public static final String SDS_AUTH_TOKEN_HEADER = "X-Sds-Auth-Token";
-    public static final int DEFAULT_CHUNKSIZE = 16;
+    /**
+     * Size of chunks of file contents passed to the file cipher with buffers reused for all chunks
+     */
+    public static final int DEFAULT_CHUNKSIZE = 1024 * 1024;
 
     public static final String VERSION_REGEX = "(([0-9]+)\\.([0-9]+)\\.([0-9]+)).*";
 
@@ -118,6 +118,8 @@ public class SDSUploadService {
                     }
                 }
             }
+            // Replace node id of overwritten file
+            nodeid.cache(file, String.valueOf(upload.getId()));
             return new VersionId(String.valueOf(upload.getId()));
         }
         catch(ApiException e) {
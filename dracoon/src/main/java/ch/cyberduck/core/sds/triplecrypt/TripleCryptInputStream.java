@@ -24,18 +24,30 @@ import org.apache.commons.lang3.ArrayUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import com.dracoon.sdk.crypto.FileDecryptionCipher;
 import com.dracoon.sdk.crypto.error.CryptoException;
 import com.dracoon.sdk.crypto.model.EncryptedDataContainer;
 import com.dracoon.sdk.crypto.model.PlainDataContainer;
 
+/**
+ * Decrypt chunks of ciphertext read into a buffer reused for all chunks and copy plaintext directly to the destination
+ * of the caller
+ */
 public class TripleCryptInputStream extends ProxyInputStream {
 
     private final InputStream proxy;
     private final FileDecryptionCipher cipher;
     private final byte[] tag;
 
+    /**
+     * Ciphertext of current chunk
+     */
+    private final byte[] chunk = new byte[SDSSession.DEFAULT_CHUNKSIZE];
+    /**
+     * Plaintext of current chunk not yet read
+     */
     private ByteBuffer buffer = ByteBuffer.allocate(0);
     private long lastread = -1;
 
@@ -48,10 +60,12 @@ public class TripleCryptInputStream extends ProxyInputStream {
 
     @Override
     public int read() throws IOException {
-        if(!buffer.hasRemaining()) {
-            this.readNextChunk();
+        while(!buffer.hasRemaining()) {
+            if(IOUtils.EOF == this.readNextChunk()) {
+                return IOUtils.EOF;
+            }
         }
-        return buffer.get();
+        return buffer.get() & 0xff;
     }
 
     @Override
@@ -61,59 +75,45 @@ public class TripleCryptInputStream extends ProxyInputStream {
 
     @Override
     public int read(final byte[] dst, final int off, final int len) throws IOException {
-        final ByteBuffer dest = ByteBuffer.allocate(len);
         int remaining = len;
         while(remaining > 0) {
-            final int location = len - remaining;
-            final int count = this.read(dest, off + location, remaining);
-            if(IOUtils.EOF == count) {
-                if(remaining == len) {
-                    // nothing read before
-                    return IOUtils.EOF;
+            if(!buffer.hasRemaining()) {
+                if(IOUtils.EOF == this.readNextChunk()) {
+                    if(remaining == len) {
+                        // nothing read before
+                        return IOUtils.EOF;
+                    }
+                    break;
                 }
-                break;
+                // Chunk may decrypt to no plaintext
+                continue;
             }
-            dest.get(dst, off + location, count);
+            final int count = Math.min(remaining, buffer.remaining());
+            buffer.get(dst, off + len - remaining, count);
             remaining -= count;
         }
         return len - remaining;
     }
 
-    private int read(final ByteBuffer dst, final int off, final int len) throws IOException {
-        if(!buffer.hasRemaining()) {
-            final int read = this.readNextChunk();
-            if(read == IOUtils.EOF) {
-                return IOUtils.EOF;
-            }
-        }
-        final int read = Math.min(len, buffer.remaining());
-        System.arraycopy(buffer.array(), buffer.position(), dst.array(), off, read);
-        buffer.position(buffer.position() + read);
-        return read;
-    }
-
     private int readNextChunk() throws IOException {
-        final ByteBuffer ciphertextBuf = ByteBuffer.allocate(SDSSession.DEFAULT_CHUNKSIZE);
-        final int read = IOUtils.read(proxy, ciphertextBuf.array());
+        final int read = IOUtils.read(proxy, chunk);
         if(lastread == 0) {
             return IOUtils.EOF;
         }
-        ciphertextBuf.position(read);
-        ciphertextBuf.flip();
         try {
-            final PlainDataContainer pDataContainer;
+            // Only copy for last chunk with fewer bytes than buffer size
+            final EncryptedDataContainer container = new EncryptedDataContainer(
+                read == chunk.length ? chunk : Arrays.copyOf(chunk, read), null);
+            final byte[] content;
             if(read == 0) {
-                final PlainDataContainer c1 = cipher.processBytes(createEncryptedDataContainer(ciphertextBuf.array(), read, null));
+                final PlainDataContainer c1 = cipher.processBytes(container);
                 final PlainDataContainer c2 = cipher.doFinal(new EncryptedDataContainer(null, tag));
-                pDataContainer = new PlainDataContainer(ArrayUtils.addAll(c1.getContent(), c2.getContent()));
+                content = ArrayUtils.addAll(c1.getContent(), c2.getContent());
             }
             else {
-                pDataContainer = cipher.processBytes(createEncryptedDataContainer(ciphertextBuf.array(), read, null));
+                content = cipher.processBytes(container).getContent();
             }
-            final byte[] content = pDataContainer.getContent();
-            buffer = ByteBuffer.allocate(content.length);
-            buffer.put(content);
-            buffer.flip();
+            buffer = ByteBuffer.wrap(content);
             lastread = read;
             return content.length;
         }
@@ -122,12 +122,6 @@ public class TripleCryptInputStream extends ProxyInputStream {
         }
     }
 
-    private static EncryptedDataContainer createEncryptedDataContainer(final byte[] bytes, final int len, final byte[] tag) {
-        final byte[] b = new byte[len];
-        System.arraycopy(bytes, 0, b, 0, len);
-        return new EncryptedDataContainer(b, tag);
-    }
-
     @Override
     public long skip(final long len) throws IOException {
         return IOUtils.skip(this, len);
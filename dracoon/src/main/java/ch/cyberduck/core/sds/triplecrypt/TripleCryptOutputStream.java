@@ -17,7 +17,6 @@ package ch.cyberduck.core.sds.triplecrypt;
 
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.http.HttpResponseOutputStream;
-import ch.cyberduck.core.io.MemorySegementingOutputStream;
 import ch.cyberduck.core.io.StatusOutputStream;
 import ch.cyberduck.core.sds.SDSSession;
 import ch.cyberduck.core.sds.io.swagger.client.model.FileKey;
@@ -31,6 +30,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.dracoon.sdk.crypto.CryptoUtils;
 import com.dracoon.sdk.crypto.FileEncryptionCipher;
@@ -47,8 +47,7 @@ public class TripleCryptOutputStream<VersionId> extends HttpResponseOutputStream
     private final StatusOutputStream<VersionId> proxy;
 
     public TripleCryptOutputStream(final SDSSession session, final StatusOutputStream<VersionId> proxy, final FileEncryptionCipher cipher, final TransferStatus key) {
-        super(new MemorySegementingOutputStream(new EncryptingOutputStream(session, proxy, cipher, key),
-            SDSSession.DEFAULT_CHUNKSIZE));
+        super(new EncryptingOutputStream(session, proxy, cipher, key));
         this.proxy = proxy;
     }
 
@@ -67,11 +66,22 @@ public class TripleCryptOutputStream<VersionId> extends HttpResponseOutputStream
         write(b, 0, b.length);
     }
 
+    /**
+     * Collect plaintext in a buffer reused for all chunks and pass full chunks to the cipher without copying
+     */
     private static final class EncryptingOutputStream extends ProxyOutputStream {
         private final SDSSession session;
         private final FileEncryptionCipher cipher;
         private final TransferStatus status;
 
+        private final byte[] buffer = new byte[SDSSession.DEFAULT_CHUNKSIZE];
+        /**
+         * Number of bytes in buffer not yet encrypted
+         */
+        private int count;
+
+        private final AtomicBoolean close = new AtomicBoolean();
+
         public EncryptingOutputStream(final SDSSession session, final OutputStream proxy, final FileEncryptionCipher cipher,
                                       final TransferStatus key) {
             super(proxy);
@@ -87,23 +97,51 @@ public class TripleCryptOutputStream<VersionId> extends HttpResponseOutputStream
 
         @Override
         public void write(final byte[] b, final int off, final int len) throws IOException {
-            try {
-                for(int chunkOffset = off; chunkOffset < len; chunkOffset += SDSSession.DEFAULT_CHUNKSIZE) {
-                    int chunkLen = Math.min(SDSSession.DEFAULT_CHUNKSIZE, len - chunkOffset);
-                    final byte[] bytes = Arrays.copyOfRange(b, chunkOffset, chunkOffset + chunkLen);
-                    final PlainDataContainer data = createPlainDataContainer(bytes, bytes.length);
-                    final EncryptedDataContainer encrypted = cipher.processBytes(data);
-                    super.write(encrypted.getContent());
+            int offset = off;
+            while(offset < off + len) {
+                final int n = Math.min(buffer.length - count, off + len - offset);
+                System.arraycopy(b, offset, buffer, count, n);
+                count += n;
+                offset += n;
+                if(count == buffer.length) {
+                    this.encrypt();
                 }
             }
+        }
+
+        /**
+         * Encrypt pending bytes in buffer and write to proxy
+         */
+        private void encrypt() throws IOException {
+            if(0 == count) {
+                return;
+            }
+            try {
+                // Only copy for last chunk with fewer bytes than buffer size
+                final EncryptedDataContainer encrypted = cipher.processBytes(
+                    new PlainDataContainer(count == buffer.length ? buffer : Arrays.copyOf(buffer, count)));
+                count = 0;
+                super.write(encrypted.getContent());
+            }
             catch(CryptoException e) {
                 throw new IOException(e);
             }
         }
 
+        @Override
+        public void flush() throws IOException {
+            this.encrypt();
+            super.flush();
+        }
+
         @Override
         public void close() throws IOException {
+            if(close.get()) {
+                log.warn(String.format("Skip double close of stream %s", this));
+                return;
+            }
             try {
+                this.encrypt();
                 final EncryptedDataContainer encrypted = cipher.doFinal();
                 super.write(encrypted.getContent());
                 final String tag = CryptoUtils.byteArrayToString(encrypted.getTag());
@@ -125,14 +163,9 @@ public class TripleCryptOutputStream<VersionId> extends HttpResponseOutputStream
                 throw new IOException(e);
             }
             finally {
+                close.set(true);
                 super.close();
             }
         }
-
-        private static PlainDataContainer createPlainDataContainer(final byte[] bytes, final int len) {
-            final byte[] b = new byte[len];
-            System.arraycopy(bytes, 0, b, 0, len);
-            return new PlainDataContainer(b);
-        }
     }
 }
@@ -30,12 +30,19 @@ import ch.cyberduck.core.io.StreamCopier;
 import ch.cyberduck.core.sds.io.swagger.client.ApiException;
 import ch.cyberduck.core.sds.io.swagger.client.api.NodesApi;
 import ch.cyberduck.core.sds.io.swagger.client.api.UserApi;
+import ch.cyberduck.core.sds.io.swagger.client.model.FileFileKeys;
 import ch.cyberduck.core.sds.io.swagger.client.model.FileKey;
+import ch.cyberduck.core.sds.io.swagger.client.model.FileKeyContainer;
+import ch.cyberduck.core.sds.io.swagger.client.model.MissingKeysResponse;
 import ch.cyberduck.core.sds.io.swagger.client.model.UserFileKeySetRequest;
+import ch.cyberduck.core.sds.io.swagger.client.model.UserIdFileIdItem;
 import ch.cyberduck.core.sds.io.swagger.client.model.UserKeyPairContainer;
+import ch.cyberduck.core.sds.io.swagger.client.model.UserUserPublicKey;
 import ch.cyberduck.core.sds.triplecrypt.TripleCryptConverter;
 import ch.cyberduck.core.sds.triplecrypt.TripleCryptWriteFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 import ch.cyberduck.core.transfer.Transfer;
 import ch.cyberduck.core.transfer.TransferItem;
 import ch.cyberduck.core.transfer.TransferStatus;
@@ -43,6 +50,7 @@ import ch.cyberduck.core.vault.VaultCredentials;
 import ch.cyberduck.test.IntegrationTest;
 
 import org.apache.commons.lang3.RandomUtils;
+import org.apache.commons.lang3.concurrent.ConcurrentUtils;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
@@ -50,12 +58,16 @@ import java.io.ByteArrayInputStream;
 import java.io.StringReader;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.dracoon.sdk.crypto.Crypto;
 import com.dracoon.sdk.crypto.model.EncryptedFileKey;
+import com.dracoon.sdk.crypto.model.PlainFileKey;
 import com.dracoon.sdk.crypto.model.UserKeyPair;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -102,6 +114,50 @@ public class SDSMissingFileKeysSchedulerFeatureTest extends AbstractSDSTest {
         new SDSDeleteFeature(session, nodeid).delete(Collections.singletonList(test), new DisabledLoginCallback(), new Delete.DisabledCallback());
     }
 
+    @Test
+    public void testEncryptMultipleUsersMissingKeys() throws Exception {
+        final PlainFileKey plainFileKey = Crypto.generateFileKey(PlainFileKey.Version.AES256GCM);
+        final MissingKeysResponse missingKeys = new MissingKeysResponse();
+        // File key returned for each version of key pair
+        final FileFileKeys fileKey = new FileFileKeys().id(1L).fileKeyContainer(new FileKeyContainer().key("k1"));
+        final FileFileKeys fileKeyDeprecated = new FileFileKeys().id(1L).fileKeyContainer(new FileKeyContainer().key("k2"));
+        missingKeys.addFilesItem(fileKey).addFilesItem(fileKeyDeprecated);
+        final Map<Long, UserKeyPair> users = new HashMap<>();
+        for(long userId = 1L; userId <= 3L; userId++) {
+            final UserKeyPair keyPair = Crypto.generateUserKeyPair(UserKeyPair.Version.RSA2048, "eth[oh8uv4Eesij");
+            users.put(userId, keyPair);
+            missingKeys.addUsersItem(new UserUserPublicKey().id(userId)
+                .publicKeyContainer(TripleCryptConverter.toSwaggerUserKeyPairContainer(keyPair).getPublicKeyContainer()));
+            missingKeys.addItemsItem(new UserIdFileIdItem().userId(userId).fileId(1L));
+        }
+        final Map<FileFileKeys, Future<PlainFileKey>> plainFileKeys = new HashMap<>();
+        plainFileKeys.put(fileKey, ConcurrentUtils.constantFuture(plainFileKey));
+        plainFileKeys.put(fileKeyDeprecated, ConcurrentUtils.constantFuture(plainFileKey));
+        final ThreadPool pool = ThreadPoolFactory.get("missingkeys", 2);
+        try {
+            final List<Future<UserFileKeySetRequest>> computed = new SDSMissingFileKeysSchedulerFeature(0L, 2, 10)
+                .encrypt(pool, missingKeys, plainFileKeys);
+            // File key for every user with each file key of the file
+            assertEquals(6, computed.size());
+            final Map<Long, Integer> processed = new HashMap<>();
+            for(Future<UserFileKeySetRequest> future : computed) {
+                final UserFileKeySetRequest request = future.get();
+                assertEquals(1L, request.getFileId(), 0L);
+                processed.merge(request.getUserId(), 1, Integer::sum);
+                final PlainFileKey decrypted = Crypto.decryptFileKey(TripleCryptConverter.toCryptoEncryptedFileKey(request.getFileKey()),
+                    users.get(request.getUserId()).getUserPrivateKey(), "eth[oh8uv4Eesij");
+                assertEquals(plainFileKey.getKey(), decrypted.getKey());
+            }
+            assertEquals(3, processed.size());
+            for(Integer count : processed.values()) {
+                assertEquals(2, count.intValue());
+            }
+        }
+        finally {
+            pool.shutdown(false);
+        }
+    }
+
     private void removeKeyPairs(UserApi userApi) throws ApiException {
         for(UserKeyPair.Version version : UserKeyPair.Version.values()) {
             try {
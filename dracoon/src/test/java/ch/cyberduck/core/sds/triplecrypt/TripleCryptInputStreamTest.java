@@ -0,0 +1,63 @@
+package ch.cyberduck.core.sds.triplecrypt;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.sds.SDSSession;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import com.dracoon.sdk.crypto.Crypto;
+import com.dracoon.sdk.crypto.FileEncryptionCipher;
+import com.dracoon.sdk.crypto.model.EncryptedDataContainer;
+import com.dracoon.sdk.crypto.model.PlainDataContainer;
+import com.dracoon.sdk.crypto.model.PlainFileKey;
+
+import static org.junit.Assert.*;
+
+public class TripleCryptInputStreamTest {
+
+    @Test
+    public void testRead() throws Exception {
+        for(int length : new int[]{0, 1, SDSSession.DEFAULT_CHUNKSIZE - 1, SDSSession.DEFAULT_CHUNKSIZE,
+            2 * SDSSession.DEFAULT_CHUNKSIZE + 1}) {
+            final byte[] content = RandomUtils.nextBytes(length);
+            final PlainFileKey key = Crypto.generateFileKey(PlainFileKey.Version.AES256GCM);
+            final FileEncryptionCipher cipher = Crypto.createFileEncryptionCipher(key);
+            final ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+            ciphertext.write(cipher.processBytes(new PlainDataContainer(content)).getContent());
+            final EncryptedDataContainer last = cipher.doFinal();
+            ciphertext.write(last.getContent());
+            final InputStream in = new TripleCryptInputStream(new ByteArrayInputStream(ciphertext.toByteArray()),
+                Crypto.createFileDecryptionCipher(key), last.getTag());
+            final ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+            // Read with buffer not aligned to chunks
+            final byte[] buffer = new byte[8191];
+            int read;
+            while(IOUtils.EOF != (read = in.read(buffer))) {
+                plaintext.write(buffer, 0, read);
+            }
+            assertEquals(IOUtils.EOF, in.read());
+            in.close();
+            assertArrayEquals(content, plaintext.toByteArray());
+        }
+    }
+}
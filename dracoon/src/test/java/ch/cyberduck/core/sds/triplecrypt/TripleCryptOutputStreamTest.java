@@ -0,0 +1,85 @@
+package ch.cyberduck.core.sds.triplecrypt;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Host;
+import ch.cyberduck.core.io.VoidStatusOutputStream;
+import ch.cyberduck.core.sds.SDSApiClient;
+import ch.cyberduck.core.sds.SDSProtocol;
+import ch.cyberduck.core.sds.SDSSession;
+import ch.cyberduck.core.sds.io.swagger.client.model.FileKey;
+import ch.cyberduck.core.ssl.DefaultX509KeyManager;
+import ch.cyberduck.core.ssl.DisabledX509TrustManager;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.RandomUtils;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.dracoon.sdk.crypto.Crypto;
+import com.dracoon.sdk.crypto.CryptoUtils;
+import com.dracoon.sdk.crypto.model.PlainFileKey;
+
+import static org.junit.Assert.*;
+
+public class TripleCryptOutputStreamTest {
+
+    @Test
+    public void testWrite() throws Exception {
+        final SDSApiClient client = new SDSApiClient(HttpClients.createDefault());
+        final SDSSession session = new SDSSession(new Host(new SDSProtocol()), new DisabledX509TrustManager(), new DefaultX509KeyManager()) {
+            @Override
+            public SDSApiClient getClient() {
+                return client;
+            }
+        };
+        for(int length : new int[]{1, SDSSession.DEFAULT_CHUNKSIZE - 1, SDSSession.DEFAULT_CHUNKSIZE,
+            SDSSession.DEFAULT_CHUNKSIZE + 1, 2 * SDSSession.DEFAULT_CHUNKSIZE + 1}) {
+            final byte[] content = RandomUtils.nextBytes(length);
+            // Content surrounded by other bytes to write with non zero offset
+            final int off = 7;
+            final byte[] b = new byte[off + length + off];
+            System.arraycopy(content, 0, b, off, length);
+            // Write all at once and in writes not aligned to chunks
+            for(int size : new int[]{length, 8191}) {
+                final PlainFileKey key = Crypto.generateFileKey(PlainFileKey.Version.AES256GCM);
+                final TransferStatus status = new TransferStatus();
+                final ByteArrayOutputStream filekey = new ByteArrayOutputStream();
+                client.getJSON().getContext(null).writerFor(FileKey.class).writeValue(filekey, TripleCryptConverter.toSwaggerFileKey(key));
+                status.setFilekey(ByteBuffer.wrap(filekey.toByteArray()));
+                final ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+                final TripleCryptOutputStream<Void> out = new TripleCryptOutputStream<>(session, new VoidStatusOutputStream(ciphertext),
+                    Crypto.createFileEncryptionCipher(key), status);
+                for(int offset = 0; offset < length; offset += size) {
+                    out.write(b, off + offset, Math.min(size, length - offset));
+                }
+                out.close();
+                final FileKey result = client.getJSON().getContext(null).readerFor(FileKey.class).readValue(status.getFilekey().array());
+                assertNotNull(result.getTag());
+                final InputStream in = new TripleCryptInputStream(new ByteArrayInputStream(ciphertext.toByteArray()),
+                    Crypto.createFileDecryptionCipher(key), CryptoUtils.stringToByteArray(result.getTag()));
+                assertArrayEquals(content, IOUtils.toByteArray(in));
+                in.close();
+            }
+        }
+    }
+}
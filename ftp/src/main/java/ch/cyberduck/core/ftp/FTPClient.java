@@ -19,7 +19,13 @@ package ch.cyberduck.core.ftp;
  * dkocher@cyberduck.ch
  */
 
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.Path;
 import ch.cyberduck.core.Protocol;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.ftp.list.FTPDataResponseReader;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 
@@ -47,9 +53,11 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class FTPClient extends FTPSClient {
@@ -203,6 +211,96 @@ public class FTPClient extends FTPSClient {
         return results;
     }
 
+    /**
+     * Parse listing while reading lines from the data connection instead of reading the complete reply first
+     *
+     * @param command   Listing command
+     * @param pathname  Argument or null
+     * @param directory Directory to list
+     * @param reader    Parser for lines read from data connection
+     * @param listener  Notified with chunks of parsed entries
+     * @return Parsed entries
+     */
+    public AttributedList<Path> list(final FTPCmd command, final String pathname, final Path directory,
+                                     final FTPDataResponseReader reader, final ListProgressListener listener) throws IOException, BackgroundException {
+        this.pret(command, pathname);
+
+        final Socket socket = _openDataConnection_(command, pathname);
+
+        final BufferedReader in = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), getControlEncoding()));
+        final LineIterator lines = new LineIterator(in);
+        AttributedList<Path> list = null;
+        BackgroundException failure = null;
+        try {
+            list = reader.read(directory, lines, listener);
+        }
+        catch(BackgroundException e) {
+            failure = e;
+        }
+        finally {
+            in.close();
+            socket.close();
+        }
+        // Read reply for transfer also when parsing is interrupted
+        final boolean complete = this.completePendingCommand();
+        if(failure instanceof ConnectionCanceledException) {
+            throw failure;
+        }
+        if(null != lines.failure) {
+            throw lines.failure;
+        }
+        if(!complete) {
+            throw new FTPException(this.getReplyCode(), this.getReplyString());
+        }
+        if(null != failure) {
+            throw failure;
+        }
+        return list;
+    }
+
+    /**
+     * Lines read from data connection consumed once
+     */
+    private final class LineIterator implements Iterator<String> {
+        private final BufferedReader reader;
+        private String next;
+        /**
+         * Failure reading from data connection ending iteration
+         */
+        private IOException failure;
+
+        public LineIterator(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(null == next && null == failure) {
+                try {
+                    next = reader.readLine();
+                    if(null != next) {
+                        _commandSupport_.fireReplyReceived(-1, next);
+                    }
+                }
+                catch(IOException e) {
+                    failure = e;
+                }
+            }
+            return null != next;
+        }
+
+        @Override
+        public String next() {
+            if(!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final String line = next;
+            next = null;
+            return line;
+        }
+    }
+
     /**
      * Query the server for a supported feature, and returns its values (if any). Caches the parsed response to avoid
      * resending the command repeatedly.
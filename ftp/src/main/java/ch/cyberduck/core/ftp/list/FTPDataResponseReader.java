@@ -18,10 +18,24 @@ package ch.cyberduck.core.ftp.list;
 import ch.cyberduck.core.AttributedList;
 import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 
+import java.util.Iterator;
 import java.util.List;
 
 public interface FTPDataResponseReader {
 
-    AttributedList<Path> read(Path parent, List<String> replies, ListProgressListener listener) throws FTPInvalidListException;
+    default AttributedList<Path> read(Path parent, List<String> replies, ListProgressListener listener) throws FTPInvalidListException, ConnectionCanceledException {
+        return this.read(parent, replies.iterator(), listener);
+    }
+
+    /**
+     * Parse lines as they are read from the data connection
+     *
+     * @param parent   Directory
+     * @param replies  Lines of listing consumed once
+     * @param listener Notified with chunks of parsed entries
+     * @return Parsed entries
+     */
+    AttributedList<Path> read(Path parent, Iterator<String> replies, ListProgressListener listener) throws FTPInvalidListException, ConnectionCanceledException;
 }
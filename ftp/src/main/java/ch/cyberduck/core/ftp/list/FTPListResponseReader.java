@@ -21,15 +21,21 @@ import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.Permission;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.ftp.parser.CompositeFileEntryParser;
 import ch.cyberduck.core.ftp.parser.FTPExtendedFile;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPFileEntryParser;
+import org.apache.commons.net.ftp.FTPFileEntryParserImpl;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 
 public class FTPListResponseReader implements FTPDataResponseReader {
@@ -37,25 +43,49 @@ public class FTPListResponseReader implements FTPDataResponseReader {
 
     private final FTPFileEntryParser parser;
     private final boolean lenient;
+    private final int chunksize;
 
     public FTPListResponseReader(final FTPFileEntryParser parser) {
         this(parser, false);
     }
 
     public FTPListResponseReader(final FTPFileEntryParser parser, final boolean lenient) {
+        this(parser, lenient, PreferencesFactory.get().getInteger("ftp.listing.chunksize"));
+    }
+
+    /**
+     * @param parser    Entry parser
+     * @param lenient   Skip entries matching the directory itself
+     * @param chunksize Number of entries after which to notify listener
+     */
+    public FTPListResponseReader(final FTPFileEntryParser parser, final boolean lenient, final int chunksize) {
         this.parser = parser;
         this.lenient = lenient;
+        this.chunksize = chunksize;
     }
 
     @Override
-    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener) throws FTPInvalidListException {
+    public AttributedList<Path> read(final Path directory, final Iterator<String> replies, final ListProgressListener listener)
+        throws FTPInvalidListException, ConnectionCanceledException {
         final AttributedList<Path> children = new AttributedList<Path>();
         // At least one entry successfully parsed
         boolean success = false;
-        // Call hook for those implementors which need to perform some action upon the list after it has been created
-        // from the server stream, but before any clients see the list
-        parser.preParse(replies);
-        for(String line : replies) {
+        final Iterator<String> lines;
+        if(isPreParse(parser)) {
+            final List<String> all = new ArrayList<>();
+            while(replies.hasNext()) {
+                all.add(replies.next());
+            }
+            // Call hook for those implementors which need to perform some action upon the list after it has been created
+            // from the server stream, but before any clients see the list
+            lines = parser.preParse(all).iterator();
+        }
+        else {
+            // Parse entries while reading remaining lines
+            lines = replies;
+        }
+        while(lines.hasNext()) {
+            final String line = lines.next();
             final FTPFile f = parser.parseFTPEntry(line);
             if(null == f) {
                 continue;
@@ -159,10 +189,35 @@ public class FTPListResponseReader implements FTPDataResponseReader {
                 parsed.attributes().setModificationDate(timestamp.getTimeInMillis());
             }
             children.add(parsed);
+            if(children.size() % chunksize == 0) {
+                // Notify with entries parsed so far while reading remaining lines
+                listener.chunk(directory, children);
+            }
         }
         if(!success) {
             throw new FTPInvalidListException(children);
         }
         return children;
     }
+
+    /**
+     * @param parser Entry parser
+     * @return False if lines are returned unchanged from pre parsing and entries can be parsed while reading the reply
+     */
+    private static boolean isPreParse(final FTPFileEntryParser parser) {
+        if(parser instanceof CompositeFileEntryParser) {
+            for(FTPFileEntryParser p : ((CompositeFileEntryParser) parser).getParsers()) {
+                if(isPreParse(p)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            return FTPFileEntryParserImpl.class != parser.getClass().getMethod("preParse", List.class).getDeclaringClass();
+        }
+        catch(NoSuchMethodException e) {
+            return true;
+        }
+    }
 }
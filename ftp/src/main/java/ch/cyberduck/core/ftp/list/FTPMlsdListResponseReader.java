@@ -23,6 +23,8 @@ import ch.cyberduck.core.Permission;
 import ch.cyberduck.core.date.InvalidDateException;
 import ch.cyberduck.core.date.MDTMMillisecondsDateFormatter;
 import ch.cyberduck.core.date.MDTMSecondsDateFormatter;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.commons.lang3.StringUtils;
@@ -30,140 +32,144 @@ import org.apache.log4j.Logger;
 
 import java.util.Date;
 import java.util.EnumSet;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Iterator;
 
 public class FTPMlsdListResponseReader implements FTPDataResponseReader {
     private static final Logger log = Logger.getLogger(FTPMlsdListResponseReader.class);
 
+    private final boolean permissions;
+    private final int chunksize;
+
     public FTPMlsdListResponseReader() {
-        //
+        this(PreferencesFactory.get());
+    }
+
+    public FTPMlsdListResponseReader(final Preferences preferences) {
+        this.permissions = preferences.getBoolean("ftp.parser.mlsd.perm.enable");
+        this.chunksize = preferences.getInteger("ftp.listing.chunksize");
     }
 
     @Override
-    public AttributedList<Path> read(final Path directory, final List<String> replies, final ListProgressListener listener) throws FTPInvalidListException {
+    public AttributedList<Path> read(final Path directory, final Iterator<String> replies, final ListProgressListener listener)
+        throws FTPInvalidListException, ConnectionCanceledException {
         final AttributedList<Path> children = new AttributedList<Path>();
         // At least one entry successfully parsed
         boolean success = false;
-        for(String line : replies) {
-            final Map<String, Map<String, String>> file = this.parseFacts(line);
-            if(null == file) {
+        // Reused for every line
+        final Facts facts = new Facts();
+        while(replies.hasNext()) {
+            final String line = replies.next();
+            if(!facts.parse(line)) {
                 log.error(String.format("Error parsing line %s", line));
                 continue;
             }
-            for(Map.Entry<String, Map<String, String>> f : file.entrySet()) {
-                final String name = f.getKey();
-                // size       -- Size in octets
-                // modify     -- Last modification time
-                // create     -- Creation time
-                // type       -- Entry type
-                // unique     -- Unique id of file/directory
-                // perm       -- File permissions, whether read, write, execute is allowed for the login id.
-                // lang       -- Language of the file name per IANA [11] registry.
-                // media-type -- MIME media-type of file contents per IANA registry.
-                // charset    -- Character set per IANA registry (if not UTF-8)
-                final Map<String, String> facts = f.getValue();
-                if(!facts.containsKey("type")) {
-                    log.error(String.format("No type fact in line %s", line));
+            final String name = facts.name;
+            // size       -- Size in octets
+            // modify     -- Last modification time
+            // create     -- Creation time
+            // type       -- Entry type
+            // unique     -- Unique id of file/directory
+            // perm       -- File permissions, whether read, write, execute is allowed for the login id.
+            // lang       -- Language of the file name per IANA [11] registry.
+            // media-type -- MIME media-type of file contents per IANA registry.
+            // charset    -- Character set per IANA registry (if not UTF-8)
+            if(null == facts.type) {
+                log.error(String.format("No type fact in line %s", line));
+                continue;
+            }
+            final Path parsed;
+            if("dir".equalsIgnoreCase(facts.type)) {
+                parsed = new Path(directory, PathNormalizer.name(name), EnumSet.of(Path.Type.directory));
+            }
+            else if("file".equalsIgnoreCase(facts.type)) {
+                parsed = new Path(directory, PathNormalizer.name(name), EnumSet.of(Path.Type.file));
+            }
+            else if(StringUtils.startsWithIgnoreCase(facts.type, "os.unix=slink:")) {
+                parsed = new Path(directory, PathNormalizer.name(name), EnumSet.of(Path.Type.file, Path.Type.symboliclink));
+                // Parse symbolic link target in Type=OS.unix=slink:/foobar;Perm=;Unique=keVO1+4G4; foobar
+                final String target = StringUtils.substringAfter(facts.type, ":");
+                if(StringUtils.isEmpty(target) || StringUtils.contains(target, ':')) {
+                    log.warn(String.format("Missing symbolic link target for type %s in line %s", facts.type, line));
                     continue;
                 }
-                final Path parsed;
-                if("dir".equals(facts.get("type").toLowerCase(Locale.ROOT))) {
-                    parsed = new Path(directory, PathNormalizer.name(f.getKey()), EnumSet.of(Path.Type.directory));
+                if(target.startsWith(String.valueOf(Path.DELIMITER))) {
+                    parsed.setSymlinkTarget(new Path(PathNormalizer.normalize(target), EnumSet.of(Path.Type.file)));
                 }
-                else if("file".equals(facts.get("type").toLowerCase(Locale.ROOT))) {
-                    parsed = new Path(directory, PathNormalizer.name(f.getKey()), EnumSet.of(Path.Type.file));
+                else {
+                    parsed.setSymlinkTarget(new Path(PathNormalizer.normalize(String.format("%s/%s", directory.getAbsolute(), target)), EnumSet.of(Path.Type.file)));
                 }
-                else if(facts.get("type").toLowerCase(Locale.ROOT).matches("os\\.unix=slink:.*")) {
-                    parsed = new Path(directory, PathNormalizer.name(f.getKey()), EnumSet.of(Path.Type.file, Path.Type.symboliclink));
-                    // Parse symbolic link target in Type=OS.unix=slink:/foobar;Perm=;Unique=keVO1+4G4; foobar
-                    final String[] type = facts.get("type").split(":");
-                    if(type.length == 2) {
-                        final String target = type[1];
-                        if(target.startsWith(String.valueOf(Path.DELIMITER))) {
-                            parsed.setSymlinkTarget(new Path(PathNormalizer.normalize(target), EnumSet.of(Path.Type.file)));
-                        }
-                        else {
-                            parsed.setSymlinkTarget(new Path(PathNormalizer.normalize(String.format("%s/%s", directory.getAbsolute(), target)), EnumSet.of(Path.Type.file)));
-                        }
-                    }
-                    else {
-                        log.warn(String.format("Missing symbolic link target for type %s in line %s", facts.get("type"), line));
-                        continue;
-                    }
+            }
+            else {
+                log.warn(String.format("Ignored type %s in line %s", facts.type, line));
+                continue;
+            }
+            if(!success) {
+                if(parsed.isDirectory() && directory.getName().equals(name)) {
+                    log.warn(String.format("Possibly bogus response line %s", line));
                 }
                 else {
-                    log.warn(String.format("Ignored type %s in line %s", facts.get("type"), line));
-                    continue;
+                    success = true;
                 }
-                if(!success) {
-                    if(parsed.isDirectory() && directory.getName().equals(name)) {
-                        log.warn(String.format("Possibly bogus response line %s", line));
-                    }
-                    else {
-                        success = true;
-                    }
+            }
+            if(name.equals(".") || name.equals("..")) {
+                if(log.isDebugEnabled()) {
+                    log.debug(String.format("Skip %s", name));
                 }
-                if(name.equals(".") || name.equals("..")) {
-                    if(log.isDebugEnabled()) {
-                        log.debug(String.format("Skip %s", name));
+                continue;
+            }
+            if(facts.size != null) {
+                parsed.attributes().setSize(Long.parseLong(facts.size));
+            }
+            if(facts.uid != null) {
+                parsed.attributes().setOwner(facts.uid);
+            }
+            if(facts.owner != null) {
+                parsed.attributes().setOwner(facts.owner);
+            }
+            if(facts.gid != null) {
+                parsed.attributes().setGroup(facts.gid);
+            }
+            if(facts.group != null) {
+                parsed.attributes().setGroup(facts.group);
+            }
+            if(facts.mode != null) {
+                parsed.attributes().setPermission(new Permission(facts.mode));
+            }
+            else if(facts.perm != null) {
+                if(permissions) {
+                    Permission.Action user = Permission.Action.none;
+                    final String flags = facts.perm;
+                    if(StringUtils.contains(flags, 'r') || StringUtils.contains(flags, 'l')) {
+                        // RETR command may be applied to that object
+                        // Listing commands, LIST, NLST, and MLSD may be applied
+                        user = user.or(Permission.Action.read);
                     }
-                    continue;
-                }
-                if(facts.containsKey("size")) {
-                    parsed.attributes().setSize(Long.parseLong(facts.get("size")));
-                }
-                if(facts.containsKey("unix.uid")) {
-                    parsed.attributes().setOwner(facts.get("unix.uid"));
-                }
-                if(facts.containsKey("unix.owner")) {
-                    parsed.attributes().setOwner(facts.get("unix.owner"));
-                }
-                if(facts.containsKey("unix.gid")) {
-                    parsed.attributes().setGroup(facts.get("unix.gid"));
-                }
-                if(facts.containsKey("unix.group")) {
-                    parsed.attributes().setGroup(facts.get("unix.group"));
-                }
-                if(facts.containsKey("unix.mode")) {
-                    parsed.attributes().setPermission(new Permission(facts.get("unix.mode")));
-                }
-                else if(facts.containsKey("perm")) {
-                    if(PreferencesFactory.get().getBoolean("ftp.parser.mlsd.perm.enable")) {
-                        Permission.Action user = Permission.Action.none;
-                        final String flags = facts.get("perm");
-                        if(StringUtils.contains(flags, 'r') || StringUtils.contains(flags, 'l')) {
-                            // RETR command may be applied to that object
-                            // Listing commands, LIST, NLST, and MLSD may be applied
+                    if(StringUtils.contains(flags, 'w') || StringUtils.contains(flags, 'm') || StringUtils.contains(flags, 'c')) {
+                        user = user.or(Permission.Action.write);
+                    }
+                    if(StringUtils.contains(flags, 'e')) {
+                        // CWD command naming the object should succeed
+                        user = user.or(Permission.Action.execute);
+                        if(parsed.isDirectory()) {
                             user = user.or(Permission.Action.read);
                         }
-                        if(StringUtils.contains(flags, 'w') || StringUtils.contains(flags, 'm') || StringUtils.contains(flags, 'c')) {
-                            user = user.or(Permission.Action.write);
-                        }
-                        if(StringUtils.contains(flags, 'e')) {
-                            // CWD command naming the object should succeed
-                            user = user.or(Permission.Action.execute);
-                            if(parsed.isDirectory()) {
-                                user = user.or(Permission.Action.read);
-                            }
-                        }
-                        final Permission permission = new Permission(user, Permission.Action.none, Permission.Action.none);
-                        parsed.attributes().setPermission(permission);
                     }
+                    final Permission permission = new Permission(user, Permission.Action.none, Permission.Action.none);
+                    parsed.attributes().setPermission(permission);
                 }
-                if(facts.containsKey("modify")) {
-                    // Time values are always represented in UTC
-                    parsed.attributes().setModificationDate(this.parseTimestamp(facts.get("modify")));
-                }
-                if(facts.containsKey("create")) {
-                    // Time values are always represented in UTC
-                    parsed.attributes().setCreationDate(this.parseTimestamp(facts.get("create")));
-                }
-                children.add(parsed);
+            }
+            if(facts.modify != null) {
+                // Time values are always represented in UTC
+                parsed.attributes().setModificationDate(this.parseTimestamp(facts.modify));
+            }
+            if(facts.create != null) {
+                // Time values are always represented in UTC
+                parsed.attributes().setCreationDate(this.parseTimestamp(facts.create));
+            }
+            children.add(parsed);
+            if(success && children.size() % chunksize == 0) {
+                // Notify with entries parsed so far while reading remaining lines
+                listener.chunk(directory, children);
             }
         }
         if(!success) {
@@ -215,45 +221,106 @@ public class FTPMlsdListResponseReader implements FTPDataResponseReader {
      * size=4161;lang=en-US;modify=19970214165800;create=19961001124534;
      * type=file;x.myfact=foo,bar;
      * <p/>
-     * This document defines a standard set of facts as follows:
-     * <p/>
-     * size       -- Size in octets
-     * modify     -- Last modification time
-     * create     -- Creation time
-     * type       -- Entry type
-     * unique     -- Unique id of file/directory
-     * perm       -- File permissions, whether read, write, execute is
-     * allowed for the login id.
-     * lang       -- Language of the file name per IANA [11] registry.
-     * media-type -- MIME media-type of file contents per IANA registry.
-     * charset    -- Character set per IANA registry (if not UTF-8)
-     *
-     * @param line The "facts" for a file in a reply to a MLSx command
-     * @return Parsed keys and values
+     * Tokenizes the line in place without regular expressions and only keeps values of facts that are evaluated.
      */
-    protected Map<String, Map<String, String>> parseFacts(final String line) {
-        final Pattern p = Pattern.compile("\\s?(\\S+\\=\\S+;)*\\s(.*)");
-        final Matcher result = p.matcher(line);
-        final Map<String, Map<String, String>> file = new HashMap<String, Map<String, String>>();
-        if(result.matches()) {
-            final String filename = result.group(2);
-            final Map<String, String> facts = new HashMap<String, String>();
-            for(String fact : result.group(1).split(";")) {
-                String key = StringUtils.substringBefore(fact, "=");
-                if(StringUtils.isBlank(key)) {
-                    continue;
-                }
-                String value = StringUtils.substringAfter(fact, "=");
-                if(StringUtils.isBlank(value)) {
-                    continue;
+    private static final class Facts {
+        String name;
+        String type;
+        String size;
+        String modify;
+        String create;
+        String perm;
+        String mode;
+        String uid;
+        String owner;
+        String gid;
+        String group;
+
+        /**
+         * @param line The "facts" for a file in a reply to a MLSx command followed by a single space and the filename
+         * @return False if the line does not match the expected format
+         */
+        boolean parse(final String line) {
+            name = type = size = modify = create = perm = mode = uid = owner = gid = group = null;
+            final int length = line.length();
+            int offset = 0;
+            if(offset < length && Character.isWhitespace(line.charAt(offset))) {
+                offset++;
+            }
+            // Facts end with the first whitespace
+            int separator = offset;
+            while(separator < length && !Character.isWhitespace(line.charAt(separator))) {
+                separator++;
+            }
+            if(separator == length || separator == offset || line.charAt(separator - 1) != ';') {
+                log.warn(String.format("No match for %s", line));
+                return false;
+            }
+            // Filename may itself start with whitespace
+            name = line.substring(separator + 1);
+            int start = offset;
+            while(start < separator) {
+                final int end = line.indexOf(';', start);
+                final int equals = line.indexOf('=', start);
+                if(equals > start && equals < end - 1) {
+                    this.fact(line, start, equals - start, equals + 1, end);
                 }
-                facts.put(key.toLowerCase(Locale.ROOT), value);
+                start = end + 1;
             }
-            file.put(filename, facts);
-            return file;
+            return true;
         }
-        log.warn(String.format("No match for %s", line));
-        return null;
-    }
 
+        private void fact(final String line, final int key, final int length, final int begin, final int end) {
+            switch(length) {
+                case 4:
+                    if(line.regionMatches(true, key, "type", 0, length)) {
+                        type = this.value(line, begin, end);
+                    }
+                    else if(line.regionMatches(true, key, "size", 0, length)) {
+                        size = this.value(line, begin, end);
+                    }
+                    else if(line.regionMatches(true, key, "perm", 0, length)) {
+                        perm = this.value(line, begin, end);
+                    }
+                    break;
+                case 6:
+                    if(line.regionMatches(true, key, "modify", 0, length)) {
+                        modify = this.value(line, begin, end);
+                    }
+                    else if(line.regionMatches(true, key, "create", 0, length)) {
+                        create = this.value(line, begin, end);
+                    }
+                    break;
+                case 8:
+                    if(line.regionMatches(true, key, "unix.uid", 0, length)) {
+                        uid = this.value(line, begin, end);
+                    }
+                    else if(line.regionMatches(true, key, "unix.gid", 0, length)) {
+                        gid = this.value(line, begin, end);
+                    }
+                    break;
+                case 9:
+                    if(line.regionMatches(true, key, "unix.mode", 0, length)) {
+                        mode = this.value(line, begin, end);
+                    }
+                    break;
+                case 10:
+                    if(line.regionMatches(true, key, "unix.owner", 0, length)) {
+                        owner = this.value(line, begin, end);
+                    }
+                    else if(line.regionMatches(true, key, "unix.group", 0, length)) {
+                        group = this.value(line, begin, end);
+                    }
+                    break;
+            }
+        }
+
+        private String value(final String line, final int begin, final int end) {
+            final String value = line.substring(begin, end);
+            if(StringUtils.isBlank(value)) {
+                return null;
+            }
+            return value;
+        }
+    }
 }
@@ -24,10 +24,13 @@ import ch.cyberduck.core.ftp.FTPParserSelector;
 import ch.cyberduck.core.ftp.parser.CompositeFileEntryParser;
 import ch.cyberduck.test.IntegrationTest;
 
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPFileEntryParserImpl;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -130,6 +133,54 @@ public class FTPListResponseReaderTest {
         assertFalse(parsed.attributes().getPermission().isSetgid());
     }
 
+    @Test
+    public void testChunk() throws Exception {
+        final CompositeFileEntryParser parser = new FTPParserSelector().getParser("UNIX");
+        final List<Integer> chunks = new ArrayList<>();
+        final AttributedList<Path> list = new FTPListResponseReader(parser, false, 2).read(
+            new Path("/", EnumSet.of(Path.Type.directory)), Arrays.asList(
+                "total 3",
+                "-rw-r--r--   1 ftp      ftp            23 Feb 05 06:51 a",
+                "-rw-r--r--   1 ftp      ftp            23 Feb 05 06:51 b",
+                "-rw-r--r--   1 ftp      ftp            23 Feb 05 06:51 c"), new DisabledListProgressListener() {
+                @Override
+                public void chunk(final Path parent, final AttributedList<Path> list) {
+                    chunks.add(list.size());
+                }
+            });
+        assertEquals(3, list.size());
+        assertEquals(Collections.singletonList(2), chunks);
+    }
+
+    @Test
+    public void testPreParseAllLines() throws Exception {
+        final CompositeFileEntryParser parser = new CompositeFileEntryParser(Arrays.asList(
+            new FTPParserSelector().getParser("UNIX"),
+            new FTPFileEntryParserImpl() {
+                @Override
+                public FTPFile parseFTPEntry(final String entry) {
+                    return null;
+                }
+
+                @Override
+                public List<String> preParse(final List<String> original) {
+                    // Only keep last entry
+                    original.subList(0, original.size() - 1).clear();
+                    return original;
+                }
+            }
+        ));
+        // More lines than chunk size
+        final AttributedList<Path> list = new FTPListResponseReader(parser, false, 2).read(
+            new Path("/", EnumSet.of(Path.Type.directory)), Arrays.asList(
+                "-rw-r--r--   1 ftp      ftp            23 Feb 05 06:51 a",
+                "-rw-r--r--   1 ftp      ftp            23 Feb 05 06:51 b",
+                "-rw-r--r--   1 ftp      ftp            23 Feb 05 06:51 c",
+                "-rw-r--r--   1 ftp      ftp            23 Feb 05 06:51 d"), new DisabledListProgressListener());
+        assertEquals(1, list.size());
+        assertEquals("d", list.get(0).getName());
+    }
+
     @Test(expected = ListCanceledException.class)
     @Ignore
     public void testLimit() throws Exception {
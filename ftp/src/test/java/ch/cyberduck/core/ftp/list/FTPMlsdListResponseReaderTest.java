@@ -62,6 +62,27 @@ public class FTPMlsdListResponseReaderTest {
         assertEquals(Permission.EMPTY, children.get(2).attributes().getPermission());
     }
 
+    @Test
+    public void testParseFacts() throws Exception {
+        Path path = new Path(
+            "/www", EnumSet.of(Path.Type.directory));
+
+        String[] replies = new String[]{
+            "x.myfact=foo,bar;SIZE=4161;unix.owner=dkocher;Type=file;unix.mode=0644;lang=en-US; a;b=c",
+            "size=;type=file;nofact;=value; empty",
+            "type=file no facts",
+        };
+        final AttributedList<Path> children = new FTPMlsdListResponseReader()
+            .read(path, Arrays.asList(replies), new DisabledListProgressListener());
+        assertEquals(2, children.size());
+        assertEquals("a;b=c", children.get(0).getName());
+        assertEquals(4161L, children.get(0).attributes().getSize());
+        assertEquals("dkocher", children.get(0).attributes().getOwner());
+        assertEquals(new Permission("0644"), children.get(0).attributes().getPermission());
+        assertEquals("empty", children.get(1).getName());
+        assertEquals(-1L, children.get(1).attributes().getSize());
+    }
+
     @Test
     public void testParsePermissions() throws Exception {
         Path path = new Path(
@@ -112,6 +112,9 @@ public abstract class AbstractDriveListService implements ListService {
                         if(f.getExplicitlyTrashed()) {
                             properties.setDuplicate(true);
                         }
+                        else {
+                            fileid.cache(child, properties.getFileId());
+                        }
                         children.add(child);
                     }
                 }
@@ -28,8 +28,7 @@ import org.apache.http.client.HttpResponseException;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.google.api.client.googleapis.batch.BatchRequest;
@@ -52,7 +51,7 @@ public class DriveBatchDeleteFeature implements Delete {
     @Override
     public void delete(final Map<Path, TransferStatus> files, final PasswordCallback prompt, final Callback callback) throws BackgroundException {
         final BatchRequest batch = session.getClient().batch();
-        final List<BackgroundException> failures = new ArrayList<>();
+        final Map<Path, BackgroundException> failures = new LinkedHashMap<>();
         for(Path file : files.keySet()) {
             try {
                 if(DriveHomeFinderService.SHARED_DRIVES_NAME.equals(file.getParent())) {
@@ -85,18 +84,26 @@ public class DriveBatchDeleteFeature implements Delete {
             catch(IOException e) {
                 throw new DriveExceptionMappingService().map(e);
             }
-            for(BackgroundException e : failures) {
-                throw e;
+            for(Path file : files.keySet()) {
+                fileid.cache(file, null);
+            }
+            for(Map.Entry<Path, BackgroundException> failure : failures.entrySet()) {
+                callback.failure(failure.getKey(), failure.getValue());
             }
         }
     }
 
+    @Override
+    public boolean isStreaming(final Path file) {
+        return true;
+    }
+
     private static class DeleteBatchCallback<V> extends JsonBatchCallback<V> {
         private final Path file;
-        private final List<BackgroundException> failures;
+        private final Map<Path, BackgroundException> failures;
         private final Callback callback;
 
-        public DeleteBatchCallback(final Path file, final List<BackgroundException> failures, final Callback callback) {
+        public DeleteBatchCallback(final Path file, final Map<Path, BackgroundException> failures, final Callback callback) {
             this.file = file;
             this.failures = failures;
             this.callback = callback;
@@ -105,7 +112,7 @@ public class DriveBatchDeleteFeature implements Delete {
         @Override
         public void onFailure(final GoogleJsonError e, final HttpHeaders responseHeaders) {
             log.warn(String.format("Failure deleting %s. %s", file, e.getMessage()));
-            failures.add(new DefaultHttpResponseExceptionMappingService().map(
+            failures.put(file, new DefaultHttpResponseExceptionMappingService().map(
                 new HttpResponseException(e.getCode(), e.getMessage())));
         }
 
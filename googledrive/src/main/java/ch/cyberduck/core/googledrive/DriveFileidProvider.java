@@ -22,6 +22,7 @@ import ch.cyberduck.core.ListProgressListener;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.SimplePathPredicate;
+import ch.cyberduck.core.cache.FileidCache;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.IdProvider;
@@ -29,11 +30,10 @@ import ch.cyberduck.core.features.IdProvider;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.Comparator;
-
 public class DriveFileidProvider implements IdProvider {
 
     private final DriveSession session;
+    private final FileidCache index = new FileidCache();
 
     private Cache<Path> cache = PathCache.empty();
 
@@ -54,13 +54,17 @@ public class DriveFileidProvider implements IdProvider {
         }
         if(cache.isCached(file.getParent())) {
             final AttributedList<Path> list = cache.get(file.getParent());
-            final Path found = list.filter(new IgnoreTrashedComparator()).find(new SimplePathPredicate(file));
+            final Path found = this.find(list, file);
             if(null != found) {
-                if(StringUtils.isNotBlank(file.attributes().getFileId())) {
+                if(StringUtils.isNotBlank(found.attributes().getFileId())) {
                     return this.set(file, found.attributes().getFileId());
                 }
             }
         }
+        final String cached = index.get(file, cache);
+        if(null != cached) {
+            return this.set(file, cached);
+        }
         if(DriveHomeFinderService.SHARED_DRIVES_NAME.equals(file.getParent())) {
             final Path found = new DriveTeamDrivesListService(session).withCache(cache).list(file.getParent(), listener).find(
                 new SimplePathPredicate(file)
@@ -78,18 +82,35 @@ public class DriveFileidProvider implements IdProvider {
             query = file;
         }
         final AttributedList<Path> list = new FileidDriveListService(session, this, query).list(file.getParent(), new DisabledListProgressListener());
-        final Path found = list.filter(new IgnoreTrashedComparator()).find(new SimplePathPredicate(file));
+        final Path found = this.find(list, file);
         if(null == found) {
             throw new NotfoundException(file.getAbsolute());
         }
         return this.set(file, found.attributes().getFileId());
     }
 
+    /**
+     * @return File in list preferring files not trashed
+     */
+    private Path find(final AttributedList<Path> list, final Path file) {
+        final Path found = list.find(new IgnoreTrashedPathPredicate(file));
+        if(null == found) {
+            return list.find(new SimplePathPredicate(file));
+        }
+        return found;
+    }
+
     protected String set(final Path file, final String id) {
         file.attributes().setFileId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
     @Override
     public DriveFileidProvider withCache(final Cache<Path> cache) {
         this.cache = cache;
@@ -110,11 +131,4 @@ public class DriveFileidProvider implements IdProvider {
             return super.test(test);
         }
     }
-
-    private static final class IgnoreTrashedComparator implements Comparator<Path> {
-        @Override
-        public int compare(final Path o1, final Path o2) {
-            return Boolean.compare(o1.attributes().isDuplicate(), o2.attributes().isDuplicate());
-        }
-    }
 }
@@ -158,6 +158,7 @@ public class DriveWriteFeature extends AbstractHttpWriteFeature<String> implemen
                                                 final String value = reader.nextString();
                                                 switch(name) {
                                                     case "id":
+                                                        fileid.cache(file, value);
                                                         return value;
                                                 }
                                             }
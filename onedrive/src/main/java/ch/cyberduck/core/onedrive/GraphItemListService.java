@@ -47,6 +47,13 @@ public class GraphItemListService extends AbstractItemListService {
         return Files.getFiles(folder, PreferencesFactory.get().getInteger("onedrive.listing.chunksize"));
     }
 
+    @Override
+    protected Path toPath(final DriveItem.Metadata metadata, final Path directory) {
+        final Path file = super.toPath(metadata, directory);
+        idProvider.cache(file, file.attributes().getFileId());
+        return file;
+    }
+
     @Override
     public ListService withCache(final Cache<Path> cache) {
         idProvider.withCache(cache);
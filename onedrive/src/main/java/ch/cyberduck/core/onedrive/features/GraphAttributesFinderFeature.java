@@ -58,7 +58,9 @@ public class GraphAttributesFinderFeature implements AttributesFinder {
         final DriveItem item = session.toItem(file);
         try {
             final DriveItem.Metadata metadata = item.getMetadata();
-            return this.toAttributes(metadata);
+            final PathAttributes attributes = this.toAttributes(metadata);
+            idProvider.cache(file, attributes.getFileId());
+            return attributes;
         }
         catch(OneDriveAPIException e) {
             throw new GraphExceptionMappingService().map("Failure to read attributes of {0}", e, file);
@@ -22,6 +22,7 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathAttributes;
 import ch.cyberduck.core.ProgressListener;
 import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.exception.InteroperabilityException;
 import ch.cyberduck.core.exception.RetriableAccessDeniedException;
 import ch.cyberduck.core.features.AttributesFinder;
@@ -29,21 +30,25 @@ import ch.cyberduck.core.features.Find;
 import ch.cyberduck.core.features.MultipartWrite;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpResponseOutputStream;
-import ch.cyberduck.core.io.BufferInputStream;
 import ch.cyberduck.core.io.BufferOutputStream;
-import ch.cyberduck.core.io.FileBuffer;
+import ch.cyberduck.core.io.DeferredBufferInputStream;
+import ch.cyberduck.core.io.DeferredFileBuffer;
 import ch.cyberduck.core.onedrive.GraphSession;
 import ch.cyberduck.core.shared.DefaultAttributesFinderFeature;
 import ch.cyberduck.core.shared.DefaultFindFeature;
 import ch.cyberduck.core.threading.BackgroundActionState;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
 import ch.cyberduck.core.transfer.TransferStatus;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class GraphBufferWriteFeature implements MultipartWrite<Void> {
     private static final Logger log = Logger.getLogger(GraphBufferWriteFeature.class);
@@ -66,8 +71,50 @@ public class GraphBufferWriteFeature implements MultipartWrite<Void> {
 
     @Override
     public HttpResponseOutputStream<Void> write(final Path file, final TransferStatus status, final ConnectionCallback callback) {
-        final FileBuffer buffer = new FileBuffer();
+        final DeferredFileBuffer buffer = new DeferredFileBuffer();
+        final Future<Void> upload;
+        if(status.getLength() > 0L) {
+            // Start upload session with known length while data is still written to buffer
+            final ThreadPool pool = ThreadPoolFactory.get("upload", 1);
+            upload = pool.execute(new BackgroundExceptionCallable<Void>() {
+                @Override
+                public Void call() throws BackgroundException {
+                    try {
+                        upload(file, new TransferStatus(status).append(false), buffer, status, callback);
+                        return null;
+                    }
+                    finally {
+                        // Release memory and temporary file also when the writer fails without closing the stream
+                        buffer.close();
+                    }
+                }
+            });
+            // Terminate thread after upload without waiting
+            pool.executor().shutdown();
+        }
+        else {
+            upload = null;
+        }
         return new HttpResponseOutputStream<Void>(new BufferOutputStream(buffer) {
+            @Override
+            public void write(final byte[] bytes, final int off, final int len) throws IOException {
+                try {
+                    super.write(bytes, off, len);
+                }
+                catch(IOException e) {
+                    if(null != upload && upload.isDone()) {
+                        // Buffer closed after upload failed
+                        try {
+                            this.await(upload);
+                        }
+                        catch(BackgroundException failure) {
+                            throw new IOException(failure);
+                        }
+                    }
+                    throw e;
+                }
+            }
+
             @Override
             public void flush() {
                 //
@@ -76,43 +123,48 @@ public class GraphBufferWriteFeature implements MultipartWrite<Void> {
             @Override
             public void close() throws IOException {
                 try {
-                    // Reset offset in transfer status because data was already streamed
-                    // through StreamCopier when writing to buffer
-                    final TransferStatus range = new TransferStatus(status).length(buffer.length()).append(false);
-                    if(0L == buffer.length()) {
-                        new GraphTouchFeature(session, idProvider).touch(file, new TransferStatus());
+                    buffer.finish();
+                    if(null == upload) {
+                        // Reset offset in transfer status because data was already streamed
+                        // through StreamCopier when writing to buffer
+                        final TransferStatus range = new TransferStatus(status).length(buffer.length()).append(false);
+                        if(0L == buffer.length()) {
+                            new GraphTouchFeature(session, idProvider).touch(file, new TransferStatus());
+                        }
+                        else {
+                            upload(file, range, buffer, status, callback);
+                        }
                     }
                     else {
-                        final HttpResponseOutputStream<Void> out = new GraphWriteFeature(session, idProvider).write(file,
-                            range, callback);
-                        new DefaultRetryCallable<Void>(session.getHost(), new BackgroundExceptionCallable<Void>() {
-                            @Override
-                            public Void call() throws BackgroundException {
-                                try {
-                                    IOUtils.copy(new BufferInputStream(buffer), out);
-                                    out.close();
-                                    log.info(String.format("Completed upload for %s with status %s", file, range));
-                                    return null;
-                                }
-                                catch(IOException e) {
-                                    throw new DefaultIOExceptionMappingService().map(e);
-                                }
-                            }
-                        }, status) {
-                            @Override
-                            public boolean retry(final BackgroundException failure, final ProgressListener progress, final BackgroundActionState cancel) {
-                                if(failure instanceof InteroperabilityException) {
-                                    return super.retry(new RetriableAccessDeniedException(failure.getDetail(), failure), progress, cancel);
-                                }
-                                return super.retry(failure, progress, cancel);
-                            }
-                        }.call();
+                        this.await(upload);
                     }
                     super.close();
                 }
                 catch(BackgroundException e) {
                     throw new IOException(e);
                 }
+                finally {
+                    buffer.close();
+                }
+            }
+
+            private void await(final Future<Void> upload) throws BackgroundException {
+                try {
+                    upload.get();
+                }
+                catch(InterruptedException e) {
+                    log.error("Upload failed with interrupt failure");
+                    // Buffer is only released when the upload has stopped reading
+                    upload.cancel(true);
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    log.warn(String.format("Upload failed with execution failure %s", e.getMessage()));
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
             }
         }) {
             @Override
@@ -122,6 +174,41 @@ public class GraphBufferWriteFeature implements MultipartWrite<Void> {
         };
     }
 
+    /**
+     * Upload content of buffer
+     *
+     * @param range  Length of upload
+     * @param buffer Read until finished
+     * @param status Transfer status to check for cancel
+     */
+    private void upload(final Path file, final TransferStatus range, final DeferredFileBuffer buffer,
+                        final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        final HttpResponseOutputStream<Void> out = new GraphWriteFeature(session, idProvider).write(file,
+            range, callback);
+        new DefaultRetryCallable<Void>(session.getHost(), new BackgroundExceptionCallable<Void>() {
+            @Override
+            public Void call() throws BackgroundException {
+                try {
+                    IOUtils.copy(new DeferredBufferInputStream(buffer, status), out);
+                    out.close();
+                    log.info(String.format("Completed upload for %s with status %s", file, range));
+                    return null;
+                }
+                catch(IOException e) {
+                    throw new DefaultIOExceptionMappingService().map(e);
+                }
+            }
+        }, status) {
+            @Override
+            public boolean retry(final BackgroundException failure, final ProgressListener progress, final BackgroundActionState cancel) {
+                if(failure instanceof InteroperabilityException) {
+                    return super.retry(new RetriableAccessDeniedException(failure.getDetail(), failure), progress, cancel);
+                }
+                return super.retry(failure, progress, cancel);
+            }
+        }.call();
+    }
+
     @Override
     public Append append(final Path file, final Long length, final Cache<Path> cache) throws BackgroundException {
         if(finder.withCache(cache).find(file)) {
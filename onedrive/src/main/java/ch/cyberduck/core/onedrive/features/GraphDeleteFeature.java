@@ -21,6 +21,7 @@ import ch.cyberduck.core.Path;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.features.IdProvider;
 import ch.cyberduck.core.onedrive.GraphExceptionMappingService;
 import ch.cyberduck.core.onedrive.GraphSession;
 import ch.cyberduck.core.transfer.TransferStatus;
@@ -37,9 +38,11 @@ public class GraphDeleteFeature implements Delete {
     private static final Logger logger = Logger.getLogger(GraphDeleteFeature.class);
 
     private final GraphSession session;
+    private final IdProvider idProvider;
 
     public GraphDeleteFeature(GraphSession session) {
         this.session = session;
+        this.idProvider = session._getFeature(IdProvider.class);
     }
 
     @Override
@@ -49,6 +52,7 @@ public class GraphDeleteFeature implements Delete {
             try {
                 final DriveItem item = session.toItem(file);
                 Files.delete(item);
+                idProvider.cache(file, null);
             }
             catch(NotfoundException e) {
                 logger.warn(String.format("Cannot delete %s. Not found.", file));
@@ -22,6 +22,7 @@ import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.SimplePathPredicate;
+import ch.cyberduck.core.cache.FileidCache;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.IdProvider;
@@ -32,6 +33,7 @@ import org.apache.commons.lang3.StringUtils;
 public class GraphFileIdProvider implements IdProvider {
 
     private final GraphSession session;
+    private final FileidCache index = new FileidCache();
     private Cache<Path> cache = PathCache.empty();
 
     public GraphFileIdProvider(final GraphSession session) {
@@ -52,6 +54,10 @@ public class GraphFileIdProvider implements IdProvider {
                 }
             }
         }
+        final String cached = index.get(file, cache);
+        if(null != cached) {
+            return this.set(file, cached);
+        }
         final AttributedList<Path> list = session._getFeature(ListService.class).list(file.getParent(), listener);
         final Path found = list.find(path -> file.getAbsolute().equals(path.getAbsolute()));
         if(null == found) {
@@ -62,9 +68,15 @@ public class GraphFileIdProvider implements IdProvider {
 
     protected String set(final Path file, final String id) {
         file.attributes().setFileId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
     @Override
     public IdProvider withCache(final Cache<Path> cache) {
         this.cache = cache;
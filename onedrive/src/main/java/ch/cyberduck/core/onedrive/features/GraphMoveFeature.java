@@ -71,6 +71,7 @@ public class GraphMoveFeature implements Move {
         final DriveItem item = session.toItem(file);
         try {
             Files.patch(item, patchOperation);
+            idProvider.cache(file, null);
         }
         catch(OneDriveAPIException e) {
             throw new GraphExceptionMappingService().map("Cannot rename {0}", e, file);
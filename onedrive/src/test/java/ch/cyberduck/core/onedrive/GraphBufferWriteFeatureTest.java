@@ -19,6 +19,8 @@ import ch.cyberduck.core.AlphanumericRandomStringService;
 import ch.cyberduck.core.DisabledConnectionCallback;
 import ch.cyberduck.core.DisabledLoginCallback;
 import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.features.Delete;
 import ch.cyberduck.core.http.HttpResponseOutputStream;
 import ch.cyberduck.core.io.StreamCopier;
@@ -32,12 +34,15 @@ import ch.cyberduck.core.transfer.TransferStatus;
 import ch.cyberduck.test.IntegrationTest;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BrokenInputStream;
 import org.apache.commons.lang3.RandomUtils;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.Collections;
 import java.util.EnumSet;
 
@@ -166,4 +171,36 @@ public class GraphBufferWriteFeatureTest extends AbstractOneDriveTest {
         assertArrayEquals(content, compare);
         new GraphDeleteFeature(session).delete(Collections.singletonList(file), new DisabledLoginCallback(), new Delete.DisabledCallback());
     }
+
+    @Test
+    public void testWriteFailureReadingLocal() throws Exception {
+        final GraphBufferWriteFeature feature = new GraphBufferWriteFeature(session, new GraphFileIdProvider(session));
+        final Path container = new OneDriveHomeFinderService().find();
+        final byte[] content = RandomUtils.nextBytes(5 * 1024);
+        final TransferStatus status = new TransferStatus();
+        status.setLength(content.length);
+        final Path file = new Path(container, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.file));
+        final HttpResponseOutputStream<Void> out = feature.write(file, status, new DisabledConnectionCallback());
+        // Fails after half of the content is read
+        final InputStream in = new SequenceInputStream(new ByteArrayInputStream(content, 0, content.length / 2), new BrokenInputStream());
+        try {
+            new StreamCopier(status, status).transfer(in, out);
+            fail();
+        }
+        catch(BackgroundException e) {
+            // Expected
+        }
+        // Output stream is not closed after failure
+        status.setCanceled();
+        Thread.sleep(2000L);
+        try {
+            out.write(content);
+            fail();
+        }
+        catch(IOException e) {
+            // Upload canceled and buffer released
+            assertTrue(e.getCause() instanceof ConnectionCanceledException);
+        }
+        assertFalse(new DefaultFindFeature(session).find(file));
+    }
 }
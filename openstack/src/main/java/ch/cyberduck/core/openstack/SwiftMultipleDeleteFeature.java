@@ -122,4 +122,9 @@ public class SwiftMultipleDeleteFeature implements Delete {
             }
         }
     }
+
+    @Override
+    public boolean isStreaming(final Path file) {
+        return true;
+    }
 }
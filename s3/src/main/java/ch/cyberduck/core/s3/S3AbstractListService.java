@@ -18,8 +18,15 @@ package ch.cyberduck.core.s3;
 import ch.cyberduck.core.ListService;
 import ch.cyberduck.core.Path;
 import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.PathNormalizer;
+import ch.cyberduck.core.URIEncoder;
+import ch.cyberduck.core.exception.NotfoundException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.StorageObjectsChunk;
+
+import java.util.Arrays;
 
 public abstract class S3AbstractListService implements ListService {
 
@@ -52,4 +59,25 @@ public abstract class S3AbstractListService implements ListService {
         }
         return prefix;
     }
+
+    /**
+     * Called when no placeholder and no keys are found with the prefix of the directory
+     *
+     * @param delimiter Delimiter used for listing or null
+     * @throws NotfoundException No common prefix for directory found
+     */
+    protected void verify(final S3Session session, final Path directory, final String delimiter) throws ServiceException, NotfoundException {
+        // Only for AWS
+        if(S3Session.isAwsHostname(session.getHost().getHostname())) {
+            throw new NotfoundException(directory.getAbsolute());
+        }
+        // Handle missing prefix for directory placeholders in Minio
+        final Path bucket = containerService.getContainer(directory);
+        final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
+            PathNormalizer.name(URIEncoder.encode(bucket.getName())), String.format("%s%s", this.createPrefix(directory.getParent()), directory.getName()), delimiter, 1, null);
+        final String prefix = this.createPrefix(directory);
+        if(Arrays.stream(chunk.getCommonPrefixes()).map(URIEncoder::decode).noneMatch(common -> common.equals(prefix))) {
+            throw new NotfoundException(directory.getAbsolute());
+        }
+    }
 }
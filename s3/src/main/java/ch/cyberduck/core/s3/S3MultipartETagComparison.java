@@ -0,0 +1,190 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.features.ETagComparison;
+import ch.cyberduck.core.io.Checksum;
+import ch.cyberduck.core.io.ChecksumCache;
+import ch.cyberduck.core.io.ChecksumComputeFactory;
+import ch.cyberduck.core.io.HashAlgorithm;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.synchronization.Comparison;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.transfer.TransferStatus;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compare local files with the ETag of objects uploaded with multipart uploads. The ETag is the MD5 hash of the
+ * concatenated MD5 hashes of all parts followed by the number of parts. The part size is not known and candidates are
+ * the part size used for multipart uploads and part sizes splitting the file into the number of parts given in the
+ * ETag. Parts are hashed concurrently and the ETag computed for a part size is cached.
+ */
+public class S3MultipartETagComparison implements ETagComparison {
+    private static final Logger log = Logger.getLogger(S3MultipartETagComparison.class);
+
+    private static final Pattern MULTIPART_ETAG = Pattern.compile("\"?([a-fA-F0-9]{32})-([0-9]+)\"?");
+
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    /**
+     * Shared pool to hash parts in parallel
+     */
+    private static final ThreadPool pool = ThreadPoolFactory.get("checksum",
+        Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Part size used for multipart uploads
+     */
+    private final long partsize;
+
+    public S3MultipartETagComparison() {
+        this(PreferencesFactory.get().getLong("s3.upload.multipart.size"));
+    }
+
+    /**
+     * @param partsize Part size used for multipart uploads
+     */
+    public S3MultipartETagComparison(final long partsize) {
+        this.partsize = partsize;
+    }
+
+    /**
+     * @param etag ETag
+     * @return True if ETag is the hash of a multipart upload
+     */
+    public static boolean isMultipart(final String etag) {
+        return StringUtils.isNotBlank(etag) && MULTIPART_ETAG.matcher(etag).matches();
+    }
+
+    @Override
+    public Comparison compare(final PathAttributes remote, final Local local, final ChecksumCache checksums) throws BackgroundException {
+        if(null != remote.getEncryption().key) {
+            // ETag is not derived from MD5 hashes of parts when encrypted with SSE-KMS
+            return Comparison.unknown;
+        }
+        final Matcher matcher = MULTIPART_ETAG.matcher(StringUtils.defaultString(remote.getETag()));
+        if(!matcher.matches()) {
+            return Comparison.unknown;
+        }
+        final int parts;
+        try {
+            parts = Integer.parseInt(matcher.group(2));
+        }
+        catch(NumberFormatException e) {
+            log.warn(String.format("Failure parsing number of parts in ETag %s", remote.getETag()));
+            return Comparison.unknown;
+        }
+        final String expected = String.format("%s-%d", matcher.group(1), parts);
+        final long length = local.attributes().getSize();
+        for(Long candidate : this.candidates(length, parts)) {
+            final String etag = checksums.compute(local, String.format("s3-multipart-%d", candidate),
+                () -> this.compute(local, length, candidate));
+            if(StringUtils.equalsIgnoreCase(expected, etag)) {
+                if(log.isInfoEnabled()) {
+                    log.info(String.format("Matched ETag %s for %s with part size %d", expected, local, candidate));
+                }
+                return Comparison.equal;
+            }
+        }
+        return Comparison.notequal;
+    }
+
+    /**
+     * @param length Length of file
+     * @param parts  Number of parts in multipart upload
+     * @return Part sizes splitting the file into the given number of parts
+     */
+    protected List<Long> candidates(final long length, final int parts) {
+        final Set<Long> candidates = new LinkedHashSet<>();
+        if(length <= 0 || parts <= 0) {
+            return new ArrayList<>(candidates);
+        }
+        // Part size used by S3MultipartUploadService
+        candidates.add(Math.max(length / (S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS - 1), partsize));
+        // Smallest part size and whole megabytes splitting file in number of parts
+        final long minimum = (length + parts - 1) / parts;
+        candidates.add((minimum + MEGABYTE - 1) / MEGABYTE * MEGABYTE);
+        candidates.add(minimum);
+        final List<Long> filtered = new ArrayList<>();
+        for(Long candidate : candidates) {
+            if(candidate > 0 && (length + candidate - 1) / candidate == parts) {
+                filtered.add(candidate);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * @param local    File
+     * @param length   Length of file
+     * @param partsize Part size
+     * @return ETag of multipart upload with given part size
+     */
+    public String compute(final Local local, final long length, final long partsize) throws BackgroundException {
+        final List<Future<Checksum>> parts = new ArrayList<>();
+        for(long offset = 0; offset < length; offset += partsize) {
+            final TransferStatus status = new TransferStatus().skip(offset).length(Math.min(partsize, length - offset));
+            parts.add(pool.execute(new BackgroundExceptionCallable<Checksum>() {
+                @Override
+                public Checksum call() throws BackgroundException {
+                    return ChecksumComputeFactory.get(HashAlgorithm.md5).compute(local.getInputStream(), status);
+                }
+            }));
+        }
+        try {
+            final StringBuilder concat = new StringBuilder();
+            for(Future<Checksum> part : parts) {
+                try {
+                    concat.append(part.get().hash);
+                }
+                catch(InterruptedException e) {
+                    throw new ConnectionCanceledException(e);
+                }
+                catch(ExecutionException e) {
+                    if(e.getCause() instanceof BackgroundException) {
+                        throw (BackgroundException) e.getCause();
+                    }
+                    throw new BackgroundException(e.getCause());
+                }
+            }
+            return String.format("%s-%d",
+                ChecksumComputeFactory.get(HashAlgorithm.md5).compute(concat.toString(), new TransferStatus()).hash, parts.size());
+        }
+        finally {
+            // Skip remaining parts on failure
+            for(Future<Checksum> part : parts) {
+                part.cancel(true);
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package ch.cyberduck.core.s3;
  */
 
 import ch.cyberduck.core.ConnectionCallback;
+import ch.cyberduck.core.DefaultIOExceptionMappingService;
 import ch.cyberduck.core.Local;
 import ch.cyberduck.core.LocaleFactory;
 import ch.cyberduck.core.Path;
@@ -27,21 +28,24 @@ import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.ChecksumException;
 import ch.cyberduck.core.exception.ConnectionCanceledException;
 import ch.cyberduck.core.exception.InteroperabilityException;
+import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.features.Upload;
 import ch.cyberduck.core.features.Write;
 import ch.cyberduck.core.http.HttpUploadFeature;
 import ch.cyberduck.core.io.BandwidthThrottle;
 import ch.cyberduck.core.io.ChecksumComputeFactory;
 import ch.cyberduck.core.io.HashAlgorithm;
+import ch.cyberduck.core.io.StreamCopier;
 import ch.cyberduck.core.io.StreamListener;
 import ch.cyberduck.core.io.StreamProgress;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 import ch.cyberduck.core.threading.BackgroundExceptionCallable;
 import ch.cyberduck.core.threading.DefaultRetryCallable;
-import ch.cyberduck.core.threading.ThreadPool;
-import ch.cyberduck.core.threading.ThreadPoolFactory;
+import ch.cyberduck.core.threading.PartScheduler;
+import ch.cyberduck.core.transfer.TransferJournal;
 import ch.cyberduck.core.transfer.TransferStatus;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.jets3t.service.ServiceException;
@@ -51,15 +55,20 @@ import org.jets3t.service.model.MultipartUpload;
 import org.jets3t.service.model.S3Object;
 import org.jets3t.service.model.StorageObject;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.security.MessageDigest;
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, MessageDigest> {
     private static final Logger log = Logger.getLogger(S3MultipartUploadService.class);
@@ -74,6 +83,16 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
      */
     private final Long partsize;
     private final Integer concurrency;
+    /**
+     * Maximum size of part to read into memory to compute checksum and upload from the same buffer
+     */
+    private final Long buffersize = PreferencesFactory.get().getLong("s3.upload.multipart.buffer.size");
+
+    /**
+     * Bytes available for part buffers shared by all uploads
+     */
+    private static final Semaphore memory = new Semaphore((int) Math.min(Integer.MAX_VALUE,
+        PreferencesFactory.get().getLong("s3.upload.multipart.buffer.total")));
 
     public S3MultipartUploadService(final S3Session session, final Write<StorageObject> writer) {
         this(session, writer, PreferencesFactory.get().getLong("s3.upload.multipart.size"),
@@ -93,21 +112,66 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
     @Override
     public StorageObject upload(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
                                 final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
-        final ThreadPool pool = ThreadPoolFactory.get("multipart", concurrency);
+        final TransferJournal journal = status.getJournal();
+        if(status.isAppend() && null != journal && null != journal.find(file.getAbsolute(), status.getLength() + status.getOffset())) {
+            try {
+                return this.multipart(file, local, throttle, listener, status, callback);
+            }
+            catch(NotfoundException e) {
+                log.warn(String.format("Multipart upload for %s in journal %s no longer found. %s", file, journal, e));
+                // Discard aborted or expired upload and start new upload with full length
+                journal.complete(file.getAbsolute());
+                status.setLength(status.getLength() + status.getOffset());
+                status.setOffset(0L);
+                status.setAppend(false);
+            }
+        }
+        return this.multipart(file, local, throttle, listener, status, callback);
+    }
+
+    private StorageObject multipart(final Path file, final Local local, final BandwidthThrottle throttle, final StreamListener listener,
+                                    final TransferStatus status, final ConnectionCallback callback) throws BackgroundException {
+        final PartScheduler.Pool pool = PartScheduler.open(status, concurrency);
+        final TransferJournal journal = status.getJournal();
+        // Buffers for part contents reused by upload threads
+        final PartBuffers buffers = new PartBuffers();
         try {
+            // Full size of file
+            final long size = status.getLength() + status.getOffset();
             MultipartUpload multipart = null;
+            final List<MultipartPart> completed = new ArrayList<>();
+            if(status.isAppend() && null != journal) {
+                final String id = journal.find(file.getAbsolute(), size);
+                if(null != id) {
+                    if(log.isInfoEnabled()) {
+                        log.info(String.format("Resume multipart upload %s from journal %s", id, journal));
+                    }
+                    multipart = new MultipartUpload(id, containerService.getContainer(file).getName(), containerService.getKey(file));
+                    // Add parts completed previously without listing parts of upload
+                    for(TransferJournal.Part part : journal.parts(file.getAbsolute())) {
+                        completed.add(new MultipartPart(part.getNumber(), new Date(), part.getChecksum(), part.getLength()));
+                    }
+                }
+            }
             try {
-                if(status.isAppend()) {
+                if(status.isAppend() && null == multipart) {
                     final List<MultipartUpload> list = multipartService.find(file);
                     if(!list.isEmpty()) {
                         multipart = list.iterator().next();
+                        // Add already completed parts
+                        completed.addAll(multipartService.list(multipart));
+                        if(null != journal) {
+                            journal.start(file.getAbsolute(), multipart.getUploadId(), size);
+                            for(MultipartPart part : completed) {
+                                journal.part(file.getAbsolute(), new TransferJournal.Part(part.getPartNumber(), part.getSize(), part.getEtag()));
+                            }
+                        }
                     }
                 }
             }
             catch(AccessDeniedException | InteroperabilityException e) {
                 log.warn(String.format("Ignore failure listing incomplete multipart uploads. %s", e));
             }
-            final List<MultipartPart> completed = new ArrayList<>();
             // Not found or new upload
             if(null == multipart) {
                 if(log.isInfoEnabled()) {
@@ -120,15 +184,10 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                 if(log.isDebugEnabled()) {
                     log.debug(String.format("Multipart upload started for %s with ID %s", multipart.getObjectKey(), multipart.getUploadId()));
                 }
-            }
-            else {
-                if(status.isAppend()) {
-                    // Add already completed parts
-                    completed.addAll(multipartService.list(multipart));
+                if(null != journal) {
+                    journal.start(file.getAbsolute(), multipart.getUploadId(), size);
                 }
             }
-            // Full size of file
-            final long size = status.getLength() + status.getOffset();
             final List<Future<MultipartPart>> parts = new ArrayList<>();
             long remaining = status.getLength();
             long offset = 0;
@@ -153,7 +212,7 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                     // Last part can be less than 5 MB. Adjust part size.
                     final long length = Math.min(Math.max((size / (S3DefaultMultipartService.MAXIMUM_UPLOAD_PARTS - 1)), partsize), remaining);
                     // Submit to queue
-                    parts.add(this.submit(pool, file, local, throttle, listener, status, multipart, partNumber, offset, length, callback));
+                    parts.add(this.submit(pool, file, local, throttle, listener, status, multipart, partNumber, offset, length, buffers, callback));
                     remaining -= length;
                     offset += length;
                 }
@@ -209,6 +268,9 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                     }
                 }
             }
+            if(null != journal) {
+                journal.complete(file.getAbsolute());
+            }
             // Mark parent status as complete
             status.setComplete();
             final StorageObject object = new StorageObject(containerService.getKey(file));
@@ -221,17 +283,19 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
         finally {
             // Cancel future tasks
             pool.shutdown(false);
+            buffers.close();
         }
     }
 
-    private Future<MultipartPart> submit(final ThreadPool pool, final Path file, final Local local,
+    private Future<MultipartPart> submit(final PartScheduler.Pool pool, final Path file, final Local local,
                                          final BandwidthThrottle throttle, final StreamListener listener,
                                          final TransferStatus overall, final MultipartUpload multipart,
-                                         final int partNumber, final long offset, final long length, final ConnectionCallback callback) {
+                                         final int partNumber, final long offset, final long length,
+                                         final PartBuffers buffers, final ConnectionCallback callback) {
         if(log.isInfoEnabled()) {
             log.info(String.format("Submit part %d of %s to queue with offset %d and length %d", partNumber, file, offset, length));
         }
-        return pool.execute(new DefaultRetryCallable<>(session.getHost(), new BackgroundExceptionCallable<MultipartPart>() {
+        return pool.execute(length, new DefaultRetryCallable<>(session.getHost(), new BackgroundExceptionCallable<MultipartPart>() {
             @Override
             public MultipartPart call() throws BackgroundException {
                 overall.validate();
@@ -245,29 +309,58 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
                 status.setPart(partNumber);
                 status.setHeader(overall.getHeader());
                 status.setNonces(overall.getNonces());
+                byte[] contents = null;
                 switch(session.getSignatureVersion()) {
                     case AWS4HMACSHA256:
-                        status.setChecksum(writer.checksum(file, status).compute(local.getInputStream(), status));
+                        if(length <= buffersize) {
+                            contents = buffers.acquire((int) length);
+                        }
+                        if(null != contents) {
+                            // Read part once to compute checksum and upload from the same bytes
+                            try {
+                                read(local, contents, offset, (int) length);
+                            }
+                            catch(BackgroundException e) {
+                                buffers.release(contents);
+                                throw e;
+                            }
+                            status.setChecksum(writer.checksum(file, status).compute(new PartInputStream(contents, offset, (int) length), status));
+                        }
+                        else {
+                            status.setChecksum(writer.checksum(file, status).compute(local.getInputStream(), status));
+                        }
                         break;
                 }
                 status.setSegment(true);
-                final StorageObject part = S3MultipartUploadService.super.upload(
-                    file, local, throttle, listener, status, overall, new StreamProgress() {
-                        @Override
-                        public void progress(final long bytes) {
-                            status.progress(bytes);
-                            // Discard sent bytes in overall progress if there is an error reply for segment.
-                            overall.progress(bytes);
-                        }
+                final StorageObject part;
+                try {
+                    part = S3MultipartUploadService.super.upload(
+                        file, null == contents ? local.getInputStream() : new PartInputStream(contents, offset, (int) length),
+                        throttle, listener, status, overall, new StreamProgress() {
+                            @Override
+                            public void progress(final long bytes) {
+                                status.progress(bytes);
+                                // Discard sent bytes in overall progress if there is an error reply for segment.
+                                overall.progress(bytes);
+                            }
 
-                        @Override
-                        public void setComplete() {
-                            status.setComplete();
-                        }
-                    }, callback);
+                            @Override
+                            public void setComplete() {
+                                status.setComplete();
+                            }
+                        }, callback);
+                }
+                finally {
+                    if(null != contents) {
+                        buffers.release(contents);
+                    }
+                }
                 if(log.isInfoEnabled()) {
                     log.info(String.format("Received response %s for part number %d", part, partNumber));
                 }
+                if(null != overall.getJournal()) {
+                    overall.getJournal().part(file.getAbsolute(), new TransferJournal.Part(partNumber, length, part.getETag()));
+                }
                 // Populate part with response data that is accessible via the object's metadata
                 return new MultipartPart(partNumber,
                     null == part.getLastModifiedDate() ? new Date(System.currentTimeMillis()) : part.getLastModifiedDate(),
@@ -278,9 +371,153 @@ public class S3MultipartUploadService extends HttpUploadFeature<StorageObject, M
         }, overall));
     }
 
+    /**
+     * Read part of file into buffer
+     *
+     * @param local    File
+     * @param contents Buffer for part contents starting at index 0
+     * @param offset   Offset in file
+     * @param length   Length of part
+     */
+    private static void read(final Local local, final byte[] contents, final long offset, final int length) throws BackgroundException {
+        final InputStream in = local.getInputStream();
+        try {
+            // Positional seek in file channel
+            StreamCopier.skip(in, offset);
+            IOUtils.readFully(in, contents, 0, length);
+        }
+        catch(IOException e) {
+            throw new DefaultIOExceptionMappingService().map(e);
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
     @Override
     public Upload<StorageObject> withWriter(final Write<StorageObject> writer) {
         this.writer = writer;
         return super.withWriter(writer);
     }
+
+    /**
+     * Buffers for part contents of a single upload reused by upload threads. The total size of buffers allocated by
+     * all uploads is limited to not exceed the memory available with many concurrent uploads of large parts.
+     */
+    private static final class PartBuffers {
+        private final Deque<byte[]> available = new ArrayDeque<>();
+        private boolean closed;
+
+        /**
+         * @param length Minimum size of buffer
+         * @return Null if no memory is available for part buffers and part must be read from file
+         */
+        public synchronized byte[] acquire(final int length) {
+            final byte[] buffer = available.poll();
+            if(null != buffer) {
+                if(buffer.length >= length) {
+                    return buffer;
+                }
+                memory.release(buffer.length);
+            }
+            if(memory.tryAcquire(length)) {
+                return new byte[length];
+            }
+            if(log.isDebugEnabled()) {
+                log.debug(String.format("Limit of memory for part buffers reached with %d bytes available", memory.availablePermits()));
+            }
+            return null;
+        }
+
+        /**
+         * @param buffer No longer in use
+         */
+        public synchronized void release(final byte[] buffer) {
+            if(closed) {
+                memory.release(buffer.length);
+            }
+            else {
+                available.push(buffer);
+            }
+        }
+
+        /**
+         * Free buffers of upload
+         */
+        public synchronized void close() {
+            closed = true;
+            for(byte[] buffer : available) {
+                memory.release(buffer.length);
+            }
+            available.clear();
+        }
+    }
+
+    /**
+     * Part contents in memory. Positions are relative to the start of the file with only the range of the part
+     * readable.
+     */
+    private static final class PartInputStream extends InputStream {
+        private final byte[] contents;
+        private final long offset;
+        private final int length;
+
+        /**
+         * Position in file
+         */
+        private long position = 0L;
+
+        public PartInputStream(final byte[] contents, final long offset, final int length) {
+            this.contents = contents;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if(position < offset) {
+                throw new IOException(String.format("Read at position %d before offset %d of part", position, offset));
+            }
+            if(position >= offset + length) {
+                return -1;
+            }
+            return contents[(int) (position++ - offset)] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if(position < offset) {
+                throw new IOException(String.format("Read at position %d before offset %d of part", position, offset));
+            }
+            if(0 == len) {
+                return 0;
+            }
+            final int available = this.available();
+            if(0 == available) {
+                return -1;
+            }
+            final int read = Math.min(len, available);
+            System.arraycopy(contents, (int) (position - offset), b, off, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) {
+            if(n <= 0) {
+                return 0L;
+            }
+            final long skipped = Math.min(n, offset + length - position);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            if(position < offset) {
+                return 0;
+            }
+            return (int) (offset + length - position);
+        }
+    }
 }
@@ -97,7 +97,7 @@ public class S3MultipleDeleteFeature implements Delete {
         for(Map.Entry<Path, List<ObjectKeyAndVersion>> entry : map.entrySet()) {
             final Path container = entry.getKey();
             final List<ObjectKeyAndVersion> keys = entry.getValue();
-            this.delete(container, keys, prompt);
+            this.delete(container, keys, prompt, callback);
         }
         for(Path file : containers) {
             callback.delete(file);
@@ -120,6 +120,18 @@ public class S3MultipleDeleteFeature implements Delete {
      * @throws ch.cyberduck.core.exception.ConnectionCanceledException Authentication canceled for MFA delete
      */
     public void delete(final Path container, final List<ObjectKeyAndVersion> keys, final PasswordCallback prompt)
+        throws BackgroundException {
+        this.delete(container, keys, prompt, new DisabledCallback());
+    }
+
+    /**
+     * @param container Bucket
+     * @param keys      Key and version ID for versioned object or null
+     * @param prompt    Password input
+     * @param callback  Notified about failure for single key in error reply
+     * @throws ch.cyberduck.core.exception.ConnectionCanceledException Authentication canceled for MFA delete
+     */
+    public void delete(final Path container, final List<ObjectKeyAndVersion> keys, final PasswordCallback prompt, final Callback callback)
         throws BackgroundException {
         try {
             if(versioningService != null
@@ -131,19 +143,7 @@ public class S3MultipleDeleteFeature implements Delete {
                     factor.getPassword(),
                     // Only include errors in response
                     true);
-                if(result.hasErrors()) {
-                    for(MultipleDeleteResult.ErrorResult error : result.getErrorResults()) {
-                        if(StringUtils.equals("ObjectNotFound", error.getErrorCode())) {
-                            // Ignore failure deleting placeholder
-                            continue;
-                        }
-                        final ServiceException failure = new ServiceException();
-                        failure.setErrorCode(error.getErrorCode());
-                        failure.setErrorMessage(error.getMessage());
-                        throw new S3ExceptionMappingService().map("Cannot delete {0}", failure,
-                            new Path(container, error.getKey(), EnumSet.of(Path.Type.file)));
-                    }
-                }
+                this.failure(container, result, callback);
             }
             else {
                 // Request contains a list of up to 1000 keys that you want to delete
@@ -152,19 +152,7 @@ public class S3MultipleDeleteFeature implements Delete {
                         partition.toArray(new ObjectKeyAndVersion[partition.size()]),
                         // Only include errors in response
                         true);
-                    if(result.hasErrors()) {
-                        for(MultipleDeleteResult.ErrorResult error : result.getErrorResults()) {
-                            if(StringUtils.equals("ObjectNotFound", error.getErrorCode())) {
-                                // Ignore failure deleting placeholder
-                                continue;
-                            }
-                            final ServiceException failure = new ServiceException();
-                            failure.setErrorCode(error.getErrorCode());
-                            failure.setErrorMessage(error.getMessage());
-                            throw new S3ExceptionMappingService().map("Cannot delete {0}", failure,
-                                new Path(container, error.getKey(), EnumSet.of(Path.Type.file)));
-                        }
-                    }
+                    this.failure(container, result, callback);
                 }
             }
         }
@@ -172,4 +160,28 @@ public class S3MultipleDeleteFeature implements Delete {
             throw new S3ExceptionMappingService().map("Cannot delete {0}", e, container);
         }
     }
+
+    /**
+     * Report failure for every key in error reply
+     */
+    private void failure(final Path container, final MultipleDeleteResult result, final Callback callback) throws BackgroundException {
+        if(result.hasErrors()) {
+            for(MultipleDeleteResult.ErrorResult error : result.getErrorResults()) {
+                if(StringUtils.equals("ObjectNotFound", error.getErrorCode())) {
+                    // Ignore failure deleting placeholder
+                    continue;
+                }
+                final ServiceException failure = new ServiceException();
+                failure.setErrorCode(error.getErrorCode());
+                failure.setErrorMessage(error.getMessage());
+                final Path file = new Path(container, error.getKey(), EnumSet.of(Path.Type.file));
+                callback.failure(file, new S3ExceptionMappingService().map("Cannot delete {0}", failure, file));
+            }
+        }
+    }
+
+    @Override
+    public boolean isStreaming(final Path file) {
+        return true;
+    }
 }
@@ -28,7 +28,6 @@ import ch.cyberduck.core.PathContainerService;
 import ch.cyberduck.core.PathNormalizer;
 import ch.cyberduck.core.URIEncoder;
 import ch.cyberduck.core.exception.BackgroundException;
-import ch.cyberduck.core.exception.NotfoundException;
 import ch.cyberduck.core.preferences.Preferences;
 import ch.cyberduck.core.preferences.PreferencesFactory;
 
@@ -38,7 +37,6 @@ import org.jets3t.service.ServiceException;
 import org.jets3t.service.StorageObjectsChunk;
 import org.jets3t.service.model.StorageObject;
 
-import java.util.Arrays;
 import java.util.EnumSet;
 
 public class S3ObjectListService extends S3AbstractListService implements ListService {
@@ -145,16 +143,7 @@ public class S3ObjectListService extends S3AbstractListService implements ListSe
             }
             while(priorLastKey != null);
             if(!hasDirectoryPlaceholder && children.isEmpty()) {
-                // Only for AWS
-                if(S3Session.isAwsHostname(session.getHost().getHostname())) {
-                    throw new NotfoundException(directory.getAbsolute());
-                }
-                // Handle missing prefix for directory placeholders in Minio
-                final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
-                    PathNormalizer.name(URIEncoder.encode(bucket.getName())), String.format("%s%s", this.createPrefix(directory.getParent()), directory.getName()), delimiter, 1, null);
-                if(Arrays.stream(chunk.getCommonPrefixes()).map(URIEncoder::decode).noneMatch(common -> common.equals(prefix))) {
-                    throw new NotfoundException(directory.getAbsolute());
-                }
+                this.verify(session, directory, delimiter);
             }
             return children;
         }
@@ -0,0 +1,366 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.Cache;
+import ch.cyberduck.core.ListProgressListener;
+import ch.cyberduck.core.ListService;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.PathContainerService;
+import ch.cyberduck.core.PathNormalizer;
+import ch.cyberduck.core.URIEncoder;
+import ch.cyberduck.core.exception.BackgroundException;
+import ch.cyberduck.core.exception.ConnectionCanceledException;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.threading.BackgroundExceptionCallable;
+import ch.cyberduck.core.threading.ThreadPool;
+import ch.cyberduck.core.threading.ThreadPoolFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+import org.jets3t.service.ServiceException;
+import org.jets3t.service.StorageObjectsChunk;
+import org.jets3t.service.model.StorageObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recursive listing of all keys with the prefix of a directory. Instead of paging through the keyspace with a single
+ * request at a time, the keyspace is partitioned by common prefixes which are listed concurrently. Partitions are split
+ * further while fewer partitions than the number of concurrent requests are pending. Because common prefixes denote
+ * disjoint key ranges, the result is merged in key order and equals the listing with no delimiter. When a prefix has
+ * more common prefixes than the number of concurrent requests, each page of common prefixes is split into ranges
+ * listed without delimiter instead to not multiply the number of requests for wide hierarchies with few keys per
+ * prefix.
+ * <p>
+ * Requests for partitions are sent with the thread safe client of the session as in
+ * {@link S3VersionedObjectListService} because features have no access to the session pool of the caller. Only
+ * used for search as the delete worker and transfer preparation list each directory with the list service of the
+ * session to apply filters and handle directories independent of the protocol.
+ */
+public class S3RecursiveObjectListService extends S3AbstractListService implements ListService {
+    private static final Logger log = Logger.getLogger(S3RecursiveObjectListService.class);
+
+    private final Preferences preferences
+        = PreferencesFactory.get();
+
+    private final PathContainerService containerService;
+    private final S3Session session;
+    private final S3AttributesFinderFeature attributes;
+    private final Integer concurrency;
+
+    public S3RecursiveObjectListService(final S3Session session) {
+        this(session, PreferencesFactory.get().getInteger("s3.listing.concurrency"));
+    }
+
+    /**
+     * @param session     Connection
+     * @param concurrency Number of prefixes to list concurrently
+     */
+    public S3RecursiveObjectListService(final S3Session session, final Integer concurrency) {
+        super(session);
+        this.session = session;
+        this.concurrency = concurrency;
+        this.attributes = new S3AttributesFinderFeature(session);
+        this.containerService = session.getFeature(PathContainerService.class);
+    }
+
+    @Override
+    public ListService withCache(final Cache<Path> cache) {
+        attributes.withCache(cache);
+        return this;
+    }
+
+    @Override
+    public AttributedList<Path> list(final Path directory, final ListProgressListener listener) throws BackgroundException {
+        final int chunksize = preferences.getInteger("s3.listing.chunksize");
+        if(concurrency < 2) {
+            return new S3ObjectListService(session).list(directory, listener, null, chunksize);
+        }
+        final ThreadPool pool = ThreadPoolFactory.get("list", concurrency);
+        try {
+            final Path bucket = containerService.getContainer(directory);
+            final Partitions partitions = new Partitions(pool, directory, bucket, chunksize);
+            final AttributedList<Path> children = new AttributedList<>();
+            // Start with common prefixes of directory
+            this.merge(directory, partitions.list(this.createPrefix(directory), true), children, listener);
+            listener.chunk(directory, children);
+            if(children.isEmpty()) {
+                if(!containerService.isContainer(directory) && !partitions.placeholder) {
+                    this.verify(session, directory, null);
+                }
+            }
+            return children;
+        }
+        catch(ServiceException e) {
+            throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+        }
+        finally {
+            // Cancel pending partitions
+            pool.shutdown(false);
+        }
+    }
+
+    /**
+     * Resolve partitions in key order
+     */
+    private void merge(final Path directory, final List<Segment> segments, final AttributedList<Path> children,
+                       final ListProgressListener listener) throws BackgroundException {
+        for(Segment segment : segments) {
+            if(null == segment.partition) {
+                children.addAll(segment.files);
+                listener.chunk(directory, children);
+            }
+            else {
+                this.merge(directory, this.get(segment.partition), children, listener);
+            }
+        }
+    }
+
+    private List<Segment> get(final Future<List<Segment>> future) throws BackgroundException {
+        try {
+            return future.get();
+        }
+        catch(InterruptedException e) {
+            log.error("Listing partition failed with interrupt failure");
+            throw new ConnectionCanceledException(e);
+        }
+        catch(ExecutionException e) {
+            log.warn(String.format("Listing partition failed with execution failure %s", e.getMessage()));
+            if(e.getCause() instanceof BackgroundException) {
+                throw (BackgroundException) e.getCause();
+            }
+            throw new BackgroundException(e.getCause());
+        }
+    }
+
+    private final class Partitions {
+        private final ThreadPool pool;
+        private final Path directory;
+        private final Path bucket;
+        private final int chunksize;
+        /**
+         * Number of partitions submitted but not yet listed
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+        /**
+         * Placeholder object for directory found
+         */
+        private volatile boolean placeholder;
+
+        public Partitions(final ThreadPool pool, final Path directory, final Path bucket, final int chunksize) {
+            this.pool = pool;
+            this.directory = directory;
+            this.bucket = bucket;
+            this.chunksize = chunksize;
+        }
+
+        private Future<List<Segment>> submit(final String prefix) {
+            pending.incrementAndGet();
+            return pool.execute(new BackgroundExceptionCallable<List<Segment>>() {
+                @Override
+                public List<Segment> call() throws BackgroundException {
+                    try {
+                        return list(prefix, pending.get() < concurrency);
+                    }
+                    finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        /**
+         * @param prefix Key prefix
+         * @param start  First common prefix of range inclusive
+         * @param end    Upper bound of range exclusive
+         */
+        private Future<List<Segment>> submit(final String prefix, final String start, final String end) {
+            pending.incrementAndGet();
+            return pool.execute(new BackgroundExceptionCallable<List<Segment>>() {
+                @Override
+                public List<Segment> call() throws BackgroundException {
+                    try {
+                        return range(prefix, start, end);
+                    }
+                    finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            });
+        }
+
+        /**
+         * @param prefix Key prefix
+         * @param split  Submit common prefixes as separate partitions instead of listing all keys with prefix
+         * @return Objects and partitions in key order
+         */
+        public List<Segment> list(final String prefix, final boolean split) throws BackgroundException {
+            try {
+                final List<Segment> segments = new ArrayList<>();
+                // Null if listing is complete
+                String priorLastKey = null;
+                // Submit ranges of common prefixes as partitions
+                boolean wide = false;
+                do {
+                    final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
+                        bucket.isRoot() ? StringUtils.EMPTY : PathNormalizer.name(URIEncoder.encode(bucket.getName())), prefix,
+                        split ? String.valueOf(Path.DELIMITER) : null, chunksize, priorLastKey, false);
+                    if(split && null == priorLastKey) {
+                        wide = null != chunk.getPriorLastKey() || chunk.getCommonPrefixes().length > concurrency;
+                        if(wide) {
+                            if(log.isDebugEnabled()) {
+                                log.debug(String.format("Partition prefix %s with more than %d common prefixes by ranges", prefix, concurrency));
+                            }
+                        }
+                    }
+                    final StorageObject[] objects = chunk.getObjects();
+                    final List<String> common = new ArrayList<>();
+                    for(String p : chunk.getCommonPrefixes()) {
+                        if(String.valueOf(Path.DELIMITER).equals(p)) {
+                            log.warn(String.format("Skipping prefix %s", p));
+                            continue;
+                        }
+                        common.add(URIEncoder.decode(p));
+                    }
+                    // Number of common prefixes listed with a single partition
+                    final int size = wide ? (common.size() + concurrency - 1) / concurrency : 1;
+                    int i = 0;
+                    // Objects and common prefixes are each returned in lexicographic order
+                    for(int j = 0; j < common.size(); j += size) {
+                        final String start = common.get(j);
+                        final String last = common.get(Math.min(j + size, common.size()) - 1);
+                        // Sorts after all keys with last common prefix of range
+                        final String end = StringUtils.removeEnd(last, String.valueOf(Path.DELIMITER)) + (char) (Path.DELIMITER + 1);
+                        final List<Path> files = new ArrayList<>();
+                        while(i < objects.length && URIEncoder.decode(objects[i].getKey()).compareTo(start) < 0) {
+                            this.add(files, objects[i++]);
+                        }
+                        if(!files.isEmpty()) {
+                            segments.add(new Segment(files));
+                        }
+                        if(wide) {
+                            // Objects in between common prefixes of range are included in listing of range
+                            while(i < objects.length && URIEncoder.decode(objects[i].getKey()).compareTo(end) < 0) {
+                                i++;
+                            }
+                            segments.add(new Segment(this.submit(prefix, start, end)));
+                        }
+                        else {
+                            segments.add(new Segment(this.submit(start)));
+                        }
+                    }
+                    final List<Path> files = new ArrayList<>();
+                    while(i < objects.length) {
+                        this.add(files, objects[i++]);
+                    }
+                    if(!files.isEmpty()) {
+                        segments.add(new Segment(files));
+                    }
+                    priorLastKey = null != chunk.getPriorLastKey() ? URIEncoder.decode(chunk.getPriorLastKey()) : null;
+                }
+                while(priorLastKey != null);
+                return segments;
+            }
+            catch(ServiceException e) {
+                throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+            }
+        }
+
+        /**
+         * List all keys with prefix in range without delimiter
+         *
+         * @param prefix Key prefix
+         * @param start  First common prefix of range inclusive
+         * @param end    Upper bound of range exclusive
+         * @return Objects in key order
+         */
+        private List<Segment> range(final String prefix, final String start, final String end) throws BackgroundException {
+            try {
+                final List<Path> files = new ArrayList<>();
+                // Start after key sorting before common prefix
+                String priorLastKey = StringUtils.removeEnd(start, String.valueOf(Path.DELIMITER));
+                do {
+                    final StorageObjectsChunk chunk = session.getClient().listObjectsChunked(
+                        bucket.isRoot() ? StringUtils.EMPTY : PathNormalizer.name(URIEncoder.encode(bucket.getName())), prefix,
+                        null, chunksize, priorLastKey, false);
+                    for(StorageObject object : chunk.getObjects()) {
+                        final String key = URIEncoder.decode(object.getKey());
+                        if(key.compareTo(start) < 0) {
+                            continue;
+                        }
+                        if(key.compareTo(end) >= 0) {
+                            return Collections.singletonList(new Segment(files));
+                        }
+                        this.add(files, object);
+                    }
+                    priorLastKey = null != chunk.getPriorLastKey() ? URIEncoder.decode(chunk.getPriorLastKey()) : null;
+                }
+                while(priorLastKey != null);
+                return Collections.singletonList(new Segment(files));
+            }
+            catch(ServiceException e) {
+                throw new S3ExceptionMappingService().map("Listing directory {0} failed", e, directory);
+            }
+        }
+
+        private void add(final List<Path> files, final StorageObject object) {
+            final String key = PathNormalizer.normalize(URIEncoder.decode(object.getKey()));
+            if(String.valueOf(Path.DELIMITER).equals(key)) {
+                log.warn(String.format("Skipping prefix %s", key));
+                return;
+            }
+            if(new Path(bucket, key, EnumSet.of(Path.Type.directory)).equals(directory)) {
+                // Placeholder object, skip
+                placeholder = true;
+                return;
+            }
+            final EnumSet<Path.Type> types = object.getKey().endsWith(String.valueOf(Path.DELIMITER))
+                ? EnumSet.of(Path.Type.directory) : EnumSet.of(Path.Type.file);
+            final PathAttributes attr = attributes.toAttributes(object);
+            // Copy bucket location
+            attr.setRegion(bucket.attributes().getRegion());
+            files.add(new Path(String.format("%s%s", bucket.getAbsolute(), key), types, attr));
+        }
+    }
+
+    /**
+     * Either objects listed or partition of all keys with common prefix
+     */
+    private static final class Segment {
+        private final List<Path> files;
+        private final Future<List<Segment>> partition;
+
+        public Segment(final List<Path> files) {
+            this.files = files;
+            this.partition = null;
+        }
+
+        public Segment(final Future<List<Segment>> partition) {
+            this.files = Collections.emptyList();
+            this.partition = partition;
+        }
+    }
+}
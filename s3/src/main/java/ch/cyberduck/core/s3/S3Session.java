@@ -302,6 +302,9 @@ public class S3Session extends HttpSession<RequestEntityRestStorageService> {
         if(type == AttributesFinder.class) {
             return (T) new S3AttributesFinderFeature(this);
         }
+        if(type == ETagComparison.class) {
+            return (T) new S3MultipartETagComparison();
+        }
         if(type == TransferAcceleration.class) {
             // Only for AWS. Disable transfer acceleration for AWS GovCloud
             if(host.getHostname().endsWith(preferences.getProperty("s3.hostname.default"))) {
@@ -0,0 +1,112 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.Local;
+import ch.cyberduck.core.PathAttributes;
+import ch.cyberduck.core.io.ChecksumCache;
+import ch.cyberduck.core.preferences.PreferencesFactory;
+import ch.cyberduck.core.synchronization.Comparison;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class S3MultipartETagComparisonTest {
+
+    @Test
+    public void testIsMultipart() {
+        assertTrue(S3MultipartETagComparison.isMultipart("d41d8cd98f00b204e9800998ecf8427e-2"));
+        assertTrue(S3MultipartETagComparison.isMultipart("\"d41d8cd98f00b204e9800998ecf8427e-10000\""));
+        assertFalse(S3MultipartETagComparison.isMultipart("d41d8cd98f00b204e9800998ecf8427e"));
+        assertFalse(S3MultipartETagComparison.isMultipart(null));
+    }
+
+    @Test
+    public void testCompare() throws Exception {
+        final byte[] content = new byte[25];
+        for(int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        Files.write(Paths.get(local.getAbsolute()), content);
+        final ChecksumCache checksums = new ChecksumCache(new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString()), 10);
+        final String expected = this.etag(content, 9);
+        assertEquals(expected, new S3MultipartETagComparison(9L).compute(local, content.length, 9L));
+        // Configured part size
+        assertEquals(Comparison.equal, new S3MultipartETagComparison(9L).compare(this.attributes(expected), local, checksums));
+        // Part size implied by number of parts
+        assertEquals(Comparison.equal, new S3MultipartETagComparison(5L).compare(this.attributes(String.format("\"%s\"", expected)), local, checksums));
+        assertEquals(Comparison.notequal, new S3MultipartETagComparison(5L).compare(this.attributes(this.etag(content, 10)), local, checksums));
+        assertEquals(Comparison.equal, new S3MultipartETagComparison(10L).compare(this.attributes(this.etag(content, 10)), local, checksums));
+        assertEquals(Comparison.unknown, new S3MultipartETagComparison(10L).compare(this.attributes("d41d8cd98f00b204e9800998ecf8427e"), local, checksums));
+        checksums.clear();
+        local.delete();
+    }
+
+    @Test
+    public void testCompareCached() throws Exception {
+        final Local local = new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString());
+        final java.nio.file.Path path = Paths.get(local.getAbsolute());
+        final byte[] content = new byte[]{1, 2, 3};
+        Files.write(path, content);
+        final FileTime modified = FileTime.fromMillis(1600000000000L);
+        Files.setLastModifiedTime(path, modified);
+        final ChecksumCache checksums = new ChecksumCache(new Local(PreferencesFactory.get().getProperty("tmp.dir"), UUID.randomUUID().toString()), 10);
+        final String etag = this.etag(content, 2);
+        assertEquals(Comparison.equal, new S3MultipartETagComparison(2L).compare(this.attributes(etag), local, checksums));
+        // Change contents without changing size and modification date
+        Files.write(path, new byte[]{3, 2, 1});
+        Files.setLastModifiedTime(path, modified);
+        assertEquals(Comparison.equal, new S3MultipartETagComparison(2L).compare(this.attributes(etag), local, checksums));
+        checksums.clear();
+        local.delete();
+    }
+
+    private PathAttributes attributes(final String etag) {
+        final PathAttributes attributes = new PathAttributes();
+        attributes.setETag(etag);
+        return attributes;
+    }
+
+    @Test
+    public void testCandidates() {
+        final S3MultipartETagComparison compute = new S3MultipartETagComparison(10L * 1024L * 1024L);
+        final long length = 100L * 1024L * 1024L + 1L;
+        assertEquals(Arrays.asList(10L * 1024L * 1024L, 9532510L), compute.candidates(length, 11));
+        assertEquals(Arrays.asList(11L * 1024L * 1024L, 10L * 1024L * 1024L + 1L), compute.candidates(length, 10));
+        assertTrue(compute.candidates(0L, 1).isEmpty());
+    }
+
+    private String etag(final byte[] content, final int partsize) throws Exception {
+        final ByteArrayOutputStream concat = new ByteArrayOutputStream();
+        int parts = 0;
+        for(int offset = 0; offset < content.length; offset += partsize) {
+            concat.write(MessageDigest.getInstance("MD5").digest(Arrays.copyOfRange(content, offset, Math.min(content.length, offset + partsize))));
+            parts++;
+        }
+        return String.format("%s-%d", Hex.encodeHexString(MessageDigest.getInstance("MD5").digest(concat.toByteArray())), parts);
+    }
+}
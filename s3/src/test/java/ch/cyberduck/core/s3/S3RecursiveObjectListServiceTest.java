@@ -0,0 +1,82 @@
+package ch.cyberduck.core.s3;
+
+/*
+ * Copyright (c) 2002-2021 iterate GmbH. All rights reserved.
+ * https://cyberduck.io/
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+
+import ch.cyberduck.core.AlphanumericRandomStringService;
+import ch.cyberduck.core.AttributedList;
+import ch.cyberduck.core.DisabledListProgressListener;
+import ch.cyberduck.core.DisabledLoginCallback;
+import ch.cyberduck.core.Path;
+import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.features.Delete;
+import ch.cyberduck.core.transfer.TransferStatus;
+import ch.cyberduck.test.IntegrationTest;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@Category(IntegrationTest.class)
+public class S3RecursiveObjectListServiceTest extends AbstractS3Test {
+
+    @Test
+    public void testListKeyOrder() throws Exception {
+        final Path bucket = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final Path workdir = new S3DirectoryFeature(session, new S3WriteFeature(session)).mkdir(new Path(bucket, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final Path directory = new S3DirectoryFeature(session, new S3WriteFeature(session)).mkdir(new Path(workdir, "a", EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final Path nested = new S3TouchFeature(session).touch(new Path(directory, "f", EnumSet.of(Path.Type.file)), new TransferStatus());
+        // Sorts before common prefix a/
+        final Path before = new S3TouchFeature(session).touch(new Path(workdir, "a.txt", EnumSet.of(Path.Type.file)), new TransferStatus());
+        // Sorts after common prefix a/
+        final Path after = new S3TouchFeature(session).touch(new Path(workdir, "a0", EnumSet.of(Path.Type.file)), new TransferStatus());
+        final AttributedList<Path> expected = new S3ObjectListService(session).list(workdir, new DisabledListProgressListener(), null, 1000);
+        final AttributedList<Path> list = new S3RecursiveObjectListService(session, 2).list(workdir, new DisabledListProgressListener());
+        assertEquals(Arrays.asList(before, directory, nested, after), list.toList());
+        assertEquals(expected.toList(), list.toList());
+        new S3DefaultDeleteFeature(session).delete(Arrays.asList(before, nested, directory, after, workdir), new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+
+    @Test
+    public void testListWidePrefixRanges() throws Exception {
+        final Path bucket = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.directory, Path.Type.volume));
+        final Path workdir = new S3DirectoryFeature(session, new S3WriteFeature(session)).mkdir(new Path(bucket, new AlphanumericRandomStringService().random(), EnumSet.of(Path.Type.directory)), null, new TransferStatus());
+        final List<Path> files = new ArrayList<>();
+        for(String name : Arrays.asList("a", "b", "c", "d", "e")) {
+            files.add(new S3TouchFeature(session).touch(new Path(new Path(workdir, name, EnumSet.of(Path.Type.directory)), "f", EnumSet.of(Path.Type.file)), new TransferStatus()));
+        }
+        // Sorts in between common prefixes of range
+        files.add(new S3TouchFeature(session).touch(new Path(workdir, "b.txt", EnumSet.of(Path.Type.file)), new TransferStatus()));
+        final AttributedList<Path> expected = new S3ObjectListService(session).list(workdir, new DisabledListProgressListener(), null, 1000);
+        // More common prefixes than concurrent requests
+        final AttributedList<Path> list = new S3RecursiveObjectListService(session, 2).list(workdir, new DisabledListProgressListener());
+        assertEquals(expected.toList(), list.toList());
+        assertEquals(files.size(), list.size());
+        files.add(workdir);
+        new S3DefaultDeleteFeature(session).delete(files, new DisabledLoginCallback(), new Delete.DisabledCallback());
+    }
+
+    @Test(expected = NotfoundException.class)
+    public void testListNotFoundFolder() throws Exception {
+        final Path container = new Path("test-us-east-1-cyberduck", EnumSet.of(Path.Type.volume));
+        new S3RecursiveObjectListService(session).list(new Path(container, "notfound", EnumSet.of(Path.Type.directory)), new DisabledListProgressListener());
+    }
+}
@@ -28,17 +28,28 @@ import ch.cyberduck.core.exception.AccessDeniedException;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.exception.InteroperabilityException;
 import ch.cyberduck.core.exception.NotfoundException;
+import ch.cyberduck.core.preferences.Preferences;
+import ch.cyberduck.core.preferences.PreferencesFactory;
 
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import net.schmizz.concurrent.Promise;
 import net.schmizz.sshj.sftp.FileAttributes;
 import net.schmizz.sshj.sftp.FileMode;
+import net.schmizz.sshj.sftp.PacketType;
 import net.schmizz.sshj.sftp.RemoteDirectory;
 import net.schmizz.sshj.sftp.RemoteResourceFilter;
 import net.schmizz.sshj.sftp.RemoteResourceInfo;
+import net.schmizz.sshj.sftp.Response;
+import net.schmizz.sshj.sftp.SFTPEngine;
 import net.schmizz.sshj.sftp.SFTPException;
 
 public class SFTPListService implements ListService {
@@ -46,6 +57,7 @@ public class SFTPListService implements ListService {
 
     private final SFTPSession session;
     private final SFTPAttributesFinderFeature attributes;
+    private final Preferences preferences = PreferencesFactory.get();
 
     public SFTPListService(final SFTPSession session) {
         this.session = session;
@@ -57,6 +69,7 @@ public class SFTPListService implements ListService {
         try {
             final AttributedList<Path> children = new AttributedList<Path>();
             final RemoteDirectory handle = session.sftp().openDir(directory.getAbsolute());
+            final List<Path> files = new ArrayList<>();
             for(RemoteResourceInfo f : handle.scan(new RemoteResourceFilter() {
                 @Override
                 public boolean accept(RemoteResourceInfo remoteResourceInfo) {
@@ -74,13 +87,17 @@ public class SFTPListService implements ListService {
                 if(f.getAttributes().getType().equals(FileMode.Type.SYMLINK)) {
                     type.add(Path.Type.symboliclink);
                 }
-                final Path file = new Path(directory, f.getName(), type, attr);
-                if(this.post(file)) {
+                files.add(new Path(directory, f.getName(), type, attr));
+            }
+            handle.close();
+            // Number of outstanding requests to resolve symbolic links
+            final int window = preferences.getInteger("sftp.listing.symlink.maxunconfirmed");
+            for(int i = 0; i < files.size(); i += window) {
+                for(Path file : this.post(files.subList(i, Math.min(i + window, files.size())))) {
                     children.add(file);
-                    listener.chunk(directory, children);
                 }
+                listener.chunk(directory, children);
             }
-            handle.close();
             return children;
         }
         catch(IOException e) {
@@ -94,21 +111,64 @@ public class SFTPListService implements ListService {
         return this;
     }
 
-    protected boolean post(final Path file) throws BackgroundException {
-        if(file.isSymbolicLink()) {
-            final Path target;
-            Path.Type type;
-            PathAttributes attr;
+    /**
+     * Resolve targets of symbolic links with all requests sent before awaiting any response
+     *
+     * @param files Files in directory
+     * @return Files excluding symbolic links that cannot be read
+     */
+    protected List<Path> post(final List<Path> files) throws BackgroundException {
+        final SFTPEngine sftp = session.sftp();
+        final List<Path> resolved = new ArrayList<>(files);
+        final Map<Path, Promise<Response, SFTPException>> links = new LinkedHashMap<>();
+        for(Path file : files) {
+            if(file.isSymbolicLink()) {
+                try {
+                    if(sftp.getOperativeProtocolVersion() < 3) {
+                        throw new SFTPException(String.format("READLINK is not supported in SFTPv%d", sftp.getOperativeProtocolVersion()));
+                    }
+                    links.put(file, sftp.request(sftp.newRequest(PacketType.READLINK).putString(file.getAbsolute())));
+                }
+                catch(IOException e) {
+                    log.warn(String.format("Failure to read symbolic link of %s. %s", file, e.getMessage()));
+                    resolved.remove(file);
+                }
+            }
+        }
+        final Map<Path, Promise<Response, SFTPException>> targets = new LinkedHashMap<>();
+        for(Map.Entry<Path, Promise<Response, SFTPException>> entry : links.entrySet()) {
+            final Path file = entry.getKey();
             try {
-                final String link = session.sftp().readLink(file.getAbsolute());
+                final Response response = entry.getValue().retrieve(sftp.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                    .ensurePacketTypeIs(PacketType.NAME);
+                if(response.readUInt32AsInt() != 1) {
+                    throw new SFTPException(String.format("Unexpected data in %s packet", response.getType()));
+                }
+                final String link = response.readString();
+                final Path target;
                 if(link.startsWith(String.valueOf(Path.DELIMITER))) {
                     target = new Path(PathNormalizer.normalize(link), EnumSet.of(Path.Type.file));
                 }
                 else {
                     target = new Path(PathNormalizer.normalize(String.format("%s/%s", file.getParent().getAbsolute(), link)), EnumSet.of(Path.Type.file));
                 }
+                file.setSymlinkTarget(target);
+                targets.put(file, sftp.request(sftp.newRequest(PacketType.STAT).putString(target.getAbsolute())));
+            }
+            catch(IOException e) {
+                log.warn(String.format("Failure to read symbolic link of %s. %s", file, e.getMessage()));
+                resolved.remove(file);
+            }
+        }
+        for(Map.Entry<Path, Promise<Response, SFTPException>> entry : targets.entrySet()) {
+            final Path file = entry.getKey();
+            final Path target = file.getSymlinkTarget();
+            Path.Type type;
+            PathAttributes attr;
+            try {
                 try {
-                    final FileAttributes stat = session.sftp().stat(target.getAbsolute());
+                    final FileAttributes stat = entry.getValue().retrieve(sftp.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                        .ensurePacketTypeIs(PacketType.ATTRS).readFileAttributes();
                     if(stat.getType().equals(FileMode.Type.DIRECTORY)) {
                         type = Path.Type.directory;
                     }
@@ -138,13 +198,12 @@ public class SFTPListService implements ListService {
                 file.setType(EnumSet.of(Path.Type.symboliclink, type));
                 target.setType(EnumSet.of(type));
                 target.setAttributes(attr);
-                file.setSymlinkTarget(target);
             }
             catch(IOException e) {
                 log.warn(String.format("Failure to read symbolic link of %s. %s", file, e.getMessage()));
-                return false;
+                resolved.remove(file);
             }
         }
-        return true;
+        return resolved;
     }
 }
@@ -40,7 +40,9 @@ public class StoregateAttributesFinderFeature implements AttributesFinder {
     public PathAttributes find(final Path file) throws BackgroundException {
         try {
             final FilesApi files = new FilesApi(session.getClient());
-            return this.toAttributes(files.filesGet_1(URIEncoder.encode(fileid.getPrefixedPath(file))));
+            final PathAttributes attributes = this.toAttributes(files.filesGet_1(URIEncoder.encode(fileid.getPrefixedPath(file))));
+            fileid.cache(file, attributes.getFileId());
+            return attributes;
         }
         catch(ApiException e) {
             throw new StoregateExceptionMappingService().map("Failure to read attributes of {0}", e, file);
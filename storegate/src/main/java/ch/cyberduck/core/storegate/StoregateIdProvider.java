@@ -24,6 +24,7 @@ import ch.cyberduck.core.PathCache;
 import ch.cyberduck.core.PathContainerService;
 import ch.cyberduck.core.PathRelativizer;
 import ch.cyberduck.core.SimplePathPredicate;
+import ch.cyberduck.core.cache.FileidCache;
 import ch.cyberduck.core.URIEncoder;
 import ch.cyberduck.core.exception.BackgroundException;
 import ch.cyberduck.core.features.IdProvider;
@@ -36,6 +37,7 @@ import org.apache.commons.lang3.StringUtils;
 public class StoregateIdProvider implements IdProvider {
 
     private final StoregateSession session;
+    private final FileidCache index = new FileidCache();
 
     private Cache<Path> cache = PathCache.empty();
 
@@ -53,11 +55,15 @@ public class StoregateIdProvider implements IdProvider {
                 final AttributedList<Path> list = cache.get(file.getParent());
                 final Path found = list.find(new SimplePathPredicate(file));
                 if(null != found) {
-                    if(StringUtils.isNotBlank(found.attributes().getVersionId())) {
-                        return this.set(file, found.attributes().getVersionId());
+                    if(StringUtils.isNotBlank(found.attributes().getFileId())) {
+                        return this.set(file, found.attributes().getFileId());
                     }
                 }
             }
+            final String cached = index.get(file, cache);
+            if(null != cached) {
+                return this.set(file, cached);
+            }
             final String id = new FilesApi(session.getClient()).filesGet_1(URIEncoder.encode(this.getPrefixedPath(file))).getId();
             this.set(file, id);
             return id;
@@ -69,9 +75,15 @@ public class StoregateIdProvider implements IdProvider {
 
     protected String set(final Path file, final String id) {
         file.attributes().setVersionId(id);
+        index.put(file, id);
         return id;
     }
 
+    @Override
+    public void cache(final Path file, final String id) {
+        index.put(file, id);
+    }
+
     @Override
     public StoregateIdProvider withCache(final Cache<Path> cache) {
         this.cache = cache;
@@ -85,6 +85,7 @@ public class StoregateListService implements ListService {
                             EnumSet.of(Path.Type.directory) :
                             EnumSet.of(Path.Type.file);
                         final Path p = new Path(directory, f.getName(), type, attrs);
+                        fileid.cache(p, attrs.getFileId());
                         children.add(p);
                         listener.chunk(directory, children);
                     }
@@ -60,8 +60,9 @@ public class StoregateMoveFeature implements Move {
                 .name(renamed.getName())
                 .parentID(fileid.getFileid(renamed.getParent(), new DisabledListProgressListener()))
                 .mode(1); // Overwrite
+            final String id = fileid.getFileid(file, new DisabledListProgressListener());
             final HttpEntityEnclosingRequestBase request;
-            request = new HttpPost(String.format("%s/v4/files/%s/move", client.getBasePath(), fileid.getFileid(file, new DisabledListProgressListener())));
+            request = new HttpPost(String.format("%s/v4/files/%s/move", client.getBasePath(), id));
             if(status.getLockId() != null) {
                 request.addHeader("X-Lock-Id", status.getLockId().toString());
             }
@@ -72,6 +73,8 @@ public class StoregateMoveFeature implements Move {
             try {
                 switch(response.getStatusLine().getStatusCode()) {
                     case HttpStatus.SC_NO_CONTENT:
+                        fileid.cache(file, null);
+                        fileid.cache(renamed, id);
                         return renamed;
                     default:
                         throw new StoregateExceptionMappingService().map(new ApiException(response.getStatusLine().getStatusCode(), response.getStatusLine().getReasonPhrase()));
@@ -162,6 +162,7 @@ public class StoregateMultipartWriteFeature implements MultipartWrite<String> {
                                     case HttpStatus.SC_CREATED:
                                         final FileMetadata result = new JSON().getContext(FileMetadata.class).readValue(new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8), FileMetadata.class);
                                         overall.setId(result.getId());
+                                        fileid.cache(file, result.getId());
                                     case HttpStatus.SC_NO_CONTENT:
                                         // Upload complete
                                         offset += content.length;
@@ -214,6 +215,7 @@ public class StoregateMultipartWriteFeature implements MultipartWrite<String> {
                                 final FileMetadata result = new JSON().getContext(FileMetadata.class).readValue(new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8),
                                     FileMetadata.class);
                                 overall.setId(result.getId());
+                                fileid.cache(file, result.getId());
                             case HttpStatus.SC_NO_CONTENT:
                                 break;
                             default:
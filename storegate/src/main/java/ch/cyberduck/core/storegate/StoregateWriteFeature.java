@@ -139,6 +139,7 @@ public class StoregateWriteFeature extends AbstractHttpWriteFeature<String> {
                             case HttpStatus.SC_CREATED:
                                 final FileMetadata result = new JSON().getContext(FileMetadata.class).readValue(new InputStreamReader(putResponse.getEntity().getContent(), StandardCharsets.UTF_8),
                                     FileMetadata.class);
+                                fileid.cache(file, result.getId());
                                 return result.getId();
                             default:
                                 throw new StoregateExceptionMappingService().map(new ApiException(putResponse.getStatusLine().getStatusCode(), putResponse.getStatusLine().getReasonPhrase(), Collections.emptyMap(),